@@ -0,0 +1,106 @@
+package com.sahabatquran.webapp.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Background job executors
+ *
+ * Each kind of background work gets its own bounded, named pool so a burst of one
+ * kind cannot starve the others:
+ * - reportExecutor: report batch coordinators; rejects when full so callers can fail the batch
+ * - reportWorkerExecutor: PDF rendering workers, sized by app.reports.max-concurrent-generations
+ * - emailExecutor: report distribution and reminders; runs on the caller when full
+ * - analyticsExecutor: analytics sections of all dashboard requests, each request capped by
+ *   app.analytics.max-parallel-sections; runs on the caller when full
+ *
+ * Scheduling is enabled for the report job queue heartbeat and lease reaper.
+ *
+ * Pool size, active threads and queue depth of every executor are published through
+ * the actuator metrics endpoint as executor.* meters tagged with the bean name.
+ */
+@Slf4j
+@Configuration
+@EnableAsync
+@EnableScheduling
+public class AsyncConfig implements AsyncConfigurer {
+
+    public static final String REPORT_EXECUTOR = "reportExecutor";
+    public static final String REPORT_WORKER_EXECUTOR = "reportWorkerExecutor";
+    public static final String EMAIL_EXECUTOR = "emailExecutor";
+    public static final String ANALYTICS_EXECUTOR = "analyticsExecutor";
+
+    @Value("${app.async.report.pool-size:2}")
+    private int reportPoolSize;
+
+    @Value("${app.async.report.queue-capacity:20}")
+    private int reportQueueCapacity;
+
+    @Value("${app.reports.max-concurrent-generations:5}")
+    private int reportWorkerPoolSize;
+
+    @Value("${app.async.report-worker.queue-capacity:100}")
+    private int reportWorkerQueueCapacity;
+
+    @Value("${app.async.email.pool-size:2}")
+    private int emailPoolSize;
+
+    @Value("${app.async.email.queue-capacity:500}")
+    private int emailQueueCapacity;
+
+    @Value("${app.async.analytics.pool-size:8}")
+    private int analyticsPoolSize;
+
+    @Value("${app.async.analytics.queue-capacity:50}")
+    private int analyticsQueueCapacity;
+
+    @Bean(name = REPORT_EXECUTOR)
+    public ThreadPoolTaskExecutor reportExecutor() {
+        return createExecutor("report-", reportPoolSize, reportQueueCapacity, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Bean(name = REPORT_WORKER_EXECUTOR)
+    public ThreadPoolTaskExecutor reportWorkerExecutor() {
+        return createExecutor("report-worker-", reportWorkerPoolSize, reportWorkerQueueCapacity,
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @Bean(name = EMAIL_EXECUTOR)
+    public ThreadPoolTaskExecutor emailExecutor() {
+        return createExecutor("email-", emailPoolSize, emailQueueCapacity, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @Bean(name = ANALYTICS_EXECUTOR)
+    public ThreadPoolTaskExecutor analyticsExecutor() {
+        return createExecutor("analytics-", analyticsPoolSize, analyticsQueueCapacity,
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @Override
+    public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
+        return (ex, method, params) -> log.error("Uncaught error in async method {}", method.getName(), ex);
+    }
+
+    private ThreadPoolTaskExecutor createExecutor(String threadNamePrefix, int poolSize, int queueCapacity,
+                                                  RejectedExecutionHandler rejectionPolicy) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setCorePoolSize(Math.max(1, poolSize));
+        executor.setMaxPoolSize(Math.max(1, poolSize));
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(rejectionPolicy);
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.setAcceptTasksAfterContextClose(false);
+        return executor;
+    }
+}
@@ -0,0 +1,33 @@
+package com.sahabatquran.webapp.config;
+
+import com.sahabatquran.webapp.service.ReferenceDataCacheService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * /actuator/referencedata: reference data cache statistics (GET) and eviction (DELETE)
+ * after reference tables were changed outside the application
+ */
+@Component
+@Endpoint(id = "referencedata")
+@RequiredArgsConstructor
+public class ReferenceDataCacheEndpoint {
+
+    private final ReferenceDataCacheService referenceDataCacheService;
+
+    @ReadOperation
+    public Map<String, Object> statistics() {
+        return referenceDataCacheService.getStatistics();
+    }
+
+    @DeleteOperation
+    public Map<String, Object> evict() {
+        referenceDataCacheService.evictAll();
+        return referenceDataCacheService.getStatistics();
+    }
+}
@@ -0,0 +1,42 @@
+package com.sahabatquran.webapp.config;
+
+import com.sahabatquran.webapp.security.SessionAttributeCodec;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.core.session.SessionRegistry;
+import org.springframework.session.FindByIndexNameSessionRepository;
+import org.springframework.session.Session;
+import org.springframework.session.config.SessionRepositoryCustomizer;
+import org.springframework.session.jdbc.JdbcIndexedSessionRepository;
+import org.springframework.session.security.SpringSessionBackedSessionRegistry;
+
+/**
+ * HTTP sessions stored in PostgreSQL with Spring Session JDBC
+ *
+ * Every app node reads and writes the same spring_session tables (V008), so requests
+ * of one user can go to any node behind the load balancer without sticky sessions:
+ * - attributes are serialized by SessionAttributeCodec (compact security contexts)
+ * - the session registry behind maximumSessions(1) finds a user's sessions through the
+ *   principal name index, so a login on one node expires the session held on another
+ * - expired sessions are deleted in batches by ExpiredSessionCleaner instead of the
+ *   built-in cleanup cron (spring.session.jdbc.cleanup-cron=-)
+ */
+@Configuration
+public class SessionConfig {
+
+    @Bean
+    public SessionRepositoryCustomizer<JdbcIndexedSessionRepository> sessionAttributeCodecCustomizer(
+            SessionAttributeCodec codec) {
+        return repository -> repository.setConversionService(codec.conversionService());
+    }
+
+    @Bean
+    public SessionRegistry sessionRegistry(FindByIndexNameSessionRepository<? extends Session> sessionRepository) {
+        return clusteredSessionRegistry(sessionRepository);
+    }
+
+    private static <S extends Session> SessionRegistry clusteredSessionRegistry(
+            FindByIndexNameSessionRepository<S> sessionRepository) {
+        return new SpringSessionBackedSessionRegistry<>(sessionRepository);
+    }
+}
@@ -3,15 +3,14 @@ package com.sahabatquran.webapp.controller;
 import com.sahabatquran.webapp.dto.AssessmentFoundationDto;
 import com.sahabatquran.webapp.dto.LevelDistributionDto;
 import com.sahabatquran.webapp.entity.AcademicTerm;
-import com.sahabatquran.webapp.entity.User;
 import com.sahabatquran.webapp.repository.*;
+import com.sahabatquran.webapp.security.AuthenticatedUser;
+import com.sahabatquran.webapp.security.CurrentUser;
 import com.sahabatquran.webapp.service.AcademicPlanningService;
 import com.sahabatquran.webapp.service.ClassGenerationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
@@ -33,7 +32,6 @@ public class AcademicPlanningController {
     
     private final AcademicPlanningService academicPlanningService;
     private final ClassGenerationService classGenerationService;
-    private final UserRepository userRepository;
     private final AcademicTermRepository academicTermRepository;
     
     /**
@@ -43,13 +41,9 @@ public class AcademicPlanningController {
     @GetMapping("/assessment-foundation")
     @PreAuthorize("hasAuthority('ACADEMIC_TERM_MANAGE')")
     public String assessmentFoundation(@RequestParam(required = false) String termId,
-                                      @AuthenticationPrincipal UserDetails userDetails,
+                                      @CurrentUser AuthenticatedUser currentUser,
                                       Model model) {
-        log.info("Loading assessment foundation dashboard for user: {}", userDetails.getUsername());
-        
-        // Get current user
-        User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        log.info("Loading assessment foundation dashboard for user: {}", currentUser.getUsername());
         
         // Get active or selected term  
         UUID parsedTermId = parseTermId(termId);
@@ -111,14 +105,11 @@ public class AcademicPlanningController {
     @GetMapping("/level-distribution")
     @PreAuthorize("hasAuthority('ACADEMIC_TERM_MANAGE')")
     public String levelDistribution(@RequestParam(required = false) String termId,
-                                   @AuthenticationPrincipal UserDetails userDetails,
+                                   @CurrentUser AuthenticatedUser currentUser,
                                    Model model) {
-        log.info("Loading level distribution analysis for user: {}", userDetails.getUsername());
+        log.info("Loading level distribution analysis for user: {}", currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             UUID parsedTermId = parseTermId(termId);
             AcademicTerm selectedTerm = getSelectedTerm(parsedTermId);
             
@@ -149,12 +140,9 @@ public class AcademicPlanningController {
     @GetMapping("/semester-launch")
     @PreAuthorize("hasAuthority('ACADEMIC_TERM_MANAGE')")
     public String semesterLaunch(@RequestParam(required = false) UUID termId,
-                                @AuthenticationPrincipal UserDetails userDetails,
+                                @CurrentUser AuthenticatedUser currentUser,
                                 Model model) {
-        log.info("Loading semester launch dashboard for user: {}", userDetails.getUsername());
-        
-        User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        log.info("Loading semester launch dashboard for user: {}", currentUser.getUsername());
         
         AcademicTerm selectedTerm = getSelectedTerm(termId);
         
@@ -179,14 +167,11 @@ public class AcademicPlanningController {
     @PostMapping("/semester-launch/initiate")
     @PreAuthorize("hasAuthority('ACADEMIC_TERM_MANAGE')")
     public String initiateSemesterPreparation(@RequestParam UUID termId,
-                                            @AuthenticationPrincipal UserDetails userDetails,
+                                            @CurrentUser AuthenticatedUser currentUser,
                                             RedirectAttributes redirectAttributes) {
-        log.info("Initiating semester preparation for term: {} by user: {}", termId, userDetails.getUsername());
+        log.info("Initiating semester preparation for term: {} by user: {}", termId, currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             academicPlanningService.initiatePreparationProcess(termId, currentUser.getId());
             
             redirectAttributes.addFlashAttribute("success", 
@@ -209,14 +194,11 @@ public class AcademicPlanningController {
     @GetMapping("/availability-monitoring")
     @PreAuthorize("hasAuthority('TEACHER_AVAILABILITY_VIEW')")
     public String availabilityMonitoring(@RequestParam(required = false) UUID termId,
-                                        @AuthenticationPrincipal UserDetails userDetails,
+                                        @CurrentUser AuthenticatedUser currentUser,
                                         Model model) {
-        log.info("Loading availability monitoring for user: {}", userDetails.getUsername());
+        log.info("Loading availability monitoring for user: {}", currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             AcademicTerm selectedTerm = getSelectedTerm(termId);
             
             // Get availability submission status
@@ -247,14 +229,11 @@ public class AcademicPlanningController {
     @GetMapping("/generation-readiness")
     @PreAuthorize("hasAuthority('CLASS_GENERATION_RUN')")
     public String generationReadiness(@RequestParam(required = false) UUID termId,
-                                     @AuthenticationPrincipal UserDetails userDetails,
+                                     @CurrentUser AuthenticatedUser currentUser,
                                      Model model) {
-        log.info("Loading generation readiness check for user: {}", userDetails.getUsername());
+        log.info("Loading generation readiness check for user: {}", currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             AcademicTerm selectedTerm = getSelectedTerm(termId);
             
             // Get generation readiness status
@@ -290,14 +269,11 @@ public class AcademicPlanningController {
                                  @RequestParam(defaultValue = "6") Integer maxClassesPerTeacher,
                                  @RequestParam(defaultValue = "false") Boolean allowUndersizedClasses,
                                  @RequestParam(defaultValue = "BALANCE") String priorityStrategy,
-                                 @AuthenticationPrincipal UserDetails userDetails,
+                                 @CurrentUser AuthenticatedUser currentUser,
                                  RedirectAttributes redirectAttributes) {
-        log.info("Generating classes for term: {} by user: {}", termId, userDetails.getUsername());
+        log.info("Generating classes for term: {} by user: {}", termId, currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             // Build generation parameters
             var parameters = com.sahabatquran.webapp.dto.ClassGenerationDto.GenerationParameters.builder()
                     .defaultMinClassSize(defaultMinClassSize)
@@ -335,14 +311,11 @@ public class AcademicPlanningController {
     @PreAuthorize("hasAuthority('CLASS_GENERATION_REVIEW')")
     public String classRefinement(@RequestParam(required = false) UUID termId,
                                  @RequestParam(required = false) UUID proposalId,
-                                 @AuthenticationPrincipal UserDetails userDetails,
+                                 @CurrentUser AuthenticatedUser currentUser,
                                  Model model) {
-        log.info("Loading class refinement interface for user: {}", userDetails.getUsername());
+        log.info("Loading class refinement interface for user: {}", currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             AcademicTerm selectedTerm = getSelectedTerm(termId);
             
             // Get refinement data
@@ -378,9 +351,9 @@ public class AcademicPlanningController {
                                              @RequestParam UUID studentId,
                                              @RequestParam UUID fromClassId,
                                              @RequestParam UUID toClassId,
-                                             @AuthenticationPrincipal UserDetails userDetails) {
+                                             @CurrentUser AuthenticatedUser currentUser) {
         log.info("Transferring student: {} from class: {} to class: {} by user: {}", 
-                studentId, fromClassId, toClassId, userDetails.getUsername());
+                studentId, fromClassId, toClassId, currentUser.getUsername());
         
         Map<String, Object> response = new HashMap<>();
         
@@ -407,14 +380,11 @@ public class AcademicPlanningController {
     @PreAuthorize("hasAuthority('SCHEDULE_APPROVE')")
     public String approveProposal(@RequestParam UUID proposalId,
                                  @RequestParam UUID termId,
-                                 @AuthenticationPrincipal UserDetails userDetails,
+                                 @CurrentUser AuthenticatedUser currentUser,
                                  RedirectAttributes redirectAttributes) {
-        log.info("Approving class proposal: {} by user: {}", proposalId, userDetails.getUsername());
+        log.info("Approving class proposal: {} by user: {}", proposalId, currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             classGenerationService.approveClassProposal(proposalId, currentUser.getId());
             
             redirectAttributes.addFlashAttribute("success", 
@@ -437,12 +407,9 @@ public class AcademicPlanningController {
     @GetMapping("/final-schedule-review")
     @PreAuthorize("hasAuthority('SCHEDULE_APPROVE')")
     public String finalScheduleReview(@RequestParam(required = false) UUID termId,
-                                     @AuthenticationPrincipal UserDetails userDetails,
+                                     @CurrentUser AuthenticatedUser currentUser,
                                      Model model) {
-        log.info("Loading final schedule review for user: {}", userDetails.getUsername());
-        
-        User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        log.info("Loading final schedule review for user: {}", currentUser.getUsername());
         
         AcademicTerm selectedTerm = getSelectedTerm(termId);
         
@@ -467,14 +434,11 @@ public class AcademicPlanningController {
     @GetMapping("/system-implementation")
     @PreAuthorize("hasAuthority('SYSTEM_GOLIVE_MANAGE')")
     public String systemImplementation(@RequestParam(required = false) UUID termId,
-                                      @AuthenticationPrincipal UserDetails userDetails,
+                                      @CurrentUser AuthenticatedUser currentUser,
                                       Model model) {
-        log.info("Loading system implementation for user: {}", userDetails.getUsername());
+        log.info("Loading system implementation for user: {}", currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             AcademicTerm selectedTerm = getSelectedTerm(termId);
             
             // Get implementation status
@@ -504,14 +468,11 @@ public class AcademicPlanningController {
     @GetMapping("/system-golive")
     @PreAuthorize("hasAuthority('SYSTEM_GOLIVE_MANAGE')")
     public String systemGoLive(@RequestParam(required = false) UUID termId,
-                              @AuthenticationPrincipal UserDetails userDetails,
+                              @CurrentUser AuthenticatedUser currentUser,
                               Model model) {
-        log.info("Loading system go-live for user: {}", userDetails.getUsername());
+        log.info("Loading system go-live for user: {}", currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             AcademicTerm selectedTerm = getSelectedTerm(termId);
             
             // Get go-live readiness
@@ -541,14 +502,11 @@ public class AcademicPlanningController {
     @PostMapping("/system-golive/execute")
     @PreAuthorize("hasAuthority('SYSTEM_GOLIVE_MANAGE')")
     public String executeGoLive(@RequestParam UUID termId,
-                               @AuthenticationPrincipal UserDetails userDetails,
+                               @CurrentUser AuthenticatedUser currentUser,
                                RedirectAttributes redirectAttributes) {
-        log.info("Executing system go-live for term: {} by user: {}", termId, userDetails.getUsername());
+        log.info("Executing system go-live for term: {} by user: {}", termId, currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             academicPlanningService.executeSystemGoLive(termId, currentUser.getId());
             
             redirectAttributes.addFlashAttribute("success", 
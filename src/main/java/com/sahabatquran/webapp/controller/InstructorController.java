@@ -9,22 +9,20 @@ import com.sahabatquran.webapp.entity.ClassSession;
 import com.sahabatquran.webapp.entity.ClassGroup;
 import com.sahabatquran.webapp.entity.TeacherAttendance;
 import com.sahabatquran.webapp.repository.AcademicTermRepository;
-import com.sahabatquran.webapp.repository.UserRepository;
 import com.sahabatquran.webapp.repository.SessionRepository;
 import com.sahabatquran.webapp.repository.ClassSessionRepository;
 import com.sahabatquran.webapp.repository.TeacherAttendanceRepository;
+import com.sahabatquran.webapp.security.AuthenticatedUser;
+import com.sahabatquran.webapp.security.CurrentUser;
 import com.sahabatquran.webapp.service.TeacherAvailabilityService;
 import com.sahabatquran.webapp.service.TeacherAvailabilityChangeRequestService;
 import com.sahabatquran.webapp.service.SessionService;
 import com.sahabatquran.webapp.service.TeacherPreClosureService;
-import com.sahabatquran.webapp.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
@@ -47,14 +45,12 @@ public class InstructorController {
     
     private final TeacherAvailabilityService teacherAvailabilityService;
     private final TeacherAvailabilityChangeRequestService changeRequestService;
-    private final UserRepository userRepository;
     private final AcademicTermRepository academicTermRepository;
     private final SessionRepository sessionRepository;
     private final ClassSessionRepository classSessionRepository;
     private final TeacherAttendanceRepository teacherAttendanceRepository;
     private final SessionService sessionService;
     private final TeacherPreClosureService teacherPreClosureService;
-    private final UserService userService;
     
     /**
      * Instructor Dashboard
@@ -62,15 +58,12 @@ public class InstructorController {
      */
     @GetMapping("/dashboard")
     @PreAuthorize("hasAuthority('CLASS_VIEW')")
-    public String dashboard(@AuthenticationPrincipal UserDetails userDetails,
+    public String dashboard(@CurrentUser AuthenticatedUser currentUser,
                            Model model,
                            jakarta.servlet.http.HttpServletRequest request) {
-        log.info("Loading instructor dashboard for: {}", userDetails.getUsername());
+        log.info("Loading instructor dashboard for: {}", currentUser.getUsername());
 
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
             model.addAttribute("user", currentUser);
             model.addAttribute("pageTitle", "Instructor Dashboard");
 
@@ -97,14 +90,11 @@ public class InstructorController {
      */
     @GetMapping("/dashboard/stats")
     @PreAuthorize("hasAuthority('CLASS_VIEW')")
-    public String dashboardStats(@AuthenticationPrincipal UserDetails userDetails,
+    public String dashboardStats(@CurrentUser AuthenticatedUser currentUser,
                                 Model model) {
-        log.info("Loading dashboard stats for: {}", userDetails.getUsername());
+        log.info("Loading dashboard stats for: {}", currentUser.getUsername());
 
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
             addDashboardStats(currentUser, model);
 
             return "instructor/fragments :: dashboard-stats";
@@ -118,7 +108,7 @@ public class InstructorController {
     /**
      * Helper to add dashboard stats to model
      */
-    private void addDashboardStats(User instructor, Model model) {
+    private void addDashboardStats(AuthenticatedUser instructor, Model model) {
         LocalDate today = LocalDate.now();
         LocalDate weekEnd = today.plusDays(7);
 
@@ -157,14 +147,11 @@ public class InstructorController {
     @GetMapping("/availability-submission")
     @PreAuthorize("hasAuthority('TEACHER_AVAILABILITY_SUBMIT')")
     public String availabilitySubmission(@RequestParam(required = false) UUID termId,
-                                        @AuthenticationPrincipal UserDetails userDetails,
+                                        @CurrentUser AuthenticatedUser currentUser,
                                         Model model) {
-        log.info("Loading availability submission for instructor: {}", userDetails.getUsername());
+        log.info("Loading availability submission for instructor: {}", currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             // Get active or selected term
             AcademicTerm selectedTerm = getSelectedTerm(termId);
             
@@ -210,15 +197,12 @@ public class InstructorController {
                                    @RequestParam(required = false) List<String> preferredLevels,
                                    @RequestParam(required = false) String specialConstraints,
                                    @RequestParam List<String> availabilitySlots, // Format: "dayOfWeek-sessionTime"
-                                   @AuthenticationPrincipal UserDetails userDetails,
+                                   @CurrentUser AuthenticatedUser currentUser,
                                    RedirectAttributes redirectAttributes) {
         log.info("Processing availability submission for instructor: {} and term: {}", 
-                userDetails.getUsername(), termId);
+                currentUser.getUsername(), termId);
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             // Build availability matrix from form data
             TeacherAvailabilityDto.AvailabilityMatrix matrix = TeacherAvailabilityDto.AvailabilityMatrix.builder()
                     .maxClassesPerWeek(maxClassesPerWeek)
@@ -251,14 +235,11 @@ public class InstructorController {
     @GetMapping("/my-classes")
     @PreAuthorize("hasAuthority('CLASS_VIEW')")
     public String myClasses(@RequestParam(required = false) UUID termId,
-                           @AuthenticationPrincipal UserDetails userDetails,
+                           @CurrentUser AuthenticatedUser currentUser,
                            Model model) {
-        log.info("Loading assigned classes for instructor: {}", userDetails.getUsername());
+        log.info("Loading assigned classes for instructor: {}", currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             AcademicTerm selectedTerm = getSelectedTerm(termId);
             
             // Get assigned classes for this instructor
@@ -289,15 +270,12 @@ public class InstructorController {
     @GetMapping("/class/{classId}/preparation")
     @PreAuthorize("hasAuthority('CLASS_VIEW')")
     public String classPreparation(@PathVariable UUID classId,
-                                  @AuthenticationPrincipal UserDetails userDetails,
+                                  @CurrentUser AuthenticatedUser currentUser,
                                   Model model) {
         log.info("Loading class preparation for class: {} by instructor: {}", 
-                classId, userDetails.getUsername());
+                classId, currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             // Verify instructor has access to this class
             boolean hasAccess = teacherAvailabilityService
                     .hasAccessToClass(currentUser.getId(), classId);
@@ -331,11 +309,9 @@ public class InstructorController {
      */
     @GetMapping("/class-readiness-confirmation")
     @PreAuthorize("hasAuthority('CLASS_VIEW')")
-    public String classReadinessConfirmation(@AuthenticationPrincipal UserDetails userDetails,
+    public String classReadinessConfirmation(@CurrentUser AuthenticatedUser currentUser,
                                             Model model) {
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
             model.addAttribute("user", currentUser);
             model.addAttribute("pageTitle", "Class Readiness Confirmation");
             return "instructor/class-readiness-confirmation";
@@ -352,11 +328,9 @@ public class InstructorController {
      */
     @GetMapping("/availability-confirmation")
     @PreAuthorize("hasAuthority('TEACHER_AVAILABILITY_SUBMIT')")
-    public String availabilityConfirmation(@AuthenticationPrincipal UserDetails userDetails,
+    public String availabilityConfirmation(@CurrentUser AuthenticatedUser currentUser,
                                           Model model) {
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
             model.addAttribute("user", currentUser);
             model.addAttribute("pageTitle", "Availability Confirmation");
             return "instructor/availability-confirmation";
@@ -374,12 +348,9 @@ public class InstructorController {
     @GetMapping("/class/{classId}/students")
     @PreAuthorize("hasAuthority('CLASS_VIEW')")
     public String viewStudentRoster(@PathVariable UUID classId,
-                                   @AuthenticationPrincipal UserDetails userDetails,
+                                   @CurrentUser AuthenticatedUser currentUser,
                                    Model model) {
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
             // For now, render a simple template with the required ID for tests
             model.addAttribute("user", currentUser);
             model.addAttribute("classId", classId);
@@ -400,15 +371,12 @@ public class InstructorController {
     @PreAuthorize("hasAuthority('CLASS_VIEW')")
     public String updatePreparationChecklist(@PathVariable UUID classId,
                                            @RequestParam List<UUID> completedItems,
-                                           @AuthenticationPrincipal UserDetails userDetails,
+                                           @CurrentUser AuthenticatedUser currentUser,
                                            RedirectAttributes redirectAttributes) {
         log.info("Updating preparation checklist for class: {} by instructor: {}", 
-                classId, userDetails.getUsername());
+                classId, currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             teacherAvailabilityService.updatePreparationChecklist(
                     classId, currentUser.getId(), completedItems);
             
@@ -436,15 +404,12 @@ public class InstructorController {
                                      @RequestParam String materialType,
                                      @RequestParam String materialTitle,
                                      @RequestParam(defaultValue = "false") Boolean shareWithStudents,
-                                     @AuthenticationPrincipal UserDetails userDetails,
+                                     @CurrentUser AuthenticatedUser currentUser,
                                      RedirectAttributes redirectAttributes) {
         log.info("Uploading material for class: {} by instructor: {}", 
-                classId, userDetails.getUsername());
+                classId, currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             teacherAvailabilityService.uploadClassMaterial(
                     classId, currentUser.getId(), file, materialType, materialTitle, shareWithStudents);
             
@@ -491,14 +456,11 @@ public class InstructorController {
      */
     @GetMapping("/availability")
     @PreAuthorize("hasAuthority('CLASS_VIEW')")
-    public String viewAvailabilityStatus(@AuthenticationPrincipal UserDetails userDetails,
+    public String viewAvailabilityStatus(@CurrentUser AuthenticatedUser currentUser,
                                        Model model) {
-        log.info("Viewing availability status for: {}", userDetails.getUsername());
+        log.info("Viewing availability status for: {}", currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             model.addAttribute("user", currentUser);
             model.addAttribute("pageTitle", "Availability Status");
             
@@ -518,14 +480,11 @@ public class InstructorController {
     @GetMapping("/availability/change-request")
     @PreAuthorize("hasAuthority('CLASS_VIEW')")
     public String showChangeRequestForm(@RequestParam(required = false) UUID termId,
-                                      @AuthenticationPrincipal UserDetails userDetails,
+                                      @CurrentUser AuthenticatedUser currentUser,
                                       Model model) {
-        log.info("Showing availability change request form for: {}", userDetails.getUsername());
+        log.info("Showing availability change request form for: {}", currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             AcademicTerm selectedTerm = getSelectedTerm(termId);
             
             // Check if teacher can submit change request
@@ -570,14 +529,11 @@ public class InstructorController {
     @PostMapping("/availability/change-request")
     @PreAuthorize("hasAuthority('CLASS_VIEW')")
     public String submitChangeRequest(@ModelAttribute TeacherAvailabilityChangeRequestDto.ChangeRequestFormDto formDto,
-                                    @AuthenticationPrincipal UserDetails userDetails,
+                                    @CurrentUser AuthenticatedUser currentUser,
                                     RedirectAttributes redirectAttributes) {
-        log.info("Submitting availability change request for: {}", userDetails.getUsername());
+        log.info("Submitting availability change request for: {}", currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             TeacherAvailabilityChangeRequestDto request = 
                     changeRequestService.submitChangeRequest(currentUser.getId(), formDto);
             
@@ -600,14 +556,11 @@ public class InstructorController {
      */
     @GetMapping("/availability/change-requests")
     @PreAuthorize("hasAuthority('CLASS_VIEW')")
-    public String viewChangeRequests(@AuthenticationPrincipal UserDetails userDetails,
+    public String viewChangeRequests(@CurrentUser AuthenticatedUser currentUser,
                                    Model model) {
-        log.info("Viewing change requests for: {}", userDetails.getUsername());
+        log.info("Viewing change requests for: {}", currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             List<TeacherAvailabilityChangeRequestDto> requests = 
                     changeRequestService.getChangeRequestsForTeacher(currentUser.getId());
             
@@ -630,14 +583,11 @@ public class InstructorController {
      */
     @GetMapping("/session-management")
     @PreAuthorize("hasAuthority('CLASS_VIEW')")
-    public String sessionManagement(@AuthenticationPrincipal UserDetails userDetails,
+    public String sessionManagement(@CurrentUser AuthenticatedUser currentUser, @CurrentUser User currentUser,
                                   Model model) {
-        log.info("Loading session management for instructor: {}", userDetails.getUsername());
+        log.info("Loading session management for instructor: {}", currentUser.getUsername());
 
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
             LocalDate today = LocalDate.now();
             LocalDate tomorrow = today.plusDays(1);
 
@@ -714,12 +664,10 @@ public class InstructorController {
     @PreAuthorize("hasAuthority('CLASS_VIEW')")
     @ResponseBody
     public ResponseEntity<?> checkIn(@RequestBody Map<String, String> checkInData,
-                                    @AuthenticationPrincipal UserDetails userDetails) {
-        log.info("Processing check-in for instructor: {}", userDetails.getUsername());
+                                    @CurrentUser User instructor) {
+        log.info("Processing check-in for instructor: {}", instructor.getUsername());
 
         try {
-            User instructor = userService.findByUsername(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("Instructor not found: " + userDetails.getUsername()));
             String location = checkInData.get("location");
             String lateReason = checkInData.get("lateReason");
 
@@ -770,14 +718,11 @@ public class InstructorController {
     @GetMapping("/pre-closure-dashboard")
     @PreAuthorize("hasAuthority('CLASS_VIEW')")
     public String preClosureDashboard(@RequestParam(required = false) UUID termId,
-                                     @AuthenticationPrincipal UserDetails userDetails,
+                                     @CurrentUser AuthenticatedUser currentUser,
                                      Model model) {
-        log.info("Loading pre-closure dashboard for teacher: {}", userDetails.getUsername());
+        log.info("Loading pre-closure dashboard for teacher: {}", currentUser.getUsername());
 
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
             // Get active term if not specified
             AcademicTerm selectedTerm;
             if (termId != null) {
@@ -821,14 +766,11 @@ public class InstructorController {
     @PostMapping("/finalize-grades")
     @PreAuthorize("hasAuthority('GRADE_MANAGE')")
     public String finalizeGrades(@RequestParam UUID classId,
-                                @AuthenticationPrincipal UserDetails userDetails,
+                                @CurrentUser AuthenticatedUser currentUser,
                                 RedirectAttributes redirectAttributes) {
-        log.info("Finalizing grades for class: {} by teacher: {}", classId, userDetails.getUsername());
+        log.info("Finalizing grades for class: {} by teacher: {}", classId, currentUser.getUsername());
 
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
             // Finalize grades for the class
             teacherPreClosureService.finalizeClassGrades(classId, currentUser.getId());
 
@@ -849,14 +791,11 @@ public class InstructorController {
     @PostMapping("/verify-attendance")
     @PreAuthorize("hasAuthority('CLASS_VIEW')")
     public String verifyAttendance(@RequestParam UUID classId,
-                                  @AuthenticationPrincipal UserDetails userDetails,
+                                  @CurrentUser AuthenticatedUser currentUser,
                                   RedirectAttributes redirectAttributes) {
-        log.info("Verifying attendance for class: {} by teacher: {}", classId, userDetails.getUsername());
+        log.info("Verifying attendance for class: {} by teacher: {}", classId, currentUser.getUsername());
 
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
             // Verify attendance records for the class
             teacherPreClosureService.verifyClassAttendance(classId, currentUser.getId());
 
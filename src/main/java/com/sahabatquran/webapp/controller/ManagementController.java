@@ -7,18 +7,20 @@ import com.sahabatquran.webapp.entity.User;
 import com.sahabatquran.webapp.repository.AcademicTermRepository;
 import com.sahabatquran.webapp.repository.StudentRegistrationRepository;
 import com.sahabatquran.webapp.repository.UserRepository;
+import com.sahabatquran.webapp.security.AuthenticatedUser;
+import com.sahabatquran.webapp.security.CurrentUser;
 import com.sahabatquran.webapp.service.StudentRegistrationService;
 import com.sahabatquran.webapp.service.TeacherLevelAssignmentService;
 import com.sahabatquran.webapp.service.TeacherAvailabilityChangeRequestService;
+import com.sahabatquran.webapp.service.AnalyticsExportService;
 import com.sahabatquran.webapp.service.CrossTermAnalyticsService;
 import com.sahabatquran.webapp.service.ManagementDashboardService;
 import com.sahabatquran.webapp.service.ResourceAllocationService;
 import com.sahabatquran.webapp.service.TermActivationService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.http.HttpHeaders;
@@ -28,6 +30,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -48,6 +51,7 @@ public class ManagementController {
     private final StudentRegistrationService registrationService;
     private final StudentRegistrationRepository registrationRepository;
     private final CrossTermAnalyticsService crossTermAnalyticsService;
+    private final AnalyticsExportService analyticsExportService;
     private final ManagementDashboardService managementDashboardService;
     private final ResourceAllocationService resourceAllocationService;
     private final TermActivationService termActivationService;
@@ -59,14 +63,11 @@ public class ManagementController {
     @GetMapping("/teacher-level-assignments")
     @PreAuthorize("hasAuthority('TEACHER_LEVEL_ASSIGN')")
     public String teacherLevelAssignments(@RequestParam(required = false) UUID termId,
-                                         @AuthenticationPrincipal UserDetails userDetails,
+                                         @CurrentUser AuthenticatedUser currentUser,
                                          Model model) {
-        log.info("Loading teacher level assignments for user: {}", userDetails.getUsername());
+        log.info("Loading teacher level assignments for user: {}", currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             // Get active or selected term
             AcademicTerm selectedTerm = getSelectedTerm(termId);
             
@@ -104,15 +105,12 @@ public class ManagementController {
                                      @RequestParam String competencyLevel,
                                      @RequestParam(required = false) Integer maxClassesForLevel,
                                      @RequestParam(required = false) String specialization,
-                                     @AuthenticationPrincipal UserDetails userDetails,
+                                     @CurrentUser AuthenticatedUser currentUser,
                                      RedirectAttributes redirectAttributes) {
         log.info("Assigning teacher: {} to level: {} for term: {} by user: {}", 
-                teacherId, levelId, termId, userDetails.getUsername());
+                teacherId, levelId, termId, currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             teacherLevelAssignmentService.assignTeacherToLevel(
                     teacherId, levelId, termId, competencyLevel, maxClassesForLevel, 
                     specialization, currentUser.getId());
@@ -141,14 +139,11 @@ public class ManagementController {
                                         @RequestParam(required = false) Integer maxClassesForLevel,
                                         @RequestParam(required = false) String specialization,
                                         @RequestParam UUID termId,
-                                        @AuthenticationPrincipal UserDetails userDetails,
+                                        @CurrentUser AuthenticatedUser currentUser,
                                         RedirectAttributes redirectAttributes) {
-        log.info("Updating teacher assignment: {} by user: {}", assignmentId, userDetails.getUsername());
+        log.info("Updating teacher assignment: {} by user: {}", assignmentId, currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             teacherLevelAssignmentService.updateTeacherAssignment(
                     assignmentId, competencyLevel, maxClassesForLevel, specialization, currentUser.getId());
             
@@ -173,9 +168,9 @@ public class ManagementController {
     @PreAuthorize("hasAuthority('TEACHER_LEVEL_ASSIGN')")
     public String deleteTeacherAssignment(@PathVariable UUID assignmentId,
                                         @RequestParam UUID termId,
-                                        @AuthenticationPrincipal UserDetails userDetails,
+                                        @CurrentUser AuthenticatedUser currentUser,
                                         RedirectAttributes redirectAttributes) {
-        log.info("Deleting teacher assignment: {} by user: {}", assignmentId, userDetails.getUsername());
+        log.info("Deleting teacher assignment: {} by user: {}", assignmentId, currentUser.getUsername());
         
         try {
             teacherLevelAssignmentService.deleteTeacherAssignment(assignmentId);
@@ -200,14 +195,11 @@ public class ManagementController {
     @GetMapping("/teacher-workload-analysis")
     @PreAuthorize("hasAuthority('TEACHER_LEVEL_ASSIGN')")
     public String teacherWorkloadAnalysis(@RequestParam(required = false) UUID termId,
-                                        @AuthenticationPrincipal UserDetails userDetails,
+                                        @CurrentUser AuthenticatedUser currentUser,
                                         Model model) {
-        log.info("Loading teacher workload analysis for user: {}", userDetails.getUsername());
+        log.info("Loading teacher workload analysis for user: {}", currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             AcademicTerm selectedTerm = getSelectedTerm(termId);
             
             // Get workload analysis data
@@ -239,14 +231,11 @@ public class ManagementController {
     @PreAuthorize("hasAuthority('TEACHER_LEVEL_ASSIGN')")
     public String autoAssignTeachers(@RequestParam UUID termId,
                                    @RequestParam(defaultValue = "false") Boolean overrideExisting,
-                                   @AuthenticationPrincipal UserDetails userDetails,
+                                   @CurrentUser AuthenticatedUser currentUser,
                                    RedirectAttributes redirectAttributes) {
-        log.info("Auto-assigning teachers for term: {} by user: {}", termId, userDetails.getUsername());
+        log.info("Auto-assigning teachers for term: {} by user: {}", termId, currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             int assignmentsCreated = teacherLevelAssignmentService
                     .autoAssignTeachersToLevels(termId, overrideExisting, currentUser.getId());
             
@@ -269,15 +258,12 @@ public class ManagementController {
     @PostMapping(value = "/teacher-level-assignments/auto-assign", consumes = "application/json", produces = "application/json")
     @PreAuthorize("hasAuthority('TEACHER_LEVEL_ASSIGN')")
     public ResponseEntity<Map<String, Object>> autoAssignTeachersAjax(@RequestBody Map<String, Object> payload,
-                                                                       @AuthenticationPrincipal UserDetails userDetails) {
+                                                                       @CurrentUser AuthenticatedUser currentUser) {
         try {
             String termIdStr = (String) payload.get("termId");
             Boolean overrideExisting = Boolean.valueOf(String.valueOf(payload.getOrDefault("overrideExisting", "false")));
             UUID termId = UUID.fromString(termIdStr);
 
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
             int created = teacherLevelAssignmentService.autoAssignTeachersToLevels(termId, overrideExisting, currentUser.getId());
 
             Map<String, Object> resp = new HashMap<>();
@@ -299,14 +285,11 @@ public class ManagementController {
     @PostMapping(value = "/teacher-level-assignments/balance-workload", consumes = "application/json", produces = "application/json")
     @PreAuthorize("hasAuthority('TEACHER_LEVEL_ASSIGN')")
     public ResponseEntity<Map<String, Object>> balanceWorkloadAjax(@RequestBody Map<String, Object> payload,
-                                                                    @AuthenticationPrincipal UserDetails userDetails) {
+                                                                    @CurrentUser AuthenticatedUser currentUser) {
         try {
             String termIdStr = (String) payload.get("termId");
             UUID termId = UUID.fromString(termIdStr);
 
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
             // For now, delegate to autoAssign with overrideExisting = true to rebalance
             int created = teacherLevelAssignmentService.autoAssignTeachersToLevels(termId, true, currentUser.getId());
 
@@ -329,7 +312,7 @@ public class ManagementController {
     @GetMapping("/teacher-level-assignments/export")
     @PreAuthorize("hasAuthority('TEACHER_LEVEL_ASSIGN')")
     public ResponseEntity<byte[]> exportTeacherAssignments(@RequestParam UUID termId,
-                                                           @AuthenticationPrincipal UserDetails userDetails) {
+                                                           @CurrentUser AuthenticatedUser currentUser) {
         try {
             var dto = teacherLevelAssignmentService.getTeacherLevelAssignments(termId);
 
@@ -363,14 +346,11 @@ public class ManagementController {
      */
     @GetMapping("/analytics/registrations")
     @PreAuthorize("hasAuthority('STUDENT_REG_REPORT')")
-    public String registrationAnalyticsDashboard(@AuthenticationPrincipal UserDetails userDetails,
+    public String registrationAnalyticsDashboard(@CurrentUser AuthenticatedUser currentUser,
                                                Model model) {
-        log.info("Loading registration analytics dashboard for user: {}", userDetails.getUsername());
+        log.info("Loading registration analytics dashboard for user: {}", currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             // Get registration statistics - provide default values for now
             Map<String, Long> statusCounts = new HashMap<>();
             for (StudentRegistration.RegistrationStatus status : StudentRegistration.RegistrationStatus.values()) {
@@ -408,14 +388,11 @@ public class ManagementController {
      */
     @GetMapping("/monitoring/registration-workflow")
     @PreAuthorize("hasAuthority('STUDENT_REG_REPORT')")
-    public String registrationWorkflowMonitoring(@AuthenticationPrincipal UserDetails userDetails,
+    public String registrationWorkflowMonitoring(@CurrentUser AuthenticatedUser currentUser,
                                                Model model) {
-        log.info("Loading registration workflow monitoring for user: {}", userDetails.getUsername());
+        log.info("Loading registration workflow monitoring for user: {}", currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             // Get workflow performance metrics
             Map<String, Object> workflowMetrics = new HashMap<>();
             workflowMetrics.put("avgProcessingTime", "2.3 days"); // Mock data
@@ -441,14 +418,11 @@ public class ManagementController {
      */
     @GetMapping("/policies/registration")
     @PreAuthorize("hasAuthority('STUDENT_REG_REPORT')")
-    public String registrationPolicies(@AuthenticationPrincipal UserDetails userDetails,
+    public String registrationPolicies(@CurrentUser AuthenticatedUser currentUser,
                                      Model model) {
-        log.info("Loading registration policies for user: {}", userDetails.getUsername());
+        log.info("Loading registration policies for user: {}", currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             model.addAttribute("user", currentUser);
             model.addAttribute("pageTitle", "Registration Policies");
             
@@ -485,14 +459,11 @@ public class ManagementController {
      */
     @GetMapping("/change-requests")
     @PreAuthorize("hasAuthority('TEACHER_LEVEL_ASSIGN')")
-    public String viewChangeRequests(@AuthenticationPrincipal UserDetails userDetails,
+    public String viewChangeRequests(@CurrentUser AuthenticatedUser currentUser,
                                    Model model) {
-        log.info("Viewing pending change requests for: {}", userDetails.getUsername());
+        log.info("Viewing pending change requests for: {}", currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             List<TeacherAvailabilityChangeRequestDto> pendingRequests = 
                     changeRequestService.getPendingChangeRequests();
             
@@ -517,14 +488,11 @@ public class ManagementController {
     @PreAuthorize("hasAuthority('TEACHER_LEVEL_ASSIGN')")
     public String approveChangeRequest(@PathVariable UUID requestId,
                                      @RequestParam(required = false) String reviewComments,
-                                     @AuthenticationPrincipal UserDetails userDetails,
+                                     @CurrentUser AuthenticatedUser currentUser,
                                      RedirectAttributes redirectAttributes) {
-        log.info("Approving change request: {} by: {}", requestId, userDetails.getUsername());
+        log.info("Approving change request: {} by: {}", requestId, currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             changeRequestService.approveChangeRequest(requestId, currentUser.getId(), reviewComments);
             
             redirectAttributes.addFlashAttribute("successMessage", 
@@ -548,14 +516,11 @@ public class ManagementController {
     @PreAuthorize("hasAuthority('TEACHER_LEVEL_ASSIGN')")
     public String rejectChangeRequest(@PathVariable UUID requestId,
                                     @RequestParam(required = false) String reviewComments,
-                                    @AuthenticationPrincipal UserDetails userDetails,
+                                    @CurrentUser AuthenticatedUser currentUser,
                                     RedirectAttributes redirectAttributes) {
-        log.info("Rejecting change request: {} by: {}", requestId, userDetails.getUsername());
+        log.info("Rejecting change request: {} by: {}", requestId, currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             changeRequestService.rejectChangeRequest(requestId, currentUser.getId(), reviewComments);
             
             redirectAttributes.addFlashAttribute("successMessage", 
@@ -579,14 +544,11 @@ public class ManagementController {
     @PreAuthorize("hasAuthority('ANALYTICS_VIEW')")
     public String crossTermAnalyticsDashboard(@RequestParam(required = false) List<UUID> termIds,
                                              @RequestParam(required = false) UUID singleTermId,
-                                             @AuthenticationPrincipal UserDetails userDetails,
+                                             @CurrentUser AuthenticatedUser currentUser,
                                              Model model) {
-        log.info("Loading cross-term analytics for user: {}", userDetails.getUsername());
+        log.info("Loading cross-term analytics for user: {}", currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             // Get available terms for selection
             List<AcademicTerm> availableTerms = academicTermRepository.findAll();
             
@@ -605,7 +567,7 @@ public class ManagementController {
             }
             
             // Get analytics data with user context for access restrictions
-            CrossTermAnalyticsDto analyticsData = crossTermAnalyticsService.getCrossTermAnalytics(termIds, currentUser);
+            CrossTermAnalyticsDto analyticsData = crossTermAnalyticsService.getCrossTermAnalytics(termIds, currentUser.getRoleCodes());
 
             // Get filter options for the template
             List<User> availableTeachers = userRepository.findByRoleName("Pengajar");
@@ -655,14 +617,11 @@ public class ManagementController {
     @PreAuthorize("hasAuthority('STUDENT_REG_REPORT')")
     public String crossTermComparison(@RequestParam List<UUID> termIds,
                                      @RequestParam(defaultValue = "SEMESTER_COMPARISON") String comparisonPeriod,
-                                     @AuthenticationPrincipal UserDetails userDetails,
+                                     @CurrentUser AuthenticatedUser currentUser,
                                      Model model) {
-        log.info("Loading cross-term comparison for user: {}", userDetails.getUsername());
+        log.info("Loading cross-term comparison for user: {}", currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             CrossTermComparisonDto comparisonData = crossTermAnalyticsService
                     .compareTermPerformance(termIds, comparisonPeriod);
             
@@ -687,14 +646,11 @@ public class ManagementController {
     @PreAuthorize("hasAuthority('STUDENT_REG_REPORT')")
     public String teacherPerformanceTrends(@RequestParam List<UUID> termIds,
                                           @RequestParam(required = false) UUID teacherId,
-                                          @AuthenticationPrincipal UserDetails userDetails,
+                                          @CurrentUser AuthenticatedUser currentUser,
                                           Model model) {
-        log.info("Loading teacher performance trends for user: {}", userDetails.getUsername());
+        log.info("Loading teacher performance trends for user: {}", currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             // Get list of teachers for selection
             List<User> teachers = userRepository.findByRoleName("INSTRUCTOR");
             
@@ -730,14 +686,11 @@ public class ManagementController {
     @GetMapping("/analytics/cross-term/operational-trends")
     @PreAuthorize("hasAuthority('STUDENT_REG_REPORT')")
     public String operationalTrends(@RequestParam List<UUID> termIds,
-                                   @AuthenticationPrincipal UserDetails userDetails,
+                                   @CurrentUser AuthenticatedUser currentUser,
                                    Model model) {
-        log.info("Loading operational trends for user: {}", userDetails.getUsername());
+        log.info("Loading operational trends for user: {}", currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             OperationalTrendsDto trendsData = crossTermAnalyticsService.getOperationalTrends(termIds);
             
             model.addAttribute("user", currentUser);
@@ -760,14 +713,11 @@ public class ManagementController {
     @GetMapping("/analytics/cross-term/executive-dashboard")
     @PreAuthorize("hasAuthority('STUDENT_REG_REPORT')")
     public String executiveDashboard(@RequestParam(required = false) List<UUID> termIds,
-                                    @AuthenticationPrincipal UserDetails userDetails,
+                                    @CurrentUser AuthenticatedUser currentUser,
                                     Model model) {
-        log.info("Loading executive dashboard for user: {}", userDetails.getUsername());
+        log.info("Loading executive dashboard for user: {}", currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             // Default to last 3 terms if none selected
             if (termIds == null || termIds.isEmpty()) {
                 List<AcademicTerm> recentTerms = academicTermRepository.findAll().stream()
@@ -795,32 +745,34 @@ public class ManagementController {
     /**
      * Export Analytics Report
      * URL: /analytics/cross-term/export
+     * Streams CSV or XLSX rows directly to the response output stream.
      */
     @GetMapping("/analytics/cross-term/export")
     @PreAuthorize("hasAuthority('STUDENT_REG_REPORT')")
-    public ResponseEntity<byte[]> exportAnalyticsReport(@RequestParam List<UUID> termIds,
-                                                       @RequestParam(defaultValue = "PDF") String format,
-                                                       @AuthenticationPrincipal UserDetails userDetails) {
-        log.info("Exporting analytics report for user: {} in format: {}", userDetails.getUsername(), format);
+    public void exportAnalyticsReport(@RequestParam List<UUID> termIds,
+                                      @RequestParam(defaultValue = "XLSX") String format,
+                                      @CurrentUser AuthenticatedUser currentUser,
+                                      HttpServletResponse response) throws IOException {
+        log.info("Exporting analytics report for user: {} in format: {}", currentUser.getUsername(), format);
+        
+        AnalyticsExportService.ExportFormat exportFormat = AnalyticsExportService.ExportFormat.from(format).orElse(null);
+        if (exportFormat == null) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "Unsupported export format: " + format);
+            return;
+        }
+        
+        response.setContentType(exportFormat.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+            "attachment; filename=cross-term-analytics." + exportFormat.getFileExtension());
         
         try {
-            byte[] reportData = crossTermAnalyticsService.exportAnalyticsReport(termIds, format);
-            
-            HttpHeaders headers = new HttpHeaders();
-            String filename = "cross-term-analytics." + format.toLowerCase();
-            headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename);
-            
-            MediaType mediaType = format.equalsIgnoreCase("PDF") ? 
-                MediaType.APPLICATION_PDF : MediaType.APPLICATION_OCTET_STREAM;
-            
-            return ResponseEntity.ok()
-                .headers(headers)
-                .contentType(mediaType)
-                .body(reportData);
-                
+            analyticsExportService.exportCrossTermAnalytics(termIds, exportFormat, response.getOutputStream());
         } catch (Exception e) {
             log.error("Error exporting report", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            if (!response.isCommitted()) {
+                response.reset();
+                response.sendError(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            }
         }
     }
     
@@ -831,14 +783,11 @@ public class ManagementController {
     @GetMapping("/resource-allocation/{termId}")
     @PreAuthorize("hasAuthority('RESOURCE_ALLOCATION_MANAGE')")
     public String resourceAllocation(@PathVariable UUID termId,
-                                   @AuthenticationPrincipal UserDetails userDetails,
+                                   @CurrentUser AuthenticatedUser currentUser,
                                    Model model) {
-        log.info("Loading resource allocation for term: {} by user: {}", termId, userDetails.getUsername());
+        log.info("Loading resource allocation for term: {} by user: {}", termId, currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             AcademicTerm term = academicTermRepository.findById(termId)
                     .orElseThrow(() -> new RuntimeException("Term not found"));
             
@@ -863,14 +812,11 @@ public class ManagementController {
     @GetMapping("/teacher-assignments/{termId}")
     @PreAuthorize("hasAuthority('TEACHER_LEVEL_ASSIGN')")
     public String teacherAssignments(@PathVariable UUID termId,
-                                   @AuthenticationPrincipal UserDetails userDetails,
+                                   @CurrentUser AuthenticatedUser currentUser,
                                    Model model) {
-        log.info("Loading teacher assignments for term: {} by user: {}", termId, userDetails.getUsername());
+        log.info("Loading teacher assignments for term: {} by user: {}", termId, currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             AcademicTerm term = academicTermRepository.findById(termId)
                     .orElseThrow(() -> new RuntimeException("Term not found"));
             
@@ -912,14 +858,11 @@ public class ManagementController {
     @GetMapping("/teacher-competency-review")
     @PreAuthorize("hasAuthority('TEACHER_COMPETENCY_REVIEW')")
     public String teacherCompetencyReview(@RequestParam(required = false) UUID termId,
-                                          @AuthenticationPrincipal UserDetails userDetails,
+                                          @CurrentUser AuthenticatedUser currentUser,
                                           Model model) {
-        log.info("Loading teacher competency review for user: {}", userDetails.getUsername());
+        log.info("Loading teacher competency review for user: {}", currentUser.getUsername());
 
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
             // Resolve selected term (fallback to first planning term)
             AcademicTerm selectedTerm = null;
             try {
@@ -953,13 +896,11 @@ public class ManagementController {
      */
     @GetMapping("/analytics/term-preparation")
     @PreAuthorize("hasAuthority('ANALYTICS_VIEW')")
-    public String termPreparationAnalytics(@AuthenticationPrincipal UserDetails userDetails,
+    public String termPreparationAnalytics(@CurrentUser AuthenticatedUser currentUser,
                                          Model model) {
-        log.info("Loading term preparation analytics for user: {}", userDetails.getUsername());
+        log.info("Loading term preparation analytics for user: {}", currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
             // Choose some recent planning terms for analytics
             List<AcademicTerm> planningTerms = academicTermRepository.findPlanningTerms();
             List<UUID> termIds = planningTerms.stream().limit(3).map(AcademicTerm::getId).collect(Collectors.toList());
@@ -989,14 +930,11 @@ public class ManagementController {
     @GetMapping("/term-activation-approval/{termId}")
     @PreAuthorize("hasAuthority('TERM_ACTIVATION_APPROVE')")
     public String termActivationApproval(@PathVariable UUID termId,
-                                       @AuthenticationPrincipal UserDetails userDetails,
+                                       @CurrentUser AuthenticatedUser currentUser,
                                        Model model) {
-        log.info("Loading term activation approval for term: {} by user: {}", termId, userDetails.getUsername());
+        log.info("Loading term activation approval for term: {} by user: {}", termId, currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             AcademicTerm term = academicTermRepository.findById(termId)
                     .orElseThrow(() -> new RuntimeException("Term not found"));
             // Enrich model with summary metrics useful for approval
@@ -1025,14 +963,11 @@ public class ManagementController {
     @GetMapping("/teacher-availability-review/{termId}")
     @PreAuthorize("hasAuthority('TEACHER_AVAILABILITY_REVIEW')")
     public String teacherAvailabilityReview(@PathVariable UUID termId,
-                                          @AuthenticationPrincipal UserDetails userDetails,
+                                          @CurrentUser AuthenticatedUser currentUser,
                                           Model model) {
-        log.info("Loading teacher availability review for term: {} by user: {}", termId, userDetails.getUsername());
+        log.info("Loading teacher availability review for term: {} by user: {}", termId, currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             AcademicTerm term = academicTermRepository.findById(termId)
                     .orElseThrow(() -> new RuntimeException("Term not found"));
             // Use assignment service to provide teacher summaries including availability
@@ -1059,14 +994,11 @@ public class ManagementController {
     @GetMapping("/term-preparation-dashboard/{termId}")
     @PreAuthorize("hasAuthority('TERM_PREPARATION_MONITOR')")
     public String termPreparationDashboard(@PathVariable UUID termId,
-                                         @AuthenticationPrincipal UserDetails userDetails,
+                                         @CurrentUser AuthenticatedUser currentUser,
                                          Model model) {
-        log.info("Loading term preparation dashboard for term: {} by user: {}", termId, userDetails.getUsername());
+        log.info("Loading term preparation dashboard for term: {} by user: {}", termId, currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             AcademicTerm term = academicTermRepository.findById(termId)
                     .orElseThrow(() -> new RuntimeException("Term not found"));
             // Gather analytics + assignment summaries for dashboard
@@ -1106,14 +1038,11 @@ public class ManagementController {
     @GetMapping("/assignment-validation/{termId}")
     @PreAuthorize("hasAuthority('ASSIGNMENT_VALIDATION')")
     public String assignmentValidation(@PathVariable UUID termId,
-                                     @AuthenticationPrincipal UserDetails userDetails,
+                                     @CurrentUser AuthenticatedUser currentUser,
                                      Model model) {
-        log.info("Loading assignment validation for term: {} by user: {}", termId, userDetails.getUsername());
+        log.info("Loading assignment validation for term: {} by user: {}", termId, currentUser.getUsername());
         
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             AcademicTerm term = academicTermRepository.findById(termId)
                     .orElseThrow(() -> new RuntimeException("Term not found"));
             // Provide assignments and basic validation metrics
@@ -1161,10 +1090,9 @@ public class ManagementController {
     public String resolveBlocker(@RequestParam UUID blockerId,
                                  @RequestParam UUID termId,
                                  @RequestParam(required = false) String notes,
-                                 @AuthenticationPrincipal UserDetails userDetails,
+                                 @CurrentUser AuthenticatedUser currentUser,
                                  RedirectAttributes redirectAttributes) {
         try {
-            var currentUser = userRepository.findByUsername(userDetails.getUsername()).orElseThrow();
             managementDashboardService.resolveBlocker(blockerId, currentUser.getId(), notes);
             redirectAttributes.addFlashAttribute("success", "Blocker resolved");
         } catch (Exception e) {
@@ -1177,10 +1105,9 @@ public class ManagementController {
     @PreAuthorize("hasAuthority('RESOURCE_ALLOCATION_MANAGE')")
     public String approveResourceAllocation(@PathVariable UUID termId,
                                             @RequestParam(required = false) String notes,
-                                            @AuthenticationPrincipal UserDetails userDetails,
+                                            @CurrentUser AuthenticatedUser currentUser,
                                             RedirectAttributes redirectAttributes) {
         try {
-            var currentUser = userRepository.findByUsername(userDetails.getUsername()).orElseThrow();
             resourceAllocationService.approve(termId, currentUser.getId(), notes);
             redirectAttributes.addFlashAttribute("success", "Resource allocation approved");
         } catch (Exception e) {
@@ -1206,10 +1133,9 @@ public class ManagementController {
     @PreAuthorize("hasAuthority('TERM_ACTIVATION_APPROVE')")
     public String approveActivation(@PathVariable UUID termId,
                                     @RequestParam(required = false) String approvalComments,
-                                    @AuthenticationPrincipal UserDetails userDetails,
+                                    @CurrentUser AuthenticatedUser currentUser,
                                     RedirectAttributes redirectAttributes) {
         try {
-            var currentUser = userRepository.findByUsername(userDetails.getUsername()).orElseThrow();
             termActivationService.approve(termId, currentUser.getId(), approvalComments);
             redirectAttributes.addFlashAttribute("success", "Term activation approved");
         } catch (Exception e) {
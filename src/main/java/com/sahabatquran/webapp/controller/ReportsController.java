@@ -5,7 +5,6 @@ import java.util.UUID;
 
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -18,6 +17,8 @@ import org.springframework.web.bind.annotation.ResponseBody;
 import com.sahabatquran.webapp.dto.StudentReportEmailDto;
 import com.sahabatquran.webapp.repository.EnrollmentRepository;
 import com.sahabatquran.webapp.repository.UserRepository;
+import com.sahabatquran.webapp.security.AuthenticatedUser;
+import com.sahabatquran.webapp.security.CurrentUser;
 import com.sahabatquran.webapp.service.EmailService;
 
 import lombok.RequiredArgsConstructor;
@@ -55,12 +56,10 @@ public class ReportsController {
 
     @GetMapping("/instructor/student/{studentId}")
     @PreAuthorize("hasAuthority('REPORT_CARD_VIEW')")
-    public String studentReportInstructor(@PathVariable UUID studentId, Model model, Authentication authentication) {
+    public String studentReportInstructor(@PathVariable UUID studentId, Model model,
+                                          @CurrentUser AuthenticatedUser currentUser) {
         log.info("Instructor attempting to access student report for ID: {}", studentId);
 
-        var currentUser = userRepository.findByUsername(authentication.getName())
-            .orElseThrow(() -> new AccessDeniedException("User not found"));
-
         var student = userRepository.findById(studentId)
             .orElseThrow(() -> new AccessDeniedException("Student not found"));
 
@@ -70,7 +69,7 @@ public class ReportsController {
 
         if (!canAccessStudent) {
             log.warn("Access denied: Instructor {} cannot access student report for ID: {}",
-                authentication.getName(), studentId);
+                currentUser.getUsername(), studentId);
             throw new AccessDeniedException("You don't have permission to access this student's report");
         }
 
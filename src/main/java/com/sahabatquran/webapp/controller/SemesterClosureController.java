@@ -3,18 +3,16 @@ package com.sahabatquran.webapp.controller;
 import com.sahabatquran.webapp.dto.BulkReportGenerationDto;
 import com.sahabatquran.webapp.entity.AcademicTerm;
 import com.sahabatquran.webapp.entity.ReportGenerationBatch;
-import com.sahabatquran.webapp.entity.User;
 import com.sahabatquran.webapp.repository.AcademicTermRepository;
 import com.sahabatquran.webapp.repository.ReportGenerationBatchRepository;
-import com.sahabatquran.webapp.repository.UserRepository;
+import com.sahabatquran.webapp.security.AuthenticatedUser;
+import com.sahabatquran.webapp.security.CurrentUser;
 import com.sahabatquran.webapp.service.BulkReportGenerationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
@@ -37,7 +35,6 @@ public class SemesterClosureController {
     private final BulkReportGenerationService bulkReportGenerationService;
     private final ReportGenerationBatchRepository batchRepository;
     private final AcademicTermRepository academicTermRepository;
-    private final UserRepository userRepository;
 
     /**
      * Semester Closure Dashboard
@@ -47,14 +44,11 @@ public class SemesterClosureController {
     @PreAuthorize("hasAuthority('TERM_CLOSURE_MANAGE')")
     public String semesterClosureDashboard(@RequestParam(required = false) UUID termId,
                                          @RequestParam(required = false) UUID batchStarted,
-                                         @AuthenticationPrincipal UserDetails userDetails,
+                                         @CurrentUser AuthenticatedUser currentUser,
                                          Model model) {
-        log.info("🎯 CONTROLLER REACHED: Loading semester closure dashboard for user: {}", userDetails.getUsername());
+        log.info("🎯 CONTROLLER REACHED: Loading semester closure dashboard for user: {}", currentUser.getUsername());
 
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
             // Get active term if not specified
             AcademicTerm selectedTerm;
             if (termId != null) {
@@ -145,13 +139,10 @@ public class SemesterClosureController {
     public ResponseEntity<Map<String, Object>> initiateBulkReportGeneration(
             @RequestParam UUID termId,
             @RequestBody BulkReportGenerationDto.ReportConfiguration config,
-            @AuthenticationPrincipal UserDetails userDetails) {
-        log.info("Initiating bulk report generation for term: {} by user: {}", termId, userDetails.getUsername());
+            @CurrentUser AuthenticatedUser currentUser) {
+        log.info("Initiating bulk report generation for term: {} by user: {}", termId, currentUser.getUsername());
 
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
             UUID batchId = bulkReportGenerationService.initiateBulkReportGeneration(
                     termId, config, currentUser.getId());
 
@@ -199,13 +190,10 @@ public class SemesterClosureController {
     @PreAuthorize("hasAuthority('TERM_CLOSURE_MANAGE')")
     @ResponseBody
     public ResponseEntity<Map<String, Object>> cancelBatch(@PathVariable UUID batchId,
-                                                          @AuthenticationPrincipal UserDetails userDetails) {
-        log.info("Cancelling batch: {} by user: {}", batchId, userDetails.getUsername());
+                                                          @CurrentUser AuthenticatedUser currentUser) {
+        log.info("Cancelling batch: {} by user: {}", batchId, currentUser.getUsername());
 
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
             boolean cancelled = bulkReportGenerationService.cancelBatch(batchId, currentUser.getId());
 
             Map<String, Object> response = new HashMap<>();
@@ -230,14 +218,11 @@ public class SemesterClosureController {
     @GetMapping("/pre-validation/{termId}")
     @PreAuthorize("hasAuthority('TERM_CLOSURE_MANAGE')")
     public String preClosureValidation(@PathVariable UUID termId,
-                                     @AuthenticationPrincipal UserDetails userDetails,
+                                     @CurrentUser AuthenticatedUser currentUser,
                                      Model model) {
-        log.info("Loading pre-closure validation for term: {} by user: {}", termId, userDetails.getUsername());
+        log.info("Loading pre-closure validation for term: {} by user: {}", termId, currentUser.getUsername());
 
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
             AcademicTerm term = academicTermRepository.findById(termId)
                     .orElseThrow(() -> new RuntimeException("Term not found"));
 
@@ -280,14 +265,11 @@ public class SemesterClosureController {
     @GetMapping("/batch/{batchId}")
     @PreAuthorize("hasAuthority('TERM_CLOSURE_MANAGE')")
     public String batchDetails(@PathVariable UUID batchId,
-                             @AuthenticationPrincipal UserDetails userDetails,
+                             @CurrentUser AuthenticatedUser currentUser,
                              Model model) {
-        log.info("Loading batch details for: {} by user: {}", batchId, userDetails.getUsername());
+        log.info("Loading batch details for: {} by user: {}", batchId, currentUser.getUsername());
 
         try {
-            User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
             BulkReportGenerationDto batchStatus = bulkReportGenerationService.getBatchStatus(batchId);
 
             ReportGenerationBatch batch = batchRepository.findById(batchId)
@@ -314,9 +296,9 @@ public class SemesterClosureController {
     @PostMapping("/execute/{termId}")
     @PreAuthorize("hasAuthority('TERM_CLOSURE_EXECUTE')")
     public String executeTermClosure(@PathVariable UUID termId,
-                                   @AuthenticationPrincipal UserDetails userDetails,
+                                   @CurrentUser AuthenticatedUser currentUser,
                                    RedirectAttributes redirectAttributes) {
-        log.info("Executing term closure for: {} by user: {}", termId, userDetails.getUsername());
+        log.info("Executing term closure for: {} by user: {}", termId, currentUser.getUsername());
 
         try {
             AcademicTerm term = academicTermRepository.findById(termId)
@@ -337,7 +319,7 @@ public class SemesterClosureController {
             redirectAttributes.addFlashAttribute("success",
                 "Term " + term.getTermName() + " has been successfully closed");
 
-            log.info("Term closure completed for: {} by user: {}", termId, userDetails.getUsername());
+            log.info("Term closure completed for: {} by user: {}", termId, currentUser.getUsername());
 
         } catch (Exception e) {
             log.error("Error executing term closure", e);
@@ -1,16 +1,14 @@
 package com.sahabatquran.webapp.controller;
 
 import com.sahabatquran.webapp.dto.SessionMonitoringDto;
-import com.sahabatquran.webapp.entity.User;
-import com.sahabatquran.webapp.repository.UserRepository;
+import com.sahabatquran.webapp.security.AuthenticatedUser;
+import com.sahabatquran.webapp.security.CurrentUser;
 import com.sahabatquran.webapp.service.SessionExecutionService;
 import com.sahabatquran.webapp.service.SessionMonitoringService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
@@ -27,7 +25,6 @@ public class SessionMonitoringController {
     
     private final SessionMonitoringService sessionMonitoringService;
     private final SessionExecutionService sessionExecutionService;
-    private final UserRepository userRepository;
     
     /**
      * Real-time monitoring dashboard
@@ -198,12 +195,9 @@ public class SessionMonitoringController {
      */
     @GetMapping("/instructor/dashboard")
     @PreAuthorize("hasAuthority('CLASS_VIEW')")
-    public String instructorDashboard(@AuthenticationPrincipal UserDetails userDetails,
+    public String instructorDashboard(@CurrentUser AuthenticatedUser user,
                                      Model model) {
-        log.info("Loading instructor dashboard for: {}", userDetails.getUsername());
-        
-        User user = userRepository.findByUsername(userDetails.getUsername())
-            .orElseThrow(() -> new RuntimeException("User not found"));
+        log.info("Loading instructor dashboard for: {}", user.getUsername());
         
         model.addAttribute("user", user);
         model.addAttribute("fullName", user.getFullName());
@@ -223,9 +217,9 @@ public class SessionMonitoringController {
      */
     @GetMapping("/instructor/session-management")
     @PreAuthorize("hasAuthority('CLASS_VIEW')")
-    public String sessionManagement(@AuthenticationPrincipal UserDetails userDetails,
+    public String sessionManagement(@CurrentUser AuthenticatedUser currentUser,
                                    Model model) {
-        return instructorDashboard(userDetails, model);
+        return instructorDashboard(currentUser, model);
     }
     
     /**
@@ -234,12 +228,9 @@ public class SessionMonitoringController {
     @GetMapping("/instructor/weekly-progress")
     @PreAuthorize("hasAuthority('CLASS_VIEW')")
     public String weeklyProgress(@RequestParam(defaultValue = "5") Integer week,
-                                @AuthenticationPrincipal UserDetails userDetails,
+                                @CurrentUser AuthenticatedUser user,
                                 Model model) {
-        log.info("Loading weekly progress for week: {} by: {}", week, userDetails.getUsername());
-        
-        User user = userRepository.findByUsername(userDetails.getUsername())
-            .orElseThrow(() -> new RuntimeException("User not found"));
+        log.info("Loading weekly progress for week: {} by: {}", week, user.getUsername());
         
         model.addAttribute("user", user);
         model.addAttribute("selectedWeek", week);
@@ -256,11 +247,8 @@ public class SessionMonitoringController {
     public ResponseEntity<String> checkIn(@PathVariable UUID sessionId,
                          @RequestParam String location,
                          @RequestParam String arrivalTime,
-                         @AuthenticationPrincipal UserDetails userDetails) {
+                         @CurrentUser AuthenticatedUser user) {
         try {
-            User user = userRepository.findByUsername(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-            
             sessionExecutionService.checkInTeacher(sessionId, user.getId(), location);
             
             return ResponseEntity.ok("{\"status\":\"success\",\"message\":\"Check-in berhasil\"}");
@@ -277,11 +265,8 @@ public class SessionMonitoringController {
     @PreAuthorize("hasAuthority('CLASS_VIEW')")
     @ResponseBody
     public ResponseEntity<String> startSession(@PathVariable UUID sessionId,
-                              @AuthenticationPrincipal UserDetails userDetails) {
+                              @CurrentUser AuthenticatedUser user) {
         try {
-            User user = userRepository.findByUsername(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-            
             sessionExecutionService.startSession(sessionId, user.getId());
             
             return ResponseEntity.ok("{\"status\":\"success\",\"message\":\"Session started successfully\"}");
@@ -299,11 +284,8 @@ public class SessionMonitoringController {
     @ResponseBody
     public ResponseEntity<String> submitSession(@PathVariable UUID sessionId,
                               @RequestParam String notes,
-                              @AuthenticationPrincipal UserDetails userDetails) {
+                              @CurrentUser AuthenticatedUser user) {
         try {
-            User user = userRepository.findByUsername(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-            
             sessionExecutionService.endSession(sessionId, user.getId(), null);
             
             return ResponseEntity.ok("{\"status\":\"success\",\"message\":\"Session submitted successfully\"}");
@@ -324,11 +306,8 @@ public class SessionMonitoringController {
                                   @RequestParam String newDate,
                                   @RequestParam String newTime,
                                   @RequestParam(required = false) String notes,
-                                  @AuthenticationPrincipal UserDetails userDetails) {
+                                  @CurrentUser AuthenticatedUser user) {
         try {
-            User user = userRepository.findByUsername(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-            
             var request = sessionExecutionService.requestReschedule(sessionId, user.getId(), 
                 reason, LocalDate.parse(newDate), newTime, notes);
             
@@ -4,15 +4,13 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sahabatquran.webapp.dto.FeedbackSubmissionDto;
 import com.sahabatquran.webapp.dto.StudentFeedbackDto;
-import com.sahabatquran.webapp.entity.User;
-import com.sahabatquran.webapp.repository.UserRepository;
+import com.sahabatquran.webapp.security.AuthenticatedUser;
+import com.sahabatquran.webapp.security.CurrentUser;
 import com.sahabatquran.webapp.service.StudentFeedbackService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
@@ -32,7 +30,6 @@ import java.util.UUID;
 public class StudentFeedbackController {
 
     private final StudentFeedbackService feedbackService;
-    private final UserRepository userRepository;
     private static final ObjectMapper objectMapper;
 
     static {
@@ -48,14 +45,11 @@ public class StudentFeedbackController {
      */
     @GetMapping("")
     @PreAuthorize("hasAuthority('STUDENT_FEEDBACK_SUBMIT')")
-    public String feedbackDashboard(@AuthenticationPrincipal UserDetails userDetails,
+    public String feedbackDashboard(@CurrentUser AuthenticatedUser student,
                                    Model model) {
-        log.info("Loading feedback dashboard for student: {}", userDetails.getUsername());
+        log.info("Loading feedback dashboard for student: {}", student.getUsername());
         
         try {
-            User student = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("Student not found"));
-            
             List<StudentFeedbackDto.CampaignSummary> activeCampaigns = 
                 feedbackService.getActiveCampaignsForStudent(student.getId());
             
@@ -83,14 +77,11 @@ public class StudentFeedbackController {
     @GetMapping("/campaign/{campaignId}")
     @PreAuthorize("hasAuthority('STUDENT_FEEDBACK_SUBMIT')")
     public String startFeedback(@PathVariable UUID campaignId,
-                               @AuthenticationPrincipal UserDetails userDetails,
+                               @CurrentUser AuthenticatedUser student,
                                Model model) {
-        log.info("Starting feedback for campaign: {} by student: {}", campaignId, userDetails.getUsername());
+        log.info("Starting feedback for campaign: {} by student: {}", campaignId, student.getUsername());
         
         try {
-            User student = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("Student not found"));
-            
             // Check if already submitted
             if (feedbackService.hasStudentSubmittedFeedback(campaignId, student.getId())) {
                 model.addAttribute("error", "Anda sudah memberikan feedback untuk campaign ini");
@@ -153,14 +144,11 @@ public class StudentFeedbackController {
     @PreAuthorize("hasAuthority('STUDENT_FEEDBACK_SUBMIT')")
     public String submitFeedback(@PathVariable UUID campaignId,
                                 @ModelAttribute FeedbackSubmissionDto.FeedbackData feedbackData,
-                                @AuthenticationPrincipal UserDetails userDetails,
+                                @CurrentUser AuthenticatedUser student,
                                 RedirectAttributes redirectAttributes) {
-        log.info("Submitting feedback for campaign: {} by student: {}", campaignId, userDetails.getUsername());
+        log.info("Submitting feedback for campaign: {} by student: {}", campaignId, student.getUsername());
         
         try {
-            User student = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("Student not found"));
-
             log.info("Form data received: {}", feedbackData);
             log.info("Answers count: {}", feedbackData.getAnswers() != null ? feedbackData.getAnswers().size() : "null");
 
@@ -208,13 +196,10 @@ public class StudentFeedbackController {
     @ResponseBody
     public ResponseEntity<?> autoSaveFeedback(@PathVariable UUID campaignId,
                                              @RequestBody FeedbackSubmissionDto.PartialData partialData,
-                                             @AuthenticationPrincipal UserDetails userDetails) {
+                                             @CurrentUser AuthenticatedUser student) {
         log.debug("Auto-saving feedback for campaign: {}", campaignId);
         
         try {
-            User student = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("Student not found"));
-            
             feedbackService.savePartialFeedback(campaignId, student.getId(), partialData);
             
             return ResponseEntity.ok()
@@ -233,14 +218,11 @@ public class StudentFeedbackController {
     @GetMapping("/confirmation/{campaignId}")
     @PreAuthorize("hasAuthority('STUDENT_FEEDBACK_SUBMIT')")
     public String showConfirmation(@PathVariable UUID campaignId,
-                                  @AuthenticationPrincipal UserDetails userDetails,
+                                  @CurrentUser AuthenticatedUser student,
                                   Model model) {
-        log.info("Showing confirmation for campaign: {} by student: {}", campaignId, userDetails.getUsername());
+        log.info("Showing confirmation for campaign: {} by student: {}", campaignId, student.getUsername());
         
         try {
-            User student = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("Student not found"));
-            
             String anonymousToken = feedbackService.getOrCreateAnonymousToken(student.getId(), campaignId);
             
             StudentFeedbackDto.SubmissionConfirmation confirmation = 
@@ -266,11 +248,8 @@ public class StudentFeedbackController {
     @PreAuthorize("hasAuthority('STUDENT_FEEDBACK_SUBMIT')")
     @ResponseBody
     public ResponseEntity<?> checkCompletionStatus(@PathVariable UUID campaignId,
-                                                  @AuthenticationPrincipal UserDetails userDetails) {
+                                                  @CurrentUser AuthenticatedUser student) {
         try {
-            User student = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("Student not found"));
-            
             StudentFeedbackDto.CompletionStatus status = 
                 feedbackService.getCampaignCompletionStatus(campaignId, student.getId());
             
@@ -291,11 +270,8 @@ public class StudentFeedbackController {
     @PreAuthorize("hasAuthority('STUDENT_FEEDBACK_SUBMIT')")
     @ResponseBody
     public ResponseEntity<?> recoverSession(@RequestParam String sessionToken,
-                                          @AuthenticationPrincipal UserDetails userDetails) {
+                                          @CurrentUser AuthenticatedUser student) {
         try {
-            User student = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("Student not found"));
-
             boolean recovered = feedbackService.recoverSession(sessionToken, student.getId());
 
             if (recovered) {
@@ -3,8 +3,12 @@ package com.sahabatquran.webapp.controller;
 import java.util.List;
 import java.util.UUID;
 import java.util.Optional;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -12,13 +16,14 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.http.ResponseEntity;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 import com.sahabatquran.webapp.dto.ReportGenerationJobDto;
 import com.sahabatquran.webapp.entity.User;
@@ -27,8 +32,14 @@ import com.sahabatquran.webapp.repository.UserRepository;
 import com.sahabatquran.webapp.repository.LevelRepository;
 import com.sahabatquran.webapp.repository.ClassGroupRepository;
 import com.sahabatquran.webapp.repository.AcademicTermRepository;
+import com.sahabatquran.webapp.security.AuthenticatedUser;
+import com.sahabatquran.webapp.security.CurrentUser;
+import com.sahabatquran.webapp.service.ClassPacketService;
+import com.sahabatquran.webapp.service.ReportDownloadService;
 import com.sahabatquran.webapp.service.ReportOrchestrationService;
+import com.sahabatquran.webapp.service.ReportProgressBroadcaster;
 
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import lombok.RequiredArgsConstructor;
@@ -54,6 +65,9 @@ public class StudentReportController {
     private final ClassGroupRepository classGroupRepository;
     private final AcademicTermRepository academicTermRepository;
     private final ReportOrchestrationService reportOrchestrationService;
+    private final ClassPacketService classPacketService;
+    private final ReportDownloadService reportDownloadService;
+    private final ReportProgressBroadcaster reportProgressBroadcaster;
 
     /**
      * Main student reports page with filters and selection
@@ -100,16 +114,11 @@ public class StudentReportController {
     @PostMapping("/generate-all")
     @PreAuthorize("hasAuthority('REPORT_CARD_VIEW')")
     public String generateAllReports(@RequestParam UUID termId,
-                                   HttpServletRequest request,
+                                   @CurrentUser AuthenticatedUser currentUser,
                                    RedirectAttributes redirectAttributes) {
         try {
             log.info("Starting generation of all student reports for term: {}", termId);
 
-            // Get current user
-            String username = request.getUserPrincipal().getName();
-            User currentUser = userRepository.findByUsername(username)
-                    .orElseThrow(() -> new IllegalStateException("Current user not found"));
-
             // Get term details
             AcademicTerm term = academicTermRepository.findById(termId)
                     .orElseThrow(() -> new IllegalArgumentException("Term not found: " + termId));
@@ -139,16 +148,11 @@ public class StudentReportController {
     @PreAuthorize("hasAuthority('REPORT_CARD_VIEW')")
     public String regenerateStudentReport(@RequestParam UUID studentId,
                                         @RequestParam UUID termId,
-                                        HttpServletRequest request,
+                                        @CurrentUser AuthenticatedUser currentUser,
                                         RedirectAttributes redirectAttributes) {
         try {
             log.info("Regenerating report for student: {} in term: {}", studentId, termId);
 
-            // Get current user
-            String username = request.getUserPrincipal().getName();
-            User currentUser = userRepository.findByUsername(username)
-                    .orElseThrow(() -> new IllegalStateException("Current user not found"));
-
             // Start regeneration via orchestration service
             UUID batchId = reportOrchestrationService.regenerateStudentReport(studentId, termId, currentUser.getId());
 
@@ -167,7 +171,7 @@ public class StudentReportController {
 
     /**
      * Report Generation Status Dashboard
-     * Shows progress/state without real-time updates
+     * Renders the current state; running batches are then updated from the progress stream
      */
     @GetMapping("/status")
     @PreAuthorize("hasAuthority('REPORT_CARD_VIEW')")
@@ -196,52 +200,133 @@ public class StudentReportController {
         return "reports/status-dashboard";
     }
 
+    /**
+     * Report Generation Progress Stream
+     * Server-Sent Events with batch progress, throughput, ETA and item failures
+     */
+    @GetMapping(value = "/status/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAuthority('REPORT_CARD_VIEW')")
+    @ResponseBody
+    public SseEmitter reportStatusStream() {
+        return reportProgressBroadcaster.subscribe();
+    }
+
     /**
      * Download Pre-Generated PDF Report
-     * Fetches pre-generated PDF files from file system
+     * Serves pre-generated PDF files from the file system with ETag, conditional GET
+     * and Range support
      */
     @GetMapping("/download-pdf")
     @PreAuthorize("hasAuthority('REPORT_CARD_VIEW')")
-    public ResponseEntity<Resource> downloadPdf(@RequestParam UUID studentId,
-                                              @RequestParam UUID termId) {
+    public void downloadPdf(@RequestParam UUID studentId,
+                            @RequestParam UUID termId,
+                            @RequestParam(required = false) UUID classId,
+                            HttpServletRequest request,
+                            HttpServletResponse response) throws IOException {
         try {
             log.info("Downloading PDF report for student: {} in term: {}", studentId, termId);
 
             // Get pre-generated report path
             Optional<Path> reportPath = reportOrchestrationService.getGeneratedReportPath(studentId, termId);
 
-            if (reportPath.isEmpty()) {
+            if (reportPath.isPresent()) {
+                if (!Files.isReadable(reportPath.get())) {
+                    log.warn("Report file not readable: {}", reportPath.get());
+                    response.sendError(HttpStatus.NOT_FOUND.value());
+                    return;
+                }
+                reportDownloadService.serveFile(reportPath.get(),
+                        () -> reportFilename(studentId, termId), request, response);
+                return;
+            }
+
+            // Fall back to the student's pages of the class packet
+            Optional<ClassPacketService.PacketEntry> packetEntry = classId != null
+                    ? classPacketService.findPacketEntry(classId, termId, studentId)
+                    : Optional.empty();
+            if (packetEntry.isEmpty()) {
                 log.warn("Pre-generated report not found for student: {} in term: {}", studentId, termId);
-                return ResponseEntity.notFound().build();
+                response.sendError(HttpStatus.NOT_FOUND.value());
+                return;
             }
 
-            // Create resource from file
-            Resource resource = new UrlResource(reportPath.get().toUri());
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            classPacketService.writeStudentReportFromPacket(classId, termId, packetEntry.get(), out);
+            response.setContentType(MediaType.APPLICATION_PDF_VALUE);
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    "attachment; filename=\"" + reportFilename(studentId, termId) + "\"");
+            response.setContentLength(out.size());
+            out.writeTo(response.getOutputStream());
 
-            if (!resource.exists() || !resource.isReadable()) {
-                log.warn("Report file not readable: {}", reportPath.get());
-                return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            log.error("Error downloading PDF for student: {} in term: {}", studentId, termId, e);
+            if (!response.isCommitted()) {
+                response.reset();
+                response.sendError(HttpStatus.INTERNAL_SERVER_ERROR.value());
             }
+        }
+    }
 
-            // Get student and term for filename
-            User student = userRepository.findById(studentId)
-                    .orElseThrow(() -> new IllegalArgumentException("Student not found"));
-            AcademicTerm term = academicTermRepository.findById(termId)
-                    .orElseThrow(() -> new IllegalArgumentException("Term not found"));
+    private String reportFilename(UUID studentId, UUID termId) {
+        // Get student and term for filename
+        User student = userRepository.findById(studentId)
+                .orElseThrow(() -> new IllegalArgumentException("Student not found"));
+        AcademicTerm term = academicTermRepository.findById(termId)
+                .orElseThrow(() -> new IllegalArgumentException("Term not found"));
+
+        return String.format("Report_Card_%s_%s.pdf",
+                student.getFullName().replaceAll("[^a-zA-Z0-9]", "_"),
+                term.getTermName().replaceAll("[^a-zA-Z0-9]", "_"));
+    }
 
-            String filename = String.format("Report_Card_%s_%s.pdf",
-                    student.getFullName().replaceAll("[^a-zA-Z0-9]", "_"),
-                    term.getTermName().replaceAll("[^a-zA-Z0-9]", "_"));
+    /**
+     * Download Class Packet
+     * Renders the class summary and every student's report card in one PDF,
+     * streamed directly to the response
+     */
+    @GetMapping("/class-packet")
+    @PreAuthorize("hasAuthority('REPORT_CARD_VIEW')")
+    public void downloadClassPacket(@RequestParam UUID classId, HttpServletResponse response) throws IOException {
+        log.info("Streaming class packet for class: {}", classId);
+
+        try {
+            ClassPacketService.ClassPacketData packet = classPacketService.loadPacketData(classId);
 
-            return ResponseEntity.ok()
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                    .body(resource);
+            String filename = String.format("Class_Packet_%s.pdf",
+                    packet.getClassGroup().getName().replaceAll("[^a-zA-Z0-9]", "_"));
+            response.setContentType(MediaType.APPLICATION_PDF_VALUE);
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
 
+            classPacketService.writePacket(packet, response.getOutputStream());
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpStatus.NOT_FOUND.value(), e.getMessage());
         } catch (Exception e) {
-            log.error("Error downloading PDF for student: {} in term: {}", studentId, termId, e);
-            return ResponseEntity.internalServerError().build();
+            log.error("Error streaming class packet for class: {}", classId, e);
+            if (!response.isCommitted()) {
+                response.reset();
+                response.sendError(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            }
+        }
+    }
+
+    /**
+     * Store Class Packet
+     * Queues rendering of a class packet onto the reports volume so single report cards
+     * can be served from it
+     */
+    @PostMapping("/class-packet/generate")
+    @PreAuthorize("hasAuthority('REPORT_CARD_VIEW')")
+    public String generateClassPacket(@RequestParam UUID classId, RedirectAttributes redirectAttributes) {
+        try {
+            classPacketService.generatePacketFileAsync(classId);
+            redirectAttributes.addFlashAttribute("successMessage",
+                "Class packet generation started. Single report cards are served from it once it completes.");
+        } catch (TaskRejectedException e) {
+            log.warn("Report executor is full, class packet for class {} not queued", classId);
+            redirectAttributes.addFlashAttribute("errorMessage",
+                "Report generation is busy. Please try generating the class packet again later.");
         }
+        return "redirect:/report-cards";
     }
 
     /**
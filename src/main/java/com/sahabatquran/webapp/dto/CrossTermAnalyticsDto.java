@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -25,6 +26,7 @@ public class CrossTermAnalyticsDto {
     private OperationalAnalytics operationalAnalytics;
     private Map<String, Object> customMetrics;
     private DataValidationDto dataValidation;
+    private LocalDateTime metricsRefreshedAt; // oldest snapshot refresh among the selected terms
     
     @Data
     @Builder
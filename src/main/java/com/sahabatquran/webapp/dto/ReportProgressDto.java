@@ -0,0 +1,54 @@
+package com.sahabatquran.webapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Events pushed to the report generation status dashboard
+ */
+public final class ReportProgressDto {
+
+    private ReportProgressDto() {
+    }
+
+    /**
+     * Progress of one batch, sent as the "progress" event
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BatchProgress {
+        private UUID batchId;
+        private String batchName;
+        private String status;
+        private int totalReports;
+        private int completedReports;
+        private int failedReports;
+        private int progressPercentage;
+        private double reportsPerMinute;
+        private Long etaSeconds;
+        private LocalDateTime startedAt;
+        private LocalDateTime completedAt;
+    }
+
+    /**
+     * A failed report item, sent as the "failure" event
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ItemFailure {
+        private UUID batchId;
+        private UUID itemId;
+        private String errorMessage;
+        private boolean willRetry;
+        private LocalDateTime failedAt;
+    }
+}
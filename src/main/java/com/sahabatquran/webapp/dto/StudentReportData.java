@@ -0,0 +1,50 @@
+package com.sahabatquran.webapp.dto;
+
+import com.sahabatquran.webapp.entity.Enrollment;
+import com.sahabatquran.webapp.entity.StudentAssessment;
+import com.sahabatquran.webapp.entity.User;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * In-memory snapshot of everything a student report card needs for one term.
+ * Built by the report prefetch stage so rendering does no database I/O.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentReportData {
+
+    private UUID termId;
+    private Student student;
+
+    @Builder.Default
+    private List<Enrollment> enrollments = new ArrayList<>();
+
+    @Builder.Default
+    private List<StudentAssessment> assessments = new ArrayList<>();
+
+    /**
+     * The student fields printed on the report card, loaded as a projection so the
+     * prefetch does not pull in the user's roles, permissions and credentials
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Student {
+        private UUID id;
+        private String username;
+        private String fullName;
+        private String email;
+
+        public static Student from(User user) {
+            return new Student(user.getId(), user.getUsername(), user.getFullName(), user.getEmail());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.sahabatquran.webapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One row of the per-term metrics table used by cross-term analytics.
+ * Counts default to zero so terms without data can be used directly by the builders.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TermMetricsDto {
+    private UUID termId;
+
+    // Enrollment metrics
+    @Builder.Default
+    private Long studentCount = 0L; // distinct students with ACTIVE enrollments
+    @Builder.Default
+    private Long enrollmentCount = 0L;
+    @Builder.Default
+    private Long completedEnrollmentCount = 0L;
+    @Builder.Default
+    private Long activeAndCompletedEnrollmentCount = 0L;
+
+    // Teacher and class metrics
+    @Builder.Default
+    private Long teacherCount = 0L;
+    @Builder.Default
+    private Long teacherAssignmentCount = 0L;
+    @Builder.Default
+    private Long activeClassCount = 0L;
+
+    // Feedback metrics (null when no ratings exist for the term)
+    private Double averageRating;
+    private Double averageTeacherRating;
+
+    // When these metrics were computed (snapshot refresh time)
+    private LocalDateTime refreshedAt;
+
+    public static TermMetricsDto empty(UUID termId) {
+        return TermMetricsDto.builder().termId(termId).build();
+    }
+}
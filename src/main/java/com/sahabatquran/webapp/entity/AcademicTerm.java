@@ -4,6 +4,8 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.UuidGenerator;
 
 import java.time.LocalDate;
@@ -13,6 +15,8 @@ import java.util.Set;
 import java.util.UUID;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "reference-data")
 @Table(name = "academic_terms")
 @Data
 @EqualsAndHashCode(exclude = {"teacherAvailabilities", "teacherLevelAssignments", "classGroups", "generatedClassProposals", "studentAssessments", "classGenerationLogs"})
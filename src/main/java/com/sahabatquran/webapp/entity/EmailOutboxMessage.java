@@ -0,0 +1,82 @@
+package com.sahabatquran.webapp.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.UuidGenerator;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Outbound email waiting in the outbox until a dispatcher sends it
+ */
+@Entity
+@Table(name = "email_outbox")
+@EntityListeners(AuditingEntityListener.class)
+@Data
+public class EmailOutboxMessage {
+
+    @Id
+    @UuidGenerator
+    @Column(updatable = false, nullable = false)
+    private UUID id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "message_type", nullable = false, length = 50)
+    private MessageType messageType;
+
+    // Plain id so dispatching never loads the report item
+    @Column(name = "id_report_item")
+    private UUID reportItemId;
+
+    // Plain id, unique: a parent notification is queued at most once
+    @Column(name = "id_parent_notification")
+    private UUID parentNotificationId;
+
+    @Column(name = "recipient_email", nullable = false)
+    private String recipientEmail;
+
+    @Column(name = "subject", nullable = false, length = 500)
+    private String subject;
+
+    @Column(name = "body", nullable = false, columnDefinition = "TEXT")
+    private String body;
+
+    @Column(name = "download_url", length = 1000)
+    private String downloadUrl;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private OutboxStatus status = OutboxStatus.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    @CreatedDate
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    public enum MessageType {
+        REPORT_NOTIFICATION,    // Report is ready; marks the report item as distributed once sent
+        REPORT_REMINDER,        // Reminder for a report that was not downloaded yet
+        PARENT_NOTIFICATION     // Parent notification sent over the EMAIL channel
+    }
+
+    public enum OutboxStatus {
+        PENDING,    // Waiting to be sent, possibly backing off after a failed attempt
+        SENDING,    // Claimed by a dispatcher
+        SENT,       // Accepted by the mail provider
+        FAILED      // Permanently failed or out of attempts
+    }
+}
@@ -52,6 +52,18 @@ public class ParentNotification {
     @Column(name = "sent_at")
     private LocalDateTime sentAt;
     
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+    
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+    
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+    
+    @Column(name = "is_failed", nullable = false)
+    private Boolean isFailed = false;
+    
     @Column(name = "is_read")
     private Boolean isRead = false;
     
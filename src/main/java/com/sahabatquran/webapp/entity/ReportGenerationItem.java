@@ -84,6 +84,15 @@ public class ReportGenerationItem {
     @Column(name = "last_retry_at")
     private LocalDateTime lastRetryAt;
 
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "lease_owner", length = 100)
+    private String leaseOwner;
+
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
     @Column(name = "validation_errors", columnDefinition = "TEXT")
     private String validationErrors;
 
@@ -1,5 +1,6 @@
 package com.sahabatquran.webapp.entity;
 
+import com.sahabatquran.webapp.security.RolePermissionChangeListener;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -11,6 +12,7 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "role_permissions")
+@EntityListeners(RolePermissionChangeListener.class)
 @Data
 @EqualsAndHashCode(exclude = {"role", "permission"})
 @ToString(exclude = {"role", "permission"})
@@ -0,0 +1,62 @@
+package com.sahabatquran.webapp.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Pre-computed per-term metrics for cross-term analytics.
+ * Rows are marked stale by database triggers when enrollments, classes,
+ * teacher assignments or feedback of the term change, unless they are frozen.
+ */
+@Entity
+@Table(name = "term_metrics_snapshot")
+@Data
+public class TermMetricsSnapshot {
+
+    @Id
+    @Column(name = "id_term", updatable = false, nullable = false)
+    private UUID termId;
+
+    @Column(name = "student_count", nullable = false)
+    private Long studentCount = 0L;
+
+    @Column(name = "enrollment_count", nullable = false)
+    private Long enrollmentCount = 0L;
+
+    @Column(name = "completed_enrollment_count", nullable = false)
+    private Long completedEnrollmentCount = 0L;
+
+    @Column(name = "active_and_completed_enrollment_count", nullable = false)
+    private Long activeAndCompletedEnrollmentCount = 0L;
+
+    @Column(name = "teacher_count", nullable = false)
+    private Long teacherCount = 0L;
+
+    @Column(name = "teacher_assignment_count", nullable = false)
+    private Long teacherAssignmentCount = 0L;
+
+    @Column(name = "active_class_count", nullable = false)
+    private Long activeClassCount = 0L;
+
+    @Column(name = "average_rating")
+    private Double averageRating;
+
+    @Column(name = "average_teacher_rating")
+    private Double averageTeacherRating;
+
+    @Column(name = "is_frozen", nullable = false)
+    private Boolean isFrozen = false;
+
+    @Column(name = "is_stale", nullable = false)
+    private Boolean isStale = false;
+
+    @Column(name = "refreshed_at", nullable = false)
+    private LocalDateTime refreshedAt;
+
+    // Maintained by the staleness triggers
+    @Column(name = "generation", nullable = false, insertable = false, updatable = false)
+    private Long generation = 0L;
+}
@@ -1,5 +1,6 @@
 package com.sahabatquran.webapp.entity;
 
+import com.sahabatquran.webapp.security.UserChangeListener;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -13,6 +14,7 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(UserChangeListener.class)
 @Data
 @EqualsAndHashCode(exclude = {"userCredential", "userRoles"})
 @ToString(exclude = {"userCredential", "userRoles"})
@@ -1,5 +1,6 @@
 package com.sahabatquran.webapp.entity;
 
+import com.sahabatquran.webapp.security.UserChangeListener;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -11,6 +12,7 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "user_roles")
+@EntityListeners(UserChangeListener.class)
 @Data
 @EqualsAndHashCode(exclude = {"user", "role", "assignedBy"})
 @ToString(exclude = {"user", "role", "assignedBy"})
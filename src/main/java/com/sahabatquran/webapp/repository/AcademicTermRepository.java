@@ -1,8 +1,11 @@
 package com.sahabatquran.webapp.repository;
 
 import com.sahabatquran.webapp.entity.AcademicTerm;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -16,6 +19,7 @@ public interface AcademicTermRepository extends JpaRepository<AcademicTerm, UUID
     
     Optional<AcademicTerm> findByTermName(String termName);
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<AcademicTerm> findByStatus(AcademicTerm.TermStatus status);
     
     default List<AcademicTerm> findActiveTerms() {
@@ -4,14 +4,19 @@ import com.sahabatquran.webapp.entity.ClassGroup;
 import com.sahabatquran.webapp.entity.User;
 import com.sahabatquran.webapp.entity.Level;
 import com.sahabatquran.webapp.entity.AcademicTerm;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface ClassGroupRepository extends JpaRepository<ClassGroup, UUID> {
@@ -92,4 +97,39 @@ public interface ClassGroupRepository extends JpaRepository<ClassGroup, UUID> {
            "WHERE c.term.id = :termId AND c.isActive = true " +
            "ORDER BY c.level.name, c.name")
     List<Object[]> findClassBreakdownByTermId(@Param("termId") UUID termId);
+
+    // Active class counts for several terms at once: [termId, active classes]
+    @Query("SELECT c.term.id, COUNT(c) FROM ClassGroup c " +
+           "WHERE c.term.id IN :termIds AND c.isActive = true " +
+           "GROUP BY c.term.id")
+    List<Object[]> countActiveClassesByTermIds(@Param("termIds") Collection<UUID> termIds);
+
+    // Export rows streamed through a JDBC cursor; must be consumed inside a transaction and closed.
+    // [termName, className, levelName, instructorName, capacity, isActive, activeStudents]
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT t.termName, c.name, l.name, i.fullName, c.capacity, c.isActive, " +
+           "SUM(CASE WHEN e.status = 'ACTIVE' THEN 1 ELSE 0 END) " +
+           "FROM ClassGroup c JOIN c.term t JOIN c.level l LEFT JOIN c.instructor i " +
+           "LEFT JOIN Enrollment e ON e.classGroup = c " +
+           "WHERE t.id IN :termIds " +
+           "GROUP BY t.id, t.termName, t.startDate, c.id, c.name, l.name, i.fullName, c.capacity, c.isActive " +
+           "ORDER BY t.startDate, l.name, c.name")
+    Stream<Object[]> streamClassExportRowsByTermIds(@Param("termIds") Collection<UUID> termIds);
+
+    // [termName, instructorName, instructorEmail, classCount, activeStudents]
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT t.termName, i.fullName, i.email, COUNT(DISTINCT c.id), " +
+           "SUM(CASE WHEN e.status = 'ACTIVE' THEN 1 ELSE 0 END) " +
+           "FROM ClassGroup c JOIN c.term t JOIN c.instructor i " +
+           "LEFT JOIN Enrollment e ON e.classGroup = c " +
+           "WHERE t.id IN :termIds AND c.isActive = true " +
+           "GROUP BY t.id, t.termName, t.startDate, i.id, i.fullName, i.email " +
+           "ORDER BY t.startDate, i.fullName")
+    Stream<Object[]> streamTeacherExportRowsByTermIds(@Param("termIds") Collection<UUID> termIds);
 }
\ No newline at end of file
@@ -0,0 +1,95 @@
+package com.sahabatquran.webapp.repository;
+
+import com.sahabatquran.webapp.entity.EmailOutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, UUID> {
+
+    long countByStatus(EmailOutboxMessage.OutboxStatus status);
+
+    List<EmailOutboxMessage> findByReportItemId(UUID reportItemId);
+
+    // Message for a parent notification; queueing the same notification again is a no-op
+    @Modifying
+    @Query(value = "INSERT INTO email_outbox (message_type, id_parent_notification, recipient_email, subject, body, " +
+                   "download_url, status, attempts, created_at) " +
+                   "VALUES ('PARENT_NOTIFICATION', :notificationId, :recipientEmail, :subject, :body, '', 'PENDING', 0, :now) " +
+                   "ON CONFLICT (id_parent_notification) WHERE id_parent_notification IS NOT NULL DO NOTHING",
+           nativeQuery = true)
+    int insertForParentNotification(@Param("notificationId") UUID notificationId,
+                                    @Param("recipientEmail") String recipientEmail,
+                                    @Param("subject") String subject,
+                                    @Param("body") String body,
+                                    @Param("now") LocalDateTime now);
+
+    // Serializes the daily-limit check of claiming dispatchers on all nodes until the claim commits
+    @Query(value = "SELECT 1 FROM (SELECT pg_advisory_xact_lock(:key)) l", nativeQuery = true)
+    Integer lockForClaim(@Param("key") long key);
+
+    // Emails counted against the account's daily limit: sent since the start of the day, or being sent
+    @Query("SELECT COUNT(m) FROM EmailOutboxMessage m " +
+           "WHERE (m.status = com.sahabatquran.webapp.entity.EmailOutboxMessage$OutboxStatus.SENT AND m.sentAt >= :since) " +
+           "OR m.status = com.sahabatquran.webapp.entity.EmailOutboxMessage$OutboxStatus.SENDING")
+    long countSentOrSendingSince(@Param("since") LocalDateTime since);
+
+    // Outbox claim: rows locked by another dispatcher are skipped instead of waited on
+    @Query(value = "SELECT id FROM email_outbox " +
+                   "WHERE status = 'PENDING' AND (next_attempt_at IS NULL OR next_attempt_at <= :now) " +
+                   "ORDER BY created_at ASC, id ASC LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<UUID> lockNextSendableIds(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE EmailOutboxMessage m SET m.status = com.sahabatquran.webapp.entity.EmailOutboxMessage$OutboxStatus.SENDING, " +
+           "m.attempts = m.attempts + 1, m.nextAttemptAt = :sendDeadline WHERE m.id IN :ids")
+    int markSending(@Param("ids") List<UUID> ids, @Param("sendDeadline") LocalDateTime sendDeadline);
+
+    @Query("SELECT m FROM EmailOutboxMessage m WHERE m.id IN :ids ORDER BY m.createdAt ASC")
+    List<EmailOutboxMessage> findByIdIn(@Param("ids") List<UUID> ids);
+
+    @Modifying
+    @Query("UPDATE EmailOutboxMessage m SET m.status = com.sahabatquran.webapp.entity.EmailOutboxMessage$OutboxStatus.SENT, " +
+           "m.sentAt = :sentAt, m.nextAttemptAt = NULL, m.lastError = NULL WHERE m.id IN :ids")
+    int markSent(@Param("ids") List<UUID> ids, @Param("sentAt") LocalDateTime sentAt);
+
+    @Modifying
+    @Query("UPDATE EmailOutboxMessage m SET m.status = com.sahabatquran.webapp.entity.EmailOutboxMessage$OutboxStatus.PENDING, " +
+           "m.nextAttemptAt = :nextAttemptAt, m.lastError = :error WHERE m.id = :id")
+    int scheduleRetry(@Param("id") UUID id, @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("error") String error);
+
+    // Not sent because of the sending quota: back to PENDING without using up an attempt
+    @Modifying
+    @Query("UPDATE EmailOutboxMessage m SET m.status = com.sahabatquran.webapp.entity.EmailOutboxMessage$OutboxStatus.PENDING, " +
+           "m.attempts = m.attempts - 1, m.nextAttemptAt = :nextAttemptAt WHERE m.id IN :ids")
+    int defer(@Param("ids") List<UUID> ids, @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+
+    @Modifying
+    @Query("UPDATE EmailOutboxMessage m SET m.status = com.sahabatquran.webapp.entity.EmailOutboxMessage$OutboxStatus.FAILED, " +
+           "m.nextAttemptAt = NULL, m.lastError = :error WHERE m.id = :id")
+    int markFailed(@Param("id") UUID id, @Param("error") String error);
+
+    // Claims of dispatchers that died while sending, with attempts left
+    @Modifying
+    @Query("UPDATE EmailOutboxMessage m SET m.status = com.sahabatquran.webapp.entity.EmailOutboxMessage$OutboxStatus.PENDING " +
+           "WHERE m.status = com.sahabatquran.webapp.entity.EmailOutboxMessage$OutboxStatus.SENDING AND m.nextAttemptAt < :now " +
+           "AND m.attempts < :maxAttempts")
+    int releaseExpiredClaims(@Param("now") LocalDateTime now, @Param("maxAttempts") int maxAttempts);
+
+    // Claims of dispatchers that died while sending the last attempt
+    @Modifying
+    @Query("UPDATE EmailOutboxMessage m SET m.status = com.sahabatquran.webapp.entity.EmailOutboxMessage$OutboxStatus.FAILED, " +
+           "m.nextAttemptAt = NULL, m.lastError = :error " +
+           "WHERE m.status = com.sahabatquran.webapp.entity.EmailOutboxMessage$OutboxStatus.SENDING AND m.nextAttemptAt < :now " +
+           "AND m.attempts >= :maxAttempts")
+    int failExpiredClaims(@Param("now") LocalDateTime now, @Param("maxAttempts") int maxAttempts,
+                          @Param("error") String error);
+}
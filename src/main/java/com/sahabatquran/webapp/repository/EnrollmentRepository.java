@@ -4,15 +4,20 @@ import com.sahabatquran.webapp.entity.Enrollment;
 import com.sahabatquran.webapp.entity.User;
 import com.sahabatquran.webapp.entity.ClassGroup;
 import com.sahabatquran.webapp.entity.AcademicTerm;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface EnrollmentRepository extends JpaRepository<Enrollment, UUID> {
@@ -94,4 +99,38 @@ public interface EnrollmentRepository extends JpaRepository<Enrollment, UUID> {
     // Count total enrollments (active + completed) by term for completion rate calculation
     @Query("SELECT COUNT(e) FROM Enrollment e WHERE e.classGroup.term.id = :termId AND e.status IN ('ACTIVE', 'COMPLETED')")
     Long countActiveAndCompletedByTermId(@Param("termId") UUID termId);
-}
\ No newline at end of file
+
+    // Per-term enrollment metrics in one grouped pass for cross-term analytics:
+    // [termId, distinct active students, total enrollments, completed, active + completed]
+    @Query("SELECT e.classGroup.term.id, " +
+           "COUNT(DISTINCT CASE WHEN e.status = 'ACTIVE' THEN e.student.id END), " +
+           "COUNT(e), " +
+           "SUM(CASE WHEN e.status = 'COMPLETED' THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN e.status IN ('ACTIVE', 'COMPLETED') THEN 1 ELSE 0 END) " +
+           "FROM Enrollment e WHERE e.classGroup.term.id IN :termIds " +
+           "GROUP BY e.classGroup.term.id")
+    List<Object[]> aggregateEnrollmentMetricsByTermIds(@Param("termIds") Collection<UUID> termIds);
+
+    // Report prefetch: enrollments of a chunk of students with their classes in one query
+    @Query("SELECT e FROM Enrollment e JOIN FETCH e.classGroup cg " +
+           "WHERE e.student.id IN :studentIds AND cg.term.id = :termId")
+    List<Enrollment> findByStudentIdsAndTermIdWithClassGroup(@Param("studentIds") Collection<UUID> studentIds,
+                                                             @Param("termId") UUID termId);
+
+    // Bulk report item creation: every enrollment of a term with its class and student in one query
+    @Query("SELECT e FROM Enrollment e JOIN FETCH e.classGroup cg JOIN FETCH e.student " +
+           "WHERE cg.term.id = :termId ORDER BY cg.id, e.student.fullName")
+    List<Enrollment> findByTermIdWithClassGroupAndStudent(@Param("termId") UUID termId);
+
+    // Report batch students streamed through a JDBC cursor; must be consumed inside a transaction and closed.
+    // [studentId, fullName] of every student with an active enrollment in the term, each once
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT DISTINCT s.id, s.fullName FROM Enrollment e JOIN e.student s JOIN e.classGroup cg " +
+           "WHERE cg.term.id = :termId " +
+           "AND e.status = com.sahabatquran.webapp.entity.Enrollment$EnrollmentStatus.ACTIVE " +
+           "ORDER BY s.fullName, s.id")
+    Stream<Object[]> streamActiveStudentsByTermId(@Param("termId") UUID termId);
+}
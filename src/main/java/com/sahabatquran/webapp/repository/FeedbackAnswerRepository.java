@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -44,4 +45,14 @@ public interface FeedbackAnswerRepository extends JpaRepository<FeedbackAnswer,
            "AND fa.response.campaign.campaignType = 'TEACHER_EVALUATION' " +
            "AND fa.ratingValue IS NOT NULL")
     Double calculateAverageTeacherRatingByTermId(@Param("termId") UUID termId);
+
+    // Average overall and teacher-evaluation ratings for several terms: [termId, avg rating, avg teacher rating]
+    @Query("SELECT fa.response.campaign.term.id, " +
+           "AVG(CAST(fa.ratingValue AS double)), " +
+           "AVG(CASE WHEN fa.response.campaign.campaignType = 'TEACHER_EVALUATION' " +
+           "THEN CAST(fa.ratingValue AS double) END) " +
+           "FROM FeedbackAnswer fa " +
+           "WHERE fa.response.campaign.term.id IN :termIds AND fa.ratingValue IS NOT NULL " +
+           "GROUP BY fa.response.campaign.term.id")
+    List<Object[]> aggregateRatingsByTermIds(@Param("termIds") Collection<UUID> termIds);
 }
\ No newline at end of file
@@ -1,8 +1,11 @@
 package com.sahabatquran.webapp.repository;
 
 import com.sahabatquran.webapp.entity.Level;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -13,8 +16,13 @@ import java.util.UUID;
 @Repository
 public interface LevelRepository extends JpaRepository<Level, UUID> {
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Override
+    List<Level> findAll();
+    
     Optional<Level> findByName(String name);
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Level> findByOrderByOrderNumber();
     
     @Query("SELECT l FROM Level l WHERE l.name LIKE %:name%")
@@ -3,11 +3,13 @@ package com.sahabatquran.webapp.repository;
 import com.sahabatquran.webapp.entity.ParentNotification;
 import com.sahabatquran.webapp.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -35,4 +37,50 @@ public interface ParentNotificationRepository extends JpaRepository<ParentNotifi
     
     @Query("SELECT pn FROM ParentNotification pn WHERE pn.deliveryMethod = :method AND pn.isSent = false")
     List<ParentNotification> findUnsentByDeliveryMethod(@Param("method") ParentNotification.DeliveryMethod method);
-}
\ No newline at end of file
+    
+    // Next due notifications of one channel, oldest first; rows locked by another dispatcher are skipped
+    @Query(value = "SELECT id FROM parent_notifications " +
+                   "WHERE is_sent = false AND is_failed = false AND delivery_method = :channel " +
+                   "AND (next_attempt_at IS NULL OR next_attempt_at <= :now) " +
+                   "ORDER BY created_at ASC, id ASC LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<UUID> lockNextDueIds(@Param("channel") String channel, @Param("now") LocalDateTime now,
+                              @Param("limit") int limit);
+    
+    // Pending notifications no channel loop will claim
+    @Modifying
+    @Query("UPDATE ParentNotification pn SET pn.isFailed = true, pn.nextAttemptAt = NULL, pn.lastError = :error " +
+           "WHERE pn.isSent = false AND pn.isFailed = false " +
+           "AND (pn.deliveryMethod IS NULL OR pn.deliveryMethod NOT IN :channels)")
+    int failWithoutChannel(@Param("channels") Collection<ParentNotification.DeliveryMethod> channels,
+                           @Param("error") String error);
+    
+    // Claim: the deadline keeps other dispatchers away until the send outcome is recorded
+    @Modifying
+    @Query("UPDATE ParentNotification pn SET pn.attempts = pn.attempts + 1, pn.nextAttemptAt = :claimDeadline " +
+           "WHERE pn.id IN :ids")
+    int claim(@Param("ids") List<UUID> ids, @Param("claimDeadline") LocalDateTime claimDeadline);
+    
+    @Query("SELECT pn FROM ParentNotification pn JOIN FETCH pn.student WHERE pn.id IN :ids ORDER BY pn.createdAt ASC")
+    List<ParentNotification> findByIdInWithStudent(@Param("ids") List<UUID> ids);
+    
+    @Modifying
+    @Query("UPDATE ParentNotification pn SET pn.isSent = true, pn.sentAt = :sentAt, pn.nextAttemptAt = NULL, " +
+           "pn.lastError = NULL WHERE pn.id IN :ids")
+    int markSent(@Param("ids") List<UUID> ids, @Param("sentAt") LocalDateTime sentAt);
+    
+    @Modifying
+    @Query("UPDATE ParentNotification pn SET pn.nextAttemptAt = :nextAttemptAt, pn.lastError = :error WHERE pn.id = :id")
+    int scheduleRetry(@Param("id") UUID id, @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                      @Param("error") String error);
+    
+    @Modifying
+    @Query("UPDATE ParentNotification pn SET pn.isFailed = true, pn.nextAttemptAt = NULL, pn.lastError = :error " +
+           "WHERE pn.id = :id")
+    int markFailed(@Param("id") UUID id, @Param("error") String error);
+    
+    // Backlog size and creation time of the oldest notification still to be sent
+    @Query("SELECT COUNT(pn), MIN(pn.createdAt) FROM ParentNotification pn " +
+           "WHERE pn.isSent = false AND pn.isFailed = false")
+    List<Object[]> getPendingBacklog();
+}
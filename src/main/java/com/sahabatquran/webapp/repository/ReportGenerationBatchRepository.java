@@ -4,11 +4,13 @@ import com.sahabatquran.webapp.entity.ReportGenerationBatch;
 import com.sahabatquran.webapp.entity.AcademicTerm;
 import com.sahabatquran.webapp.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -53,6 +55,10 @@ public interface ReportGenerationBatchRepository extends JpaRepository<ReportGen
            "WHERE b.id = :batchId")
     Optional<ReportGenerationBatch> findByIdWithItems(@Param("batchId") UUID batchId);
 
+    // Status polling: the batch row and its term, without the item collection
+    @Query("SELECT b FROM ReportGenerationBatch b JOIN FETCH b.term WHERE b.id = :batchId")
+    Optional<ReportGenerationBatch> findByIdWithTerm(@Param("batchId") UUID batchId);
+
     default List<ReportGenerationBatch> findCompletedBatchesAwaitingDistribution() {
         return findByStatusOrderByInitiatedAtDesc(ReportGenerationBatch.BatchStatus.COMPLETED)
                 .stream()
@@ -66,4 +72,71 @@ public interface ReportGenerationBatchRepository extends JpaRepository<ReportGen
 
     @Query("SELECT AVG(b.actualDurationMinutes) FROM ReportGenerationBatch b WHERE b.actualDurationMinutes IS NOT NULL AND b.reportType = :reportType")
     Double getAverageDurationByReportType(@Param("reportType") ReportGenerationBatch.ReportType reportType);
-}
\ No newline at end of file
+
+    // Atomic progress counters, safe to call from concurrent workers
+    @Modifying
+    @Query("UPDATE ReportGenerationBatch b SET b.completedReports = COALESCE(b.completedReports, 0) + 1 WHERE b.id = :batchId")
+    int incrementCompletedReports(@Param("batchId") UUID batchId);
+
+    @Modifying
+    @Query("UPDATE ReportGenerationBatch b SET b.failedReports = COALESCE(b.failedReports, 0) + 1 WHERE b.id = :batchId")
+    int incrementFailedReports(@Param("batchId") UUID batchId);
+
+    @Modifying
+    @Query("UPDATE ReportGenerationBatch b SET b.failedReports = COALESCE(b.failedReports, 0) + :count WHERE b.id = :batchId")
+    int addFailedReports(@Param("batchId") UUID batchId, @Param("count") int count);
+
+    // Start (or join) a batch unless it was cancelled or finished in the meantime
+    @Modifying
+    @Query("UPDATE ReportGenerationBatch b SET b.status = com.sahabatquran.webapp.entity.ReportGenerationBatch$BatchStatus.IN_PROGRESS, " +
+           "b.startedAt = COALESCE(b.startedAt, :now) " +
+           "WHERE b.id = :batchId AND b.status IN (com.sahabatquran.webapp.entity.ReportGenerationBatch$BatchStatus.INITIATED, " +
+           "com.sahabatquran.webapp.entity.ReportGenerationBatch$BatchStatus.VALIDATING, " +
+           "com.sahabatquran.webapp.entity.ReportGenerationBatch$BatchStatus.IN_PROGRESS)")
+    int markInProgressIfActive(@Param("batchId") UUID batchId, @Param("now") LocalDateTime now);
+
+    // Cancel a batch that is still in one of the given statuses; the progress counters are left to the workers
+    @Modifying
+    @Query("UPDATE ReportGenerationBatch b SET b.status = com.sahabatquran.webapp.entity.ReportGenerationBatch$BatchStatus.CANCELLED, " +
+           "b.completedAt = :now, b.failureReason = :reason, b.updatedAt = :now " +
+           "WHERE b.id = :batchId AND b.status IN :cancellable")
+    int cancelIfIn(@Param("batchId") UUID batchId,
+                   @Param("cancellable") Collection<ReportGenerationBatch.BatchStatus> cancellable,
+                   @Param("reason") String reason,
+                   @Param("now") LocalDateTime now);
+
+    // Fail a batch unless it was finished or cancelled in the meantime; the progress counters are left to the workers
+    @Modifying
+    @Query("UPDATE ReportGenerationBatch b SET b.status = com.sahabatquran.webapp.entity.ReportGenerationBatch$BatchStatus.FAILED, " +
+           "b.completedAt = :now, b.failureReason = :reason, b.updatedAt = :now " +
+           "WHERE b.id = :batchId AND b.status IN (com.sahabatquran.webapp.entity.ReportGenerationBatch$BatchStatus.INITIATED, " +
+           "com.sahabatquran.webapp.entity.ReportGenerationBatch$BatchStatus.VALIDATING, " +
+           "com.sahabatquran.webapp.entity.ReportGenerationBatch$BatchStatus.IN_PROGRESS)")
+    int markFailedIfActive(@Param("batchId") UUID batchId, @Param("reason") String reason, @Param("now") LocalDateTime now);
+
+    // Batches committed but never started, e.g. their node died before handing them to the report executor
+    @Modifying
+    @Query("UPDATE ReportGenerationBatch b SET b.status = com.sahabatquran.webapp.entity.ReportGenerationBatch$BatchStatus.IN_PROGRESS, " +
+           "b.startedAt = COALESCE(b.startedAt, :now) " +
+           "WHERE b.status IN (com.sahabatquran.webapp.entity.ReportGenerationBatch$BatchStatus.INITIATED, " +
+           "com.sahabatquran.webapp.entity.ReportGenerationBatch$BatchStatus.VALIDATING) " +
+           "AND b.initiatedAt < :initiatedBefore")
+    int startStrandedBatches(@Param("initiatedBefore") LocalDateTime initiatedBefore, @Param("now") LocalDateTime now);
+
+    // Finalize a batch exactly once, by whichever node sees it has no unfinished items left
+    @Modifying
+    @Query(value = "UPDATE report_generation_batches b SET " +
+                   "status = CASE WHEN COALESCE(b.completed_reports, 0) = 0 AND COALESCE(b.failed_reports, 0) > 0 " +
+                   "THEN 'FAILED' ELSE 'COMPLETED' END, " +
+                   "completed_at = :now, " +
+                   "actual_duration_minutes = CAST(EXTRACT(EPOCH FROM (:now - b.started_at)) / 60 AS INTEGER), " +
+                   "updated_at = :now " +
+                   "WHERE b.id = :batchId AND b.status = 'IN_PROGRESS' " +
+                   "AND NOT EXISTS (SELECT 1 FROM report_generation_items i " +
+                   "WHERE i.id_batch = b.id AND i.status IN ('PENDING', 'GENERATING'))",
+           nativeQuery = true)
+    int finalizeIfNoUnfinishedItems(@Param("batchId") UUID batchId, @Param("now") LocalDateTime now);
+
+    @Query("SELECT b.id FROM ReportGenerationBatch b WHERE b.status = :status ORDER BY b.initiatedAt ASC")
+    List<UUID> findIdsByStatus(@Param("status") ReportGenerationBatch.BatchStatus status);
+}
@@ -4,10 +4,12 @@ import com.sahabatquran.webapp.entity.ReportGenerationItem;
 import com.sahabatquran.webapp.entity.ReportGenerationBatch;
 import com.sahabatquran.webapp.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -44,9 +46,114 @@ public interface ReportGenerationItemRepository extends JpaRepository<ReportGene
     @Query("SELECT COUNT(i), i.status FROM ReportGenerationItem i WHERE i.batch.id = :batchId GROUP BY i.status")
     List<Object[]> getItemStatusStatistics(@Param("batchId") UUID batchId);
 
+    // Result summary of a finished batch, with the student and class names it shows
+    @Query("SELECT i FROM ReportGenerationItem i LEFT JOIN FETCH i.student LEFT JOIN FETCH i.classGroup " +
+           "WHERE i.batch.id = :batchId " +
+           "AND i.status = com.sahabatquran.webapp.entity.ReportGenerationItem$ItemStatus.COMPLETED " +
+           "ORDER BY i.priority ASC")
+    List<ReportGenerationItem> findCompletedByBatchIdWithSubjects(@Param("batchId") UUID batchId);
+
     @Query("SELECT AVG(i.processingDurationSeconds) FROM ReportGenerationItem i WHERE i.processingDurationSeconds IS NOT NULL AND i.batch.reportType = :reportType")
     Double getAverageProcessingTimeByReportType(@Param("reportType") ReportGenerationBatch.ReportType reportType);
 
     @Query("SELECT i FROM ReportGenerationItem i WHERE i.batch.status = 'IN_PROGRESS' AND i.status = 'PENDING' ORDER BY i.priority ASC, i.batch.initiatedAt ASC")
     List<ReportGenerationItem> findNextItemsToProcess();
-}
\ No newline at end of file
+
+    // Job queue: workers lease items; rows locked by another worker are skipped instead of waited on
+    @Query(value = "SELECT id FROM report_generation_items " +
+                   "WHERE id_batch = :batchId AND status = 'PENDING' " +
+                   "AND (next_attempt_at IS NULL OR next_attempt_at <= :now) " +
+                   "ORDER BY priority ASC, id ASC LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<UUID> lockNextClaimableItemIds(@Param("batchId") UUID batchId,
+                                        @Param("now") LocalDateTime now,
+                                        @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE ReportGenerationItem i SET i.status = com.sahabatquran.webapp.entity.ReportGenerationItem$ItemStatus.GENERATING, " +
+           "i.startedAt = :now, i.leaseOwner = :owner, i.leaseExpiresAt = :leaseExpiresAt WHERE i.id IN :itemIds")
+    int leaseItems(@Param("itemIds") List<UUID> itemIds,
+                   @Param("owner") String owner,
+                   @Param("now") LocalDateTime now,
+                   @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt);
+
+    @Modifying
+    @Query("UPDATE ReportGenerationItem i SET i.leaseExpiresAt = :leaseExpiresAt " +
+           "WHERE i.leaseOwner = :owner AND i.status = com.sahabatquran.webapp.entity.ReportGenerationItem$ItemStatus.GENERATING")
+    int extendLeases(@Param("owner") String owner, @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt);
+
+    // Reaper: items whose lease expired, locked so two nodes never count the same lost attempt twice.
+    // Leased items always carry a deadline, so rows without one are not leases and are left alone.
+    @Query(value = "SELECT id, id_batch, COALESCE(retry_count, 0) FROM report_generation_items " +
+                   "WHERE status = 'GENERATING' AND lease_expires_at < :now " +
+                   "FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<Object[]> lockExpiredLeases(@Param("now") LocalDateTime now);
+
+    // A lost lease counts as an attempt, so an item that crashes its node is not requeued forever
+    @Modifying
+    @Query("UPDATE ReportGenerationItem i SET i.status = com.sahabatquran.webapp.entity.ReportGenerationItem$ItemStatus.PENDING, " +
+           "i.retryCount = COALESCE(i.retryCount, 0) + 1, i.lastRetryAt = :now, i.nextAttemptAt = :nextAttemptAt, " +
+           "i.errorMessage = :errorMessage, i.leaseOwner = NULL, i.leaseExpiresAt = NULL " +
+           "WHERE i.id IN :itemIds")
+    int requeueExpiredLeases(@Param("itemIds") List<UUID> itemIds,
+                             @Param("errorMessage") String errorMessage,
+                             @Param("now") LocalDateTime now,
+                             @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+
+    @Modifying
+    @Query("UPDATE ReportGenerationItem i SET i.status = com.sahabatquran.webapp.entity.ReportGenerationItem$ItemStatus.FAILED, " +
+           "i.retryCount = COALESCE(i.retryCount, 0) + 1, i.lastRetryAt = :now, " +
+           "i.errorMessage = :errorMessage, i.leaseOwner = NULL, i.leaseExpiresAt = NULL " +
+           "WHERE i.id IN :itemIds")
+    int failExpiredLeases(@Param("itemIds") List<UUID> itemIds,
+                          @Param("errorMessage") String errorMessage,
+                          @Param("now") LocalDateTime now);
+
+    // Lease-guarded completion: a worker whose lease was reaped must not complete the item
+    @Modifying
+    @Query("UPDATE ReportGenerationItem i SET i.status = com.sahabatquran.webapp.entity.ReportGenerationItem$ItemStatus.COMPLETED, " +
+           "i.completedAt = :completedAt, i.filePath = :filePath, i.fileSizeBytes = :fileSizeBytes, " +
+           "i.processingDurationSeconds = :durationSeconds, i.leaseOwner = NULL, i.leaseExpiresAt = NULL " +
+           "WHERE i.id = :itemId AND i.leaseOwner = :owner " +
+           "AND i.status = com.sahabatquran.webapp.entity.ReportGenerationItem$ItemStatus.GENERATING")
+    int completeLeasedItem(@Param("itemId") UUID itemId,
+                           @Param("owner") String owner,
+                           @Param("completedAt") LocalDateTime completedAt,
+                           @Param("filePath") String filePath,
+                           @Param("fileSizeBytes") Long fileSizeBytes,
+                           @Param("durationSeconds") Integer durationSeconds);
+
+    // Stored file paths under a directory, so the report object sweep keeps files items still serve
+    @Query("SELECT DISTINCT i.filePath FROM ReportGenerationItem i WHERE i.filePath LIKE :pattern")
+    List<String> findFilePathsLike(@Param("pattern") String pattern);
+
+    @Query("SELECT i FROM ReportGenerationItem i JOIN FETCH i.batch b JOIN FETCH b.term WHERE i.id IN :itemIds")
+    List<ReportGenerationItem> findByIdInWithBatchAndTerm(@Param("itemIds") List<UUID> itemIds);
+
+    @Query("SELECT COUNT(i) FROM ReportGenerationItem i WHERE i.batch.id = :batchId " +
+           "AND i.status IN (com.sahabatquran.webapp.entity.ReportGenerationItem$ItemStatus.PENDING, " +
+           "com.sahabatquran.webapp.entity.ReportGenerationItem$ItemStatus.GENERATING)")
+    long countUnfinishedItems(@Param("batchId") UUID batchId);
+
+    @Modifying
+    @Query("UPDATE ReportGenerationItem i SET i.status = com.sahabatquran.webapp.entity.ReportGenerationItem$ItemStatus.CANCELLED " +
+           "WHERE i.batch.id = :batchId AND i.status = com.sahabatquran.webapp.entity.ReportGenerationItem$ItemStatus.PENDING")
+    int cancelPendingItems(@Param("batchId") UUID batchId);
+
+    // Distribution: completed items of a batch not distributed yet, with everything the notification mentions
+    @Query("SELECT i FROM ReportGenerationItem i JOIN FETCH i.batch b JOIN FETCH b.term " +
+           "LEFT JOIN FETCH i.student LEFT JOIN FETCH i.teacher LEFT JOIN FETCH i.classGroup " +
+           "WHERE b.id = :batchId " +
+           "AND i.status = com.sahabatquran.webapp.entity.ReportGenerationItem$ItemStatus.COMPLETED " +
+           "AND (i.distributed = false OR i.distributed IS NULL) " +
+           "ORDER BY i.priority ASC")
+    List<ReportGenerationItem> findUndistributedCompletedItemsWithRecipients(@Param("batchId") UUID batchId);
+
+    @Modifying
+    @Query("UPDATE ReportGenerationItem i SET i.distributed = true, i.distributedAt = :distributedAt, " +
+           "i.distributionMethod = :method WHERE i.id IN :itemIds")
+    int markDistributed(@Param("itemIds") List<UUID> itemIds,
+                        @Param("method") String method,
+                        @Param("distributedAt") LocalDateTime distributedAt);
+}
@@ -1,8 +1,11 @@
 package com.sahabatquran.webapp.repository;
 
 import com.sahabatquran.webapp.entity.Session;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalTime;
@@ -13,6 +16,7 @@ import java.util.UUID;
 @Repository
 public interface SessionRepository extends JpaRepository<Session, UUID> {
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Session> findByIsActiveTrueOrderByStartTime();
     
     Optional<Session> findByCodeAndIsActiveTrue(String code);
@@ -10,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -28,6 +29,11 @@ public interface StudentAssessmentRepository extends JpaRepository<StudentAssess
     List<StudentAssessment> findByDeterminedLevel(Level determinedLevel);
     
     List<StudentAssessment> findByStudentAndTerm(User student, AcademicTerm term);
+
+    // Bulk report validation: [studentId, assessments, graded assessments] of every assessed student of a term
+    @Query("SELECT sa.student.id, COUNT(sa), COUNT(sa.assessmentGrade) FROM StudentAssessment sa " +
+           "WHERE sa.term.id = :termId GROUP BY sa.student.id")
+    List<Object[]> countAssessmentsByStudentForTerm(@Param("termId") UUID termId);
     
     @Query("SELECT sa FROM StudentAssessment sa " +
            "WHERE sa.term.id = :termId AND sa.studentCategory = :category")
@@ -106,4 +112,11 @@ public interface StudentAssessmentRepository extends JpaRepository<StudentAssess
      * Find assessments for a student in a specific term.
      */
     List<StudentAssessment> findByStudentIdAndTermId(UUID studentId, UUID termId);
-}
\ No newline at end of file
+
+    /**
+     * Find assessments for a chunk of students in a specific term (report prefetch).
+     */
+    @Query("SELECT sa FROM StudentAssessment sa WHERE sa.student.id IN :studentIds AND sa.term.id = :termId")
+    List<StudentAssessment> findByStudentIdsAndTermId(@Param("studentIds") Collection<UUID> studentIds,
+                                                      @Param("termId") UUID termId);
+}
@@ -9,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -66,4 +67,10 @@ public interface TeacherLevelAssignmentRepository extends JpaRepository<TeacherL
 
     // Count assignments by term
     long countByTermId(UUID termId);
+
+    // Per-term teacher metrics for cross-term analytics: [termId, distinct teachers, assignments]
+    @Query("SELECT tla.term.id, COUNT(DISTINCT tla.teacher.id), COUNT(tla) " +
+           "FROM TeacherLevelAssignment tla WHERE tla.term.id IN :termIds " +
+           "GROUP BY tla.term.id")
+    List<Object[]> aggregateTeacherMetricsByTermIds(@Param("termIds") Collection<UUID> termIds);
 }
\ No newline at end of file
@@ -0,0 +1,68 @@
+package com.sahabatquran.webapp.repository;
+
+import com.sahabatquran.webapp.entity.TermMetricsSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface TermMetricsSnapshotRepository extends JpaRepository<TermMetricsSnapshot, UUID> {
+
+    List<TermMetricsSnapshot> findByTermIdIn(Collection<UUID> termIds);
+
+    // Insert or overwrite the snapshot rows of several terms in one statement, one array element per term;
+    // safe when two requests refresh the same term concurrently. A new row starts at the generation the
+    // refresh read (0), an existing row stays stale if a trigger bumped its generation after the refresh read it.
+    @Modifying
+    @Query(value = "INSERT INTO term_metrics_snapshot (id_term, student_count, enrollment_count, " +
+                   "completed_enrollment_count, active_and_completed_enrollment_count, teacher_count, " +
+                   "teacher_assignment_count, active_class_count, average_rating, average_teacher_rating, " +
+                   "is_frozen, is_stale, generation, refreshed_at) " +
+                   "SELECT r.id_term, r.student_count, r.enrollment_count, r.completed_enrollment_count, " +
+                   "r.active_and_completed_enrollment_count, r.teacher_count, r.teacher_assignment_count, " +
+                   "r.active_class_count, r.average_rating, r.average_teacher_rating, r.is_frozen, false, " +
+                   "r.generation, r.refreshed_at " +
+                   "FROM unnest(CAST(:termIds AS uuid[]), CAST(:studentCounts AS bigint[]), " +
+                   "CAST(:enrollmentCounts AS bigint[]), CAST(:completedEnrollmentCounts AS bigint[]), " +
+                   "CAST(:activeAndCompletedEnrollmentCounts AS bigint[]), CAST(:teacherCounts AS bigint[]), " +
+                   "CAST(:teacherAssignmentCounts AS bigint[]), CAST(:activeClassCounts AS bigint[]), " +
+                   "CAST(:averageRatings AS float8[]), CAST(:averageTeacherRatings AS float8[]), " +
+                   "CAST(:frozen AS boolean[]), CAST(:generations AS bigint[]), CAST(:refreshedAt AS timestamp[])) " +
+                   "AS r(id_term, student_count, enrollment_count, completed_enrollment_count, " +
+                   "active_and_completed_enrollment_count, teacher_count, teacher_assignment_count, " +
+                   "active_class_count, average_rating, average_teacher_rating, is_frozen, generation, refreshed_at) " +
+                   "ON CONFLICT (id_term) DO UPDATE SET " +
+                   "student_count = EXCLUDED.student_count, " +
+                   "enrollment_count = EXCLUDED.enrollment_count, " +
+                   "completed_enrollment_count = EXCLUDED.completed_enrollment_count, " +
+                   "active_and_completed_enrollment_count = EXCLUDED.active_and_completed_enrollment_count, " +
+                   "teacher_count = EXCLUDED.teacher_count, " +
+                   "teacher_assignment_count = EXCLUDED.teacher_assignment_count, " +
+                   "active_class_count = EXCLUDED.active_class_count, " +
+                   "average_rating = EXCLUDED.average_rating, " +
+                   "average_teacher_rating = EXCLUDED.average_teacher_rating, " +
+                   "is_frozen = EXCLUDED.is_frozen, " +
+                   "is_stale = term_metrics_snapshot.generation <> EXCLUDED.generation, " +
+                   "refreshed_at = EXCLUDED.refreshed_at",
+           nativeQuery = true)
+    void upsertAll(@Param("termIds") UUID[] termIds,
+                   @Param("studentCounts") Long[] studentCounts,
+                   @Param("enrollmentCounts") Long[] enrollmentCounts,
+                   @Param("completedEnrollmentCounts") Long[] completedEnrollmentCounts,
+                   @Param("activeAndCompletedEnrollmentCounts") Long[] activeAndCompletedEnrollmentCounts,
+                   @Param("teacherCounts") Long[] teacherCounts,
+                   @Param("teacherAssignmentCounts") Long[] teacherAssignmentCounts,
+                   @Param("activeClassCounts") Long[] activeClassCounts,
+                   @Param("averageRatings") Double[] averageRatings,
+                   @Param("averageTeacherRatings") Double[] averageTeacherRatings,
+                   @Param("frozen") Boolean[] frozen,
+                   @Param("generations") Long[] generations,
+                   @Param("refreshedAt") LocalDateTime[] refreshedAt);
+}
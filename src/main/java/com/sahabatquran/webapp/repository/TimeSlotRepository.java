@@ -2,7 +2,10 @@ package com.sahabatquran.webapp.repository;
 
 import com.sahabatquran.webapp.entity.TimeSlot;
 import com.sahabatquran.webapp.entity.Session;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,6 +15,7 @@ import java.util.UUID;
 @Repository
 public interface TimeSlotRepository extends JpaRepository<TimeSlot, UUID> {
     List<TimeSlot> findBySessionAndDayOfWeekIn(Session session, List<TimeSlot.DayOfWeek> days);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<TimeSlot> findBySessionAndDayOfWeek(Session session, TimeSlot.DayOfWeek day);
     List<TimeSlot> findBySession(Session session);
 }
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -55,4 +56,8 @@ public interface UserRepository extends JpaRepository<User, UUID> {
            "WHERE e.classGroup = :classGroup AND e.status = 'ACTIVE' " +
            "ORDER BY u.fullName ASC")
     List<User> findStudentsByClassGroup(@Param("classGroup") ClassGroup classGroup);
+
+    // Report prefetch: [id, username, fullName, email] of a chunk of students, without their eager roles
+    @Query("SELECT u.id, u.username, u.fullName, u.email FROM User u WHERE u.id IN :ids")
+    List<Object[]> findReportCardFieldsByIds(@Param("ids") Collection<UUID> ids);
 }
\ No newline at end of file
@@ -0,0 +1,102 @@
+package com.sahabatquran.webapp.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.provisioning.JdbcUserDetailsManager;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * JdbcUserDetailsManager that returns {@link AuthenticatedUser} principals.
+ *
+ * The user query also reads the user ID, full name and role codes, so they are known
+ * from login on and handlers do not need to look the user up again. Permission
+ * authorities come from the in-memory {@link RoleAuthorityCache} instead of a query,
+ * so a login runs the user query only, and are compiled into the principal's
+ * {@link PermissionMask}.
+ */
+public class AppUserDetailsManager extends JdbcUserDetailsManager implements UserDetailsPasswordService {
+
+    static final String USER_QUERY =
+            "SELECT u.username, uc.password_hash, u.is_active, u.id, u.full_name, " +
+            "COALESCE(string_agg(r.code, ',' ORDER BY r.code), '') AS role_codes " +
+            "FROM users u " +
+            "JOIN user_credentials uc ON u.id = uc.id_user " +
+            "LEFT JOIN user_roles ur ON ur.id_user = u.id " +
+            "LEFT JOIN roles r ON r.id = ur.id_role " +
+            "WHERE u.username = ? " +
+            "GROUP BY u.username, uc.password_hash, u.is_active, u.id, u.full_name";
+
+    static final String UPDATE_PASSWORD_QUERY =
+            "UPDATE user_credentials SET password_hash = ?, updated_at = CURRENT_TIMESTAMP " +
+            "WHERE id_user = (SELECT id FROM users WHERE username = ?)";
+
+    private final RoleAuthorityCache roleAuthorityCache;
+    private final PermissionRegistry permissionRegistry;
+
+    public AppUserDetailsManager(DataSource dataSource, RoleAuthorityCache roleAuthorityCache,
+                                 PermissionRegistry permissionRegistry) {
+        super(dataSource);
+        this.roleAuthorityCache = roleAuthorityCache;
+        this.permissionRegistry = permissionRegistry;
+        setUsersByUsernameQuery(USER_QUERY);
+    }
+
+    @Override
+    public UserDetails loadUserByUsername(String username) {
+        List<UserDetails> users = loadUsersByUsername(username);
+        if (users.isEmpty()) {
+            throw new UsernameNotFoundException(messages.getMessage("JdbcDaoImpl.notFound",
+                    new Object[] { username }, "Username {0} not found"));
+        }
+        AuthenticatedUser user = (AuthenticatedUser) users.get(0);
+
+        // Inactive users have no authorities, as with the former authorities query
+        List<GrantedAuthority> authorities = user.isEnabled()
+                ? roleAuthorityCache.getAuthorities(user.getRoleCodes())
+                : List.of();
+        if (authorities.isEmpty()) {
+            throw new UsernameNotFoundException(messages.getMessage("JdbcDaoImpl.noAuthority",
+                    new Object[] { username }, "User {0} has no GrantedAuthority"));
+        }
+        return createUserDetails(username, user, authorities);
+    }
+
+    @Override
+    protected List<UserDetails> loadUsersByUsername(String username) {
+        return getJdbcTemplate().query(getUsersByUsernameQuery(), (rs, rowNum) -> new AuthenticatedUser(
+                rs.getObject(4, UUID.class),
+                rs.getString(1),
+                rs.getString(2),
+                rs.getBoolean(3),
+                rs.getString(5),
+                rs.getString(6).isEmpty() ? List.of() : Arrays.asList(rs.getString(6).split(",")),
+                AuthorityUtils.NO_AUTHORITIES), username);
+    }
+
+    @Override
+    protected UserDetails createUserDetails(String username, UserDetails userFromUserQuery,
+                                            List<GrantedAuthority> combinedAuthorities) {
+        AuthenticatedUser user = (AuthenticatedUser) userFromUserQuery;
+        return new AuthenticatedUser(user.getId(), username, user.getPassword(), user.isEnabled(),
+                user.getFullName(), user.getRoleCodes(), combinedAuthorities,
+                permissionRegistry.grantedMask(combinedAuthorities));
+    }
+
+    /**
+     * Stores a password re-hashed at the configured BCrypt cost after a successful login
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        getJdbcTemplate().update(UPDATE_PASSWORD_QUERY, newPassword, user.getUsername());
+        AuthenticatedUser current = (AuthenticatedUser) user;
+        return new AuthenticatedUser(current.getId(), current.getUsername(), newPassword, current.isEnabled(),
+                current.getFullName(), current.getRoleCodes(), current.getAuthorities(), current.getPermissions());
+    }
+}
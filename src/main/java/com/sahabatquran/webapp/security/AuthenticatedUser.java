@@ -0,0 +1,47 @@
+package com.sahabatquran.webapp.security;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Principal of a logged-in user.
+ *
+ * Carries the user ID, full name and role codes read at login next to the permission
+ * authorities, so handlers can identify the user without loading the User entity, and
+ * the authorities compiled into a {@link PermissionMask} for authorization checks.
+ * Stored in the HTTP session, so it only holds small immutable values.
+ */
+@Getter
+@EqualsAndHashCode(callSuper = true)
+public class AuthenticatedUser extends User {
+
+    private final UUID id;
+    private final String fullName;
+    private final List<String> roleCodes;
+    private final PermissionMask permissions;
+
+    public AuthenticatedUser(UUID id, String username, String password, boolean enabled, String fullName,
+                             List<String> roleCodes, Collection<? extends GrantedAuthority> authorities) {
+        this(id, username, password, enabled, fullName, roleCodes, authorities, null);
+    }
+
+    public AuthenticatedUser(UUID id, String username, String password, boolean enabled, String fullName,
+                             List<String> roleCodes, Collection<? extends GrantedAuthority> authorities,
+                             PermissionMask permissions) {
+        super(username, password, enabled, true, true, true, authorities);
+        this.id = id;
+        this.fullName = fullName;
+        this.roleCodes = List.copyOf(roleCodes);
+        this.permissions = permissions;
+    }
+
+    public boolean hasRole(String roleCode) {
+        return roleCodes.contains(roleCode);
+    }
+}
@@ -0,0 +1,23 @@
+package com.sahabatquran.webapp.security;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Injects the logged-in user into a handler method parameter.
+ *
+ * - {@link AuthenticatedUser}: the principal; ID, full name, role codes and
+ *   authorities without any query
+ * - {@link com.sahabatquran.webapp.entity.User}: the full entity, served from a
+ *   short-lived cache shared by the user's requests
+ *
+ * @see CurrentUserArgumentResolver
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CurrentUser {
+}
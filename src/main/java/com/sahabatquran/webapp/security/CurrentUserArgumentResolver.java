@@ -0,0 +1,60 @@
+package com.sahabatquran.webapp.security;
+
+import com.sahabatquran.webapp.entity.User;
+import com.sahabatquran.webapp.service.CurrentUserService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * Resolves {@link CurrentUser} parameters from the security context.
+ *
+ * An {@link AuthenticatedUser} parameter is the principal itself. A User parameter is
+ * looked up by the principal's ID through {@link CurrentUserService}, so repeated
+ * requests of the same user do not query the users table.
+ */
+@Component
+@RequiredArgsConstructor
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private final CurrentUserService currentUserService;
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        Class<?> type = parameter.getParameterType();
+        return parameter.hasParameterAnnotation(CurrentUser.class)
+                && (type == AuthenticatedUser.class || type == User.class);
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof UserDetails principal)) {
+            throw new AuthenticationCredentialsNotFoundException("No logged-in user");
+        }
+
+        if (principal instanceof AuthenticatedUser authenticatedUser) {
+            return parameter.getParameterType() == AuthenticatedUser.class
+                    ? authenticatedUser
+                    : currentUserService.getUser(authenticatedUser.getId());
+        }
+
+        // Principal without the user details from login
+        User user = currentUserService.getUserByUsername(principal.getUsername());
+        if (parameter.getParameterType() == User.class) {
+            return user;
+        }
+        return new AuthenticatedUser(user.getId(), user.getUsername(), "", principal.isEnabled(), user.getFullName(),
+                user.getUserRoles().stream().map(userRole -> userRole.getRole().getCode()).sorted().toList(),
+                principal.getAuthorities());
+    }
+}
@@ -0,0 +1,90 @@
+package com.sahabatquran.webapp.security;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.Semaphore;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt password encoder with a configurable cost, timed and bounded.
+ *
+ * Checking the password is the most expensive step of a login, and every cost step
+ * doubles it. Each check is recorded in the security.password.verify timer, and the
+ * startup log states what one hash takes on this machine at the configured cost.
+ * Concurrent hash computations are capped, so a login storm waits for a free slot
+ * instead of taking the CPU from every other request.
+ *
+ * A check against a stored hash uses the cost of that hash. Hashes with another cost
+ * are reported as needing an upgrade, so they are re-hashed at the configured cost on
+ * the user's next successful login.
+ */
+@Slf4j
+public class MeteredPasswordEncoder implements PasswordEncoder {
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$");
+
+    private final BCryptPasswordEncoder delegate;
+    private final int strength;
+    private final Semaphore permits;
+    private final Timer verifyTimer;
+
+    public MeteredPasswordEncoder(int strength, int maxConcurrent, MeterRegistry meterRegistry) {
+        this.delegate = new BCryptPasswordEncoder(strength);
+        this.strength = strength;
+        int limit = maxConcurrent > 0 ? maxConcurrent : Runtime.getRuntime().availableProcessors();
+        this.permits = new Semaphore(limit, true);
+        this.verifyTimer = Timer.builder("security.password.verify")
+                .description("Password hash check latency, including the wait for a free slot")
+                .register(meterRegistry);
+        Gauge.builder("security.password.waiting", permits, Semaphore::getQueueLength)
+                .description("Password hash checks waiting for a free slot")
+                .register(meterRegistry);
+
+        long started = System.nanoTime();
+        delegate.encode("cost-measurement");
+        log.info("BCrypt cost {}: {} ms per hash, at most {} hashes at a time",
+                strength, (System.nanoTime() - started) / 1_000_000, limit);
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        permits.acquireUninterruptibly();
+        try {
+            return delegate.encode(rawPassword);
+        } finally {
+            permits.release();
+        }
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return verifyTimer.record(() -> {
+            permits.acquireUninterruptibly();
+            try {
+                return delegate.matches(rawPassword, encodedPassword);
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher cost = BCRYPT_COST.matcher(encodedPassword);
+        // Unlike BCryptPasswordEncoder this also lowers the cost, so it can be tuned both ways
+        return cost.find() && Integer.parseInt(cost.group(1)) != strength;
+    }
+}
@@ -0,0 +1,193 @@
+package com.sahabatquran.webapp.security;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.AuthorizationResult;
+import org.springframework.security.authorization.method.PreAuthorizeAuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Permission checks evaluated as bit operations on {@link PermissionMask} bitmaps.
+ *
+ * Request rules and @PreAuthorize expressions name permission codes. They are compiled
+ * once into masks of the required permissions, and the logged-in user's permissions
+ * arrive as a mask in the {@link AuthenticatedUser} principal, so a check costs a few
+ * word comparisons however many permissions the user holds, instead of a string set
+ * built from the authorities on every check.
+ *
+ * @PreAuthorize expressions made of hasAuthority and hasAnyAuthority joined with "and"
+ * and "or" are compiled; any other expression is evaluated by Spring Security's SpEL
+ * manager as before.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PermissionAuthorization {
+
+    private static final Pattern TERM = Pattern.compile("\\s*(hasAuthority|hasAnyAuthority)\\(\\s*('[^']*'(\\s*,\\s*'[^']*')*)\\s*\\)\\s*");
+    private static final Pattern CODE = Pattern.compile("'([^']*)'");
+    private static final Pattern OR = Pattern.compile("\\s+or\\s+");
+    private static final Pattern AND = Pattern.compile("\\s+and\\s+");
+
+    private final PermissionRegistry registry;
+    private final List<PermissionCheck> requestChecks = new CopyOnWriteArrayList<>();
+    private final Map<Method, Optional<PermissionCheck>> methodChecks = new ConcurrentHashMap<>();
+    private final PreAuthorizeAuthorizationManager expressionFallback = new PreAuthorizeAuthorizationManager();
+
+    /**
+     * Request rule granted to users holding any of the permissions
+     */
+    public AuthorizationManager<RequestAuthorizationContext> anyOf(String... codes) {
+        PermissionCheck check = new PermissionCheck(List.of(List.of(List.of(codes))));
+        requestChecks.add(check);
+        return (authentication, context) -> new AuthorizationDecision(isGranted(authentication.get(), check));
+    }
+
+    /**
+     * Decision for a method annotated with @PreAuthorize
+     */
+    public AuthorizationResult authorizeMethod(Supplier<? extends Authentication> authentication,
+                                               MethodInvocation invocation) {
+        Optional<PermissionCheck> check = methodChecks.computeIfAbsent(targetMethod(invocation), this::compile);
+        if (check.isEmpty()) {
+            return expressionFallback.authorize(authentication, invocation);
+        }
+        return new AuthorizationDecision(isGranted(authentication.get(), check.get()));
+    }
+
+    /**
+     * Compile all request rules and the @PreAuthorize expressions of all handler methods
+     * before the first request, so the permission numbering does not change afterwards
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void compileChecks(ApplicationReadyEvent event) {
+        requestChecks.forEach(PermissionCheck::requiredMasks);
+        event.getApplicationContext().getBeanProvider(RequestMappingHandlerMapping.class).orderedStream()
+                .flatMap(mapping -> mapping.getHandlerMethods().values().stream())
+                .map(HandlerMethod::getMethod)
+                .filter(method -> findPreAuthorize(method) != null)
+                .forEach(method -> methodChecks.computeIfAbsent(method, this::compile)
+                        .ifPresent(PermissionCheck::requiredMasks));
+        long compiled = methodChecks.values().stream().filter(Optional::isPresent).count();
+        log.info("Compiled {} request rules and {} @PreAuthorize expressions into permission bitmaps ({} left to SpEL)",
+                requestChecks.size(), compiled, methodChecks.size() - compiled);
+    }
+
+    boolean isGranted(Authentication authentication, PermissionCheck check) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return false;
+        }
+        // Number the required codes before the user's mask is checked against the numbering
+        check.requiredMasks();
+        PermissionMask granted = authentication.getPrincipal() instanceof AuthenticatedUser user
+                && registry.isCurrent(user.getPermissions())
+                ? user.getPermissions()
+                : registry.grantedMask(authentication.getAuthorities());
+        return check.isGranted(granted);
+    }
+
+    private Optional<PermissionCheck> compile(Method method) {
+        PreAuthorize preAuthorize = findPreAuthorize(method);
+        return preAuthorize != null ? parseExpression(preAuthorize.value()).map(PermissionCheck::new) : Optional.empty();
+    }
+
+    private static PreAuthorize findPreAuthorize(Method method) {
+        PreAuthorize preAuthorize = AnnotatedElementUtils.findMergedAnnotation(method, PreAuthorize.class);
+        return preAuthorize != null
+                ? preAuthorize
+                : AnnotatedElementUtils.findMergedAnnotation(method.getDeclaringClass(), PreAuthorize.class);
+    }
+
+    /**
+     * Parse "hasAuthority('A') or hasAnyAuthority('B', 'C') and hasAuthority('D')";
+     * "and" binds tighter than "or", as in SpEL
+     */
+    static Optional<List<List<List<String>>>> parseExpression(String expression) {
+        List<List<List<String>>> alternatives = new ArrayList<>();
+        for (String alternative : OR.split(expression.trim())) {
+            List<List<String>> requirements = new ArrayList<>();
+            for (String term : AND.split(alternative)) {
+                Matcher matcher = TERM.matcher(term);
+                if (!matcher.matches()) {
+                    return Optional.empty();
+                }
+                List<String> codes = new ArrayList<>();
+                Matcher code = CODE.matcher(matcher.group(2));
+                while (code.find()) {
+                    codes.add(code.group(1));
+                }
+                requirements.add(List.copyOf(codes));
+            }
+            alternatives.add(List.copyOf(requirements));
+        }
+        return Optional.of(List.copyOf(alternatives));
+    }
+
+    private static Method targetMethod(MethodInvocation invocation) {
+        Object target = invocation.getThis();
+        return target != null
+                ? AopUtils.getMostSpecificMethod(invocation.getMethod(), AopUtils.getTargetClass(target))
+                : invocation.getMethod();
+    }
+
+    /**
+     * Compiled check: granted if for any alternative the user holds at least one
+     * permission of every requirement
+     */
+    final class PermissionCheck {
+
+        private final List<List<List<String>>> alternatives;
+        private volatile List<List<PermissionMask>> masks;
+
+        PermissionCheck(List<List<List<String>>> alternatives) {
+            this.alternatives = alternatives;
+        }
+
+        boolean isGranted(PermissionMask granted) {
+            for (List<PermissionMask> requirements : requiredMasks()) {
+                boolean satisfied = true;
+                for (PermissionMask required : requirements) {
+                    if (!granted.intersects(required)) {
+                        satisfied = false;
+                        break;
+                    }
+                }
+                if (satisfied) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        List<List<PermissionMask>> requiredMasks() {
+            List<List<PermissionMask>> current = masks;
+            if (current == null) {
+                current = alternatives.stream()
+                        .map(requirements -> requirements.stream().map(registry::requiredMask).toList())
+                        .toList();
+                masks = current;
+            }
+            return current;
+        }
+    }
+}
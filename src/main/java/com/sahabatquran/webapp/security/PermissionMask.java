@@ -0,0 +1,81 @@
+package com.sahabatquran.webapp.security;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Set of permissions as a bitmap over the dense permission IDs of a
+ * {@link PermissionRegistry}.
+ *
+ * Immutable. A mask is tied to the registry version it was built with: IDs are only
+ * comparable between masks of the same version.
+ */
+public final class PermissionMask implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final long[] words;
+    private final int registryVersion;
+
+    PermissionMask(BitSet bits, int registryVersion) {
+        this(bits.toLongArray(), registryVersion);
+    }
+
+    /**
+     * Mask from the words of {@link #toLongArray()}, as stored in a session
+     */
+    PermissionMask(long[] words, int registryVersion) {
+        this.words = words;
+        this.registryVersion = registryVersion;
+    }
+
+    public int getRegistryVersion() {
+        return registryVersion;
+    }
+
+    long[] toLongArray() {
+        return words.clone();
+    }
+
+    public boolean isEmpty() {
+        return words.length == 0;
+    }
+
+    public boolean contains(int permissionId) {
+        int word = permissionId >>> 6;
+        return word < words.length && (words[word] & (1L << permissionId)) != 0;
+    }
+
+    /**
+     * True if both masks share at least one permission
+     */
+    public boolean intersects(PermissionMask other) {
+        int length = Math.min(words.length, other.words.length);
+        for (int i = 0; i < length; i++) {
+            if ((words[i] & other.words[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof PermissionMask mask
+                && registryVersion == mask.registryVersion
+                && Arrays.equals(words, mask.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(words) + registryVersion;
+    }
+
+    @Override
+    public String toString() {
+        return "PermissionMask" + BitSet.valueOf(words);
+    }
+}
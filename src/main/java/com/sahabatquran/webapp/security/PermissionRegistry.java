@@ -0,0 +1,124 @@
+package com.sahabatquran.webapp.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Dense integer IDs of the permission codes, for {@link PermissionMask} bitmaps.
+ *
+ * The codes of the permissions table are numbered in code order when the application
+ * has started. Codes that are not in the table yet (a permission added at runtime, a
+ * check on a code nobody holds) get the next free ID on first use. The version is
+ * derived from the numbered list, so masks stored in sessions stay valid across
+ * restarts as long as the permissions do not change; masks of another version are
+ * rebuilt from the authorities.
+ */
+@Component
+@Slf4j
+public class PermissionRegistry {
+
+    static final String PERMISSION_CODES_QUERY = "SELECT code FROM permissions ORDER BY code";
+
+    private final Supplier<List<String>> permissionCodes;
+    private volatile State state;
+
+    @Autowired
+    public PermissionRegistry(JdbcTemplate jdbcTemplate) {
+        this(() -> jdbcTemplate.queryForList(PERMISSION_CODES_QUERY, String.class));
+    }
+
+    /**
+     * Registry over a fixed list of permission codes, for tests and benchmarks
+     */
+    public PermissionRegistry(Supplier<List<String>> permissionCodes) {
+        this.permissionCodes = permissionCodes;
+    }
+
+    /**
+     * Mask of the permissions a check requires. Codes without an ID are numbered, so a
+     * permission that is added later can still satisfy the check.
+     */
+    public PermissionMask requiredMask(Collection<String> codes) {
+        State current = state();
+        BitSet bits = new BitSet(current.ids().size());
+        boolean registered = false;
+        for (String code : codes) {
+            Integer id = current.ids().get(code);
+            if (id == null) {
+                id = register(code);
+                registered = true;
+            }
+            bits.set(id);
+        }
+        // Numbering a code starts a new version
+        return new PermissionMask(bits, registered ? state().version() : current.version());
+    }
+
+    /**
+     * Mask of the permissions a user holds. Authorities without an ID (such as the
+     * anonymous role) are left out: no check requires them.
+     */
+    public PermissionMask grantedMask(Collection<? extends GrantedAuthority> authorities) {
+        State current = state();
+        BitSet bits = new BitSet(current.ids().size());
+        for (GrantedAuthority authority : authorities) {
+            Integer id = authority.getAuthority() != null ? current.ids().get(authority.getAuthority()) : null;
+            if (id != null) {
+                bits.set(id);
+            }
+        }
+        return new PermissionMask(bits, current.version());
+    }
+
+    /**
+     * True if the mask was built with the current numbering
+     */
+    public boolean isCurrent(PermissionMask mask) {
+        return mask != null && mask.getRegistryVersion() == state().version();
+    }
+
+    private State state() {
+        State current = state;
+        if (current == null) {
+            synchronized (this) {
+                current = state;
+                if (current == null) {
+                    List<String> codes = permissionCodes.get().stream().distinct().toList();
+                    Map<String, Integer> ids = new HashMap<>();
+                    for (String code : codes) {
+                        ids.put(code, ids.size());
+                    }
+                    current = new State(codes, Map.copyOf(ids), codes.hashCode());
+                    state = current;
+                    log.info("Numbered {} permissions for permission bitmaps", codes.size());
+                }
+            }
+        }
+        return current;
+    }
+
+    private synchronized int register(String code) {
+        State current = state();
+        Integer id = current.ids().get(code);
+        if (id != null) {
+            return id;
+        }
+        List<String> codes = new ArrayList<>(current.codes());
+        codes.add(code);
+        Map<String, Integer> ids = new HashMap<>(current.ids());
+        int newId = ids.size();
+        ids.put(code, newId);
+        state = new State(List.copyOf(codes), Map.copyOf(ids), codes.hashCode());
+        log.debug("Assigned bitmap ID {} to permission {}", newId, code);
+        return newId;
+    }
+
+    private record State(List<String> codes, Map<String, Integer> ids, int version) {
+    }
+}
@@ -0,0 +1,110 @@
+package com.sahabatquran.webapp.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Permission authorities of every role, held in memory.
+ *
+ * There are a handful of roles and permissions, and they change rarely, while logins
+ * come in bursts at class start. Loading the whole role-to-permission mapping once
+ * leaves logins with the user query alone instead of a four-table join per login.
+ *
+ * Changes to role permissions through JPA clear the cache once they commit (see
+ * {@link RolePermissionChangeListener}); the mapping is also reloaded periodically, so
+ * changes made with plain SQL are picked up without a restart.
+ */
+@Component
+@Slf4j
+public class RoleAuthorityCache {
+
+    static final String ROLE_PERMISSIONS_QUERY =
+            "SELECT r.code AS role_code, p.code AS permission_code " +
+            "FROM roles r " +
+            "JOIN role_permissions rp ON rp.id_role = r.id " +
+            "JOIN permissions p ON p.id = rp.id_permission";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long refreshNanos;
+    private final Counter loads;
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    public RoleAuthorityCache(JdbcTemplate jdbcTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.security.role-authorities.refresh-ms:300000}") long refreshMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.refreshNanos = refreshMillis * 1_000_000L;
+        this.loads = Counter.builder("security.role_authorities.loads")
+                .description("Loads of the role permission mapping")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Union of the permission authorities of the given roles
+     */
+    public List<GrantedAuthority> getAuthorities(Collection<String> roleCodes) {
+        Map<String, List<GrantedAuthority>> authorities = current();
+        Set<GrantedAuthority> result = new LinkedHashSet<>();
+        for (String roleCode : roleCodes) {
+            result.addAll(authorities.getOrDefault(roleCode, List.of()));
+        }
+        return List.copyOf(result);
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRolePermissionsChanged(RolePermissionsChangedEvent event) {
+        invalidate();
+        log.info("Role permissions changed, cleared role authority cache");
+    }
+
+    private Map<String, List<GrantedAuthority>> current() {
+        Snapshot current = snapshot;
+        if (current != null && System.nanoTime() - current.loadedAt() < refreshNanos) {
+            return current.authorities();
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current != null && System.nanoTime() - current.loadedAt() < refreshNanos) {
+                return current.authorities();
+            }
+            long loadedGeneration = generation.get();
+            current = load();
+            // An invalidation during the load may mean the result is already stale; use it once without caching it
+            if (generation.get() == loadedGeneration) {
+                snapshot = current;
+            }
+            return current.authorities();
+        }
+    }
+
+    private Snapshot load() {
+        Map<String, List<GrantedAuthority>> authorities = new HashMap<>();
+        jdbcTemplate.query(ROLE_PERMISSIONS_QUERY, rs -> {
+            authorities.computeIfAbsent(rs.getString("role_code"), code -> new ArrayList<>())
+                    .add(new SimpleGrantedAuthority(rs.getString("permission_code")));
+        });
+        authorities.replaceAll((code, list) -> List.copyOf(list));
+        loads.increment();
+        log.debug("Loaded permissions of {} roles", authorities.size());
+        return new Snapshot(Map.copyOf(authorities), System.nanoTime());
+    }
+
+    private record Snapshot(Map<String, List<GrantedAuthority>> authorities, long loadedAt) {
+    }
+}
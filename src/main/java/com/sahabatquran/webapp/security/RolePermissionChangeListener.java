@@ -0,0 +1,29 @@
+package com.sahabatquran.webapp.security;
+
+import com.sahabatquran.webapp.entity.RolePermission;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreRemove;
+import jakarta.persistence.PreUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA listener of {@link RolePermission} that announces changes, so the
+ * {@link RoleAuthorityCache} is cleared when the transaction commits. Instantiated by
+ * Spring through Hibernate's bean container.
+ */
+@Component
+@RequiredArgsConstructor
+public class RolePermissionChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Pre callbacks run inside the transaction, so the event is bound to its commit
+    @PrePersist
+    @PreUpdate
+    @PreRemove
+    public void onChange(RolePermission rolePermission) {
+        eventPublisher.publishEvent(new RolePermissionsChangedEvent());
+    }
+}
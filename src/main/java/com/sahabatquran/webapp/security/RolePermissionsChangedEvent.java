@@ -0,0 +1,7 @@
+package com.sahabatquran.webapp.security;
+
+/**
+ * Published when a permission is granted to or revoked from a role
+ */
+public record RolePermissionsChangedEvent() {
+}
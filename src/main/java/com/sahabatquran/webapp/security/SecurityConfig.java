@@ -2,60 +2,74 @@ package com.sahabatquran.webapp.security;
 
 import javax.sql.DataSource;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.Advisor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.method.AuthorizationManagerBeforeMethodInterceptor;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.core.session.SessionRegistry;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.security.provisioning.JdbcUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 
 import lombok.RequiredArgsConstructor;
 
 @Configuration
 @EnableWebSecurity
-@EnableMethodSecurity(prePostEnabled = true)
+// @PreAuthorize is evaluated by PermissionAuthorization (see preAuthorizeAdvisor)
+@EnableMethodSecurity(prePostEnabled = false)
 @RequiredArgsConstructor
 public class SecurityConfig {
     
     private final DataSource dataSource;
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, PermissionAuthorization permissions,
+                                                   SessionRegistry sessionRegistry) throws Exception {
+        // Permission rules are checked against the session's permission bitmap
         http
             .authorizeHttpRequests(authz -> authz
                 .requestMatchers("/", "/css/**", "/js/**", "/images/**", "/error", "/register/**", "/feedback/anonymous/**").permitAll()
                 // Dashboard - accessible to all authenticated users
                 .requestMatchers("/dashboard").authenticated()
                 // User Management Module
-                .requestMatchers("/users/**").hasAnyAuthority("USER_VIEW", "USER_CREATE", "USER_EDIT", "USER_DELETE", "USER_ACTIVATE")
+                .requestMatchers("/users/**").access(permissions.anyOf("USER_VIEW", "USER_CREATE", "USER_EDIT", "USER_DELETE", "USER_ACTIVATE"))
                 // Academic Management Module  
-                .requestMatchers("/classes/**").hasAnyAuthority("CLASS_VIEW", "CLASS_CREATE", "CLASS_EDIT", "CLASS_DELETE", "CLASS_SCHEDULE_MANAGE")
-                .requestMatchers("/enrollments/**").hasAnyAuthority("ENROLLMENT_VIEW", "ENROLLMENT_CREATE", "ENROLLMENT_EDIT", "ENROLLMENT_APPROVE", "ENROLLMENT_CANCEL")
-                .requestMatchers("/attendance/**").hasAnyAuthority("ATTENDANCE_VIEW", "ATTENDANCE_MARK", "ATTENDANCE_EDIT", "ATTENDANCE_REPORT")
-                .requestMatchers("/assessments/**").hasAnyAuthority("ASSESSMENT_VIEW", "ASSESSMENT_CREATE", "ASSESSMENT_EDIT", "ASSESSMENT_GRADE")
-                .requestMatchers("/report-cards/**").hasAnyAuthority("REPORT_CARD_VIEW", "REPORT_CARD_GENERATE")
+                .requestMatchers("/classes/**").access(permissions.anyOf("CLASS_VIEW", "CLASS_CREATE", "CLASS_EDIT", "CLASS_DELETE", "CLASS_SCHEDULE_MANAGE"))
+                .requestMatchers("/enrollments/**").access(permissions.anyOf("ENROLLMENT_VIEW", "ENROLLMENT_CREATE", "ENROLLMENT_EDIT", "ENROLLMENT_APPROVE", "ENROLLMENT_CANCEL"))
+                .requestMatchers("/attendance/**").access(permissions.anyOf("ATTENDANCE_VIEW", "ATTENDANCE_MARK", "ATTENDANCE_EDIT", "ATTENDANCE_REPORT"))
+                .requestMatchers("/assessments/**").access(permissions.anyOf("ASSESSMENT_VIEW", "ASSESSMENT_CREATE", "ASSESSMENT_EDIT", "ASSESSMENT_GRADE"))
+                .requestMatchers("/report-cards/**").access(permissions.anyOf("REPORT_CARD_VIEW", "REPORT_CARD_GENERATE"))
                 // Finance Management Module
-                .requestMatchers("/billing/**").hasAnyAuthority("BILLING_VIEW", "BILLING_CREATE", "BILLING_EDIT")
-                .requestMatchers("/payments/**").hasAnyAuthority("PAYMENT_VIEW", "PAYMENT_VERIFY", "PAYMENT_RECORD")
-                .requestMatchers("/payroll/**").hasAnyAuthority("SALARY_VIEW", "SALARY_CALCULATE", "SALARY_APPROVE")
+                .requestMatchers("/billing/**").access(permissions.anyOf("BILLING_VIEW", "BILLING_CREATE", "BILLING_EDIT"))
+                .requestMatchers("/payments/**").access(permissions.anyOf("PAYMENT_VIEW", "PAYMENT_VERIFY", "PAYMENT_RECORD"))
+                .requestMatchers("/payroll/**").access(permissions.anyOf("SALARY_VIEW", "SALARY_CALCULATE", "SALARY_APPROVE"))
                 // Event Management Module
-                .requestMatchers("/events/**").hasAnyAuthority("EVENT_VIEW", "EVENT_CREATE", "EVENT_EDIT", "EVENT_DELETE", "EVENT_REGISTER", "EVENT_MANAGE_REGISTRATION")
+                .requestMatchers("/events/**").access(permissions.anyOf("EVENT_VIEW", "EVENT_CREATE", "EVENT_EDIT", "EVENT_DELETE", "EVENT_REGISTER", "EVENT_MANAGE_REGISTRATION"))
                 // Student Registration Management Module
-                .requestMatchers("/registrations/**").hasAnyAuthority("STUDENT_REG_VIEW", "STUDENT_REG_CREATE", "STUDENT_REG_EDIT", "STUDENT_REG_REVIEW", "STUDENT_REG_ASSIGN_TEACHER", "STUDENT_REG_REPORT", "PLACEMENT_TEST_EVALUATE")
+                .requestMatchers("/registrations/**").access(permissions.anyOf("STUDENT_REG_VIEW", "STUDENT_REG_CREATE", "STUDENT_REG_EDIT", "STUDENT_REG_REVIEW", "STUDENT_REG_ASSIGN_TEACHER", "STUDENT_REG_REPORT", "PLACEMENT_TEST_EVALUATE"))
                 // Academic Planning Module
-                .requestMatchers("/academic/**").hasAnyAuthority("ACADEMIC_TERM_MANAGE", "TEACHER_AVAILABILITY_VIEW", "CLASS_GENERATION_RUN", "CLASS_GENERATION_REVIEW", "SCHEDULE_APPROVE", "SYSTEM_GOLIVE_MANAGE", "TEACHER_LEVEL_ASSIGN", "TERM_CLOSURE_MANAGE", "TERM_CLOSURE_EXECUTE")
+                .requestMatchers("/academic/**").access(permissions.anyOf("ACADEMIC_TERM_MANAGE", "TEACHER_AVAILABILITY_VIEW", "CLASS_GENERATION_RUN", "CLASS_GENERATION_REVIEW", "SCHEDULE_APPROVE", "SYSTEM_GOLIVE_MANAGE", "TEACHER_LEVEL_ASSIGN", "TERM_CLOSURE_MANAGE", "TERM_CLOSURE_EXECUTE"))
                 // Analytics Module (more specific rule must come before general management rule)
-                .requestMatchers("/management/analytics/**").hasAuthority("ANALYTICS_VIEW")
+                .requestMatchers("/management/analytics/**").access(permissions.anyOf("ANALYTICS_VIEW"))
                 // Management Module
-                .requestMatchers("/management/**").hasAnyAuthority("TEACHER_LEVEL_ASSIGN", "REPORT_OPERATIONAL", "REPORT_FINANCIAL", "REPORT_ACADEMIC", "REPORT_EXPORT", "AUDIT_LOG_VIEW")
+                .requestMatchers("/management/**").access(permissions.anyOf("TEACHER_LEVEL_ASSIGN", "REPORT_OPERATIONAL", "REPORT_FINANCIAL", "REPORT_ACADEMIC", "REPORT_EXPORT", "AUDIT_LOG_VIEW"))
                 // Instructor Module
-                .requestMatchers("/instructor/**").hasAnyAuthority("TEACHER_AVAILABILITY_SUBMIT", "STUDENT_REG_VIEW", "STUDENT_REG_REVIEW", "STUDENT_REG_EVALUATE", "PLACEMENT_TEST_EVALUATE")
+                .requestMatchers("/instructor/**").access(permissions.anyOf("TEACHER_AVAILABILITY_SUBMIT", "STUDENT_REG_VIEW", "STUDENT_REG_REVIEW", "STUDENT_REG_EVALUATE", "PLACEMENT_TEST_EVALUATE"))
                 // System & Reporting Module
-                .requestMatchers("/reports/**").hasAnyAuthority("REPORT_OPERATIONAL", "REPORT_FINANCIAL", "REPORT_ACADEMIC", "REPORT_EXPORT", "DASHBOARD_VIEW")
-                .requestMatchers("/system/**").hasAnyAuthority("SYSTEM_CONFIG", "BACKUP_RESTORE", "AUDIT_LOG_VIEW")
+                .requestMatchers("/reports/**").access(permissions.anyOf("REPORT_OPERATIONAL", "REPORT_FINANCIAL", "REPORT_ACADEMIC", "REPORT_EXPORT", "DASHBOARD_VIEW"))
+                .requestMatchers("/system/**").access(permissions.anyOf("SYSTEM_CONFIG", "BACKUP_RESTORE", "AUDIT_LOG_VIEW"))
+                // Executor and application metrics
+                .requestMatchers("/actuator/**").access(permissions.anyOf("SYSTEM_CONFIG", "AUDIT_LOG_VIEW"))
                 .anyRequest().authenticated()
             )
             .formLogin(form -> form
@@ -69,15 +83,18 @@ public class SecurityConfig {
                 .logoutUrl("/logout")
                 .logoutSuccessUrl("/login?logout=true")
                 .invalidateHttpSession(true)
-                .deleteCookies("JSESSIONID")
+                .deleteCookies("SESSION")
                 .permitAll()
             )
+            // Sessions live in the database (SessionConfig); the registry sees the sessions of all nodes
             .sessionManagement(session -> session
                 .maximumSessions(1)
                 .maxSessionsPreventsLogin(false)
+                .sessionRegistry(sessionRegistry)
+                .expiredUrl("/login?expired=true")
             )
             .sessionManagement(session -> session
-                .sessionFixation().migrateSession()
+                .sessionFixation().changeSessionId()
             )
             .exceptionHandling(exceptions -> exceptions
                 .accessDeniedPage("/error/403")
@@ -99,31 +116,26 @@ public class SecurityConfig {
     }
     
     @Bean
-    public JdbcUserDetailsManager jdbcUserDetailsManager() {
-        JdbcUserDetailsManager userDetailsManager = new JdbcUserDetailsManager(dataSource);
-        
-        // Custom queries for our database schema
-        userDetailsManager.setUsersByUsernameQuery(
-            "SELECT u.username, uc.password_hash, u.is_active " +
-            "FROM users u " +
-            "JOIN user_credentials uc ON u.id = uc.id_user " +
-            "WHERE u.username = ?"
-        );
-        
-        userDetailsManager.setAuthoritiesByUsernameQuery(
-            "SELECT u.username, p.code as authority " +
-            "FROM users u " +
-            "JOIN user_roles ur ON u.id = ur.id_user " +
-            "JOIN role_permissions rp ON ur.id_role = rp.id_role " +
-            "JOIN permissions p ON rp.id_permission = p.id " +
-            "WHERE u.username = ? AND u.is_active = true"
-        );
-        
-        return userDetailsManager;
+    public AppUserDetailsManager jdbcUserDetailsManager(RoleAuthorityCache roleAuthorityCache,
+                                                        PermissionRegistry permissionRegistry) {
+        // Principals carry user ID, full name and role codes (see AppUserDetailsManager.USER_QUERY);
+        // permission authorities come from the in-memory role authority cache
+        return new AppUserDetailsManager(dataSource, roleAuthorityCache, permissionRegistry);
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static Advisor preAuthorizeAdvisor(ObjectProvider<PermissionAuthorization> permissions) {
+        // Looked up on first use, so creating the advisor does not initialize application beans early
+        AuthorizationManager<MethodInvocation> manager =
+                (authentication, invocation) -> permissions.getObject().authorizeMethod(authentication, invocation);
+        return AuthorizationManagerBeforeMethodInterceptor.preAuthorize(manager);
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${app.security.bcrypt.strength:10}") int strength,
+                                           @Value("${app.security.bcrypt.max-concurrent:0}") int maxConcurrent,
+                                           MeterRegistry meterRegistry) {
+        return new MeteredPasswordEncoder(strength, maxConcurrent, meterRegistry);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,289 @@
+package com.sahabatquran.webapp.security;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.GenericConversionService;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Serialization of HTTP session attributes stored by Spring Session JDBC.
+ *
+ * The security context of a logged-in user is written in a compact binary form: the
+ * {@link AuthenticatedUser} fields and permission codes, without Java serialization
+ * class descriptors and without the permission codes written twice (principal and
+ * token). The {@link PermissionMask} is stored as its bitmap words and registry version;
+ * a node reading the session uses it as is while its {@link PermissionRegistry} has the
+ * same version, and rebuilds it from the codes only when the numbering differs. Every
+ * other attribute, and security contexts of another shape, use Java serialization as
+ * before; the compact form starts with a byte a Java serialization stream never starts
+ * with, so both can be read. Contexts stored without the mask are still read.
+ *
+ * Metrics (actuator):
+ * - security.session.context.size{format}: bytes of each stored security context
+ */
+@Component
+public class SessionAttributeCodec {
+
+    static final byte COMPACT_SECURITY_CONTEXT = 1;
+    static final byte COMPACT_SECURITY_CONTEXT_WITH_MASK = 2;
+
+    private static final byte AUTHORITY_OF_PRINCIPAL = 0;
+    private static final byte AUTHORITY_CODE = 1;
+    private static final byte AUTHORITY_SERIALIZED = 2;
+    private static final byte DETAILS_NONE = 0;
+    private static final byte DETAILS_WEB = 1;
+    private static final byte DETAILS_SERIALIZED = 2;
+
+    private final PermissionRegistry permissionRegistry;
+    private final SerializingConverter serializer = new SerializingConverter();
+    private final DeserializingConverter deserializer = new DeserializingConverter(getClass().getClassLoader());
+    private final DistributionSummary compactSize;
+    private final DistributionSummary javaSize;
+
+    public SessionAttributeCodec(PermissionRegistry permissionRegistry, MeterRegistry meterRegistry) {
+        this.permissionRegistry = permissionRegistry;
+        this.compactSize = contextSize(meterRegistry, "compact");
+        this.javaSize = contextSize(meterRegistry, "java");
+    }
+
+    /**
+     * Conversion service for JdbcIndexedSessionRepository (attribute to bytes and back)
+     */
+    public ConversionService conversionService() {
+        GenericConversionService conversionService = new GenericConversionService();
+        conversionService.addConverter(Object.class, byte[].class, this::serialize);
+        conversionService.addConverter(byte[].class, Object.class, this::deserialize);
+        return conversionService;
+    }
+
+    public byte[] serialize(Object attribute) {
+        if (!(attribute instanceof SecurityContext context)) {
+            return serializer.convert(attribute);
+        }
+        if (isCompact(context)) {
+            byte[] bytes = writeCompact(context.getAuthentication());
+            compactSize.record(bytes.length);
+            return bytes;
+        }
+        byte[] bytes = serializer.convert(attribute);
+        javaSize.record(bytes.length);
+        return bytes;
+    }
+
+    public Object deserialize(byte[] bytes) {
+        if (bytes.length > 0 && (bytes[0] == COMPACT_SECURITY_CONTEXT || bytes[0] == COMPACT_SECURITY_CONTEXT_WITH_MASK)) {
+            return readCompact(bytes);
+        }
+        return deserializer.convert(bytes);
+    }
+
+    /**
+     * True for the context of a login through the form: an authenticated token with
+     * erased credentials and an AuthenticatedUser principal holding simple authorities
+     */
+    private static boolean isCompact(SecurityContext context) {
+        Authentication authentication = context.getAuthentication();
+        if (context.getClass() != SecurityContextImpl.class
+                || authentication == null
+                || authentication.getClass() != UsernamePasswordAuthenticationToken.class
+                || !authentication.isAuthenticated()
+                || authentication.getCredentials() != null
+                || authentication.getPrincipal() == null
+                || authentication.getPrincipal().getClass() != AuthenticatedUser.class) {
+            return false;
+        }
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+        return user.getPassword() == null
+                && user.isAccountNonExpired() && user.isAccountNonLocked() && user.isCredentialsNonExpired()
+                && user.getAuthorities().stream().allMatch(authority -> authority.getClass() == SimpleGrantedAuthority.class);
+    }
+
+    private byte[] writeCompact(Authentication authentication) {
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(COMPACT_SECURITY_CONTEXT_WITH_MASK);
+            out.writeBoolean(user.getId() != null);
+            if (user.getId() != null) {
+                out.writeLong(user.getId().getMostSignificantBits());
+                out.writeLong(user.getId().getLeastSignificantBits());
+            }
+            out.writeUTF(user.getUsername());
+            writeNullable(out, user.getFullName());
+            out.writeBoolean(user.isEnabled());
+            writeCodes(out, user.getRoleCodes());
+
+            List<String> permissions = user.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList();
+            writeCodes(out, permissions);
+
+            // Token authorities are the principal's plus any added at login; only the extra ones are written out
+            out.writeShort(authentication.getAuthorities().size());
+            for (GrantedAuthority authority : authentication.getAuthorities()) {
+                int index = authority.getClass() == SimpleGrantedAuthority.class
+                        ? permissions.indexOf(authority.getAuthority())
+                        : -1;
+                if (index >= 0) {
+                    out.writeByte(AUTHORITY_OF_PRINCIPAL);
+                    out.writeShort(index);
+                } else if (authority.getClass() == SimpleGrantedAuthority.class) {
+                    out.writeByte(AUTHORITY_CODE);
+                    out.writeUTF(authority.getAuthority());
+                } else {
+                    out.writeByte(AUTHORITY_SERIALIZED);
+                    writeSerialized(out, authority);
+                }
+            }
+
+            Object details = authentication.getDetails();
+            if (details == null) {
+                out.writeByte(DETAILS_NONE);
+            } else if (details.getClass() == WebAuthenticationDetails.class) {
+                WebAuthenticationDetails web = (WebAuthenticationDetails) details;
+                out.writeByte(DETAILS_WEB);
+                writeNullable(out, web.getRemoteAddress());
+                writeNullable(out, web.getSessionId());
+            } else {
+                out.writeByte(DETAILS_SERIALIZED);
+                writeSerialized(out, details);
+            }
+
+            PermissionMask mask = user.getPermissions();
+            out.writeBoolean(mask != null);
+            if (mask != null) {
+                out.writeInt(mask.getRegistryVersion());
+                long[] words = mask.toLongArray();
+                out.writeShort(words.length);
+                for (long word : words) {
+                    out.writeLong(word);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write security context", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private SecurityContext readCompact(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            byte format = in.readByte();
+            UUID id = in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+            String username = in.readUTF();
+            String fullName = readNullable(in);
+            boolean enabled = in.readBoolean();
+            List<String> roleCodes = readCodes(in);
+
+            List<GrantedAuthority> permissions = readCodes(in).stream()
+                    .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                    .toList();
+
+            int authorityCount = in.readUnsignedShort();
+            List<GrantedAuthority> authorities = new ArrayList<>(authorityCount);
+            for (int i = 0; i < authorityCount; i++) {
+                byte kind = in.readByte();
+                authorities.add(switch (kind) {
+                    case AUTHORITY_OF_PRINCIPAL -> permissions.get(in.readUnsignedShort());
+                    case AUTHORITY_CODE -> new SimpleGrantedAuthority(in.readUTF());
+                    case AUTHORITY_SERIALIZED -> (GrantedAuthority) readSerialized(in);
+                    default -> throw new IOException("Unknown authority kind " + kind);
+                });
+            }
+
+            byte detailsKind = in.readByte();
+            Object details = switch (detailsKind) {
+                case DETAILS_NONE -> null;
+                case DETAILS_WEB -> new WebAuthenticationDetails(readNullable(in), readNullable(in));
+                case DETAILS_SERIALIZED -> readSerialized(in);
+                default -> throw new IOException("Unknown details kind " + detailsKind);
+            };
+
+            PermissionMask mask = format == COMPACT_SECURITY_CONTEXT_WITH_MASK ? readMask(in) : null;
+            if (!permissionRegistry.isCurrent(mask)) {
+                // Stored before the masks, or numbered differently by the node that wrote it
+                mask = permissionRegistry.grantedMask(permissions);
+            }
+
+            // The password is not stored; the principal's credentials were erased at login
+            AuthenticatedUser user = new AuthenticatedUser(id, username, "", enabled, fullName, roleCodes,
+                    permissions, mask);
+            user.eraseCredentials();
+            UsernamePasswordAuthenticationToken authentication =
+                    UsernamePasswordAuthenticationToken.authenticated(user, null, authorities);
+            authentication.setDetails(details);
+            return new SecurityContextImpl(authentication);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read security context", e);
+        }
+    }
+
+    private static PermissionMask readMask(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        int registryVersion = in.readInt();
+        long[] words = new long[in.readUnsignedShort()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = in.readLong();
+        }
+        return new PermissionMask(words, registryVersion);
+    }
+
+    private void writeSerialized(DataOutputStream out, Object value) throws IOException {
+        byte[] serialized = serializer.convert(value);
+        out.writeInt(serialized.length);
+        out.write(serialized);
+    }
+
+    private Object readSerialized(DataInputStream in) throws IOException {
+        return deserializer.convert(in.readNBytes(in.readInt()));
+    }
+
+    private static void writeCodes(DataOutputStream out, List<String> codes) throws IOException {
+        out.writeShort(codes.size());
+        for (String code : codes) {
+            out.writeUTF(code);
+        }
+    }
+
+    private static List<String> readCodes(DataInputStream in) throws IOException {
+        int count = in.readUnsignedShort();
+        List<String> codes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            codes.add(in.readUTF());
+        }
+        return codes;
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static DistributionSummary contextSize(MeterRegistry meterRegistry, String format) {
+        return DistributionSummary.builder("security.session.context.size")
+                .description("Serialized size of security contexts stored in sessions")
+                .baseUnit("bytes")
+                .tag("format", format)
+                .register(meterRegistry);
+    }
+}
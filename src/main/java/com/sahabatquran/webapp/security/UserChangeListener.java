@@ -0,0 +1,33 @@
+package com.sahabatquran.webapp.security;
+
+import com.sahabatquran.webapp.entity.User;
+import com.sahabatquran.webapp.entity.UserRole;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreRemove;
+import jakarta.persistence.PreUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA listener of {@link User} and {@link UserRole} that announces changes, so the
+ * cached entity of the current user is dropped when the transaction commits.
+ * Instantiated by Spring through Hibernate's bean container.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Pre callbacks run inside the transaction, so the event is bound to its commit
+    @PrePersist
+    @PreUpdate
+    @PreRemove
+    public void onChange(Object entity) {
+        User user = entity instanceof UserRole userRole ? userRole.getUser() : (User) entity;
+        if (user != null && user.getId() != null) {
+            eventPublisher.publishEvent(new UserChangedEvent(user.getId()));
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.sahabatquran.webapp.security;
+
+import java.util.UUID;
+
+/**
+ * Published when a user or one of their role assignments is saved or removed
+ */
+public record UserChangedEvent(UUID userId) {
+}
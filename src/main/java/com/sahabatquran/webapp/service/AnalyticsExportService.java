@@ -0,0 +1,219 @@
+package com.sahabatquran.webapp.service;
+
+import com.sahabatquran.webapp.dto.TermMetricsDto;
+import com.sahabatquran.webapp.entity.AcademicTerm;
+import com.sahabatquran.webapp.repository.AcademicTermRepository;
+import com.sahabatquran.webapp.repository.ClassGroupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Streams cross-term analytics exports (per-term, per-class and per-teacher rows) as CSV or XLSX.
+ *
+ * Class and teacher rows are read through JDBC cursors and written straight to the output,
+ * so memory use does not depend on how many terms or classes are exported.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AnalyticsExportService {
+
+    /** Rows kept in memory per XLSX sheet before they are flushed to a temporary file */
+    private static final int XLSX_ROW_WINDOW = 100;
+
+    private static final List<String> TERM_HEADERS = List.of(
+        "Term", "Status", "Start Date", "End Date", "Active Students", "Enrollments", "Completed Enrollments",
+        "Teachers", "Active Classes", "Average Rating", "Average Teacher Rating");
+    private static final List<String> CLASS_HEADERS = List.of(
+        "Term", "Class", "Level", "Instructor", "Capacity", "Active", "Active Students");
+    private static final List<String> TEACHER_HEADERS = List.of(
+        "Term", "Teacher", "Email", "Classes", "Active Students");
+
+    private final AcademicTermRepository academicTermRepository;
+    private final ClassGroupRepository classGroupRepository;
+    private final TermMetricsSnapshotService termMetricsSnapshotService;
+
+    public enum ExportFormat {
+        CSV("text/csv", "csv"),
+        XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx");
+
+        private final String contentType;
+        private final String fileExtension;
+
+        ExportFormat(String contentType, String fileExtension) {
+            this.contentType = contentType;
+            this.fileExtension = fileExtension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getFileExtension() {
+            return fileExtension;
+        }
+
+        public static Optional<ExportFormat> from(String value) {
+            return Arrays.stream(values())
+                .filter(format -> format.name().equalsIgnoreCase(value))
+                .findFirst();
+        }
+    }
+
+    /**
+     * Write the export for the given terms to the output stream
+     */
+    @Transactional(readOnly = true)
+    public void exportCrossTermAnalytics(List<UUID> termIds, ExportFormat format, OutputStream out) throws IOException {
+        log.info("Streaming {} analytics export for {} terms", format, termIds.size());
+
+        List<AcademicTerm> terms = academicTermRepository.findAllById(termIds).stream()
+            .sorted(Comparator.comparing(AcademicTerm::getStartDate))
+            .toList();
+        Map<UUID, TermMetricsDto> metrics = termMetricsSnapshotService.getMetrics(terms);
+
+        try (ExportWriter writer = format == ExportFormat.XLSX ? new XlsxExportWriter(out) : new CsvExportWriter(out)) {
+            writer.startSection("Terms", TERM_HEADERS);
+            for (AcademicTerm term : terms) {
+                TermMetricsDto termMetrics = metrics.getOrDefault(term.getId(), TermMetricsDto.empty(term.getId()));
+                writer.writeRow(term.getTermName(), term.getStatus().name(), term.getStartDate(), term.getEndDate(),
+                    termMetrics.getStudentCount(), termMetrics.getEnrollmentCount(),
+                    termMetrics.getCompletedEnrollmentCount(), termMetrics.getTeacherCount(),
+                    termMetrics.getActiveClassCount(), termMetrics.getAverageRating(),
+                    termMetrics.getAverageTeacherRating());
+            }
+
+            writer.startSection("Classes", CLASS_HEADERS);
+            try (Stream<Object[]> rows = classGroupRepository.streamClassExportRowsByTermIds(termIds)) {
+                writeAll(writer, rows);
+            }
+
+            writer.startSection("Teachers", TEACHER_HEADERS);
+            try (Stream<Object[]> rows = classGroupRepository.streamTeacherExportRowsByTermIds(termIds)) {
+                writeAll(writer, rows);
+            }
+        }
+    }
+
+    private void writeAll(ExportWriter writer, Stream<Object[]> rows) throws IOException {
+        Iterator<Object[]> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            writer.writeRow(iterator.next());
+        }
+    }
+
+    private interface ExportWriter extends Closeable {
+        void startSection(String name, List<String> headers) throws IOException;
+
+        void writeRow(Object... values) throws IOException;
+    }
+
+    /**
+     * CSV output with one block per section, separated by an empty line
+     */
+    private static class CsvExportWriter implements ExportWriter {
+        private final Writer writer;
+        private boolean firstSection = true;
+
+        CsvExportWriter(OutputStream out) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void startSection(String name, List<String> headers) throws IOException {
+            if (!firstSection) {
+                writer.write("\r\n");
+            }
+            firstSection = false;
+            writer.write(escape(name));
+            writer.write("\r\n");
+            writeRow(headers.toArray());
+        }
+
+        @Override
+        public void writeRow(Object... values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(escape(values[i] != null ? values[i].toString() : ""));
+            }
+            writer.write("\r\n");
+        }
+
+        private static String escape(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+    }
+
+    /**
+     * XLSX output with one sheet per section, written with a sliding row window
+     */
+    private static class XlsxExportWriter implements ExportWriter {
+        private final OutputStream out;
+        private final SXSSFWorkbook workbook = new SXSSFWorkbook(XLSX_ROW_WINDOW);
+        private SXSSFSheet sheet;
+        private int rowIndex;
+
+        XlsxExportWriter(OutputStream out) {
+            this.out = out;
+            this.workbook.setCompressTempFiles(true);
+        }
+
+        @Override
+        public void startSection(String name, List<String> headers) throws IOException {
+            sheet = workbook.createSheet(name);
+            rowIndex = 0;
+            writeRow(headers.toArray());
+        }
+
+        @Override
+        public void writeRow(Object... values) {
+            Row row = sheet.createRow(rowIndex++);
+            for (int i = 0; i < values.length; i++) {
+                Object value = values[i];
+                if (value == null) {
+                    continue;
+                }
+                Cell cell = row.createCell(i);
+                if (value instanceof Number number) {
+                    cell.setCellValue(number.doubleValue());
+                } else if (value instanceof Boolean bool) {
+                    cell.setCellValue(bool);
+                } else {
+                    cell.setCellValue(value.toString());
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                workbook.write(out);
+                out.flush();
+            } finally {
+                workbook.dispose();
+                workbook.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.sahabatquran.webapp.service;
+
+import com.sahabatquran.webapp.config.AsyncConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Runs independent analytics sections concurrently on the analytics executor.
+ *
+ * Each section gets its own read-only transaction (and therefore its own connection).
+ * Two limits apply: a request runs at most app.analytics.max-parallel-sections of its
+ * sections at once, queueing the rest on the request instead of blocking pool threads,
+ * and the executor's fixed pool bounds the sections of all requests together, so
+ * dashboard traffic cannot drain the connection pool.
+ */
+@Component
+@Slf4j
+public class AnalyticsSectionExecutor {
+
+    private final ThreadPoolTaskExecutor executor;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int maxParallelSections;
+
+    public AnalyticsSectionExecutor(PlatformTransactionManager transactionManager,
+                                    @Qualifier(AsyncConfig.ANALYTICS_EXECUTOR) ThreadPoolTaskExecutor executor,
+                                    @Value("${app.analytics.max-parallel-sections:4}") int maxParallelSections) {
+        this.executor = executor;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxParallelSections = Math.max(1, maxParallelSections);
+    }
+
+    /**
+     * Start a group of sections for one request, capped at app.analytics.max-parallel-sections
+     */
+    public Sections newRequest() {
+        return new Sections(maxParallelSections);
+    }
+
+    /**
+     * Wait for a section until the request deadline. A section that is not done in time
+     * is cancelled, recorded in {@code timedOutSections} and replaced by the fallback.
+     */
+    public <T> T await(String sectionName, Future<T> section, Instant deadline,
+                       Collection<String> timedOutSections, Supplier<T> fallback) {
+        long remainingMillis = Math.max(0, deadline.toEpochMilli() - System.currentTimeMillis());
+        try {
+            return section.get(remainingMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            section.cancel(true);
+            log.warn("Analytics section '{}' did not finish before the deadline", sectionName);
+            timedOutSections.add(sectionName);
+            return fallback.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            section.cancel(true);
+            throw new RuntimeException("Interrupted while building analytics section: " + sectionName, e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to build analytics section: " + sectionName, e.getCause());
+        }
+    }
+
+    /**
+     * The sections of one request. Sections beyond the cap wait here and are handed to
+     * the executor as earlier sections of the same request finish.
+     */
+    public final class Sections {
+
+        private final int limit;
+        private final Queue<FutureTask<?>> waiting = new ArrayDeque<>();
+        private int running;
+
+        private Sections(int limit) {
+            this.limit = limit;
+        }
+
+        /**
+         * Start building a section in the background, or queue it behind this request's running sections
+         */
+        public <T> Future<T> submit(Supplier<T> sectionBuilder) {
+            FutureTask<T> section = new FutureTask<>(() -> readOnlyTransaction.execute(status -> sectionBuilder.get()));
+            synchronized (this) {
+                if (running >= limit) {
+                    waiting.add(section);
+                    return section;
+                }
+                running++;
+            }
+            start(section);
+            return section;
+        }
+
+        private void start(FutureTask<?> section) {
+            try {
+                executor.execute(() -> {
+                    try {
+                        section.run();
+                    } finally {
+                        startNext();
+                    }
+                });
+            } catch (RuntimeException e) {
+                // Rejected after context close: fail the section so the request does not wait for it
+                section.cancel(false);
+                startNext();
+            }
+        }
+
+        /**
+         * Hand this request's slot to its next waiting section. Waiting sections cancelled
+         * by the deadline are started too; running a cancelled FutureTask is a no-op.
+         */
+        private void startNext() {
+            FutureTask<?> next;
+            synchronized (this) {
+                next = waiting.poll();
+                if (next == null) {
+                    running--;
+                    return;
+                }
+            }
+            start(next);
+        }
+    }
+}
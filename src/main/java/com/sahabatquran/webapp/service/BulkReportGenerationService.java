@@ -5,15 +5,12 @@ import com.sahabatquran.webapp.entity.*;
 import com.sahabatquran.webapp.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -33,13 +30,8 @@ public class BulkReportGenerationService {
     private final AcademicTermRepository academicTermRepository;
     private final ReportGenerationService reportGenerationService;
     private final EmailService emailService;
-    private final PdfReportGenerationService pdfReportGenerationService;
-
-    @Value("${app.reports.output-directory:/tmp/reports}")
-    private String reportsOutputDirectory;
-
-    @Value("${app.reports.max-concurrent-generations:5}")
-    private int maxConcurrentGenerations;
+    private final ReportItemProcessor reportItemProcessor;
+    private final ReportGenerationWorkerPool reportGenerationWorkerPool;
 
     /**
      * Validate data completeness for bulk report generation
@@ -52,15 +44,19 @@ public class BulkReportGenerationService {
         AcademicTerm term = academicTermRepository.findById(termId)
                 .orElseThrow(() -> new IllegalArgumentException("Term not found"));
 
-        // Get all students enrolled in the term
+        // Get all students enrolled in the term, and their assessment counts, in a few grouped queries
         List<ClassGroup> classGroups = classGroupRepository.findByTerm(term);
-        Set<User> allStudents = new HashSet<>();
+        Map<UUID, List<Enrollment>> enrollmentsByClass = new HashMap<>();
+        Map<UUID, User> studentsById = new LinkedHashMap<>();
+        for (Enrollment enrollment : enrollmentRepository.findByTermIdWithClassGroupAndStudent(termId)) {
+            enrollmentsByClass.computeIfAbsent(enrollment.getClassGroup().getId(), id -> new ArrayList<>()).add(enrollment);
+            studentsById.putIfAbsent(enrollment.getStudent().getId(), enrollment.getStudent());
+        }
+        Collection<User> allStudents = studentsById.values();
 
-        for (ClassGroup classGroup : classGroups) {
-            List<Enrollment> enrollments = enrollmentRepository.findByClassGroup(classGroup);
-            allStudents.addAll(enrollments.stream()
-                    .map(Enrollment::getStudent)
-                    .collect(Collectors.toList()));
+        Map<UUID, long[]> assessmentCounts = new HashMap<>();
+        for (Object[] row : studentAssessmentRepository.countAssessmentsByStudentForTerm(termId)) {
+            assessmentCounts.put((UUID) row[0], new long[] {((Number) row[1]).longValue(), ((Number) row[2]).longValue()});
         }
 
         // Validate data completeness
@@ -71,7 +67,7 @@ public class BulkReportGenerationService {
         // Validate student data with defensive programming
         for (User student : allStudents) {
             try {
-                boolean hasCompleteData = validateStudentData(student, term, validationIssues);
+                boolean hasCompleteData = validateStudentData(student, assessmentCounts.get(student.getId()), validationIssues);
                 if (hasCompleteData) {
                     studentsWithCompleteData++;
                 }
@@ -93,7 +89,8 @@ public class BulkReportGenerationService {
 
         // Validate class data
         for (ClassGroup classGroup : classGroups) {
-            boolean hasCompleteData = validateClassData(classGroup, validationIssues);
+            boolean hasCompleteData = validateClassData(classGroup,
+                    enrollmentsByClass.getOrDefault(classGroup.getId(), List.of()), validationIssues);
             if (hasCompleteData) {
                 classesWithCompleteData++;
             }
@@ -172,10 +169,12 @@ public class BulkReportGenerationService {
         // Create individual report items
         createReportItems(batch, config);
 
-        // Start processing asynchronously
-        processBatchAsync(batch.getId());
+        // Start processing in the background once the batch and its items are committed
+        UUID batchId = batch.getId();
+        reportGenerationWorkerPool.startBatchAfterCommit(batchId, () -> processBatch(batchId),
+                rejected -> markBatchAsFailed(batchId, "Report generation queue is full, please retry later"));
 
-        return batch.getId();
+        return batchId;
     }
 
     /**
@@ -183,22 +182,15 @@ public class BulkReportGenerationService {
      */
     @Transactional(readOnly = true)
     public BulkReportGenerationDto getBatchStatus(UUID batchId) {
-        ReportGenerationBatch batch = batchRepository.findByIdWithItems(batchId)
+        ReportGenerationBatch batch = batchRepository.findByIdWithTerm(batchId)
                 .orElseThrow(() -> new IllegalArgumentException("Batch not found"));
 
-        // Calculate current progress
-        int completedItems = (int) batch.getReportGenerationItems().stream()
-                .filter(item -> item.getStatus() == ReportGenerationItem.ItemStatus.COMPLETED)
-                .count();
-
-        int failedItems = (int) batch.getReportGenerationItems().stream()
-                .filter(item -> item.getStatus() == ReportGenerationItem.ItemStatus.FAILED)
-                .count();
-
-        int pendingItems = (int) batch.getReportGenerationItems().stream()
-                .filter(item -> item.getStatus() == ReportGenerationItem.ItemStatus.PENDING ||
-                                item.getStatus() == ReportGenerationItem.ItemStatus.GENERATING)
-                .count();
+        // Count item statuses in SQL instead of loading every item of the batch
+        Map<ReportGenerationItem.ItemStatus, Integer> itemCounts = countItemsByStatus(batchId);
+        int completedItems = itemCounts.getOrDefault(ReportGenerationItem.ItemStatus.COMPLETED, 0);
+        int failedItems = itemCounts.getOrDefault(ReportGenerationItem.ItemStatus.FAILED, 0);
+        int pendingItems = itemCounts.getOrDefault(ReportGenerationItem.ItemStatus.PENDING, 0)
+                + itemCounts.getOrDefault(ReportGenerationItem.ItemStatus.GENERATING, 0);
 
         BulkReportGenerationDto.BatchProcessingInfo processingInfo =
                 BulkReportGenerationDto.BatchProcessingInfo.builder()
@@ -227,43 +219,40 @@ public class BulkReportGenerationService {
         return result;
     }
 
+    private Map<ReportGenerationItem.ItemStatus, Integer> countItemsByStatus(UUID batchId) {
+        Map<ReportGenerationItem.ItemStatus, Integer> counts = new EnumMap<>(ReportGenerationItem.ItemStatus.class);
+        for (Object[] row : itemRepository.getItemStatusStatistics(batchId)) {
+            counts.put((ReportGenerationItem.ItemStatus) row[1], ((Number) row[0]).intValue());
+        }
+        return counts;
+    }
+
     /**
-     * Process batch asynchronously
+     * Process a batch on the calling thread, the report executor when started by
+     * initiateBulkReportGeneration. Not transactional: workers commit each item on their
+     * own and the batch counters and final status are maintained in SQL.
      */
-    @Async
-    @Transactional
-    public CompletableFuture<Void> processBatchAsync(UUID batchId) {
-        log.info("Starting async processing for batch: {}", batchId);
+    public void processBatch(UUID batchId) {
+        log.info("Starting processing for batch: {}", batchId);
 
         try {
-            ReportGenerationBatch batch = batchRepository.findById(batchId)
-                    .orElseThrow(() -> new IllegalArgumentException("Batch not found"));
-
-            // Update status and start time
-            batch.setStatus(ReportGenerationBatch.BatchStatus.VALIDATING);
-            batch.setStartedAt(LocalDateTime.now());
-            batchRepository.save(batch);
-
-            // Process validation phase
-            validateAndUpdateBatch(batch);
-
-            // Process generation phase
-            batch.setStatus(ReportGenerationBatch.BatchStatus.IN_PROGRESS);
-            batchRepository.save(batch);
-
-            processReportItems(batch);
+            if (!reportItemProcessor.startBatch(batchId)) {
+                log.info("Batch {} was cancelled or finished before it started", batchId);
+                return;
+            }
 
-            // Complete the batch
-            completeBatch(batch);
+            // Render items; the batch is completed by whichever node finishes its last item
+            reportGenerationWorkerPool.runBatch(batchId);
 
-            log.info("Completed async processing for batch: {}", batchId);
+            log.info("Finished processing batch {} on this node", batchId);
 
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            markBatchAsFailed(batchId, "Processing interrupted");
         } catch (Exception e) {
             log.error("Error processing batch: {}", batchId, e);
             markBatchAsFailed(batchId, e.getMessage());
         }
-
-        return CompletableFuture.completedFuture(null);
     }
 
     /**
@@ -271,54 +260,42 @@ public class BulkReportGenerationService {
      */
     @Transactional
     public boolean cancelBatch(UUID batchId, UUID cancelledBy) {
-        ReportGenerationBatch batch = batchRepository.findById(batchId)
-                .orElseThrow(() -> new IllegalArgumentException("Batch not found"));
-
-        if (!batch.canBeCancelled()) {
+        // Only batches that have not started can be cancelled; status only, so concurrent counter updates survive
+        int cancelled = batchRepository.cancelIfIn(batchId,
+                List.of(ReportGenerationBatch.BatchStatus.INITIATED, ReportGenerationBatch.BatchStatus.VALIDATING),
+                "Cancelled by user: " + cancelledBy, LocalDateTime.now());
+        if (cancelled == 0) {
+            if (!batchRepository.existsById(batchId)) {
+                throw new IllegalArgumentException("Batch not found");
+            }
             return false;
         }
 
-        batch.setStatus(ReportGenerationBatch.BatchStatus.CANCELLED);
-        batch.setFailureReason("Cancelled by user: " + cancelledBy);
-        batchRepository.save(batch);
-
-        // Cancel pending items
-        List<ReportGenerationItem> pendingItems = itemRepository.findPendingItemsByBatch(batchId);
-        pendingItems.forEach(item -> {
-            item.setStatus(ReportGenerationItem.ItemStatus.CANCELLED);
-            itemRepository.save(item);
-        });
+        // Cancel pending items in one statement
+        int cancelledItems = itemRepository.cancelPendingItems(batchId);
 
-        log.info("Batch {} cancelled by user {}", batchId, cancelledBy);
+        log.info("Batch {} cancelled by user {} ({} pending items cancelled)", batchId, cancelledBy, cancelledItems);
         return true;
     }
 
     // Private helper methods
 
-    private boolean validateStudentData(User student, AcademicTerm term,
+    /**
+     * @param assessmentCounts [assessments, graded assessments] of the student in the term, or null if none.
+     *                         Students come from the term's enrollments, so term enrollment needs no check.
+     */
+    private boolean validateStudentData(User student, long[] assessmentCounts,
                                       List<BulkReportGenerationDto.ValidationIssue> issues) {
         boolean hasCompleteData = true;
         List<String> missingFields = new ArrayList<>();
 
         // Check if student has assessments
-        List<StudentAssessment> assessments = studentAssessmentRepository.findByStudentAndTerm(student, term);
-        if (assessments.isEmpty()) {
+        if (assessmentCounts == null || assessmentCounts[0] == 0) {
             missingFields.add("Student assessments");
             hasCompleteData = false;
-        } else {
+        } else if (assessmentCounts[1] == 0) {
             // Check if assessments have final grades
-            boolean hasFinalGrade = assessments.stream()
-                    .anyMatch(assessment -> assessment.getAssessmentGrade() != null);
-            if (!hasFinalGrade) {
-                missingFields.add("Final grades");
-                hasCompleteData = false;
-            }
-        }
-
-        // Check enrollment
-        List<Enrollment> enrollments = enrollmentRepository.findByStudent(student);
-        if (enrollments.stream().noneMatch(e -> e.getClassGroup().getTerm().equals(term))) {
-            missingFields.add("Term enrollment");
+            missingFields.add("Final grades");
             hasCompleteData = false;
         }
 
@@ -338,7 +315,7 @@ public class BulkReportGenerationService {
         return hasCompleteData;
     }
 
-    private boolean validateClassData(ClassGroup classGroup,
+    private boolean validateClassData(ClassGroup classGroup, List<Enrollment> enrollments,
                                     List<BulkReportGenerationDto.ValidationIssue> issues) {
         boolean hasCompleteData = true;
         List<String> missingFields = new ArrayList<>();
@@ -350,7 +327,6 @@ public class BulkReportGenerationService {
         }
 
         // Check if class has enrollments
-        List<Enrollment> enrollments = enrollmentRepository.findByClassGroup(classGroup);
         if (enrollments.isEmpty()) {
             missingFields.add("Student enrollments");
             hasCompleteData = false;
@@ -405,14 +381,20 @@ public class BulkReportGenerationService {
 
     private void createReportItems(ReportGenerationBatch batch, BulkReportGenerationDto.ReportConfiguration config) {
         List<ClassGroup> classGroups = classGroupRepository.findByTerm(batch.getTerm());
+
+        // One query for all enrollments of the term instead of one per class
+        Map<UUID, List<Enrollment>> enrollmentsByClass = config.isIncludeStudentReports()
+                ? enrollmentRepository.findByTermIdWithClassGroupAndStudent(batch.getTerm().getId()).stream()
+                        .collect(Collectors.groupingBy(e -> e.getClassGroup().getId()))
+                : Map.of();
+
+        List<ReportGenerationItem> items = new ArrayList<>();
         int priority = 1;
 
         for (ClassGroup classGroup : classGroups) {
-            List<Enrollment> enrollments = enrollmentRepository.findByClassGroup(classGroup);
-
             // Create student report items
             if (config.isIncludeStudentReports()) {
-                for (Enrollment enrollment : enrollments) {
+                for (Enrollment enrollment : enrollmentsByClass.getOrDefault(classGroup.getId(), List.of())) {
                     ReportGenerationItem item = new ReportGenerationItem();
                     item.setBatch(batch);
                     item.setStudent(enrollment.getStudent());
@@ -420,7 +402,7 @@ public class BulkReportGenerationService {
                     item.setReportSubject("Student Report - " + enrollment.getStudent().getFullName());
                     item.setReportType(ReportGenerationItem.ReportType.STUDENT_REPORT);
                     item.setPriority(priority++);
-                    itemRepository.save(item);
+                    items.add(item);
                 }
             }
 
@@ -433,7 +415,7 @@ public class BulkReportGenerationService {
                 item.setTeacher(classGroup.getInstructor());
                 item.setReportSubject("Class Summary - " + classGroup.getName());
                 item.setPriority(priority++);
-                itemRepository.save(item);
+                items.add(item);
             }
         }
 
@@ -444,138 +426,23 @@ public class BulkReportGenerationService {
             item.setReportType(ReportGenerationItem.ReportType.MANAGEMENT_SUMMARY);
             item.setReportSubject("Management Executive Summary - " + batch.getTerm().getTermName());
             item.setPriority(1); // High priority
-            itemRepository.save(item);
+            items.add(item);
         }
-    }
 
-    private void validateAndUpdateBatch(ReportGenerationBatch batch) {
-        // Additional validation logic can be added here
-        log.info("Validation phase completed for batch: {}", batch.getId());
-    }
-
-    private void processReportItems(ReportGenerationBatch batch) {
-        List<ReportGenerationItem> pendingItems = itemRepository.findPendingItemsByBatch(batch.getId());
-
-        for (ReportGenerationItem item : pendingItems) {
-            try {
-                processReportItem(item);
-                updateBatchProgress(batch);
-            } catch (Exception e) {
-                log.error("Error processing report item: {}", item.getId(), e);
-                item.markAsFailed(e.getMessage());
-                itemRepository.save(item);
-            }
-        }
-    }
-
-    private void processReportItem(ReportGenerationItem item) {
-        log.info("Processing report item: {}", item.getId());
-
-        item.markAsStarted();
-        itemRepository.save(item);
-
-        try {
-            // Simulate report generation
-            String filePath = generateReport(item);
-            long fileSize = 1024 * 1024; // Simulated file size
-
-            item.markAsCompleted(filePath, fileSize);
-            itemRepository.save(item);
-
-            log.info("Completed report item: {} -> {}", item.getId(), filePath);
-
-        } catch (Exception e) {
-            item.markAsFailed(e.getMessage());
-            itemRepository.save(item);
-            throw e;
-        }
-    }
-
-    private String generateReport(ReportGenerationItem item) {
-        try {
-            UUID termId = item.getBatch().getTerm().getId();
-
-            switch (item.getReportType()) {
-                case STUDENT_REPORT:
-                    if (item.getStudent() == null) {
-                        throw new IllegalStateException("Student is required for STUDENT_REPORT");
-                    }
-                    return pdfReportGenerationService.generateStudentReport(
-                            item.getStudent().getId(),
-                            termId,
-                            "STANDARD");
-
-                case CLASS_SUMMARY:
-                    if (item.getClassGroup() == null) {
-                        throw new IllegalStateException("ClassGroup is required for CLASS_SUMMARY");
-                    }
-                    return pdfReportGenerationService.generateClassSummaryReport(
-                            item.getClassGroup().getId(),
-                            termId);
-
-                case TEACHER_EVALUATION:
-                case PARENT_NOTIFICATION:
-                case MANAGEMENT_SUMMARY:
-                default:
-                    // For now, generate a simple placeholder for these types
-                    // TODO: Implement specific report generation for each type
-                    log.warn("Report type {} not yet implemented, generating placeholder", item.getReportType());
-                    String fileName = String.format("report_%s_%s_%d.pdf",
-                            item.getReportType().toString().toLowerCase(),
-                            item.getBatch().getId().toString().substring(0, 8),
-                            System.currentTimeMillis());
-                    return reportsOutputDirectory + "/" + fileName;
-            }
-        } catch (Exception e) {
-            log.error("Failed to generate report for item {}: {}", item.getId(), e.getMessage(), e);
-            throw new RuntimeException("Report generation failed: " + e.getMessage(), e);
-        }
-    }
-
-    private void updateBatchProgress(ReportGenerationBatch batch) {
-        List<ReportGenerationItem> items = itemRepository.findByBatchIdOrderByPriority(batch.getId());
-
-        int completed = (int) items.stream()
-                .filter(item -> item.getStatus() == ReportGenerationItem.ItemStatus.COMPLETED)
-                .count();
-
-        int failed = (int) items.stream()
-                .filter(item -> item.getStatus() == ReportGenerationItem.ItemStatus.FAILED)
-                .count();
-
-        batch.setCompletedReports(completed);
-        batch.setFailedReports(failed);
-        batchRepository.save(batch);
-    }
-
-    private void completeBatch(ReportGenerationBatch batch) {
-        batch.setStatus(ReportGenerationBatch.BatchStatus.COMPLETED);
-        batch.setCompletedAt(LocalDateTime.now());
-
-        if (batch.getStartedAt() != null) {
-            long duration = java.time.Duration.between(batch.getStartedAt(), batch.getCompletedAt()).toMinutes();
-            batch.setActualDurationMinutes((int) duration);
-        }
-
-        batchRepository.save(batch);
-        log.info("Batch completed: {}", batch.getId());
+        // Inserted in JDBC batches (hibernate.jdbc.batch_size)
+        itemRepository.saveAll(items);
+        log.info("Created {} report items for batch {}", items.size(), batch.getId());
     }
 
     private void markBatchAsFailed(UUID batchId, String errorMessage) {
-        ReportGenerationBatch batch = batchRepository.findById(batchId).orElse(null);
-        if (batch != null) {
-            batch.setStatus(ReportGenerationBatch.BatchStatus.FAILED);
-            batch.setFailureReason(errorMessage);
-            batch.setCompletedAt(LocalDateTime.now());
-            batchRepository.save(batch);
+        if (!reportItemProcessor.failBatch(batchId, errorMessage)) {
+            log.info("Batch {} was already finished or cancelled, not marked as failed", batchId);
         }
     }
 
     private BulkReportGenerationDto.GenerationResultSummary generateResultSummary(ReportGenerationBatch batch) {
-        List<ReportGenerationItem> items = itemRepository.findByBatchIdOrderByPriority(batch.getId());
-
-        List<BulkReportGenerationDto.GeneratedReportInfo> reportInfos = items.stream()
-                .filter(item -> item.isCompleted())
+        List<BulkReportGenerationDto.GeneratedReportInfo> reportInfos =
+                itemRepository.findCompletedByBatchIdWithSubjects(batch.getId()).stream()
                 .map(this::mapToReportInfo)
                 .collect(Collectors.toList());
 
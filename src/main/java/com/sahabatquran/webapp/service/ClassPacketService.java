@@ -0,0 +1,266 @@
+package com.sahabatquran.webapp.service;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.AreaBreak;
+import com.itextpdf.layout.properties.AreaBreakType;
+import com.sahabatquran.webapp.config.AsyncConfig;
+import com.sahabatquran.webapp.dto.StudentReportData;
+import com.sahabatquran.webapp.entity.ClassGroup;
+import com.sahabatquran.webapp.entity.Enrollment;
+import com.sahabatquran.webapp.repository.ClassGroupRepository;
+import com.sahabatquran.webapp.repository.EnrollmentRepository;
+import com.sahabatquran.webapp.util.AtomicFileWriter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+/**
+ * Class report packets
+ *
+ * A packet is the class summary followed by the report card of every enrolled student,
+ * rendered in a single iText document pass so fonts and the header XObjects are written
+ * once for the whole class instead of once per student file.
+ *
+ * Next to a stored packet an index file records the pages of each student's report card
+ * (one "studentId firstPage lastPage" line per student), so a single report card can
+ * still be served by copying its page range out of the packet without re-rendering.
+ *
+ * Every generation writes the packet and its index into a fresh version directory and
+ * then swaps the class's current.ref file to name it, so readers always see a packet and
+ * index of the same generation. The version that was replaced is kept for downloads that
+ * already resolved it; older versions are removed.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ClassPacketService {
+
+    private static final String PACKET_FILE = "class-packet.pdf";
+    private static final String INDEX_FILE = "class-packet.index";
+    private static final String CURRENT_REF_FILE = "current.ref";
+    private static final String VERSION_PREFIX = "v";
+
+    private final ClassGroupRepository classGroupRepository;
+    private final EnrollmentRepository enrollmentRepository;
+    private final StudentReportDataLoader studentReportDataLoader;
+    private final PdfReportGenerationService pdfReportGenerationService;
+    private final PdfRenderingResources renderingResources;
+
+    @Value("${app.reports.output-directory:/tmp/reports}")
+    private String reportsOutputDirectory;
+
+    /**
+     * Load everything a class packet needs, so rendering does no database I/O
+     */
+    @Transactional(readOnly = true)
+    public ClassPacketData loadPacketData(UUID classGroupId) {
+        ClassGroup classGroup = classGroupRepository.findById(classGroupId)
+                .orElseThrow(() -> new IllegalArgumentException("Class not found: " + classGroupId));
+        UUID termId = classGroup.getTerm().getId();
+
+        List<Enrollment> enrollments = enrollmentRepository.findByClassGroupId(classGroupId);
+        Set<UUID> studentIds = new LinkedHashSet<>();
+        for (Enrollment enrollment : enrollments) {
+            studentIds.add(enrollment.getStudent().getId());
+        }
+
+        List<StudentReportData> students = new ArrayList<>(studentReportDataLoader.loadChunk(studentIds, termId).values());
+        students.sort(Comparator.comparing(data -> data.getStudent().getFullName(), String.CASE_INSENSITIVE_ORDER));
+
+        return ClassPacketData.builder()
+                .classGroup(classGroup)
+                .termId(termId)
+                .enrollments(enrollments)
+                .students(students)
+                .build();
+    }
+
+    /**
+     * Render a class packet to the given stream in one document pass
+     *
+     * @return the pages of each student's report card, in packet order
+     */
+    public List<PacketEntry> writePacket(ClassPacketData data, OutputStream out) {
+        List<PacketEntry> index = new ArrayList<>();
+        PdfDocument pdf = new PdfDocument(new PdfWriter(out));
+        Document document = new Document(pdf);
+
+        try {
+            PdfRenderingResources.DocumentResources resources = renderingResources.bind(pdf);
+            pdfReportGenerationService.addClassSummary(document, resources, data.getClassGroup(), data.getEnrollments());
+
+            for (StudentReportData student : data.getStudents()) {
+                int firstPage = pdf.getNumberOfPages() + 1;
+                document.add(new AreaBreak(AreaBreakType.NEXT_PAGE));
+                pdfReportGenerationService.addStudentReport(document, resources, student);
+                // Lay out pending content so the page count includes this report card
+                document.flush();
+                index.add(PacketEntry.builder()
+                        .studentId(student.getStudent().getId())
+                        .firstPage(firstPage)
+                        .lastPage(pdf.getNumberOfPages())
+                        .build());
+            }
+        } finally {
+            document.close();
+        }
+
+        log.info("Rendered class packet for class {} with {} report cards", data.getClassGroup().getId(), index.size());
+        return index;
+    }
+
+    /**
+     * Render a class packet and store it with its page index on the reports volume.
+     * Both files go into a new version directory that only becomes visible to readers
+     * when current.ref is swapped to it.
+     */
+    public Path generatePacketFile(UUID classGroupId) throws IOException {
+        ClassPacketData data = loadPacketData(classGroupId);
+        Path packetDir = packetDirectory(classGroupId, data.getTermId());
+        String version = String.format("%s%013d-%s", VERSION_PREFIX, System.currentTimeMillis(),
+                UUID.randomUUID().toString().substring(0, 8));
+        Path versionDir = packetDir.resolve(version);
+
+        List<PacketEntry> index = new ArrayList<>();
+        AtomicFileWriter.write(versionDir.resolve(PACKET_FILE), out -> index.addAll(writePacket(data, out)));
+        AtomicFileWriter.write(versionDir.resolve(INDEX_FILE), out -> {
+            StringBuilder lines = new StringBuilder();
+            for (PacketEntry entry : index) {
+                lines.append(entry.getStudentId()).append(' ')
+                        .append(entry.getFirstPage()).append(' ')
+                        .append(entry.getLastPage()).append('\n');
+            }
+            out.write(lines.toString().getBytes(StandardCharsets.UTF_8));
+        });
+
+        Optional<String> previousVersion = readCurrentVersion(packetDir);
+        AtomicFileWriter.write(packetDir.resolve(CURRENT_REF_FILE),
+                out -> out.write(version.getBytes(StandardCharsets.US_ASCII)));
+        previousVersion.ifPresent(previous -> deleteVersionsBefore(packetDir, previous));
+
+        Path packetPath = versionDir.resolve(PACKET_FILE);
+        log.info("Stored class packet: {}", packetPath);
+        return packetPath;
+    }
+
+    /**
+     * Render and store a class packet on the report executor, off the request thread.
+     * Throws TaskRejectedException when the executor queue is full.
+     */
+    @Async(AsyncConfig.REPORT_EXECUTOR)
+    public CompletableFuture<Path> generatePacketFileAsync(UUID classGroupId) {
+        try {
+            return CompletableFuture.completedFuture(generatePacketFile(classGroupId));
+        } catch (Exception e) {
+            log.error("Error generating class packet for class: {}", classGroupId, e);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Find a student's report card in the current packet of a class
+     */
+    public Optional<PacketEntry> findPacketEntry(UUID classGroupId, UUID termId, UUID studentId) throws IOException {
+        Path packetDir = packetDirectory(classGroupId, termId);
+        Optional<String> version = readCurrentVersion(packetDir);
+        if (version.isEmpty()) {
+            return Optional.empty();
+        }
+        Path indexPath = packetDir.resolve(version.get()).resolve(INDEX_FILE);
+        if (!Files.exists(indexPath)) {
+            return Optional.empty();
+        }
+
+        String prefix = studentId + " ";
+        for (String line : Files.readAllLines(indexPath, StandardCharsets.UTF_8)) {
+            if (line.startsWith(prefix)) {
+                String[] parts = line.split(" ");
+                return Optional.of(PacketEntry.builder()
+                        .version(version.get())
+                        .studentId(studentId)
+                        .firstPage(Integer.parseInt(parts[1]))
+                        .lastPage(Integer.parseInt(parts[2]))
+                        .build());
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Copy one student's pages out of the packet version the entry was found in into a
+     * standalone PDF
+     */
+    public void writeStudentReportFromPacket(UUID classGroupId, UUID termId, PacketEntry entry,
+                                             OutputStream out) throws IOException {
+        Path packetPath = packetDirectory(classGroupId, termId).resolve(entry.getVersion()).resolve(PACKET_FILE);
+        try (PdfDocument packet = new PdfDocument(new PdfReader(packetPath.toFile()));
+             PdfDocument report = new PdfDocument(new PdfWriter(out))) {
+            packet.copyPagesTo(entry.getFirstPage(), entry.getLastPage(), report);
+        }
+    }
+
+    private Optional<String> readCurrentVersion(Path packetDir) throws IOException {
+        Path refPath = packetDir.resolve(CURRENT_REF_FILE);
+        if (!Files.exists(refPath)) {
+            return Optional.empty();
+        }
+        String version = Files.readString(refPath, StandardCharsets.US_ASCII).trim();
+        return version.isEmpty() ? Optional.empty() : Optional.of(version);
+    }
+
+    /**
+     * Remove versions older than the given one. Version names start with a fixed-width
+     * timestamp, so they sort by age.
+     */
+    private void deleteVersionsBefore(Path packetDir, String version) {
+        try (Stream<Path> children = Files.list(packetDir)) {
+            children.filter(Files::isDirectory)
+                    .filter(dir -> {
+                        String name = dir.getFileName().toString();
+                        return name.startsWith(VERSION_PREFIX) && name.compareTo(version) < 0;
+                    })
+                    .forEach(dir -> FileSystemUtils.deleteRecursively(dir.toFile()));
+        } catch (IOException e) {
+            log.warn("Failed to remove old class packet versions in {}", packetDir, e);
+        }
+    }
+
+    private Path packetDirectory(UUID classGroupId, UUID termId) {
+        return Paths.get(reportsOutputDirectory, "classes", classGroupId.toString(), termId.toString());
+    }
+
+    @lombok.Data
+    @lombok.Builder
+    public static class ClassPacketData {
+        private ClassGroup classGroup;
+        private UUID termId;
+        private List<Enrollment> enrollments;
+        private List<StudentReportData> students;
+    }
+
+    @lombok.Data
+    @lombok.Builder
+    public static class PacketEntry {
+        private String version;
+        private UUID studentId;
+        private int firstPage;
+        private int lastPage;
+    }
+}
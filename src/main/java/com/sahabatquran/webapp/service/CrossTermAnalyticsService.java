@@ -5,14 +5,18 @@ import com.sahabatquran.webapp.entity.*;
 import com.sahabatquran.webapp.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,6 +32,14 @@ public class CrossTermAnalyticsService {
     private final ClassGroupRepository classGroupRepository;
     private final TeacherLevelAssignmentRepository teacherLevelAssignmentRepository;
     private final FeedbackAnswerRepository feedbackAnswerRepository;
+    private final TermMetricsSnapshotService termMetricsSnapshotService;
+    private final AnalyticsSectionExecutor analyticsSectionExecutor;
+
+    @Value("${app.analytics.parallel-sections:false}")
+    private boolean parallelSections;
+
+    @Value("${app.analytics.section-timeout:10s}")
+    private Duration sectionTimeout;
     
     /**
      * Get comprehensive cross-term analytics for selected terms
@@ -37,9 +49,9 @@ public class CrossTermAnalyticsService {
     }
 
     /**
-     * Get comprehensive cross-term analytics for selected terms with user context
+     * Get comprehensive cross-term analytics for selected terms with the role codes of the current user
      */
-    public CrossTermAnalyticsDto getCrossTermAnalytics(List<UUID> termIds, User currentUser) {
+    public CrossTermAnalyticsDto getCrossTermAnalytics(List<UUID> termIds, Collection<String> userRoles) {
         log.info("Generating cross-term analytics for {} terms", termIds.size());
 
         List<AcademicTerm> terms = academicTermRepository.findAllById(termIds);
@@ -47,19 +59,88 @@ public class CrossTermAnalyticsService {
         // Get all available terms for template
         List<AcademicTerm> allTerms = academicTermRepository.findAll();
 
+        // Per-term metrics from the snapshot table, shared by all builders
+        Map<UUID, TermMetricsDto> metrics = termMetricsSnapshotService.getMetrics(terms);
+
+        if (parallelSections) {
+            return buildSectionsInParallel(terms, allTerms, termIds, userRoles, metrics);
+        }
+
         // Build analytics with validation
         CrossTermAnalyticsDto analytics = CrossTermAnalyticsDto.builder()
             .selectedTerms(buildTermInfo(terms))
             .availableTerms(buildTermInfo(allTerms))
-            .enrollmentAnalytics(buildEnrollmentAnalytics(terms))
-            .teacherAnalytics(buildTeacherAnalytics(terms))
-            .performanceMetrics(buildPerformanceMetrics(terms))
+            .enrollmentAnalytics(buildEnrollmentAnalytics(terms, metrics))
+            .teacherAnalytics(buildTeacherAnalytics(terms, metrics))
+            .performanceMetrics(buildPerformanceMetrics(terms, metrics))
             .financialAnalytics(buildFinancialAnalytics(terms))
-            .operationalAnalytics(buildOperationalAnalytics(terms))
+            .operationalAnalytics(buildOperationalAnalytics(terms, metrics))
             .customMetrics(buildCustomMetrics(terms))
-            .dataValidation(validateDataCompleteness(terms, termIds, currentUser))
+            .dataValidation(validateDataCompleteness(terms, termIds, userRoles, metrics))
+            .metricsRefreshedAt(oldestRefresh(metrics))
+            .build();
+
+        return analytics;
+    }
+
+    /**
+     * Build the independent analytics sections concurrently, each in its own read-only transaction.
+     * Sections that miss the request deadline are returned empty and reported as validation warnings.
+     */
+    private CrossTermAnalyticsDto buildSectionsInParallel(List<AcademicTerm> terms, List<AcademicTerm> allTerms,
+                                                          List<UUID> termIds, Collection<String> userRoles,
+                                                          Map<UUID, TermMetricsDto> metrics) {
+        Instant deadline = Instant.now().plus(sectionTimeout);
+        List<String> timedOutSections = new ArrayList<>();
+        AnalyticsSectionExecutor.Sections sections = analyticsSectionExecutor.newRequest();
+
+        Future<CrossTermAnalyticsDto.EnrollmentAnalytics> enrollment =
+            sections.submit(() -> buildEnrollmentAnalytics(terms, metrics));
+        Future<CrossTermAnalyticsDto.TeacherAnalytics> teacher =
+            sections.submit(() -> buildTeacherAnalytics(terms, metrics));
+        Future<CrossTermAnalyticsDto.PerformanceMetrics> performance =
+            sections.submit(() -> buildPerformanceMetrics(terms, metrics));
+        Future<CrossTermAnalyticsDto.FinancialAnalytics> financial =
+            sections.submit(() -> buildFinancialAnalytics(terms));
+        Future<CrossTermAnalyticsDto.OperationalAnalytics> operational =
+            sections.submit(() -> buildOperationalAnalytics(terms, metrics));
+        Future<Map<String, Object>> custom =
+            sections.submit(() -> buildCustomMetrics(terms));
+        Future<DataValidationDto> validation =
+            sections.submit(() -> validateDataCompleteness(terms, termIds, userRoles, metrics));
+
+        // Fallbacks run the same builders without terms, which needs no database access
+        CrossTermAnalyticsDto analytics = CrossTermAnalyticsDto.builder()
+            .selectedTerms(buildTermInfo(terms))
+            .availableTerms(buildTermInfo(allTerms))
+            .enrollmentAnalytics(analyticsSectionExecutor.await("Enrollment", enrollment, deadline, timedOutSections,
+                () -> buildEnrollmentAnalytics(List.of(), Map.of())))
+            .teacherAnalytics(analyticsSectionExecutor.await("Teacher", teacher, deadline, timedOutSections,
+                () -> buildTeacherAnalytics(List.of(), Map.of())))
+            .performanceMetrics(analyticsSectionExecutor.await("Performance", performance, deadline, timedOutSections,
+                () -> buildPerformanceMetrics(List.of(), Map.of())))
+            .financialAnalytics(analyticsSectionExecutor.await("Financial", financial, deadline, timedOutSections,
+                () -> buildFinancialAnalytics(List.of())))
+            .operationalAnalytics(analyticsSectionExecutor.await("Operational", operational, deadline, timedOutSections,
+                () -> buildOperationalAnalytics(List.of(), Map.of())))
+            .customMetrics(analyticsSectionExecutor.await("Custom metrics", custom, deadline, timedOutSections,
+                HashMap::new))
+            .dataValidation(analyticsSectionExecutor.await("Data validation", validation, deadline, timedOutSections,
+                DataValidationDto::new))
+            .metricsRefreshedAt(oldestRefresh(metrics))
             .build();
 
+        if (!timedOutSections.isEmpty()) {
+            DataValidationDto dataValidation = analytics.getDataValidation();
+            dataValidation.setPartialData(true);
+            dataValidation.setPartialAnalysisOnly(true);
+            for (String section : timedOutSections) {
+                dataValidation.addWarning(section + " analytics timed out - section shown without data");
+            }
+            dataValidation.addSuggestion("Select fewer terms or retry later for complete results");
+            dataValidation.calculateDataQualityScore();
+        }
+
         return analytics;
     }
 
@@ -71,9 +152,16 @@ public class CrossTermAnalyticsService {
     }
 
     /**
-     * Validate data completeness for selected terms with user context
+     * Validate data completeness for selected terms with the role codes of the current user
      */
-    public DataValidationDto validateDataCompleteness(List<AcademicTerm> terms, List<UUID> termIds, User currentUser) {
+    public DataValidationDto validateDataCompleteness(List<AcademicTerm> terms, List<UUID> termIds,
+                                                      Collection<String> userRoles) {
+        return validateDataCompleteness(terms, termIds, userRoles, termMetricsSnapshotService.getMetrics(terms));
+    }
+
+    private DataValidationDto validateDataCompleteness(List<AcademicTerm> terms, List<UUID> termIds,
+                                                       Collection<String> userRoles,
+                                                       Map<UUID, TermMetricsDto> metrics) {
         DataValidationDto validation = new DataValidationDto();
 
         // Financial data is always missing since billing module is not implemented
@@ -102,22 +190,24 @@ public class CrossTermAnalyticsService {
 
         // Check for missing or incomplete data
         for (AcademicTerm term : terms) {
+            TermMetricsDto termMetrics = metricsFor(metrics, term);
+
             // Check enrollment data
-            long enrollmentCount = enrollmentRepository.countByClassGroup_Term(term);
+            long enrollmentCount = termMetrics.getEnrollmentCount();
             if (enrollmentCount == 0) {
                 validation.setMissingData(true);
                 validation.addWarning("No enrollment data for " + term.getTermName());
             }
 
             // Check teacher assignments
-            long teacherCount = teacherLevelAssignmentRepository.countByTermId(term.getId());
+            long teacherCount = termMetrics.getTeacherAssignmentCount();
             if (teacherCount == 0) {
                 validation.setMissingTeacherData(true);
                 validation.addWarning("No teacher assignments for " + term.getTermName());
             }
 
             // Check for teacher evaluation/feedback data
-            Double teacherRating = feedbackAnswerRepository.calculateAverageTeacherRatingByTermId(term.getId());
+            Double teacherRating = termMetrics.getAverageTeacherRating();
             if (teacherRating == null) {
                 validation.setMissingTeacherData(true);
                 validation.addWarning("No teacher evaluation data for " + term.getTermName());
@@ -169,8 +259,8 @@ public class CrossTermAnalyticsService {
         }
 
         // Role-based access restrictions
-        if (currentUser != null) {
-            addRoleBasedRestrictions(validation, currentUser);
+        if (userRoles != null) {
+            addRoleBasedRestrictions(validation, userRoles);
         }
 
         // Set overall data quality score
@@ -182,12 +272,7 @@ public class CrossTermAnalyticsService {
     /**
      * Add role-based access restrictions to validation based on business requirements
      */
-    private void addRoleBasedRestrictions(DataValidationDto validation, User currentUser) {
-        // Get user's roles
-        Set<String> userRoles = currentUser.getUserRoles().stream()
-            .map(userRole -> userRole.getRole().getCode())
-            .collect(Collectors.toSet());
-
+    private void addRoleBasedRestrictions(DataValidationDto validation, Collection<String> userRoles) {
         // MANAGEMENT role - Full unrestricted access to all analytics (ALS-HP-001, ALS-HP-004, ALS-HP-005)
         if (userRoles.contains("MANAGEMENT")) {
             // Management has complete access per business requirements
@@ -234,11 +319,12 @@ public class CrossTermAnalyticsService {
         log.info("Comparing performance across {} terms with period: {}", termIds.size(), comparisonPeriod);
         
         List<AcademicTerm> terms = academicTermRepository.findAllById(termIds);
+        Map<UUID, TermMetricsDto> metrics = termMetricsSnapshotService.getMetrics(terms);
         
         return CrossTermComparisonDto.builder()
             .comparisonPeriod(comparisonPeriod)
             .comparedTerms(terms.stream().map(AcademicTerm::getTermName).collect(Collectors.toList()))
-            .enrollmentComparison(buildEnrollmentComparison(terms))
+            .enrollmentComparison(buildEnrollmentComparison(terms, metrics))
             .performanceComparison(buildPerformanceComparison(terms))
             .financialComparison(buildFinancialComparison(terms))
             .operationalComparison(buildOperationalComparison(terms))
@@ -321,34 +407,35 @@ public class CrossTermAnalyticsService {
         log.info("Generating executive dashboard for {} terms", termIds.size());
         
         List<AcademicTerm> terms = academicTermRepository.findAllById(termIds);
+        Map<UUID, TermMetricsDto> metrics = termMetricsSnapshotService.getMetrics(terms);
         
         return ExecutiveDashboardDto.builder()
-            .header(buildDashboardHeader(terms))
+            .header(buildDashboardHeader(terms, metrics))
             .kpis(buildKeyPerformanceIndicators(terms))
             .strategicMetrics(buildStrategicMetrics(terms))
             .alerts(generateAlerts(terms))
             .quickActions(buildQuickActions())
-            .charts(buildChartData(terms))
+            .charts(buildChartData(terms, metrics))
             .build();
     }
     
+    // Private helper methods
+
+    private TermMetricsDto metricsFor(Map<UUID, TermMetricsDto> metrics, AcademicTerm term) {
+        return metrics.getOrDefault(term.getId(), TermMetricsDto.empty(term.getId()));
+    }
+
     /**
-     * Export analytics report in specified format
+     * Freshness of a multi-term view is bounded by its oldest snapshot
      */
-    public byte[] exportAnalyticsReport(List<UUID> termIds, String format) {
-        log.info("Exporting analytics report in format: {}", format);
-        
-        // For now, return a simple implementation
-        // In production, this would generate actual PDF/Excel files
-        String report = "Cross-Term Analytics Report\n";
-        report += "Generated: " + LocalDateTime.now() + "\n";
-        report += "Terms analyzed: " + termIds.size() + "\n";
-        
-        return report.getBytes();
+    private LocalDateTime oldestRefresh(Map<UUID, TermMetricsDto> metrics) {
+        return metrics.values().stream()
+            .map(TermMetricsDto::getRefreshedAt)
+            .filter(Objects::nonNull)
+            .min(LocalDateTime::compareTo)
+            .orElse(null);
     }
     
-    // Private helper methods
-    
     private List<CrossTermAnalyticsDto.TermInfo> buildTermInfo(List<AcademicTerm> terms) {
         return terms.stream()
             .map(term -> CrossTermAnalyticsDto.TermInfo.builder()
@@ -361,13 +448,14 @@ public class CrossTermAnalyticsService {
             .collect(Collectors.toList());
     }
     
-    private CrossTermAnalyticsDto.EnrollmentAnalytics buildEnrollmentAnalytics(List<AcademicTerm> terms) {
+    private CrossTermAnalyticsDto.EnrollmentAnalytics buildEnrollmentAnalytics(List<AcademicTerm> terms,
+                                                                               Map<UUID, TermMetricsDto> metrics) {
         Map<String, Long> studentCountByTerm = new HashMap<>();
         List<CrossTermAnalyticsDto.EnrollmentTrend> trends = new ArrayList<>();
         
         Long previousCount = null;
         for (AcademicTerm term : terms) {
-            Long count = enrollmentRepository.countByClassGroupTermId(term.getId());
+            Long count = metricsFor(metrics, term).getStudentCount();
             studentCountByTerm.put(term.getTermName(), count);
             
             BigDecimal percentageChange = BigDecimal.ZERO;
@@ -414,7 +502,8 @@ public class CrossTermAnalyticsService {
             .build();
     }
     
-    private CrossTermAnalyticsDto.TeacherAnalytics buildTeacherAnalytics(List<AcademicTerm> terms) {
+    private CrossTermAnalyticsDto.TeacherAnalytics buildTeacherAnalytics(List<AcademicTerm> terms,
+                                                                         Map<UUID, TermMetricsDto> metrics) {
         Map<String, Long> teacherCountByTerm = new HashMap<>();
         List<CrossTermAnalyticsDto.TeacherTrend> trends = new ArrayList<>();
         BigDecimal totalUtilization = BigDecimal.ZERO;
@@ -422,11 +511,12 @@ public class CrossTermAnalyticsService {
         int validTermCount = 0;
 
         for (AcademicTerm term : terms) {
-            Long teacherCount = teacherLevelAssignmentRepository.countDistinctTeachersByTermId(term.getId());
+            TermMetricsDto termMetrics = metricsFor(metrics, term);
+            Long teacherCount = termMetrics.getTeacherCount();
             teacherCountByTerm.put(term.getTermName(), teacherCount);
 
             // Calculate utilization from actual class assignments
-            Long totalClasses = classGroupRepository.countActiveClassesByTermId(term.getId());
+            Long totalClasses = termMetrics.getActiveClassCount();
             BigDecimal utilizationRate = BigDecimal.ZERO;
             if (teacherCount > 0 && totalClasses > 0) {
                 // Assume each teacher can handle up to 4 classes (configurable in real implementation)
@@ -438,7 +528,7 @@ public class CrossTermAnalyticsService {
             }
 
             // Get average performance from feedback answers
-            Double avgRating = feedbackAnswerRepository.calculateAverageTeacherRatingByTermId(term.getId());
+            Double avgRating = termMetrics.getAverageTeacherRating();
             BigDecimal averagePerformance = avgRating != null ?
                 BigDecimal.valueOf(avgRating).setScale(2, RoundingMode.HALF_UP) : BigDecimal.ZERO;
 
@@ -514,16 +604,19 @@ public class CrossTermAnalyticsService {
             .setScale(2, RoundingMode.HALF_UP);
     }
     
-    private CrossTermAnalyticsDto.PerformanceMetrics buildPerformanceMetrics(List<AcademicTerm> terms) {
+    private CrossTermAnalyticsDto.PerformanceMetrics buildPerformanceMetrics(List<AcademicTerm> terms,
+                                                                             Map<UUID, TermMetricsDto> metrics) {
         Map<String, BigDecimal> completionRateByTerm = new HashMap<>();
         Map<String, BigDecimal> satisfactionByTerm = new HashMap<>();
         List<CrossTermAnalyticsDto.PerformanceTrend> trends = new ArrayList<>();
         BigDecimal previousCompletionRate = null;
 
         for (AcademicTerm term : terms) {
+            TermMetricsDto termMetrics = metricsFor(metrics, term);
+
             // Calculate completion rate from enrollment data
-            Long completedCount = enrollmentRepository.countCompletedByTermId(term.getId());
-            Long totalCount = enrollmentRepository.countActiveAndCompletedByTermId(term.getId());
+            Long completedCount = termMetrics.getCompletedEnrollmentCount();
+            Long totalCount = termMetrics.getActiveAndCompletedEnrollmentCount();
             BigDecimal completionRate = BigDecimal.ZERO;
             if (totalCount != null && totalCount > 0 && completedCount != null) {
                 completionRate = BigDecimal.valueOf(completedCount)
@@ -533,7 +626,7 @@ public class CrossTermAnalyticsService {
             }
 
             // Get satisfaction score from feedback answers
-            Double avgRating = feedbackAnswerRepository.calculateAverageRatingByTermId(term.getId());
+            Double avgRating = termMetrics.getAverageRating();
             BigDecimal satisfactionScore = avgRating != null ?
                 BigDecimal.valueOf(avgRating).setScale(2, RoundingMode.HALF_UP) : BigDecimal.ZERO;
 
@@ -640,12 +733,13 @@ public class CrossTermAnalyticsService {
         return customMetrics;
     }
     
-    private CrossTermComparisonDto.ComparisonMetrics buildEnrollmentComparison(List<AcademicTerm> terms) {
+    private CrossTermComparisonDto.ComparisonMetrics buildEnrollmentComparison(List<AcademicTerm> terms,
+                                                                               Map<UUID, TermMetricsDto> metrics) {
         Map<String, BigDecimal> valuesByTerm = new HashMap<>();
         List<CrossTermComparisonDto.DataPoint> dataPoints = new ArrayList<>();
         
         for (AcademicTerm term : terms) {
-            Long count = enrollmentRepository.countByClassGroupTermId(term.getId());
+            Long count = metricsFor(metrics, term).getStudentCount();
             valuesByTerm.put(term.getTermName(), BigDecimal.valueOf(count));
             
             dataPoints.add(CrossTermComparisonDto.DataPoint.builder()
@@ -1007,10 +1101,12 @@ public class CrossTermAnalyticsService {
     }
     
     // Executive dashboard helper methods
-    private ExecutiveDashboardDto.DashboardHeader buildDashboardHeader(List<AcademicTerm> terms) {
+    private ExecutiveDashboardDto.DashboardHeader buildDashboardHeader(List<AcademicTerm> terms,
+                                                                       Map<UUID, TermMetricsDto> metrics) {
+        LocalDateTime refreshedAt = oldestRefresh(metrics);
         return ExecutiveDashboardDto.DashboardHeader.builder()
             .period(terms.get(0).getTermName() + " - " + terms.get(terms.size()-1).getTermName())
-            .lastUpdated(LocalDate.now())
+            .lastUpdated(refreshedAt != null ? refreshedAt.toLocalDate() : LocalDate.now())
             .termCount(terms.size())
             .currentTerm(terms.get(terms.size()-1).getTermName())
             .dashboardVersion("1.0")
@@ -1093,14 +1189,15 @@ public class CrossTermAnalyticsService {
             ExecutiveDashboardDto.QuickAction.builder()
                 .action("Export Dashboard")
                 .description("Download executive summary")
-                .link("/analytics/cross-term/export")
+                .link("/management/analytics/cross-term/export")
                 .icon("download")
                 .category("Export")
                 .build()
         );
     }
     
-    private Map<String, ExecutiveDashboardDto.ChartData> buildChartData(List<AcademicTerm> terms) {
+    private Map<String, ExecutiveDashboardDto.ChartData> buildChartData(List<AcademicTerm> terms,
+                                                                        Map<UUID, TermMetricsDto> metrics) {
         Map<String, ExecutiveDashboardDto.ChartData> charts = new HashMap<>();
 
         // Enrollment trend chart with real data
@@ -1108,7 +1205,7 @@ public class CrossTermAnalyticsService {
         List<BigDecimal> enrollmentData = new ArrayList<>();
 
         for (AcademicTerm term : terms) {
-            Long count = enrollmentRepository.countByClassGroupTermId(term.getId());
+            Long count = metricsFor(metrics, term).getStudentCount();
             enrollmentData.add(BigDecimal.valueOf(count != null ? count : 0));
         }
 
@@ -1129,7 +1226,8 @@ public class CrossTermAnalyticsService {
         return charts;
     }
 
-    private CrossTermAnalyticsDto.OperationalAnalytics buildOperationalAnalytics(List<AcademicTerm> terms) {
+    private CrossTermAnalyticsDto.OperationalAnalytics buildOperationalAnalytics(List<AcademicTerm> terms,
+                                                                                 Map<UUID, TermMetricsDto> metrics) {
         List<CrossTermAnalyticsDto.ClassBreakdown> classBreakdown = new ArrayList<>();
         long totalStudents = 0;
         long totalClasses = 0;
@@ -1175,7 +1273,7 @@ public class CrossTermAnalyticsService {
         }
 
         // Calculate capacity growth rate across terms
-        BigDecimal capacityGrowthRate = calculateCapacityGrowthRate(terms);
+        BigDecimal capacityGrowthRate = calculateCapacityGrowthRate(terms, metrics);
 
         // Log if no data available
         if (classBreakdown.isEmpty()) {
@@ -1194,7 +1292,7 @@ public class CrossTermAnalyticsService {
     /**
      * Calculate capacity growth rate across terms
      */
-    private BigDecimal calculateCapacityGrowthRate(List<AcademicTerm> terms) {
+    private BigDecimal calculateCapacityGrowthRate(List<AcademicTerm> terms, Map<UUID, TermMetricsDto> metrics) {
         if (terms.size() < 2) {
             return BigDecimal.ZERO;
         }
@@ -1202,8 +1300,8 @@ public class CrossTermAnalyticsService {
         AcademicTerm firstTerm = terms.get(0);
         AcademicTerm lastTerm = terms.get(terms.size() - 1);
 
-        Long firstTermClasses = classGroupRepository.countActiveClassesByTermId(firstTerm.getId());
-        Long lastTermClasses = classGroupRepository.countActiveClassesByTermId(lastTerm.getId());
+        Long firstTermClasses = metricsFor(metrics, firstTerm).getActiveClassCount();
+        Long lastTermClasses = metricsFor(metrics, lastTerm).getActiveClassCount();
 
         if (firstTermClasses == null || firstTermClasses == 0) {
             return BigDecimal.ZERO;
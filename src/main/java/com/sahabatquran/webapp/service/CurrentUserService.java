@@ -0,0 +1,75 @@
+package com.sahabatquran.webapp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sahabatquran.webapp.entity.User;
+import com.sahabatquran.webapp.repository.UserRepository;
+import com.sahabatquran.webapp.security.UserChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * User entity of the logged-in user for request handlers.
+ *
+ * Entities are kept for a short time, so the requests of one page view and the
+ * requests shortly after share one lookup. The entity is detached: handlers may read
+ * it and pass it or its ID to services, but changes to it are not saved. Saving or
+ * removing a user or one of their role assignments evicts the cached entity once the
+ * transaction commits.
+ */
+@Service
+@Slf4j
+public class CurrentUserService {
+
+    private final UserRepository userRepository;
+    private final Cache<UUID, User> users;
+
+    public CurrentUserService(UserRepository userRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.security.current-user.cache-ttl-ms:30000}") long cacheTtlMillis,
+                              @Value("${app.security.current-user.cache-size:1000}") long cacheSize) {
+        this.userRepository = userRepository;
+        this.users = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(cacheTtlMillis))
+                .maximumSize(cacheSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "currentUser");
+    }
+
+    public User getUser(UUID userId) {
+        return users.get(userId, id -> userRepository.findById(id)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + id)));
+    }
+
+    /**
+     * Lookup for principals that do not carry the user ID (sessions from before the
+     * login carried it, test users)
+     */
+    public User getUserByUsername(String username) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+        users.put(user.getId(), user);
+        return user;
+    }
+
+    /**
+     * Drop a cached user after changes to the user or their roles
+     */
+    public void evict(UUID userId) {
+        users.invalidate(userId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        evict(event.userId());
+    }
+}
@@ -0,0 +1,22 @@
+package com.sahabatquran.webapp.service;
+
+/**
+ * An email could not be handed to the mail provider.
+ *
+ * Retryable failures (rate limiting, provider errors, network problems) are retried
+ * by the email outbox with backoff; other failures, such as a rejected recipient,
+ * fail the message immediately.
+ */
+public class EmailDeliveryException extends RuntimeException {
+
+    private final boolean retryable;
+
+    public EmailDeliveryException(String message, Throwable cause, boolean retryable) {
+        super(message, cause);
+        this.retryable = retryable;
+    }
+
+    public boolean isRetryable() {
+        return retryable;
+    }
+}
@@ -0,0 +1,305 @@
+package com.sahabatquran.webapp.service;
+
+import com.sahabatquran.webapp.entity.EmailOutboxMessage;
+import com.sahabatquran.webapp.repository.EmailOutboxRepository;
+import com.sahabatquran.webapp.repository.ReportGenerationItemRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Outbound email pipeline.
+ *
+ * Producers write messages to the email_outbox table inside their own transaction.
+ * A scheduled dispatcher claims pending messages in chunks with SKIP LOCKED, so every
+ * node can dispatch without sending a message twice, and sends each chunk concurrently
+ * on virtual threads, paced by this node's {@link EmailRateLimiter} token bucket. The
+ * account's daily sending limit applies to all nodes together: claims are serialized by
+ * an advisory lock and never take more messages than today's sent and in-flight emails
+ * leave of the limit.
+ *
+ * The results of a chunk are written in one transaction: sent messages and the report
+ * items they announce are marked with bulk updates, retryable failures (rate limiting,
+ * 5xx, network) go back to PENDING with exponential backoff, and other failures are
+ * marked FAILED.
+ */
+@Service
+@Slf4j
+public class EmailOutboxService {
+
+    public static final String EMAIL_DISTRIBUTION = "EMAIL";
+
+    // Advisory lock key of the outbox claim ("OUTBOX" in ASCII)
+    private static final long CLAIM_LOCK_KEY = 0x4F5554424F58L;
+
+    private final EmailOutboxRepository outboxRepository;
+    private final ReportGenerationItemRepository itemRepository;
+    private final EmailService emailService;
+    private final EmailRateLimiter rateLimiter;
+    private final TransactionTemplate newTransaction;
+    private final AtomicBoolean dispatching = new AtomicBoolean();
+
+    @Value("${app.email.outbox.claim-size:50}")
+    private int claimSize;
+
+    @Value("${app.email.rate.daily-limit:2000}")
+    private int dailyLimit;
+
+    @Value("${app.email.outbox.max-concurrent-sends:4}")
+    private int maxConcurrentSends;
+
+    @Value("${app.email.outbox.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.email.outbox.retry-backoff-ms:60000}")
+    private long retryBackoffMillis;
+
+    @Value("${app.email.outbox.max-backoff-ms:3600000}")
+    private long maxBackoffMillis;
+
+    @Value("${app.email.outbox.sending-timeout-ms:600000}")
+    private long sendingTimeoutMillis;
+
+    public EmailOutboxService(EmailOutboxRepository outboxRepository,
+                              ReportGenerationItemRepository itemRepository,
+                              EmailService emailService,
+                              EmailRateLimiter rateLimiter,
+                              PlatformTransactionManager transactionManager) {
+        this.outboxRepository = outboxRepository;
+        this.itemRepository = itemRepository;
+        this.emailService = emailService;
+        this.rateLimiter = rateLimiter;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public static EmailOutboxMessage message(EmailOutboxMessage.MessageType type, UUID reportItemId,
+                                             String recipientEmail, String subject, String body, String downloadUrl) {
+        EmailOutboxMessage message = new EmailOutboxMessage();
+        message.setMessageType(type);
+        message.setReportItemId(reportItemId);
+        message.setRecipientEmail(recipientEmail);
+        message.setSubject(subject);
+        message.setBody(body);
+        message.setDownloadUrl(downloadUrl);
+        return message;
+    }
+
+    /**
+     * Queue messages for sending; they are inserted in JDBC batches and only become
+     * visible to dispatchers when the caller's transaction commits
+     */
+    @Transactional
+    public void enqueue(List<EmailOutboxMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        outboxRepository.saveAll(messages);
+        log.info("Queued {} emails", messages.size());
+    }
+
+    /**
+     * Queue the email of a parent notification, at most once per notification: a
+     * notification sent again because its result was lost is not emailed twice
+     *
+     * @return false if the notification was already queued
+     */
+    @Transactional
+    public boolean enqueueParentNotification(UUID notificationId, String recipientEmail, String subject, String body) {
+        return outboxRepository.insertForParentNotification(notificationId, recipientEmail, subject, body,
+                LocalDateTime.now()) > 0;
+    }
+
+    /**
+     * Send pending messages until none are claimable or today's sending limit is reached on all nodes together
+     */
+    @Scheduled(fixedDelayString = "${app.email.outbox.poll-interval-ms:5000}")
+    public void dispatchPending() {
+        if (!dispatching.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            releaseExpiredClaims();
+
+            while (true) {
+                List<EmailOutboxMessage> claimed = claimNextChunk();
+                if (claimed.isEmpty()) {
+                    break;
+                }
+                sendChunk(claimed);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Error dispatching outbox emails", e);
+        } finally {
+            dispatching.set(false);
+        }
+    }
+
+    /**
+     * Return messages claimed by a dispatcher that stopped to PENDING, or mark them FAILED
+     * if the lost send was their last attempt
+     */
+    private void releaseExpiredClaims() {
+        LocalDateTime now = LocalDateTime.now();
+        int[] counts = newTransaction.execute(status -> new int[]{
+                outboxRepository.failExpiredClaims(now, maxAttempts, "Claim expired after the last attempt"),
+                outboxRepository.releaseExpiredClaims(now, maxAttempts)});
+        if (counts[0] > 0) {
+            log.error("Failed {} outbox emails whose last attempt was claimed by a dispatcher that stopped", counts[0]);
+        }
+        if (counts[1] > 0) {
+            log.warn("Released {} outbox emails claimed by a dispatcher that stopped", counts[1]);
+        }
+    }
+
+    /**
+     * Claim the next chunk, no larger than what is left of today's sending limit across all nodes
+     */
+    private List<EmailOutboxMessage> claimNextChunk() {
+        return newTransaction.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            int limit = claimSize;
+            if (dailyLimit > 0) {
+                outboxRepository.lockForClaim(CLAIM_LOCK_KEY);
+                long usedToday = outboxRepository.countSentOrSendingSince(now.toLocalDate().atStartOfDay());
+                limit = (int) Math.min(claimSize, dailyLimit - usedToday);
+                if (limit <= 0) {
+                    log.info("Daily email limit of {} reached, remaining outbox emails wait for tomorrow", dailyLimit);
+                    return List.<EmailOutboxMessage>of();
+                }
+            }
+            List<UUID> ids = outboxRepository.lockNextSendableIds(now, limit);
+            if (ids.isEmpty()) {
+                return List.<EmailOutboxMessage>of();
+            }
+            outboxRepository.markSending(ids, now.plus(Duration.ofMillis(sendingTimeoutMillis)));
+            return outboxRepository.findByIdIn(ids);
+        });
+    }
+
+    private void sendChunk(List<EmailOutboxMessage> messages) throws InterruptedException {
+        Map<UUID, SendResult> results = new ConcurrentHashMap<>();
+        Semaphore inFlight = new Semaphore(Math.max(1, maxConcurrentSends));
+
+        // Virtual threads: a blocking provider call costs no platform thread; the semaphore caps calls in flight
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (EmailOutboxMessage message : messages) {
+                inFlight.acquire();
+                executor.execute(() -> {
+                    try {
+                        results.put(message.getId(), send(message));
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+
+        recordResults(messages, results);
+    }
+
+    private SendResult send(EmailOutboxMessage message) {
+        try {
+            rateLimiter.acquire();
+            emailService.sendReportNotification(message.getRecipientEmail(), message.getSubject(),
+                    message.getBody(), message.getDownloadUrl());
+            return SendResult.sent();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return SendResult.deferred(LocalDateTime.now());
+        } catch (Exception e) {
+            String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            if (isRetryable(e) && message.getAttempts() < maxAttempts) {
+                return SendResult.retry(
+                        LocalDateTime.now().plus(SendResult.backoff(message.getAttempts(), retryBackoffMillis, maxBackoffMillis)),
+                        error);
+            }
+            log.error("Email {} to {} failed permanently after {} attempts: {}",
+                    message.getId(), message.getRecipientEmail(), message.getAttempts(), error);
+            return SendResult.failed(error);
+        }
+    }
+
+    private void recordResults(List<EmailOutboxMessage> messages, Map<UUID, SendResult> results) {
+        LocalDateTime now = LocalDateTime.now();
+        List<UUID> sentIds = new ArrayList<>();
+        List<UUID> distributedItemIds = new ArrayList<>();
+        Map<LocalDateTime, List<UUID>> deferredIds = new HashMap<>();
+        int retried = 0;
+        int failed = 0;
+
+        for (EmailOutboxMessage message : messages) {
+            SendResult result = results.get(message.getId());
+            if (result == null) {
+                continue;
+            }
+            switch (result.outcome()) {
+                case SENT -> {
+                    sentIds.add(message.getId());
+                    if (message.getMessageType() == EmailOutboxMessage.MessageType.REPORT_NOTIFICATION
+                            && message.getReportItemId() != null) {
+                        distributedItemIds.add(message.getReportItemId());
+                    }
+                }
+                case DEFERRED -> deferredIds.computeIfAbsent(result.nextAttemptAt(), time -> new ArrayList<>())
+                        .add(message.getId());
+                case RETRY -> retried++;
+                case FAILED -> failed++;
+            }
+        }
+
+        newTransaction.executeWithoutResult(status -> {
+            if (!sentIds.isEmpty()) {
+                outboxRepository.markSent(sentIds, now);
+            }
+            if (!distributedItemIds.isEmpty()) {
+                itemRepository.markDistributed(distributedItemIds, EMAIL_DISTRIBUTION, now);
+            }
+            deferredIds.forEach((nextAttemptAt, ids) -> outboxRepository.defer(ids, nextAttemptAt));
+            results.forEach((id, result) -> {
+                if (result.outcome() == SendResult.Outcome.RETRY) {
+                    outboxRepository.scheduleRetry(id, result.nextAttemptAt(), result.error());
+                } else if (result.outcome() == SendResult.Outcome.FAILED) {
+                    outboxRepository.markFailed(id, result.error());
+                }
+            });
+        });
+
+        log.info("Outbox chunk of {}: {} sent, {} retrying, {} failed, {} deferred",
+                messages.size(), sentIds.size(), retried, failed,
+                deferredIds.values().stream().mapToInt(List::size).sum());
+    }
+
+    /**
+     * Rate limiting, 5xx and network errors are transient; the provider reports them as
+     * retryable EmailDeliveryExceptions. Any other failure is permanent.
+     */
+    private boolean isRetryable(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof EmailDeliveryException delivery) {
+                return delivery.isRetryable();
+            }
+            if (cause instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
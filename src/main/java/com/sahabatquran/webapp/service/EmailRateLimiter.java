@@ -0,0 +1,80 @@
+package com.sahabatquran.webapp.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket pacing outbound email on this node.
+ *
+ * Tokens refill continuously at permits-per-second up to burst; every send takes one.
+ * The bucket is per node: with several nodes dispatching the outbox, permits-per-second
+ * must be the account's rate divided by the number of nodes. The account's daily
+ * sending limit is enforced cluster-wide by {@link EmailOutboxService} when it claims
+ * messages.
+ */
+@Component
+public class EmailRateLimiter {
+
+    private final double permitsPerSecond;
+    private final double burst;
+    private final LongSupplier nanoTime;
+
+    private double tokens;
+    private long lastRefillNanos;
+
+    @Autowired
+    public EmailRateLimiter(@Value("${app.email.rate.permits-per-second:2}") double permitsPerSecond,
+                            @Value("${app.email.rate.burst:2}") int burst) {
+        this(permitsPerSecond, burst, System::nanoTime);
+    }
+
+    EmailRateLimiter(double permitsPerSecond, int burst, LongSupplier nanoTime) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permits-per-second must be positive");
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = Math.max(1, burst);
+        this.nanoTime = nanoTime;
+        this.tokens = this.burst;
+        this.lastRefillNanos = nanoTime.getAsLong();
+    }
+
+    /**
+     * Wait for a token
+     */
+    public void acquire() throws InterruptedException {
+        while (true) {
+            long waitNanos = reserve();
+            if (waitNanos == 0) {
+                return;
+            }
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Take a token if one is available right now
+     */
+    public boolean tryAcquire() {
+        return reserve() == 0;
+    }
+
+    /**
+     * @return 0 if a token was taken, or the nanoseconds until the next token
+     */
+    private synchronized long reserve() {
+        long now = nanoTime.getAsLong();
+        tokens = Math.min(burst, tokens + (now - lastRefillNanos) / 1e9 * permitsPerSecond);
+        lastRefillNanos = now;
+
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((1 - tokens) / permitsPerSecond * 1e9));
+    }
+}
@@ -4,19 +4,90 @@ import com.github.mustachejava.DefaultMustacheFactory;
 import com.github.mustachejava.Mustache;
 import com.github.mustachejava.MustacheFactory;
 import com.sahabatquran.webapp.dto.StudentReportEmailDto;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.StringWriter;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Renders report emails from the Mustache templates in templates/email.
+ *
+ * All templates are compiled once at startup into a registry, together with any
+ * partials they include, so rendering an email only executes already compiled
+ * templates. With app.email.templates.hot-reload=true (development) templates are
+ * recompiled on every render so edits show up without a restart.
+ */
 @Slf4j
 @Service
 public class EmailTemplateService {
 
-    private final MustacheFactory mustacheFactory = new DefaultMustacheFactory();
+    static final String TEMPLATE_ROOT = "templates/email";
+    static final String HTML_TEMPLATE = "student-report-html.mustache";
+    static final String TEXT_TEMPLATE = "student-report.mustache";
+    private static final List<String> TEMPLATES = List.of(HTML_TEMPLATE, TEXT_TEMPLATE);
+
+    // Buffers above this size are not kept for the next render
+    private static final int MAX_RETAINED_BUFFER = 256 * 1024;
+
+    private final Map<String, Mustache> templates = new ConcurrentHashMap<>();
+    private final ThreadLocal<StringBuilder> renderBuffer = ThreadLocal.withInitial(() -> new StringBuilder(16 * 1024));
+
+    @Value("${app.email.templates.hot-reload:false}")
+    private boolean hotReload;
+
+    /**
+     * Compile every template up front; a broken template fails the startup instead of
+     * the first report email
+     */
+    @PostConstruct
+    public void compileTemplates() {
+        MustacheFactory factory = new DefaultMustacheFactory(TEMPLATE_ROOT);
+        for (String name : TEMPLATES) {
+            templates.put(name, factory.compile(name));
+        }
+        log.info("Compiled {} email templates{}", templates.size(), hotReload ? " (hot reload enabled)" : "");
+    }
+
+    /**
+     * Renders the HTML and plain text parts of a report email in one go: both templates
+     * are executed against the same data into a single reused buffer.
+     *
+     * @param emailData Student report data
+     * @return Subject, HTML and plain text content
+     */
+    public RenderedEmail renderEmail(StudentReportEmailDto emailData) {
+        StringBuilder buffer = renderBuffer.get();
+        buffer.setLength(0);
+        try {
+            Writer writer = new StringBuilderWriter(buffer);
+            execute(TEXT_TEMPLATE, writer, emailData);
+            int textLength = buffer.length();
+
+            String html;
+            try {
+                execute(HTML_TEMPLATE, writer, emailData);
+                html = buffer.substring(textLength);
+            } catch (Exception e) {
+                log.error("Failed to generate HTML email content, falling back to plain text", e);
+                html = null;
+            }
+            String text = buffer.substring(0, textLength);
+
+            return new RenderedEmail(generateEmailSubject(emailData), html != null ? html : text, text);
+        } catch (Exception e) {
+            log.error("Failed to generate plain text email content", e);
+            throw new RuntimeException("Failed to generate email content", e);
+        } finally {
+            if (buffer.capacity() > MAX_RETAINED_BUFFER) {
+                renderBuffer.remove();
+            }
+        }
+    }
 
     /**
      * Generates HTML email content using Mustache template.
@@ -26,7 +97,7 @@ public class EmailTemplateService {
      */
     public String generateEmailContent(StudentReportEmailDto emailData) {
         try {
-            return renderTemplate("templates/email/student-report-html.mustache", emailData);
+            return renderTemplate(HTML_TEMPLATE, emailData);
         } catch (Exception e) {
             log.error("Failed to generate HTML email content, falling back to plain text", e);
             return generatePlainTextEmailContent(emailData);
@@ -42,7 +113,7 @@ public class EmailTemplateService {
      */
     public String generatePlainTextEmailContent(StudentReportEmailDto emailData) {
         try {
-            return renderTemplate("templates/email/student-report.mustache", emailData);
+            return renderTemplate(TEXT_TEMPLATE, emailData);
         } catch (Exception e) {
             log.error("Failed to generate plain text email content", e);
             throw new RuntimeException("Failed to generate email content", e);
@@ -62,33 +133,86 @@ public class EmailTemplateService {
     }
 
     /**
-     * Renders a Mustache template with the provided data.
+     * Renders one compiled template with the provided data.
      *
-     * @param templatePath Path to the template file
+     * @param templateName Template name relative to templates/email
      * @param data Data to render
      * @return Rendered template content
-     * @throws IOException If template cannot be loaded
      */
-    private String renderTemplate(String templatePath, Object data) throws IOException {
-        log.debug("Rendering template: {}", templatePath);
+    private String renderTemplate(String templateName, Object data) {
+        StringBuilder buffer = renderBuffer.get();
+        buffer.setLength(0);
+        try {
+            execute(templateName, new StringBuilderWriter(buffer), data);
+            log.debug("Template {} rendered, content length: {} characters", templateName, buffer.length());
+            return buffer.toString();
+        } finally {
+            if (buffer.capacity() > MAX_RETAINED_BUFFER) {
+                renderBuffer.remove();
+            }
+        }
+    }
+
+    private void execute(String templateName, Writer writer, Object data) {
+        template(templateName).execute(writer, data);
+    }
+
+    private Mustache template(String templateName) {
+        if (hotReload) {
+            // A fresh factory, because DefaultMustacheFactory keeps its own cache of compiled templates
+            return new DefaultMustacheFactory(TEMPLATE_ROOT).compile(templateName);
+        }
+        Mustache template = templates.get(templateName);
+        if (template == null) {
+            throw new IllegalArgumentException("Email template not registered: " + templateName);
+        }
+        return template;
+    }
+
+    /**
+     * Subject and body parts of a report email
+     */
+    public record RenderedEmail(String subject, String html, String text) {
+    }
 
-        // Load template from classpath
-        ClassPathResource templateResource = new ClassPathResource(templatePath);
-        if (!templateResource.exists()) {
-            throw new IOException("Template not found: " + templatePath);
+    /**
+     * Unsynchronized Writer over a StringBuilder; StringWriter locks on every write and
+     * allocates a new buffer for every render
+     */
+    private static final class StringBuilderWriter extends Writer {
+        private final StringBuilder builder;
+
+        private StringBuilderWriter(StringBuilder builder) {
+            this.builder = builder;
         }
 
-        try (InputStreamReader reader = new InputStreamReader(templateResource.getInputStream())) {
-            Mustache template = mustacheFactory.compile(reader, templatePath);
+        @Override
+        public void write(char[] chars, int offset, int length) {
+            builder.append(chars, offset, length);
+        }
 
-            StringWriter writer = new StringWriter();
-            template.execute(writer, data);
+        @Override
+        public void write(String text, int offset, int length) {
+            builder.append(text, offset, offset + length);
+        }
 
-            String result = writer.toString();
-            log.debug("Template rendered successfully, content length: {} characters", result.length());
+        @Override
+        public void write(int c) {
+            builder.append((char) c);
+        }
 
-            return result;
+        @Override
+        public Writer append(CharSequence text) {
+            builder.append(text);
+            return this;
+        }
+
+        @Override
+        public void flush() {
         }
-    }
 
-}
\ No newline at end of file
+        @Override
+        public void close() {
+        }
+    }
+}
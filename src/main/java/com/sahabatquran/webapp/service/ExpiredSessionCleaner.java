@@ -0,0 +1,71 @@
+package com.sahabatquran.webapp.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Deletes expired HTTP sessions from the spring_session tables.
+ *
+ * Runs on every node. Expired sessions are found through the expiry_time index and
+ * deleted in batches, each in its own short transaction, with SKIP LOCKED so nodes
+ * cleaning at the same time split the work instead of waiting on each other or on
+ * requests updating a session. Attributes are removed by the cascading foreign key.
+ *
+ * Metrics (actuator):
+ * - sessions.expired.deleted: expired sessions deleted by this node
+ */
+@Service
+@Slf4j
+public class ExpiredSessionCleaner {
+
+    static final String DELETE_EXPIRED_BATCH =
+            "DELETE FROM spring_session WHERE primary_id IN (" +
+            "SELECT primary_id FROM spring_session WHERE expiry_time < ? " +
+            "ORDER BY expiry_time LIMIT ? FOR UPDATE SKIP LOCKED)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Counter deleted;
+    private final AtomicBoolean cleaning = new AtomicBoolean();
+
+    @Value("${app.session.cleanup.batch-size:500}")
+    private int batchSize;
+
+    public ExpiredSessionCleaner(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.deleted = Counter.builder("sessions.expired.deleted")
+                .description("Expired HTTP sessions deleted")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.session.cleanup.interval-ms:60000}",
+               initialDelayString = "${app.session.cleanup.interval-ms:60000}")
+    public void deleteExpiredSessions() {
+        if (!cleaning.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            int total = 0;
+            int batch;
+            do {
+                batch = jdbcTemplate.update(DELETE_EXPIRED_BATCH, now, batchSize);
+                total += batch;
+                deleted.increment(batch);
+            } while (batch == batchSize);
+            if (total > 0) {
+                log.debug("Deleted {} expired sessions", total);
+            }
+        } catch (Exception e) {
+            log.error("Error deleting expired sessions", e);
+        } finally {
+            cleaning.set(false);
+        }
+    }
+}
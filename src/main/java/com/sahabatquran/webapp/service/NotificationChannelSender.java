@@ -0,0 +1,31 @@
+package com.sahabatquran.webapp.service;
+
+import com.sahabatquran.webapp.entity.ParentNotification;
+
+/**
+ * Delivers parent notifications over one channel (SMS, email, WhatsApp, in-app).
+ *
+ * The dispatcher calls send concurrently, up to getMaxConcurrentSends calls at a time
+ * for each channel. A send that throws is retried with backoff, except for
+ * IllegalArgumentException, which marks the notification as failed right away.
+ */
+public interface NotificationChannelSender {
+
+    ParentNotification.DeliveryMethod getChannel();
+
+    int getMaxConcurrentSends();
+
+    void send(ParentNotification notification);
+
+    /**
+     * Phone number or email address of the notification; a missing contact can never
+     * be delivered, so it is a permanent failure
+     */
+    static String requireContact(ParentNotification notification) {
+        String contact = notification.getRecipientContact();
+        if (contact == null || contact.isBlank()) {
+            throw new IllegalArgumentException("Notification " + notification.getId() + " has no recipient contact");
+        }
+        return contact;
+    }
+}
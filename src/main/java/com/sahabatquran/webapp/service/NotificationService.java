@@ -1,11 +1,10 @@
 package com.sahabatquran.webapp.service;
 
-import com.sahabatquran.webapp.entity.ParentNotification;
 import com.sahabatquran.webapp.entity.SubstituteAssignment;
-import com.sahabatquran.webapp.repository.ParentNotificationRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
@@ -14,8 +13,7 @@ import org.springframework.transaction.annotation.Transactional;
 @Slf4j
 public class NotificationService {
     
-    private final ParentNotificationRepository parentNotificationRepository;
-    // Add SMS/Email service dependencies here
+    private final ParentNotificationDispatcher parentNotificationDispatcher;
     
     /**
      * Send notification to substitute teacher about assignment
@@ -60,59 +58,12 @@ public class NotificationService {
     }
     
     /**
-     * Process pending notifications (to be called by scheduled job)
+     * Process pending notifications now instead of waiting for the next scheduled run.
+     * Runs outside a transaction: the dispatcher commits every chunk on its own.
      */
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void processPendingNotifications() {
         log.info("Processing pending notifications");
-        
-        // Get all unsent notifications
-        parentNotificationRepository.findByIsSentFalse()
-            .forEach(this::sendNotification);
-    }
-    
-    private void sendNotification(ParentNotification notification) {
-        try {
-            switch (notification.getDeliveryMethod()) {
-                case SMS:
-                    sendSMS(notification);
-                    break;
-                case EMAIL:
-                    sendEmail(notification);
-                    break;
-                case WHATSAPP:
-                    sendWhatsApp(notification);
-                    break;
-                case IN_APP:
-                    sendInAppNotification(notification);
-                    break;
-            }
-            
-            notification.markAsSent();
-            parentNotificationRepository.save(notification);
-            
-        } catch (Exception e) {
-            log.error("Failed to send notification {}: {}", notification.getId(), e.getMessage());
-        }
-    }
-    
-    private void sendSMS(ParentNotification notification) {
-        // Implement SMS sending logic here
-        log.info("Sending SMS to {}: {}", notification.getRecipientContact(), notification.getMessage());
-    }
-    
-    private void sendEmail(ParentNotification notification) {
-        // Implement email sending logic here
-        log.info("Sending email to {}: {}", notification.getRecipientContact(), notification.getSubject());
-    }
-    
-    private void sendWhatsApp(ParentNotification notification) {
-        // Implement WhatsApp sending logic here
-        log.info("Sending WhatsApp to {}: {}", notification.getRecipientContact(), notification.getMessage());
-    }
-    
-    private void sendInAppNotification(ParentNotification notification) {
-        // Implement in-app notification logic here
-        log.info("Sending in-app notification to {}: {}", notification.getStudent().getFullName(), notification.getSubject());
+        parentNotificationDispatcher.dispatchPending();
     }
 }
\ No newline at end of file
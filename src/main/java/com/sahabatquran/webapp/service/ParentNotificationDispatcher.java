@@ -0,0 +1,277 @@
+package com.sahabatquran.webapp.service;
+
+import com.sahabatquran.webapp.entity.ParentNotification;
+import com.sahabatquran.webapp.repository.ParentNotificationRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends parent notifications from the parent_notifications table.
+ *
+ * Every channel with a {@link NotificationChannelSender} is dispatched by its own loop
+ * on a virtual thread, which claims due notifications of that channel in chunks with
+ * SKIP LOCKED, so every node can dispatch and a backlog is never loaded or sent in one
+ * transaction. Each notification of a chunk is sent on its own virtual thread, up to
+ * the channel's concurrency limit, and the outcomes of a chunk are committed together
+ * before the channel claims its next chunk. Channels never wait for each other, so a
+ * slow SMS gateway does not hold up in-app notifications. The scheduled tick only
+ * starts the loops of idle channels and fails notifications no sender can deliver.
+ *
+ * Metrics (actuator):
+ * - notifications.dispatched{channel,outcome}: sent, retry and failed counts
+ * - notifications.send{channel}: send latency per channel
+ * - notifications.backlog / notifications.lag: unsent notifications and age of the oldest
+ */
+@Service
+@Slf4j
+public class ParentNotificationDispatcher {
+
+    private final ParentNotificationRepository notificationRepository;
+    private final Map<ParentNotification.DeliveryMethod, NotificationChannelSender> senders =
+            new EnumMap<>(ParentNotification.DeliveryMethod.class);
+    private final Map<ParentNotification.DeliveryMethod, Semaphore> channelPermits =
+            new EnumMap<>(ParentNotification.DeliveryMethod.class);
+    private final Map<ParentNotification.DeliveryMethod, Timer> sendTimers =
+            new EnumMap<>(ParentNotification.DeliveryMethod.class);
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate newTransaction;
+    private final Map<ParentNotification.DeliveryMethod, AtomicBoolean> dispatching =
+            new EnumMap<>(ParentNotification.DeliveryMethod.class);
+    private final ExecutorService channelLoops = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicLong backlog = new AtomicLong();
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    @Value("${app.notifications.claim-size:100}")
+    private int claimSize;
+
+    @Value("${app.notifications.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.notifications.retry-backoff-ms:60000}")
+    private long retryBackoffMillis;
+
+    @Value("${app.notifications.max-backoff-ms:3600000}")
+    private long maxBackoffMillis;
+
+    @Value("${app.notifications.claim-timeout-ms:600000}")
+    private long claimTimeoutMillis;
+
+    public ParentNotificationDispatcher(ParentNotificationRepository notificationRepository,
+                                        List<NotificationChannelSender> channelSenders,
+                                        MeterRegistry meterRegistry,
+                                        PlatformTransactionManager transactionManager) {
+        this.notificationRepository = notificationRepository;
+        this.meterRegistry = meterRegistry;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        for (NotificationChannelSender sender : channelSenders) {
+            ParentNotification.DeliveryMethod channel = sender.getChannel();
+            int limit = Math.max(1, sender.getMaxConcurrentSends());
+            Semaphore permits = new Semaphore(limit);
+            senders.put(channel, sender);
+            channelPermits.put(channel, permits);
+            dispatching.put(channel, new AtomicBoolean());
+            sendTimers.put(channel, Timer.builder("notifications.send")
+                    .description("Parent notification send latency")
+                    .tag("channel", channel.name())
+                    .register(meterRegistry));
+            Gauge.builder("notifications.in_flight", permits, p -> limit - p.availablePermits())
+                    .description("Parent notifications being sent")
+                    .tag("channel", channel.name())
+                    .register(meterRegistry);
+        }
+        Gauge.builder("notifications.backlog", backlog, AtomicLong::get)
+                .description("Parent notifications waiting to be sent")
+                .register(meterRegistry);
+        Gauge.builder("notifications.lag", lagSeconds, AtomicLong::get)
+                .description("Age of the oldest parent notification waiting to be sent")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Start the dispatch loop of every channel that is not already sending
+     */
+    @Scheduled(fixedDelayString = "${app.notifications.dispatch-interval-ms:10000}")
+    public void dispatchPending() {
+        failUndeliverable();
+        for (ParentNotification.DeliveryMethod channel : senders.keySet()) {
+            AtomicBoolean running = dispatching.get(channel);
+            if (!running.compareAndSet(false, true)) {
+                continue;
+            }
+            try {
+                channelLoops.execute(() -> dispatchChannel(channel, running));
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+                running.set(false);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        channelLoops.shutdownNow();
+    }
+
+    /**
+     * Send due notifications of one channel chunk by chunk until none are left
+     */
+    private void dispatchChannel(ParentNotification.DeliveryMethod channel, AtomicBoolean running) {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                List<ParentNotification> claimed = claimNextChunk(channel);
+                if (claimed.isEmpty()) {
+                    break;
+                }
+                sendChunk(claimed);
+            }
+        } catch (Exception e) {
+            log.error("Error dispatching {} parent notifications", channel, e);
+        } finally {
+            running.set(false);
+            refreshBacklog();
+        }
+    }
+
+    /**
+     * Notifications without a delivery method, or for a channel without a sender, are
+     * never claimed by a channel loop
+     */
+    private void failUndeliverable() {
+        try {
+            int failed = newTransaction.execute(status -> notificationRepository.failWithoutChannel(
+                    senders.keySet(), "No sender for channel"));
+            if (failed > 0) {
+                log.warn("Marked {} parent notifications without a sender for their channel as failed", failed);
+            }
+        } catch (Exception e) {
+            log.error("Error failing undeliverable parent notifications", e);
+        }
+    }
+
+    private List<ParentNotification> claimNextChunk(ParentNotification.DeliveryMethod channel) {
+        return newTransaction.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<UUID> ids = notificationRepository.lockNextDueIds(channel.name(), now, claimSize);
+            if (ids.isEmpty()) {
+                return List.<ParentNotification>of();
+            }
+            notificationRepository.claim(ids, now.plus(Duration.ofMillis(claimTimeoutMillis)));
+            return notificationRepository.findByIdInWithStudent(ids);
+        });
+    }
+
+    private void sendChunk(List<ParentNotification> notifications) {
+        Map<UUID, SendResult> results = new ConcurrentHashMap<>();
+
+        // One virtual thread per notification; the channel permits bound the calls in flight per channel
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (ParentNotification notification : notifications) {
+                executor.execute(() -> results.put(notification.getId(), send(notification)));
+            }
+        }
+
+        recordResults(notifications, results);
+    }
+
+    private SendResult send(ParentNotification notification) {
+        ParentNotification.DeliveryMethod channel = notification.getDeliveryMethod();
+        NotificationChannelSender sender = senders.get(channel);
+        Semaphore permits = channelPermits.get(channel);
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return SendResult.retry(LocalDateTime.now(), "Interrupted");
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            sender.send(notification);
+            return SendResult.sent();
+        } catch (Exception e) {
+            String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            if (!(e instanceof IllegalArgumentException) && notification.getAttempts() < maxAttempts) {
+                return SendResult.retry(
+                        LocalDateTime.now().plus(SendResult.backoff(notification.getAttempts(), retryBackoffMillis, maxBackoffMillis)),
+                        error);
+            }
+            log.error("{} notification {} failed permanently after {} attempts: {}",
+                    channel, notification.getId(), notification.getAttempts(), error);
+            return SendResult.failed(error);
+        } finally {
+            sample.stop(sendTimers.get(channel));
+            permits.release();
+        }
+    }
+
+    private void recordResults(List<ParentNotification> notifications, Map<UUID, SendResult> results) {
+        LocalDateTime now = LocalDateTime.now();
+        List<UUID> sentIds = new ArrayList<>();
+        int retried = 0;
+        int failed = 0;
+
+        for (ParentNotification notification : notifications) {
+            SendResult result = results.get(notification.getId());
+            if (result == null) {
+                continue;
+            }
+            String channel = String.valueOf(notification.getDeliveryMethod());
+            meterRegistry.counter("notifications.dispatched",
+                    "channel", channel, "outcome", result.outcome().name().toLowerCase()).increment();
+            switch (result.outcome()) {
+                case SENT -> sentIds.add(notification.getId());
+                case RETRY -> retried++;
+                case FAILED -> failed++;
+            }
+        }
+
+        newTransaction.executeWithoutResult(status -> {
+            if (!sentIds.isEmpty()) {
+                notificationRepository.markSent(sentIds, now);
+            }
+            results.forEach((id, result) -> {
+                if (result.outcome() == SendResult.Outcome.RETRY) {
+                    notificationRepository.scheduleRetry(id, result.nextAttemptAt(), result.error());
+                } else if (result.outcome() == SendResult.Outcome.FAILED) {
+                    notificationRepository.markFailed(id, result.error());
+                }
+            });
+        });
+
+        log.info("Notification chunk of {}: {} sent, {} retrying, {} failed",
+                notifications.size(), sentIds.size(), retried, failed);
+    }
+
+    private void refreshBacklog() {
+        try {
+            Object[] row = notificationRepository.getPendingBacklog().getFirst();
+            backlog.set(row[0] != null ? ((Number) row[0]).longValue() : 0);
+            LocalDateTime oldest = (LocalDateTime) row[1];
+            lagSeconds.set(oldest != null ? Math.max(0, Duration.between(oldest, LocalDateTime.now()).toSeconds()) : 0);
+        } catch (Exception e) {
+            log.warn("Could not refresh parent notification backlog: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.sahabatquran.webapp.service;
+
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.FontProgramFactory;
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.colors.ColorConstants;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.xobject.PdfFormXObject;
+import com.itextpdf.layout.Canvas;
+import com.itextpdf.layout.element.Image;
+import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.element.Table;
+import com.itextpdf.layout.properties.TextAlignment;
+import com.itextpdf.layout.properties.UnitValue;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Rendering resources shared by all PDF reports.
+ *
+ * Font programs and table column layouts are immutable and loaded once, so they are
+ * safe to share across concurrent renders. iText requires PdfFont and XObject instances
+ * to belong to a single PdfDocument, so those are bound per document through
+ * {@link #bind(PdfDocument)}.
+ */
+@Component
+public class PdfRenderingResources {
+
+    // Column layouts in percent of the page width
+    public static final float[] LABEL_VALUE_COLUMNS = {30, 70};
+    public static final float[] HALF_HALF_COLUMNS = {50, 50};
+    public static final float[] ENROLLMENT_COLUMNS = {40, 30, 30};
+    public static final float[] ASSESSMENT_COLUMNS = {30, 25, 20, 25};
+
+    private static final float HEADER_WIDTH = PageSize.A4.getWidth() - 72;
+    private static final float HEADER_HEIGHT = 32;
+
+    private final FontProgram boldProgram;
+    private final FontProgram italicProgram;
+
+    public PdfRenderingResources() {
+        try {
+            this.boldProgram = FontProgramFactory.createFont(StandardFonts.HELVETICA_BOLD);
+            this.italicProgram = FontProgramFactory.createFont(StandardFonts.HELVETICA_OBLIQUE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load PDF font programs", e);
+        }
+    }
+
+    /**
+     * Create a full-width table with one of the precomputed column layouts
+     */
+    public Table table(float[] columnLayout) {
+        return new Table(UnitValue.createPercentArray(columnLayout))
+                .setWidth(UnitValue.createPercentValue(100));
+    }
+
+    /**
+     * Bind the shared resources to a document. The returned object is not thread-safe
+     * and must only be used while rendering that document.
+     */
+    public DocumentResources bind(PdfDocument pdfDocument) {
+        return new DocumentResources(pdfDocument);
+    }
+
+    public class DocumentResources {
+
+        private final PdfDocument pdfDocument;
+        private final PdfFont boldFont;
+        private final PdfFont italicFont;
+        private final Map<String, PdfFormXObject> headers = new HashMap<>();
+
+        private DocumentResources(PdfDocument pdfDocument) {
+            this.pdfDocument = pdfDocument;
+            this.boldFont = PdfFontFactory.createFont(boldProgram, PdfEncodings.WINANSI);
+            this.italicFont = PdfFontFactory.createFont(italicProgram, PdfEncodings.WINANSI);
+        }
+
+        public PdfFont boldFont() {
+            return boldFont;
+        }
+
+        public PdfFont italicFont() {
+            return italicFont;
+        }
+
+        /**
+         * Report title banner drawn once per document as a form XObject, so documents with
+         * many pages (e.g. class packets) reference it instead of re-laying it out.
+         */
+        public Image header(String title) {
+            PdfFormXObject header = headers.computeIfAbsent(title, this::createHeader);
+            return new Image(header);
+        }
+
+        private PdfFormXObject createHeader(String title) {
+            PdfFormXObject header = new PdfFormXObject(new Rectangle(HEADER_WIDTH, HEADER_HEIGHT));
+            PdfCanvas pdfCanvas = new PdfCanvas(header, pdfDocument);
+            try (Canvas canvas = new Canvas(pdfCanvas, new Rectangle(HEADER_WIDTH, HEADER_HEIGHT))) {
+                canvas.add(new Paragraph(title)
+                        .setTextAlignment(TextAlignment.CENTER)
+                        .setFontSize(18)
+                        .setFont(boldFont)
+                        .setMargin(0));
+            }
+            pdfCanvas.setStrokeColor(ColorConstants.GRAY)
+                    .setLineWidth(0.5f)
+                    .moveTo(0, 1)
+                    .lineTo(HEADER_WIDTH, 1)
+                    .stroke();
+            return header;
+        }
+    }
+}
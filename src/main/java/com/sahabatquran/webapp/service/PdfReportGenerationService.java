@@ -1,8 +1,6 @@
 package com.sahabatquran.webapp.service;
 
-import com.itextpdf.io.font.constants.StandardFonts;
 import com.itextpdf.kernel.font.PdfFont;
-import com.itextpdf.kernel.font.PdfFontFactory;
 import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfWriter;
 import com.itextpdf.layout.Document;
@@ -10,19 +8,20 @@ import com.itextpdf.layout.element.Paragraph;
 import com.itextpdf.layout.element.Table;
 import com.itextpdf.layout.element.Cell;
 import com.itextpdf.layout.properties.TextAlignment;
-import com.itextpdf.layout.properties.UnitValue;
+import com.sahabatquran.webapp.dto.StudentReportData;
 import com.sahabatquran.webapp.entity.*;
 import com.sahabatquran.webapp.repository.*;
+import com.sahabatquran.webapp.util.AtomicFileWriter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.io.File;
 import java.io.IOException;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.UUID;
@@ -35,129 +34,150 @@ import java.util.UUID;
 @Slf4j
 public class PdfReportGenerationService {
 
-    private final UserRepository userRepository;
+    /**
+     * Version of the student report card layout. Part of the report input hash, so bump it
+     * whenever the layout changes to make stored report cards render again.
+     */
+    public static final String STUDENT_REPORT_TEMPLATE_VERSION = "2";
+
     private final EnrollmentRepository enrollmentRepository;
-    private final StudentAssessmentRepository studentAssessmentRepository;
-    private final AttendanceRepository attendanceRepository;
     private final ClassGroupRepository classGroupRepository;
+    private final StudentReportDataLoader studentReportDataLoader;
+    private final PdfRenderingResources renderingResources;
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+
+    // Static text blocks
+    private static final String STUDENT_REPORT_TITLE = "STUDENT ACADEMIC REPORT";
+    private static final String CLASS_SUMMARY_TITLE = "CLASS SUMMARY REPORT";
+    private static final String[] ENROLLMENT_HEADERS = {"Class", "Status", "Enrolled Date"};
+    private static final String[] ASSESSMENT_HEADERS = {"Assessment Type", "Score", "Grade", "Date"};
 
     @Value("${app.reports.output-directory:/tmp/reports}")
     private String reportsOutputDirectory;
 
     @Transactional(readOnly = true)
     public String generateStudentReport(UUID studentId, UUID termId, String reportType) throws IOException {
+        StudentReportData data = studentReportDataLoader.loadChunk(List.of(studentId), termId).get(studentId);
+        if (data == null) {
+            throw new IllegalArgumentException("Student not found: " + studentId);
+        }
+        return renderStudentReport(data);
+    }
+
+    /**
+     * Render a student report card from prefetched data. Does no database I/O,
+     * so bulk generation can render a whole prefetched chunk without extra queries.
+     */
+    public String renderStudentReport(StudentReportData data) throws IOException {
+        StudentReportData.Student student = data.getStudent();
+        UUID studentId = student.getId();
+        UUID termId = data.getTermId();
         log.info("Generating PDF report for student: {} in term: {}", studentId, termId);
 
-        // Fetch student data
-        User student = userRepository.findById(studentId)
-                .orElseThrow(() -> new IllegalArgumentException("Student not found: " + studentId));
+        // Use the directory structure and fixed filename that ReportOrchestrationService looks for
+        Path reportPath = Paths.get(reportsOutputDirectory, "students", studentId.toString(), termId.toString(),
+                "report-card.pdf").toAbsolutePath();
+        String filePath = reportPath.toString();
 
-        // Create reports directory structure to match what ReportOrchestrationService expects
-        File reportsDir = new File(reportsOutputDirectory, "students/" + studentId.toString() + "/" + termId.toString());
-        if (!reportsDir.exists()) {
-            reportsDir.mkdirs();
-        }
+        AtomicFileWriter.write(reportPath, out -> writeStudentReport(data, out));
 
-        // Use fixed filename that matches what ReportOrchestrationService looks for
-        String fileName = "report-card.pdf";
-        String filePath = reportsDir.getAbsolutePath() + "/" + fileName;
+        log.info("Successfully generated PDF report: {}", filePath);
+        return filePath;
+    }
 
-        // Create PDF
-        PdfWriter writer = new PdfWriter(filePath);
-        PdfDocument pdf = new PdfDocument(writer);
+    /**
+     * Write a student report card from prefetched data to the given stream
+     */
+    public void writeStudentReport(StudentReportData data, OutputStream out) {
+        PdfDocument pdf = new PdfDocument(new PdfWriter(out));
         Document document = new Document(pdf);
 
         try {
-            PdfFont boldFont = PdfFontFactory.createFont(StandardFonts.HELVETICA_BOLD);
-            PdfFont italicFont = PdfFontFactory.createFont(StandardFonts.HELVETICA_OBLIQUE);
-
-            // Add header
-            document.add(new Paragraph("STUDENT ACADEMIC REPORT")
-                    .setTextAlignment(TextAlignment.CENTER)
-                    .setFontSize(18)
-                    .setFont(boldFont));
-
-            document.add(new Paragraph("\n"));
-
-            // Student Information
-            document.add(new Paragraph("Student Information").setFontSize(14).setFont(boldFont));
-            Table studentTable = new Table(UnitValue.createPercentArray(new float[]{30, 70}))
-                    .setWidth(UnitValue.createPercentValue(100));
+            addStudentReport(document, renderingResources.bind(pdf), data);
+        } finally {
+            document.close();
+        }
+    }
 
-            studentTable.addCell(new Cell().add(new Paragraph("Student ID:")));
-            studentTable.addCell(new Cell().add(new Paragraph(student.getUsername())));
-            studentTable.addCell(new Cell().add(new Paragraph("Full Name:")));
-            studentTable.addCell(new Cell().add(new Paragraph(student.getFullName())));
-            studentTable.addCell(new Cell().add(new Paragraph("Email:")));
-            studentTable.addCell(new Cell().add(new Paragraph(student.getEmail())));
+    /**
+     * Lay out a student report card from the current position of a document.
+     * Used both for single report files and for class packets.
+     */
+    public void addStudentReport(Document document, PdfRenderingResources.DocumentResources resources,
+                                 StudentReportData data) {
+        StudentReportData.Student student = data.getStudent();
+        PdfFont boldFont = resources.boldFont();
+        PdfFont italicFont = resources.italicFont();
+
+        // Add header
+        document.add(resources.header(STUDENT_REPORT_TITLE));
+
+        document.add(new Paragraph("\n"));
+
+        // Student Information
+        document.add(new Paragraph("Student Information").setFontSize(14).setFont(boldFont));
+        Table studentTable = renderingResources.table(PdfRenderingResources.LABEL_VALUE_COLUMNS);
+
+        studentTable.addCell(new Cell().add(new Paragraph("Student ID:")));
+        studentTable.addCell(new Cell().add(new Paragraph(student.getUsername())));
+        studentTable.addCell(new Cell().add(new Paragraph("Full Name:")));
+        studentTable.addCell(new Cell().add(new Paragraph(student.getFullName())));
+        studentTable.addCell(new Cell().add(new Paragraph("Email:")));
+        studentTable.addCell(new Cell().add(new Paragraph(student.getEmail())));
+
+        document.add(studentTable);
+        document.add(new Paragraph("\n"));
+
+        // Enrollment Information
+        List<Enrollment> enrollments = data.getEnrollments();
+        if (!enrollments.isEmpty()) {
+            document.add(new Paragraph("Enrollment Information").setFontSize(14).setFont(boldFont));
+
+            Table enrollmentTable = renderingResources.table(PdfRenderingResources.ENROLLMENT_COLUMNS);
+            addHeaderCells(enrollmentTable, ENROLLMENT_HEADERS, boldFont);
+
+            for (Enrollment enrollment : enrollments) {
+                enrollmentTable.addCell(new Cell().add(new Paragraph(enrollment.getClassGroup().getName())));
+                enrollmentTable.addCell(new Cell().add(new Paragraph(enrollment.getStatus().toString())));
+                enrollmentTable.addCell(new Cell().add(new Paragraph(
+                        enrollment.getEnrollmentDate().format(DATE_FORMAT))));
+            }
 
-            document.add(studentTable);
+            document.add(enrollmentTable);
             document.add(new Paragraph("\n"));
+        }
 
-            // Enrollment Information
-            List<Enrollment> enrollments = enrollmentRepository.findByStudentAndTerm(studentId, termId);
-            if (!enrollments.isEmpty()) {
-                document.add(new Paragraph("Enrollment Information").setFontSize(14).setFont(boldFont));
-
-                Table enrollmentTable = new Table(UnitValue.createPercentArray(new float[]{40, 30, 30}))
-                        .setWidth(UnitValue.createPercentValue(100));
-
-                enrollmentTable.addHeaderCell(new Cell().add(new Paragraph("Class").setFont(boldFont)));
-                enrollmentTable.addHeaderCell(new Cell().add(new Paragraph("Status").setFont(boldFont)));
-                enrollmentTable.addHeaderCell(new Cell().add(new Paragraph("Enrolled Date").setFont(boldFont)));
-
-                for (Enrollment enrollment : enrollments) {
-                    enrollmentTable.addCell(new Cell().add(new Paragraph(enrollment.getClassGroup().getName())));
-                    enrollmentTable.addCell(new Cell().add(new Paragraph(enrollment.getStatus().toString())));
-                    enrollmentTable.addCell(new Cell().add(new Paragraph(
-                            enrollment.getEnrollmentDate().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")))));
-                }
-
-                document.add(enrollmentTable);
-                document.add(new Paragraph("\n"));
-            }
-
-            // Assessment Results
-            List<StudentAssessment> assessments = studentAssessmentRepository.findByStudentIdAndTermId(studentId, termId);
-            if (!assessments.isEmpty()) {
-                document.add(new Paragraph("Assessment Results").setFontSize(14).setFont(boldFont));
-
-                Table assessmentTable = new Table(UnitValue.createPercentArray(new float[]{30, 25, 20, 25}))
-                        .setWidth(UnitValue.createPercentValue(100));
-
-                assessmentTable.addHeaderCell(new Cell().add(new Paragraph("Assessment Type").setFont(boldFont)));
-                assessmentTable.addHeaderCell(new Cell().add(new Paragraph("Score").setFont(boldFont)));
-                assessmentTable.addHeaderCell(new Cell().add(new Paragraph("Grade").setFont(boldFont)));
-                assessmentTable.addHeaderCell(new Cell().add(new Paragraph("Date").setFont(boldFont)));
-
-                for (StudentAssessment assessment : assessments) {
-                    assessmentTable.addCell(new Cell().add(new Paragraph(assessment.getAssessmentType().toString())));
-                    assessmentTable.addCell(new Cell().add(new Paragraph(
-                            assessment.getAssessmentScore() != null ? assessment.getAssessmentScore().toString() : "N/A")));
-                    assessmentTable.addCell(new Cell().add(new Paragraph(
-                            assessment.getAssessmentGrade() != null ? assessment.getAssessmentGrade() : "N/A")));
-                    assessmentTable.addCell(new Cell().add(new Paragraph(
-                            assessment.getAssessmentDate() != null ?
-                            assessment.getAssessmentDate().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")) : "N/A")));
-                }
-
-                document.add(assessmentTable);
-                document.add(new Paragraph("\n"));
+        // Assessment Results
+        List<StudentAssessment> assessments = data.getAssessments();
+        if (!assessments.isEmpty()) {
+            document.add(new Paragraph("Assessment Results").setFontSize(14).setFont(boldFont));
+
+            Table assessmentTable = renderingResources.table(PdfRenderingResources.ASSESSMENT_COLUMNS);
+            addHeaderCells(assessmentTable, ASSESSMENT_HEADERS, boldFont);
+
+            for (StudentAssessment assessment : assessments) {
+                assessmentTable.addCell(new Cell().add(new Paragraph(assessment.getAssessmentType().toString())));
+                assessmentTable.addCell(new Cell().add(new Paragraph(
+                        assessment.getAssessmentScore() != null ? assessment.getAssessmentScore().toString() : "N/A")));
+                assessmentTable.addCell(new Cell().add(new Paragraph(
+                        assessment.getAssessmentGrade() != null ? assessment.getAssessmentGrade() : "N/A")));
+                assessmentTable.addCell(new Cell().add(new Paragraph(
+                        assessment.getAssessmentDate() != null ?
+                        assessment.getAssessmentDate().format(DATE_FORMAT) : "N/A")));
             }
 
-            // Add generation timestamp
-            document.add(new Paragraph("Report generated on: " +
-                    java.time.LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss")))
-                    .setTextAlignment(TextAlignment.RIGHT)
-                    .setFontSize(10)
-                    .setFont(italicFont));
-
-        } finally {
-            document.close();
+            document.add(assessmentTable);
+            document.add(new Paragraph("\n"));
         }
 
-        log.info("Successfully generated PDF report: {}", filePath);
-        return filePath;
+        // Add generation timestamp
+        document.add(new Paragraph("Report generated on: " +
+                java.time.LocalDateTime.now().format(TIMESTAMP_FORMAT))
+                .setTextAlignment(TextAlignment.RIGHT)
+                .setFontSize(10)
+                .setFont(italicFont));
     }
 
     public String generateClassSummaryReport(UUID classId, UUID termId) throws IOException {
@@ -166,76 +186,77 @@ public class PdfReportGenerationService {
         ClassGroup classGroup = classGroupRepository.findById(classId)
                 .orElseThrow(() -> new IllegalArgumentException("Class not found: " + classId));
 
-        // Create reports directory
-        File reportsDir = new File(reportsOutputDirectory);
-        if (!reportsDir.exists()) {
-            reportsDir.mkdirs();
-        }
-
         String fileName = String.format("class_summary_%s_%s_%d.pdf",
                 classId.toString().substring(0, 8),
                 termId.toString().substring(0, 8),
                 System.currentTimeMillis());
         String filePath = reportsOutputDirectory + "/" + fileName;
 
-        // Create PDF
-        PdfWriter writer = new PdfWriter(filePath);
-        PdfDocument pdf = new PdfDocument(writer);
-        Document document = new Document(pdf);
+        List<Enrollment> enrollments = enrollmentRepository.findByClassGroupId(classId);
+        AtomicFileWriter.write(Paths.get(filePath), out -> {
+            PdfDocument pdf = new PdfDocument(new PdfWriter(out));
+            Document document = new Document(pdf);
+            try {
+                addClassSummary(document, renderingResources.bind(pdf), classGroup, enrollments);
+            } finally {
+                document.close();
+            }
+        });
 
-        try {
-            PdfFont boldFont = PdfFontFactory.createFont(StandardFonts.HELVETICA_BOLD);
-            PdfFont italicFont = PdfFontFactory.createFont(StandardFonts.HELVETICA_OBLIQUE);
+        log.info("Successfully generated class summary PDF: {}", filePath);
+        return filePath;
+    }
 
-            document.add(new Paragraph("CLASS SUMMARY REPORT")
-                    .setTextAlignment(TextAlignment.CENTER)
-                    .setFontSize(18)
-                    .setFont(boldFont));
+    /**
+     * Lay out a class summary from the current position of a document
+     */
+    public void addClassSummary(Document document, PdfRenderingResources.DocumentResources resources,
+                                ClassGroup classGroup, List<Enrollment> enrollments) {
+        PdfFont boldFont = resources.boldFont();
+        PdfFont italicFont = resources.italicFont();
 
-            document.add(new Paragraph("\n"));
+        document.add(resources.header(CLASS_SUMMARY_TITLE));
 
-            // Class Information
-            document.add(new Paragraph("Class Information").setFontSize(14).setFont(boldFont));
-            Table classTable = new Table(UnitValue.createPercentArray(new float[]{30, 70}))
-                    .setWidth(UnitValue.createPercentValue(100));
+        document.add(new Paragraph("\n"));
 
-            classTable.addCell(new Cell().add(new Paragraph("Class Name:")));
-            classTable.addCell(new Cell().add(new Paragraph(classGroup.getName())));
-            classTable.addCell(new Cell().add(new Paragraph("Capacity:")));
-            classTable.addCell(new Cell().add(new Paragraph(String.valueOf(classGroup.getCapacity()))));
+        // Class Information
+        document.add(new Paragraph("Class Information").setFontSize(14).setFont(boldFont));
+        Table classTable = renderingResources.table(PdfRenderingResources.LABEL_VALUE_COLUMNS);
 
-            document.add(classTable);
-            document.add(new Paragraph("\n"));
+        classTable.addCell(new Cell().add(new Paragraph("Class Name:")));
+        classTable.addCell(new Cell().add(new Paragraph(classGroup.getName())));
+        classTable.addCell(new Cell().add(new Paragraph("Capacity:")));
+        classTable.addCell(new Cell().add(new Paragraph(String.valueOf(classGroup.getCapacity()))));
 
-            // Student Statistics
-            List<Enrollment> enrollments = enrollmentRepository.findByClassGroupId(classId);
-            document.add(new Paragraph("Enrollment Statistics").setFontSize(14).setFont(boldFont));
+        document.add(classTable);
+        document.add(new Paragraph("\n"));
 
-            Table statsTable = new Table(UnitValue.createPercentArray(new float[]{50, 50}))
-                    .setWidth(UnitValue.createPercentValue(100));
+        // Student Statistics
+        document.add(new Paragraph("Enrollment Statistics").setFontSize(14).setFont(boldFont));
 
-            long activeEnrollments = enrollments.stream()
-                    .filter(e -> e.getStatus() == Enrollment.EnrollmentStatus.ACTIVE)
-                    .count();
+        Table statsTable = renderingResources.table(PdfRenderingResources.HALF_HALF_COLUMNS);
 
-            statsTable.addCell(new Cell().add(new Paragraph("Total Enrolled Students:")));
-            statsTable.addCell(new Cell().add(new Paragraph(String.valueOf(enrollments.size()))));
-            statsTable.addCell(new Cell().add(new Paragraph("Active Students:")));
-            statsTable.addCell(new Cell().add(new Paragraph(String.valueOf(activeEnrollments))));
+        long activeEnrollments = enrollments.stream()
+                .filter(e -> e.getStatus() == Enrollment.EnrollmentStatus.ACTIVE)
+                .count();
 
-            document.add(statsTable);
+        statsTable.addCell(new Cell().add(new Paragraph("Total Enrolled Students:")));
+        statsTable.addCell(new Cell().add(new Paragraph(String.valueOf(enrollments.size()))));
+        statsTable.addCell(new Cell().add(new Paragraph("Active Students:")));
+        statsTable.addCell(new Cell().add(new Paragraph(String.valueOf(activeEnrollments))));
 
-            document.add(new Paragraph("Report generated on: " +
-                    java.time.LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss")))
-                    .setTextAlignment(TextAlignment.RIGHT)
-                    .setFontSize(10)
-                    .setFont(italicFont));
+        document.add(statsTable);
 
-        } finally {
-            document.close();
-        }
+        document.add(new Paragraph("Report generated on: " +
+                java.time.LocalDateTime.now().format(TIMESTAMP_FORMAT))
+                .setTextAlignment(TextAlignment.RIGHT)
+                .setFontSize(10)
+                .setFont(italicFont));
+    }
 
-        log.info("Successfully generated class summary PDF: {}", filePath);
-        return filePath;
+    private void addHeaderCells(Table table, String[] headers, PdfFont boldFont) {
+        for (String header : headers) {
+            table.addHeaderCell(new Cell().add(new Paragraph(header).setFont(boldFont)));
+        }
     }
-}
\ No newline at end of file
+}
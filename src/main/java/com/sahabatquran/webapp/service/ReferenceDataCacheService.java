@@ -0,0 +1,78 @@
+package com.sahabatquran.webapp.service;
+
+import com.sahabatquran.webapp.entity.*;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Second-level cache of reference data: levels, programs, sessions, time slots,
+ * academic terms and permissions, plus the cached queries over them.
+ *
+ * Writes through Hibernate keep the cache consistent on their own. Changes made
+ * outside the application (SQL scripts, database consoles) are not seen until the
+ * entries expire, so they must be followed by an explicit eviction.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReferenceDataCacheService {
+
+    public static final String REGION = "reference-data";
+
+    static final List<Class<?>> CACHED_ENTITIES = List.of(
+            Level.class, Program.class, Session.class, TimeSlot.class, AcademicTerm.class, Permission.class);
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Drop all cached reference entities and cached query results
+     */
+    public void evictAll() {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        CACHED_ENTITIES.forEach(sessionFactory.getCache()::evictEntityData);
+        sessionFactory.getCache().evictQueryRegions();
+        log.info("Evicted reference data cache");
+    }
+
+    /**
+     * Drop one kind of reference entity and every cached query result
+     */
+    public void evict(Class<?> entityClass) {
+        if (!CACHED_ENTITIES.contains(entityClass)) {
+            throw new IllegalArgumentException(entityClass.getSimpleName() + " is not cached reference data");
+        }
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictEntityData(entityClass);
+        sessionFactory.getCache().evictQueryRegions();
+        log.info("Evicted {} from reference data cache", entityClass.getSimpleName());
+    }
+
+    /**
+     * Hit, miss and put counts of the entity region and the query cache since startup
+     */
+    public Map<String, Object> getStatistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("statisticsEnabled", statistics.isStatisticsEnabled());
+
+        CacheRegionStatistics region = statistics.getDomainDataRegionStatistics(REGION);
+        result.put("entityHits", region.getHitCount());
+        result.put("entityMisses", region.getMissCount());
+        result.put("entityPuts", region.getPutCount());
+        result.put("entitiesInMemory", region.getElementCountInMemory());
+
+        result.put("queryHits", statistics.getQueryCacheHitCount());
+        result.put("queryMisses", statistics.getQueryCacheMissCount());
+        result.put("queryPuts", statistics.getQueryCachePutCount());
+        return result;
+    }
+}
@@ -0,0 +1,255 @@
+package com.sahabatquran.webapp.service;
+
+import com.sahabatquran.webapp.dto.StudentReportData;
+import com.sahabatquran.webapp.entity.Enrollment;
+import com.sahabatquran.webapp.entity.StudentAssessment;
+import com.sahabatquran.webapp.repository.ReportGenerationItemRepository;
+import com.sahabatquran.webapp.util.AtomicFileWriter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed store for student report cards.
+ *
+ * Every report card is stored once under objects/{hh}/{hash}.pdf, where hash is the
+ * SHA-256 of its input snapshot: the student, enrollments, assessments, attendance totals
+ * and the report template version. students/{studentId}/{termId}/report-card.ref holds
+ * the hash of the student's current report card, so regenerating with unchanged inputs
+ * is a hash comparison and no rendering happens.
+ *
+ * Objects and refs are written through temp-file-and-rename, so a download never sees
+ * a partially written PDF.
+ *
+ * Storing never deletes: completed report items keep the object path they were stored
+ * with, and concurrent regenerations of the same student may each still be writing
+ * their object. Superseded objects are removed by a periodic sweep once no ref file and
+ * no report item refers to them and they are older than app.reports.objects.min-age-ms.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReportContentStore {
+
+    private static final String REF_FILE = "report-card.ref";
+    private static final String LEGACY_REPORT_FILE = "report-card.pdf";
+
+    private final PdfReportGenerationService pdfReportGenerationService;
+    private final ReportGenerationItemRepository itemRepository;
+
+    @Value("${app.reports.output-directory:/tmp/reports}")
+    private String reportsOutputDirectory;
+
+    @Value("${app.reports.objects.min-age-ms:86400000}")
+    private long objectMinAgeMillis;
+
+    /**
+     * Store a student's report card, rendering it only if no report card exists for the
+     * same input snapshot
+     */
+    public StoredReport storeStudentReport(StudentReportData data) throws IOException {
+        UUID studentId = data.getStudent().getId();
+        String hash = snapshotHash(data);
+        Path refPath = refPath(studentId, data.getTermId());
+        Path objectPath = objectPath(hash);
+
+        Optional<String> currentHash = readRef(refPath);
+        if (currentHash.isPresent() && currentHash.get().equals(hash) && Files.exists(objectPath)) {
+            log.info("Report inputs unchanged for student {} in term {}, skipping render", studentId, data.getTermId());
+            return StoredReport.builder()
+                    .hash(hash)
+                    .filePath(objectPath.toAbsolutePath().toString())
+                    .fileSizeBytes(Files.size(objectPath))
+                    .reused(true)
+                    .build();
+        }
+
+        long fileSize;
+        if (Files.exists(objectPath)) {
+            // An object coming back into use counts as new, so the sweep does not take it before the ref is written
+            Files.setLastModifiedTime(objectPath, FileTime.fromMillis(System.currentTimeMillis()));
+            fileSize = Files.size(objectPath);
+        } else {
+            fileSize = AtomicFileWriter.write(objectPath, out -> pdfReportGenerationService.writeStudentReport(data, out));
+        }
+        AtomicFileWriter.write(refPath, out -> out.write(hash.getBytes(StandardCharsets.US_ASCII)));
+
+        log.info("Stored report card for student {} in term {}: {}", studentId, data.getTermId(), objectPath);
+        return StoredReport.builder()
+                .hash(hash)
+                .filePath(objectPath.toAbsolutePath().toString())
+                .fileSizeBytes(fileSize)
+                .reused(false)
+                .build();
+    }
+
+    /**
+     * Find a student's current report card. Falls back to report cards written before the
+     * content-addressed layout.
+     */
+    public Optional<Path> findStudentReport(UUID studentId, UUID termId) {
+        try {
+            Optional<String> hash = readRef(refPath(studentId, termId));
+            if (hash.isPresent()) {
+                Path objectPath = objectPath(hash.get());
+                if (Files.exists(objectPath)) {
+                    return Optional.of(objectPath);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to read report ref for student {} in term {}", studentId, termId, e);
+        }
+
+        Path legacyPath = Paths.get(reportsOutputDirectory, "students", studentId.toString(), termId.toString(),
+                LEGACY_REPORT_FILE);
+        return Files.exists(legacyPath) ? Optional.of(legacyPath) : Optional.empty();
+    }
+
+    /**
+     * Delete objects that no ref file and no report item refers to. Objects younger than
+     * the minimum age are kept, so an object whose ref or item is still being written
+     * by a running regeneration survives.
+     *
+     * @return the number of deleted objects
+     */
+    @Scheduled(fixedDelayString = "${app.reports.objects.sweep-interval-ms:3600000}",
+               initialDelayString = "${app.reports.objects.sweep-interval-ms:3600000}")
+    public int deleteUnreferencedObjects() {
+        Path objectsDir = Paths.get(reportsOutputDirectory, "objects");
+        if (!Files.isDirectory(objectsDir)) {
+            return 0;
+        }
+
+        try {
+            Set<String> referenced = new HashSet<>();
+            Path studentsDir = Paths.get(reportsOutputDirectory, "students");
+            if (Files.isDirectory(studentsDir)) {
+                try (Stream<Path> refs = Files.walk(studentsDir)) {
+                    for (Path ref : refs.filter(path -> path.getFileName().toString().equals(REF_FILE)).toList()) {
+                        readRef(ref).ifPresent(referenced::add);
+                    }
+                }
+            }
+            for (String filePath : itemRepository.findFilePathsLike(objectsDir.toAbsolutePath() + "%")) {
+                referenced.add(hashOf(Paths.get(filePath)));
+            }
+
+            long cutoff = System.currentTimeMillis() - objectMinAgeMillis;
+            int deleted = 0;
+            try (Stream<Path> objects = Files.walk(objectsDir)) {
+                for (Path object : objects.filter(Files::isRegularFile).toList()) {
+                    String name = object.getFileName().toString();
+                    if (!name.endsWith(".pdf") || referenced.contains(hashOf(object))
+                            || Files.getLastModifiedTime(object).toMillis() > cutoff) {
+                        continue;
+                    }
+                    if (Files.deleteIfExists(object)) {
+                        deleted++;
+                    }
+                }
+            }
+            if (deleted > 0) {
+                log.info("Deleted {} unreferenced report card objects", deleted);
+            }
+            return deleted;
+        } catch (IOException e) {
+            log.error("Error sweeping report card objects", e);
+            return 0;
+        }
+    }
+
+    /**
+     * SHA-256 of everything that ends up on a student's report card, in a fixed order.
+     * The generation timestamp printed on the card is deliberately not part of it.
+     */
+    public String snapshotHash(StudentReportData data) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+
+        StudentReportData.Student student = data.getStudent();
+        update(digest, "template", PdfReportGenerationService.STUDENT_REPORT_TEMPLATE_VERSION);
+        update(digest, "term", data.getTermId());
+        update(digest, "student", student.getId(), student.getUsername(), student.getFullName(), student.getEmail());
+
+        data.getEnrollments().stream()
+                .sorted(Comparator.comparing(Enrollment::getId, Comparator.nullsLast(Comparator.naturalOrder())))
+                .forEach(enrollment -> update(digest, "enrollment",
+                        enrollment.getId(),
+                        enrollment.getClassGroup().getName(),
+                        enrollment.getStatus(),
+                        enrollment.getEnrollmentDate()));
+
+        data.getAssessments().stream()
+                .sorted(Comparator.comparing(StudentAssessment::getId, Comparator.nullsLast(Comparator.naturalOrder())))
+                .forEach(assessment -> update(digest, "assessment",
+                        assessment.getId(),
+                        assessment.getAssessmentType(),
+                        assessment.getAssessmentScore() != null ? assessment.getAssessmentScore().toPlainString() : null,
+                        assessment.getAssessmentGrade(),
+                        assessment.getAssessmentDate()));
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private void update(MessageDigest digest, String section, Object... values) {
+        StringBuilder line = new StringBuilder(section);
+        for (Object value : values) {
+            // Separators keep adjacent values from running into each other
+            line.append('\u001f').append(value);
+        }
+        line.append('\n');
+        digest.update(line.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Optional<String> readRef(Path refPath) throws IOException {
+        if (!Files.exists(refPath)) {
+            return Optional.empty();
+        }
+        String hash = Files.readString(refPath, StandardCharsets.US_ASCII).trim();
+        return hash.isEmpty() ? Optional.empty() : Optional.of(hash);
+    }
+
+    private Path refPath(UUID studentId, UUID termId) {
+        return Paths.get(reportsOutputDirectory, "students", studentId.toString(), termId.toString(), REF_FILE);
+    }
+
+    private String hashOf(Path objectPath) {
+        String name = objectPath.getFileName().toString();
+        return name.endsWith(".pdf") ? name.substring(0, name.length() - ".pdf".length()) : name;
+    }
+
+    private Path objectPath(String hash) {
+        return Paths.get(reportsOutputDirectory, "objects", hash.substring(0, 2), hash + ".pdf");
+    }
+
+    @lombok.Data
+    @lombok.Builder
+    public static class StoredReport {
+        private String hash;
+        private String filePath;
+        private long fileSizeBytes;
+        private boolean reused;
+    }
+}
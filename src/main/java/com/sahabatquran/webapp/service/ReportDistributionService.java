@@ -1,5 +1,6 @@
 package com.sahabatquran.webapp.service;
 
+import com.sahabatquran.webapp.config.AsyncConfig;
 import com.sahabatquran.webapp.entity.*;
 import com.sahabatquran.webapp.repository.*;
 import lombok.RequiredArgsConstructor;
@@ -10,11 +11,18 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
 /**
- * Service for distributing generated reports to stakeholders
+ * Service for distributing generated reports to stakeholders.
+ *
+ * Emails are not sent here: they are queued in the email outbox in the same
+ * transaction and sent by the outbox dispatcher, which marks the report items as
+ * distributed once their email went out.
  */
 @Service
 @RequiredArgsConstructor
@@ -23,7 +31,7 @@ public class ReportDistributionService {
 
     private final ReportGenerationBatchRepository batchRepository;
     private final ReportGenerationItemRepository itemRepository;
-    private final EmailService emailService;
+    private final EmailOutboxService emailOutboxService;
     private final UserRepository userRepository;
     private final EnrollmentRepository enrollmentRepository;
 
@@ -34,37 +42,45 @@ public class ReportDistributionService {
     private boolean notificationsEnabled;
 
     /**
-     * Distribute all completed reports in a batch
+     * Distribute all completed reports in a batch.
+     * The batch counts as distributed once every notification is queued.
      */
-    @Async
+    @Async(AsyncConfig.EMAIL_EXECUTOR)
     @Transactional
     public CompletableFuture<Void> distributeCompletedBatch(ReportGenerationBatch batch) {
         log.info("Starting distribution for batch: {}", batch.getId());
 
         try {
-            List<ReportGenerationItem> completedItems = itemRepository
-                    .findByBatchAndStatusOrderByPriorityAsc(batch, ReportGenerationItem.ItemStatus.COMPLETED);
+            List<ReportGenerationItem> completedItems =
+                    itemRepository.findUndistributedCompletedItemsWithRecipients(batch.getId());
 
-            int distributed = 0;
-            int failed = 0;
+            List<EmailOutboxMessage> emails = new ArrayList<>();
+            List<UUID> portalItemIds = new ArrayList<>();
+            int skipped = 0;
 
             for (ReportGenerationItem item : completedItems) {
                 try {
-                    distributeReportItem(item);
-                    distributed++;
+                    if (!prepareDistribution(item, emails, portalItemIds)) {
+                        skipped++;
+                    }
                 } catch (Exception e) {
                     log.error("Failed to distribute report item: {}", item.getId(), e);
-                    failed++;
+                    skipped++;
                 }
             }
 
+            emailOutboxService.enqueue(emails);
+            if (!portalItemIds.isEmpty()) {
+                itemRepository.markDistributed(portalItemIds, "PORTAL", LocalDateTime.now());
+            }
+
             // Update batch distribution status
             batch.setDistributionCompleted(true);
             batch.setDistributionCompletedAt(LocalDateTime.now());
             batchRepository.save(batch);
 
-            log.info("Distribution completed for batch: {} - Distributed: {}, Failed: {}",
-                    batch.getId(), distributed, failed);
+            log.info("Distribution queued for batch: {} - Emails: {}, Portal: {}, Skipped: {}",
+                    batch.getId(), emails.size(), portalItemIds.size(), skipped);
 
         } catch (Exception e) {
             log.error("Error distributing batch: {}", batch.getId(), e);
@@ -80,57 +96,54 @@ public class ReportDistributionService {
     public void distributeReportItem(ReportGenerationItem item) {
         log.info("Distributing report item: {}", item.getId());
 
+        List<EmailOutboxMessage> emails = new ArrayList<>();
+        List<UUID> portalItemIds = new ArrayList<>();
+        if (prepareDistribution(item, emails, portalItemIds)) {
+            emailOutboxService.enqueue(emails);
+            if (!portalItemIds.isEmpty()) {
+                itemRepository.markDistributed(portalItemIds, "PORTAL", LocalDateTime.now());
+            }
+        }
+    }
+
+    /**
+     * Queue the item's email or record its portal notification
+     *
+     * @return false if the item has nobody to distribute to
+     */
+    private boolean prepareDistribution(ReportGenerationItem item, List<EmailOutboxMessage> emails,
+                                        List<UUID> portalItemIds) {
         if (!notificationsEnabled) {
             log.info("Notifications disabled, skipping distribution");
-            return;
+            return false;
         }
 
-        try {
-            String distributionMethod = determineDistributionMethod(item);
-            String recipientEmail = getRecipientEmail(item);
-
-            if (recipientEmail == null) {
-                log.warn("No recipient email found for item: {}", item.getId());
-                return;
-            }
-
-            switch (distributionMethod) {
-                case "EMAIL":
-                    distributeViaEmail(item, recipientEmail);
-                    break;
-                case "PORTAL":
-                    distributeViaPortal(item);
-                    break;
-                default:
-                    log.warn("Unknown distribution method: {}", distributionMethod);
-                    return;
-            }
-
-            // Mark as distributed
-            item.setDistributed(true);
-            item.setDistributedAt(LocalDateTime.now());
-            item.setDistributionMethod(distributionMethod);
-            item.setRecipientEmail(recipientEmail);
-            itemRepository.save(item);
-
-            log.info("Successfully distributed report item: {} via {}", item.getId(), distributionMethod);
+        String distributionMethod = determineDistributionMethod(item);
+        String recipientEmail = getRecipientEmail(item);
 
-        } catch (Exception e) {
-            log.error("Error distributing report item: {}", item.getId(), e);
-            throw e;
+        if (recipientEmail == null) {
+            log.warn("No recipient email found for item: {}", item.getId());
+            return false;
         }
-    }
 
-    /**
-     * Distribute via email
-     */
-    private void distributeViaEmail(ReportGenerationItem item, String recipientEmail) {
-        String subject = generateEmailSubject(item);
-        String body = generateEmailBody(item);
-        String downloadUrl = generateDownloadUrl(item);
+        switch (distributionMethod) {
+            case "EMAIL":
+                emails.add(EmailOutboxService.message(EmailOutboxMessage.MessageType.REPORT_NOTIFICATION,
+                        item.getId(), recipientEmail, generateEmailSubject(item), generateEmailBody(item),
+                        generateDownloadUrl(item)));
+                break;
+            case "PORTAL":
+                distributeViaPortal(item);
+                portalItemIds.add(item.getId());
+                break;
+            default:
+                log.warn("Unknown distribution method: {}", distributionMethod);
+                return false;
+        }
 
-        // Send email with download link
-        emailService.sendReportNotification(recipientEmail, subject, body, downloadUrl);
+        // Distributed flag and time are set in bulk once the email is actually sent
+        item.setRecipientEmail(recipientEmail);
+        return true;
     }
 
     /**
@@ -272,10 +285,10 @@ public class ReportDistributionService {
     }
 
     /**
-     * Send reminder for unclaimed reports
+     * Queue reminders for unclaimed reports
      */
-    @Async
-    @Transactional(readOnly = true)
+    @Async(AsyncConfig.EMAIL_EXECUTOR)
+    @Transactional
     public CompletableFuture<Void> sendReportReminders() {
         log.info("Sending reminders for unclaimed reports");
 
@@ -288,32 +301,35 @@ public class ReportDistributionService {
                 .filter(item -> item.getCompletedAt().isBefore(cutoff))
                 .toList();
 
+        List<EmailOutboxMessage> reminders = new ArrayList<>();
         for (ReportGenerationItem item : overdueItems) {
             try {
-                sendReminderEmail(item);
+                createReminderEmail(item).ifPresent(reminders::add);
             } catch (Exception e) {
-                log.error("Failed to send reminder for item: {}", item.getId(), e);
+                log.error("Failed to prepare reminder for item: {}", item.getId(), e);
             }
         }
+        emailOutboxService.enqueue(reminders);
 
-        log.info("Sent {} reminders", overdueItems.size());
+        log.info("Queued {} reminders", reminders.size());
         return CompletableFuture.completedFuture(null);
     }
 
     /**
-     * Send reminder email
+     * Reminder email for an item, if it has a recipient
      */
-    private void sendReminderEmail(ReportGenerationItem item) {
+    private Optional<EmailOutboxMessage> createReminderEmail(ReportGenerationItem item) {
         String recipientEmail = getRecipientEmail(item);
         if (recipientEmail == null) {
-            return;
+            return Optional.empty();
         }
 
         String subject = "Pengingat: " + generateEmailSubject(item);
         String body = generateReminderEmailBody(item);
         String downloadUrl = generateDownloadUrl(item);
 
-        emailService.sendReportNotification(recipientEmail, subject, body, downloadUrl);
+        return Optional.of(EmailOutboxService.message(EmailOutboxMessage.MessageType.REPORT_REMINDER,
+                item.getId(), recipientEmail, subject, body, downloadUrl));
     }
 
     /**
@@ -0,0 +1,240 @@
+package com.sahabatquran.webapp.service;
+
+import com.sahabatquran.webapp.config.AsyncConfig;
+import com.sahabatquran.webapp.dto.StudentReportData;
+import com.sahabatquran.webapp.entity.ReportGenerationItem;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Runs bulk report batches in the background.
+ *
+ * A batch coordinator runs on the report executor and fans out one worker loop per
+ * report worker thread. Workers lease pending items until the batch has none left,
+ * so total rendering concurrency is capped by the worker pool across all batches.
+ *
+ * The queue lives in report_generation_items, so every node polls for IN_PROGRESS
+ * batches with claimable items and joins them. Batches still INITIATED or VALIDATING
+ * after the start deadline lost their start to a crash and are moved to IN_PROGRESS
+ * by the poller. Leases held by this node are extended by a heartbeat; leases of
+ * crashed nodes expire and are reaped, counting as a failed attempt.
+ */
+@Component
+@Slf4j
+public class ReportGenerationWorkerPool {
+
+    private final ThreadPoolTaskExecutor batchExecutor;
+    private final ThreadPoolTaskExecutor workerExecutor;
+    private final ReportItemProcessor reportItemProcessor;
+    private final StudentReportDataLoader studentReportDataLoader;
+    private final TransactionTemplate newTransaction;
+    private final Set<UUID> activeBatches = ConcurrentHashMap.newKeySet();
+    private final String nodeId;
+    private final Duration leaseDuration;
+    private final Duration batchStartDeadline;
+    private final int chunkSize;
+
+    public ReportGenerationWorkerPool(@Qualifier(AsyncConfig.REPORT_EXECUTOR) ThreadPoolTaskExecutor batchExecutor,
+                                      @Qualifier(AsyncConfig.REPORT_WORKER_EXECUTOR) ThreadPoolTaskExecutor workerExecutor,
+                                      ReportItemProcessor reportItemProcessor,
+                                      StudentReportDataLoader studentReportDataLoader,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${app.reports.queue.node-id:}") String nodeId,
+                                      @Value("${app.reports.queue.lease-duration-ms:60000}") long leaseDurationMillis,
+                                      @Value("${app.reports.queue.batch-start-deadline-ms:300000}") long batchStartDeadlineMillis,
+                                      @Value("${app.reports.prefetch-chunk-size:25}") int chunkSize) {
+        this.batchExecutor = batchExecutor;
+        this.workerExecutor = workerExecutor;
+        this.reportItemProcessor = reportItemProcessor;
+        this.studentReportDataLoader = studentReportDataLoader;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.nodeId = nodeId.isBlank()
+                ? ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID().toString().substring(0, 8)
+                : nodeId;
+        this.leaseDuration = Duration.ofMillis(leaseDurationMillis);
+        this.batchStartDeadline = Duration.ofMillis(batchStartDeadlineMillis);
+        this.chunkSize = Math.max(1, chunkSize);
+        log.info("Report job queue node id: {}", this.nodeId);
+    }
+
+    /**
+     * Start processing a batch once the current transaction commits, so the batch and its
+     * items are visible to the workers. The calling request returns immediately.
+     *
+     * @param onRejected called in a new transaction when the report executor queue is full
+     */
+    public void startBatchAfterCommit(UUID batchId, Runnable batchProcessing, Consumer<RuntimeException> onRejected) {
+        Runnable start = () -> {
+            try {
+                batchExecutor.execute(batchProcessing);
+            } catch (RuntimeException e) {
+                log.warn("Report executor rejected batch {}: {}", batchId, e.getMessage());
+                newTransaction.executeWithoutResult(status -> onRejected.accept(e));
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    start.run();
+                }
+            });
+        } else {
+            start.run();
+        }
+    }
+
+    /**
+     * Render the claimable items of a batch on this node, then finalize the batch if no
+     * node has unfinished items left. Does nothing if this node is already running the batch.
+     */
+    public void runBatch(UUID batchId) throws InterruptedException {
+        if (!activeBatches.add(batchId)) {
+            log.debug("Batch {} is already running on this node", batchId);
+            return;
+        }
+        try {
+            processPendingItems(batchId);
+        } finally {
+            activeBatches.remove(batchId);
+        }
+        if (reportItemProcessor.finalizeBatchIfDone(batchId)) {
+            log.info("Batch {} finished", batchId);
+        }
+    }
+
+    /**
+     * Keep the leases of items being rendered on this node alive
+     */
+    @Scheduled(fixedDelayString = "${app.reports.queue.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        if (!activeBatches.isEmpty()) {
+            reportItemProcessor.extendLeases(nodeId, leaseDuration);
+        }
+    }
+
+    /**
+     * Reap expired leases, start stranded batches and join IN_PROGRESS batches that are
+     * not running here, e.g. batches started on another node or left behind by a restart
+     */
+    @Scheduled(fixedDelayString = "${app.reports.queue.poll-interval-ms:30000}",
+               initialDelayString = "${app.reports.queue.poll-interval-ms:30000}")
+    public void pollQueue() {
+        try {
+            int reaped = reportItemProcessor.reapExpiredLeases();
+            if (reaped > 0) {
+                log.warn("Reaped {} report items with expired leases", reaped);
+            }
+            int stranded = reportItemProcessor.startStrandedBatches(batchStartDeadline);
+            if (stranded > 0) {
+                log.warn("Started {} report batches that were never picked up", stranded);
+            }
+
+            for (UUID batchId : reportItemProcessor.findInProgressBatchIds()) {
+                if (activeBatches.contains(batchId) || reportItemProcessor.finalizeBatchIfDone(batchId)) {
+                    continue;
+                }
+                batchExecutor.execute(() -> {
+                    try {
+                        runBatch(batchId);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+        } catch (TaskRejectedException e) {
+            log.debug("Report executor is full, joining queued batches on the next poll");
+        } catch (Exception e) {
+            log.error("Error polling the report job queue", e);
+        }
+    }
+
+    private void processPendingItems(UUID batchId) throws InterruptedException {
+        int workerCount = workerExecutor.getMaxPoolSize();
+        log.info("Processing batch {} with {} report workers", batchId, workerCount);
+
+        List<Future<?>> running = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            running.add(workerExecutor.submit(() -> drainPendingItems(batchId)));
+        }
+        try {
+            for (Future<?> worker : running) {
+                worker.get();
+            }
+        } catch (ExecutionException e) {
+            running.forEach(worker -> worker.cancel(true));
+            throw new IllegalStateException("Report worker failed", e.getCause());
+        } catch (InterruptedException e) {
+            running.forEach(worker -> worker.cancel(true));
+            throw e;
+        }
+    }
+
+    /**
+     * Worker loop: lease the next chunk of claimable items until the batch has none left.
+     * Student data for the whole chunk is prefetched in a few IN (...) queries, then each
+     * item is rendered from memory and completed in its own short transaction.
+     * Cancelled batches stop naturally because their items are no longer PENDING;
+     * items still backing off are picked up by a later poll.
+     */
+    private void drainPendingItems(UUID batchId) {
+        List<UUID> claimed;
+        while (!Thread.currentThread().isInterrupted()
+                && !(claimed = reportItemProcessor.claimPendingItems(batchId, chunkSize, nodeId, leaseDuration)).isEmpty()) {
+            List<ReportItemProcessor.ClaimedItem> items;
+            Map<UUID, StudentReportData> students;
+            try {
+                items = reportItemProcessor.loadClaimedItems(claimed);
+                students = prefetchStudents(items);
+            } catch (Exception e) {
+                log.error("Error prefetching report items of batch: {}", batchId, e);
+                claimed.forEach(itemId -> reportItemProcessor.markItemFailed(batchId, itemId, nodeId, e.getMessage()));
+                continue;
+            }
+
+            for (ReportItemProcessor.ClaimedItem item : items) {
+                try {
+                    ReportItemProcessor.RenderedReport report = reportItemProcessor.renderItem(item,
+                            item.getStudentId() != null ? students.get(item.getStudentId()) : null);
+                    reportItemProcessor.completeItem(item, nodeId, report);
+                } catch (Exception e) {
+                    log.error("Error processing report item: {}", item.getItemId(), e);
+                    reportItemProcessor.markItemFailed(batchId, item.getItemId(), nodeId, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private Map<UUID, StudentReportData> prefetchStudents(List<ReportItemProcessor.ClaimedItem> items) {
+        Set<UUID> studentIds = items.stream()
+                .filter(item -> item.getReportType() == ReportGenerationItem.ReportType.STUDENT_REPORT)
+                .map(ReportItemProcessor.ClaimedItem::getStudentId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (studentIds.isEmpty()) {
+            return Map.of();
+        }
+        return studentReportDataLoader.loadChunk(studentIds, items.get(0).getTermId());
+    }
+}
@@ -0,0 +1,326 @@
+package com.sahabatquran.webapp.service;
+
+import com.sahabatquran.webapp.dto.ReportProgressDto;
+import com.sahabatquran.webapp.dto.StudentReportData;
+import com.sahabatquran.webapp.entity.ReportGenerationBatch;
+import com.sahabatquran.webapp.entity.ReportGenerationItem;
+import com.sahabatquran.webapp.repository.ReportGenerationBatchRepository;
+import com.sahabatquran.webapp.repository.ReportGenerationItemRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Claims and renders individual report generation items.
+ *
+ * report_generation_items is used as a durable job queue shared by every app node.
+ * Every method runs in its own short transaction so concurrent workers only hold
+ * row locks while claiming, completion is guarded by the worker's lease, and batch
+ * counters are bumped in SQL instead of being recomputed from the item list.
+ * Failed attempts are published as events for the status dashboard stream.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReportItemProcessor {
+
+    private final ReportGenerationItemRepository itemRepository;
+    private final ReportGenerationBatchRepository batchRepository;
+    private final PdfReportGenerationService pdfReportGenerationService;
+    private final ReportContentStore reportContentStore;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private static final String EXPIRED_LEASE_MESSAGE = "Lease expired before the report was completed";
+
+    @Value("${app.reports.output-directory:/tmp/reports}")
+    private String reportsOutputDirectory;
+
+    @Value("${app.reports.queue.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.reports.queue.retry-backoff-ms:30000}")
+    private long retryBackoffMillis;
+
+    /**
+     * Lease up to {@code limit} claimable items of a batch for the given node.
+     * Items locked by another worker or still backing off are skipped.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public List<UUID> claimPendingItems(UUID batchId, int limit, String owner, Duration leaseDuration) {
+        LocalDateTime now = LocalDateTime.now();
+        List<UUID> itemIds = itemRepository.lockNextClaimableItemIds(batchId, now, limit);
+        if (!itemIds.isEmpty()) {
+            itemRepository.leaseItems(itemIds, owner, now, now.plus(leaseDuration));
+        }
+        return itemIds;
+    }
+
+    /**
+     * Load the claimed items as plain descriptors, in priority order
+     */
+    @Transactional(readOnly = true)
+    public List<ClaimedItem> loadClaimedItems(List<UUID> itemIds) {
+        if (itemIds.isEmpty()) {
+            return List.of();
+        }
+        return itemRepository.findByIdInWithBatchAndTerm(itemIds).stream()
+                .sorted(Comparator.comparing(ReportGenerationItem::getPriority, Comparator.nullsLast(Comparator.naturalOrder())))
+                .map(item -> ClaimedItem.builder()
+                        .itemId(item.getId())
+                        .batchId(item.getBatch().getId())
+                        .termId(item.getBatch().getTerm().getId())
+                        .reportType(item.getReportType())
+                        .studentId(item.getStudent() != null ? item.getStudent().getId() : null)
+                        .classGroupId(item.getClassGroup() != null ? item.getClassGroup().getId() : null)
+                        .startedAt(item.getStartedAt())
+                        .build())
+                .toList();
+    }
+
+    /**
+     * Render a claimed item. Student reports are rendered from the prefetched chunk
+     * and do no database I/O; they are skipped when the stored report card was rendered
+     * from the same inputs.
+     *
+     * @param prefetched report data of the item's student, or null if not prefetched
+     */
+    public RenderedReport renderItem(ClaimedItem item, StudentReportData prefetched) {
+        try {
+            switch (item.getReportType()) {
+                case STUDENT_REPORT:
+                    if (item.getStudentId() == null || prefetched == null) {
+                        throw new IllegalStateException("Student is required for STUDENT_REPORT");
+                    }
+                    ReportContentStore.StoredReport stored = reportContentStore.storeStudentReport(prefetched);
+                    return RenderedReport.builder()
+                            .filePath(stored.getFilePath())
+                            .fileSizeBytes(stored.getFileSizeBytes())
+                            .build();
+
+                case CLASS_SUMMARY:
+                    if (item.getClassGroupId() == null) {
+                        throw new IllegalStateException("ClassGroup is required for CLASS_SUMMARY");
+                    }
+                    String summaryPath = pdfReportGenerationService.generateClassSummaryReport(
+                            item.getClassGroupId(),
+                            item.getTermId());
+                    return RenderedReport.builder()
+                            .filePath(summaryPath)
+                            .fileSizeBytes(Files.size(Paths.get(summaryPath)))
+                            .build();
+
+                case TEACHER_EVALUATION:
+                case PARENT_NOTIFICATION:
+                case MANAGEMENT_SUMMARY:
+                default:
+                    // For now, generate a simple placeholder for these types
+                    // TODO: Implement specific report generation for each type
+                    log.warn("Report type {} not yet implemented, generating placeholder", item.getReportType());
+                    String fileName = String.format("report_%s_%s_%d.pdf",
+                            item.getReportType().toString().toLowerCase(),
+                            item.getBatchId().toString().substring(0, 8),
+                            System.currentTimeMillis());
+                    // No file is written for placeholders, so there is no size to record
+                    return RenderedReport.builder()
+                            .filePath(reportsOutputDirectory + "/" + fileName)
+                            .build();
+            }
+        } catch (Exception e) {
+            log.error("Failed to generate report for item {}: {}", item.getItemId(), e.getMessage(), e);
+            throw new RuntimeException("Report generation failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Record a rendered item as completed.
+     * Nothing is recorded if the lease was lost to the reaper in the meantime.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void completeItem(ClaimedItem item, String owner, RenderedReport report) {
+        LocalDateTime completedAt = LocalDateTime.now();
+        Integer durationSeconds = item.getStartedAt() != null
+                ? (int) Duration.between(item.getStartedAt(), completedAt).getSeconds()
+                : null;
+        int updated = itemRepository.completeLeasedItem(item.getItemId(), owner, completedAt,
+                report.getFilePath(), report.getFileSizeBytes(), durationSeconds);
+        if (updated == 0) {
+            log.warn("Lease on report item {} was lost before completion, result discarded", item.getItemId());
+            return;
+        }
+        batchRepository.incrementCompletedReports(item.getBatchId());
+
+        log.info("Completed report item: {} -> {}", item.getItemId(), report.getFilePath());
+    }
+
+    /**
+     * Record a failed attempt. The item goes back to PENDING with exponential backoff
+     * until it runs out of attempts, then it is marked FAILED and counted on its batch.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void markItemFailed(UUID batchId, UUID itemId, String owner, String errorMessage) {
+        ReportGenerationItem item = itemRepository.findById(itemId).orElse(null);
+        if (item == null || !owner.equals(item.getLeaseOwner())) {
+            log.warn("Lease on report item {} was lost before its failure was recorded", itemId);
+            return;
+        }
+
+        item.markAsFailed(errorMessage);
+        item.setLeaseOwner(null);
+        item.setLeaseExpiresAt(null);
+
+        if (item.getRetryCount() < maxAttempts) {
+            long backoffMillis = retryBackoffMillis(item.getRetryCount());
+            item.setStatus(ReportGenerationItem.ItemStatus.PENDING);
+            item.setNextAttemptAt(LocalDateTime.now().plus(Duration.ofMillis(backoffMillis)));
+            log.info("Report item {} will be retried in {} ms (attempt {} of {})",
+                    itemId, backoffMillis, item.getRetryCount() + 1, maxAttempts);
+        } else {
+            batchRepository.incrementFailedReports(batchId);
+        }
+
+        // Pushed to status dashboards once this transaction commits
+        eventPublisher.publishEvent(ReportProgressDto.ItemFailure.builder()
+                .batchId(batchId)
+                .itemId(itemId)
+                .errorMessage(errorMessage)
+                .willRetry(item.getStatus() == ReportGenerationItem.ItemStatus.PENDING)
+                .failedAt(LocalDateTime.now())
+                .build());
+    }
+
+    /**
+     * Keep the leases of all items this node is rendering alive
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int extendLeases(String owner, Duration leaseDuration) {
+        return itemRepository.extendLeases(owner, LocalDateTime.now().plus(leaseDuration));
+    }
+
+    /**
+     * Reap items whose lease expired because their node crashed or stalled. The lost
+     * lease counts as an attempt: items with attempts left go back on the queue after
+     * the same exponential backoff as a failed render, the others are marked FAILED and
+     * counted on their batch.
+     *
+     * @return number of items reaped
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int reapExpiredLeases() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> expired = itemRepository.lockExpiredLeases(now);
+        if (expired.isEmpty()) {
+            return 0;
+        }
+
+        // Requeued items grouped by their new retry count, which sets their backoff
+        Map<Integer, List<UUID>> requeuedByRetryCount = new TreeMap<>();
+        List<UUID> exhausted = new ArrayList<>();
+        Map<UUID, Integer> failedByBatch = new HashMap<>();
+        for (Object[] row : expired) {
+            UUID itemId = (UUID) row[0];
+            int retryCount = ((Number) row[2]).intValue() + 1;
+            if (retryCount < maxAttempts) {
+                requeuedByRetryCount.computeIfAbsent(retryCount, count -> new ArrayList<>()).add(itemId);
+            } else {
+                exhausted.add(itemId);
+                failedByBatch.merge((UUID) row[1], 1, Integer::sum);
+            }
+        }
+
+        requeuedByRetryCount.forEach((retryCount, itemIds) -> itemRepository.requeueExpiredLeases(
+                itemIds, EXPIRED_LEASE_MESSAGE, now, now.plus(Duration.ofMillis(retryBackoffMillis(retryCount)))));
+        if (!exhausted.isEmpty()) {
+            itemRepository.failExpiredLeases(exhausted, EXPIRED_LEASE_MESSAGE, now);
+            failedByBatch.forEach(batchRepository::addFailedReports);
+            log.warn("{} report items ran out of attempts after losing their lease", exhausted.size());
+        }
+        return expired.size();
+    }
+
+    // Doubles with every attempt: the base backoff after the first failure, capped at 2^10 times it
+    private long retryBackoffMillis(int retryCount) {
+        return retryBackoffMillis * (1L << Math.min(Math.max(retryCount - 1, 0), 10));
+    }
+
+    /**
+     * Move a batch to IN_PROGRESS in one conditional statement, so a cancel committed
+     * in the meantime is never overwritten
+     *
+     * @return false if the batch was cancelled, failed or finished before it started
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean startBatch(UUID batchId) {
+        return batchRepository.markInProgressIfActive(batchId, LocalDateTime.now()) > 0;
+    }
+
+    /**
+     * Fail a batch in one conditional statement that leaves the progress counters alone,
+     * so a batch another node just finalized or a user cancelled is never overwritten
+     *
+     * @return false if the batch was already finished or cancelled
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean failBatch(UUID batchId, String reason) {
+        return batchRepository.markFailedIfActive(batchId, reason, LocalDateTime.now()) > 0;
+    }
+
+    /**
+     * Start batches that were committed but never handed to a report executor,
+     * so the queue poller picks them up with the other IN_PROGRESS batches
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int startStrandedBatches(Duration startDeadline) {
+        LocalDateTime now = LocalDateTime.now();
+        return batchRepository.startStrandedBatches(now.minus(startDeadline), now);
+    }
+
+    /**
+     * Mark a batch as finished if none of its items are pending or being rendered
+     *
+     * @return true if this call finalized the batch
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean finalizeBatchIfDone(UUID batchId) {
+        return batchRepository.finalizeIfNoUnfinishedItems(batchId, LocalDateTime.now()) > 0;
+    }
+
+    @Transactional(readOnly = true)
+    public List<UUID> findInProgressBatchIds() {
+        return batchRepository.findIdsByStatus(ReportGenerationBatch.BatchStatus.IN_PROGRESS);
+    }
+
+    @lombok.Data
+    @lombok.Builder
+    public static class ClaimedItem {
+        private UUID itemId;
+        private UUID batchId;
+        private UUID termId;
+        private ReportGenerationItem.ReportType reportType;
+        private UUID studentId;
+        private UUID classGroupId;
+        private LocalDateTime startedAt;
+    }
+
+    @lombok.Data
+    @lombok.Builder
+    public static class RenderedReport {
+        private String filePath;
+        private Long fileSizeBytes;
+    }
+}
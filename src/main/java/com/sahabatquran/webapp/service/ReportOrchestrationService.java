@@ -5,19 +5,18 @@ import com.sahabatquran.webapp.entity.*;
 import com.sahabatquran.webapp.entity.ReportGenerationBatch.BatchStatus;
 import com.sahabatquran.webapp.entity.ReportGenerationBatch.ReportType;
 import com.sahabatquran.webapp.repository.*;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.io.File;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 /**
  * Unified service for orchestrating all report generation.
@@ -26,7 +25,8 @@ import java.util.concurrent.CompletableFuture;
  * 1. Single "Generate Reports" button -> queues background jobs for all students
  * 2. Individual "Regenerate" -> replaces existing report for specific student+term
  * 3. All downloads fetch pre-generated PDFs from file system
- * 4. Status tracking without real-time updates (server-side refresh only)
+ * 4. Live status tracking: batch progress and item failures are pushed to dashboards over
+ *    Server-Sent Events by {@link ReportProgressBroadcaster}
  */
 @Service
 @RequiredArgsConstructor
@@ -38,10 +38,13 @@ public class ReportOrchestrationService {
     private final UserRepository userRepository;
     private final EnrollmentRepository enrollmentRepository;
     private final AcademicTermRepository academicTermRepository;
-    private final PdfReportGenerationService pdfGenerator;
+    private final ReportGenerationWorkerPool reportGenerationWorkerPool;
+    private final ReportItemProcessor reportItemProcessor;
+    private final ReportContentStore reportContentStore;
+    private final EntityManager entityManager;
 
-    @Value("${app.reports.output-directory:/tmp/reports}")
-    private String reportsOutputDirectory;
+    @Value("${app.reports.item-chunk-size:500}")
+    private int itemChunkSize;
 
     /**
      * Main entry point: Generate reports for all students in a term
@@ -67,37 +70,62 @@ public class ReportOrchestrationService {
         batch.setInitiatedAt(LocalDateTime.now());
         batch = batchRepository.save(batch);
 
-        // Find all enrolled students for this term via enrollments
-        List<Enrollment> activeEnrollments = enrollmentRepository.findByStatus(Enrollment.EnrollmentStatus.ACTIVE);
-        List<User> students = activeEnrollments.stream()
-                .map(Enrollment::getStudent)
-                .distinct()
-                .toList();
-        log.info("Found {} students enrolled in term {}", students.size(), termId);
-
-        batch.setTotalReports(students.size());
-        batch = batchRepository.save(batch);
-
-        // Create individual generation items
-        for (User student : students) {
-            ReportGenerationItem item = new ReportGenerationItem();
-            item.setBatch(batch);
-            item.setStudent(student);
-            item.setReportSubject("Report Card - " + student.getFullName());
-            item.setReportType(ReportGenerationItem.ReportType.STUDENT_REPORT);
-            item.setStatus(ReportGenerationItem.ItemStatus.PENDING);
-            item.setPriority(5);
-            itemRepository.save(item);
+        // Stream the term's students through a cursor and insert their items chunk by chunk;
+        // the persistence context is cleared after every chunk, so memory does not grow with the term
+        UUID batchId = batch.getId();
+        int studentCount = 0;
+        List<ReportGenerationItem> chunk = new ArrayList<>(itemChunkSize);
+        try (Stream<Object[]> students = enrollmentRepository.streamActiveStudentsByTermId(termId)) {
+            Iterator<Object[]> rows = students.iterator();
+            while (rows.hasNext()) {
+                Object[] row = rows.next();
+                ReportGenerationItem item = new ReportGenerationItem();
+                item.setBatch(batch);
+                item.setStudent(userRepository.getReferenceById((UUID) row[0]));
+                item.setReportSubject("Report Card - " + row[1]);
+                item.setReportType(ReportGenerationItem.ReportType.STUDENT_REPORT);
+                item.setStatus(ReportGenerationItem.ItemStatus.PENDING);
+                item.setPriority(5);
+                chunk.add(item);
+                studentCount++;
+
+                if (chunk.size() >= itemChunkSize) {
+                    batch = saveItemChunk(chunk, batchId);
+                }
+            }
         }
+        saveItemChunk(chunk, batchId);
+        log.info("Found {} students enrolled in term {}", studentCount, termId);
+
+        batch = batchRepository.findById(batchId)
+                .orElseThrow(() -> new IllegalStateException("Batch not found: " + batchId));
+        batch.setTotalReports(studentCount);
+        batchRepository.save(batch);
 
         // Start async processing
-        processReportBatchAsync(batch.getId());
+        startProcessingAfterCommit(batch.getId());
 
         return batch.getId();
     }
 
     /**
-     * Regenerate a single student report (deletes old, creates new)
+     * Insert a chunk of items in JDBC batches and detach everything loaded so far
+     *
+     * @return a reference to the batch for the next chunk
+     */
+    private ReportGenerationBatch saveItemChunk(List<ReportGenerationItem> chunk, UUID batchId) {
+        if (!chunk.isEmpty()) {
+            itemRepository.saveAll(chunk);
+            chunk.clear();
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return entityManager.getReference(ReportGenerationBatch.class, batchId);
+    }
+
+    /**
+     * Regenerate a single student report.
+     * The stored report card is replaced only if its inputs changed since it was rendered.
      */
     @Transactional
     public UUID regenerateStudentReport(UUID studentId, UUID termId, UUID initiatedBy) {
@@ -109,9 +137,6 @@ public class ReportOrchestrationService {
         AcademicTerm term = academicTermRepository.findById(termId)
                 .orElseThrow(() -> new IllegalArgumentException("Term not found: " + termId));
 
-        // Delete existing PDF file if it exists
-        deleteExistingReport(studentId, termId);
-
         // Create single-item batch for tracking
         ReportGenerationBatch batch = new ReportGenerationBatch();
         batch.setTerm(term);
@@ -136,7 +161,7 @@ public class ReportOrchestrationService {
         itemRepository.save(item);
 
         // Start async processing
-        processReportBatchAsync(batch.getId());
+        startProcessingAfterCommit(batch.getId());
 
         return batch.getId();
     }
@@ -145,19 +170,13 @@ public class ReportOrchestrationService {
      * Get pre-generated PDF file path for download
      */
     public Optional<Path> getGeneratedReportPath(UUID studentId, UUID termId) {
-        Path reportPath = Paths.get(reportsOutputDirectory,
-                "students",
-                studentId.toString(),
-                termId.toString(),
-                "report-card.pdf");
-
-        if (reportPath.toFile().exists()) {
-            log.debug("Found pre-generated report: {}", reportPath);
-            return Optional.of(reportPath);
+        Optional<Path> reportPath = reportContentStore.findStudentReport(studentId, termId);
+        if (reportPath.isPresent()) {
+            log.debug("Found pre-generated report: {}", reportPath.get());
+        } else {
+            log.debug("Pre-generated report not found for student {} in term {}", studentId, termId);
         }
-
-        log.debug("Pre-generated report not found: {}", reportPath);
-        return Optional.empty();
+        return reportPath;
     }
 
     /**
@@ -194,127 +213,66 @@ public class ReportOrchestrationService {
      */
     @Transactional
     public void cancelBatch(UUID batchId) {
-        ReportGenerationBatch batch = batchRepository.findById(batchId)
-                .orElseThrow(() -> new IllegalArgumentException("Batch not found: " + batchId));
-
-        batch.setStatus(BatchStatus.CANCELLED);
-        batch.setCompletedAt(LocalDateTime.now());
-        batchRepository.save(batch);
-
-        // Cancel pending items manually since batch update method may not exist
-        List<ReportGenerationItem> pendingItems = itemRepository.findByBatchAndStatusOrderByPriorityAsc(
-                batch, ReportGenerationItem.ItemStatus.PENDING);
-        for (ReportGenerationItem item : pendingItems) {
-            item.setStatus(ReportGenerationItem.ItemStatus.CANCELLED);
-            itemRepository.save(item);
+        // Status only, so progress counters bumped by workers in the meantime are kept
+        int cancelled = batchRepository.cancelIfIn(batchId,
+                List.of(BatchStatus.INITIATED, BatchStatus.VALIDATING, BatchStatus.IN_PROGRESS),
+                null, LocalDateTime.now());
+        if (cancelled == 0) {
+            if (!batchRepository.existsById(batchId)) {
+                throw new IllegalArgumentException("Batch not found: " + batchId);
+            }
+            log.info("Batch {} was already finished, not cancelled", batchId);
+            return;
         }
-    }
 
-    // === PRIVATE METHODS ===
+        // Cancel pending items in one statement
+        itemRepository.cancelPendingItems(batchId);
+    }
 
-    @Async
-    protected void processReportBatchAsync(UUID batchId) {
+    /**
+     * Process a batch on the calling thread, the report executor when started after commit.
+     * Items are rendered by the shared report workers; progress counters and the final
+     * status are kept in SQL.
+     */
+    public void processReportBatch(UUID batchId) {
         try {
-            log.info("Starting async processing of batch: {}", batchId);
-
-            ReportGenerationBatch batch = batchRepository.findById(batchId)
-                    .orElseThrow(() -> new IllegalArgumentException("Batch not found: " + batchId));
-
-            batch.setStatus(BatchStatus.IN_PROGRESS);
-            batch.setStartedAt(LocalDateTime.now());
-            batchRepository.save(batch);
-
-            // Process each item
-            List<ReportGenerationItem> pendingItems = itemRepository.findByBatchAndStatusOrderByPriorityAsc(
-                    batch, ReportGenerationItem.ItemStatus.PENDING);
-
-            int completed = 0;
-            int failed = 0;
-
-            for (ReportGenerationItem item : pendingItems) {
-                try {
-                    processReportItem(item);
-                    completed++;
-                } catch (Exception e) {
-                    log.error("Failed to generate report for item: {}", item.getId(), e);
-                    markItemFailed(item, e.getMessage());
-                    failed++;
-                }
+            log.info("Starting processing of batch: {}", batchId);
 
-                // Update batch progress
-                batch.setCompletedReports(completed);
-                batch.setFailedReports(failed);
-                batchRepository.save(batch);
+            if (!reportItemProcessor.startBatch(batchId)) {
+                log.info("Batch {} was cancelled or finished before it started", batchId);
+                return;
             }
 
-            // Mark batch complete
-            batch.setStatus(failed > 0 ? BatchStatus.FAILED : BatchStatus.COMPLETED);
-            batch.setCompletedAt(LocalDateTime.now());
-            batchRepository.save(batch);
-
-            log.info("Completed batch {}: {} successful, {} failed", batchId, completed, failed);
+            // Render items; the batch is completed by whichever node finishes its last item
+            reportGenerationWorkerPool.runBatch(batchId);
 
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            markBatchFailed(batchId, "Processing interrupted");
         } catch (Exception e) {
             log.error("Critical error in batch processing: {}", batchId, e);
             markBatchFailed(batchId, e.getMessage());
         }
     }
 
-    private void processReportItem(ReportGenerationItem item) throws Exception {
-        log.debug("Processing report item: {}", item.getId());
-
-        item.markAsStarted();
-        itemRepository.save(item);
-
-        // Generate PDF using existing service
-        String pdfPath = pdfGenerator.generateStudentReport(
-                item.getStudent().getId(),
-                item.getBatch().getTerm().getId(),
-                item.getReportType().toString());
-
-        // Calculate file size (simplified - just set a default)
-        Long fileSize = 1024L; // Default size, could be calculated from actual file
-        item.markAsCompleted(pdfPath, fileSize);
-        itemRepository.save(item);
-
-        log.debug("Successfully generated report: {}", pdfPath);
-    }
+    // === PRIVATE METHODS ===
 
-    private void markItemFailed(ReportGenerationItem item, String errorMessage) {
-        item.markAsFailed(errorMessage != null ? errorMessage.substring(0, Math.min(500, errorMessage.length())) : null);
-        itemRepository.save(item);
+    private void startProcessingAfterCommit(UUID batchId) {
+        reportGenerationWorkerPool.startBatchAfterCommit(batchId, () -> processReportBatch(batchId),
+                rejected -> markBatchFailed(batchId, "Report generation queue is full, please retry later"));
     }
 
     private void markBatchFailed(UUID batchId, String errorMessage) {
         try {
-            ReportGenerationBatch batch = batchRepository.findById(batchId).orElse(null);
-            if (batch != null) {
-                batch.setStatus(BatchStatus.FAILED);
-                batch.setCompletedAt(LocalDateTime.now());
-                batch.setFailureReason(errorMessage != null ? errorMessage.substring(0, Math.min(500, errorMessage.length())) : null);
-                batchRepository.save(batch);
+            String reason = errorMessage != null ? errorMessage.substring(0, Math.min(500, errorMessage.length())) : null;
+            if (!reportItemProcessor.failBatch(batchId, reason)) {
+                log.info("Batch {} was already finished or cancelled, not marked as failed", batchId);
             }
         } catch (Exception e) {
             log.error("Failed to mark batch as failed: {}", batchId, e);
         }
     }
 
-    private void deleteExistingReport(UUID studentId, UUID termId) {
-        Optional<Path> existingPath = getGeneratedReportPath(studentId, termId);
-        if (existingPath.isPresent()) {
-            try {
-                boolean deleted = existingPath.get().toFile().delete();
-                if (deleted) {
-                    log.info("Deleted existing report: {}", existingPath.get());
-                } else {
-                    log.warn("Failed to delete existing report: {}", existingPath.get());
-                }
-            } catch (Exception e) {
-                log.warn("Error deleting existing report: {}", existingPath.get(), e);
-            }
-        }
-    }
-
     private ReportGenerationJobDto convertToDto(ReportGenerationBatch batch) {
         ReportGenerationJobDto dto = new ReportGenerationJobDto();
         dto.setBatchId(batch.getId());
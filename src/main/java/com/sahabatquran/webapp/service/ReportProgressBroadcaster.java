@@ -0,0 +1,277 @@
+package com.sahabatquran.webapp.service;
+
+import com.sahabatquran.webapp.dto.ReportProgressDto;
+import com.sahabatquran.webapp.entity.ReportGenerationBatch;
+import com.sahabatquran.webapp.repository.ReportGenerationBatchRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Pushes report generation progress to status dashboards over Server-Sent Events.
+ *
+ * One scheduled tick reads the counters of all active batches in a single query and
+ * fans the changed ones out to every subscriber, so the database cost does not grow
+ * with the number of open dashboards. Item failures recorded by this node's workers
+ * are pushed as soon as they commit.
+ *
+ * Every subscriber has a buffer drained by its own virtual thread, so a slow client
+ * never blocks the tick or other subscribers. Progress is coalesced per batch: a
+ * pending progress event is replaced by the newer one, which carries the complete
+ * counters, so progress and final status events are never lost. Only failure events
+ * are bounded; when a slow client has too many pending, the oldest one is dropped.
+ */
+@Service
+@Slf4j
+public class ReportProgressBroadcaster {
+
+    public static final String PROGRESS_EVENT = "progress";
+    public static final String FAILURE_EVENT = "failure";
+
+    private final ReportGenerationBatchRepository batchRepository;
+    private final int bufferSize;
+    private final long emitterTimeoutMillis;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final Map<UUID, ReportProgressDto.BatchProgress> latestProgress = new ConcurrentHashMap<>();
+    private final ExecutorService sender = Executors.newVirtualThreadPerTaskExecutor();
+
+    public ReportProgressBroadcaster(ReportGenerationBatchRepository batchRepository,
+                                     @Value("${app.reports.progress.subscriber-buffer-size:32}") int bufferSize,
+                                     @Value("${app.reports.progress.emitter-timeout-ms:1800000}") long emitterTimeoutMillis) {
+        this.batchRepository = batchRepository;
+        this.bufferSize = Math.max(1, bufferSize);
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+    }
+
+    /**
+     * Open a progress stream. The latest known progress of every active batch is sent
+     * right away; browsers reconnect on their own when the stream times out.
+     */
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> {
+            subscribers.remove(subscriber);
+            emitter.complete();
+        });
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        subscribers.add(subscriber);
+        latestProgress.values().forEach(progress -> subscriber.offer(new Event(PROGRESS_EVENT, progress)));
+        log.debug("Report progress subscriber added, {} open", subscribers.size());
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Read the counters of all active batches and push the ones that changed.
+     * Batches that left the active set get one last event with their final status.
+     */
+    @Scheduled(fixedDelayString = "${app.reports.progress.interval-ms:2000}")
+    public void publishProgress() {
+        if (subscribers.isEmpty()) {
+            latestProgress.clear();
+            return;
+        }
+        try {
+            Set<UUID> activeIds = new HashSet<>();
+            for (ReportGenerationBatch batch : batchRepository.findActiveBatches()) {
+                activeIds.add(batch.getId());
+                publishIfChanged(toProgress(batch));
+            }
+
+            List<UUID> finishedIds = latestProgress.keySet().stream()
+                    .filter(id -> !activeIds.contains(id))
+                    .toList();
+            if (!finishedIds.isEmpty()) {
+                for (ReportGenerationBatch batch : batchRepository.findAllById(finishedIds)) {
+                    broadcast(new Event(PROGRESS_EVENT, toProgress(batch)));
+                }
+                finishedIds.forEach(latestProgress::remove);
+            }
+        } catch (Exception e) {
+            log.error("Error publishing report progress", e);
+        }
+    }
+
+    /**
+     * Comment line that keeps idle connections open through proxies and detects
+     * dashboards that went away
+     */
+    @Scheduled(fixedDelayString = "${app.reports.progress.keepalive-ms:20000}")
+    public void sendKeepAlive() {
+        if (!subscribers.isEmpty()) {
+            broadcast(Event.KEEPALIVE);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemFailure(ReportProgressDto.ItemFailure failure) {
+        if (!subscribers.isEmpty()) {
+            broadcast(new Event(FAILURE_EVENT, failure));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+        sender.shutdownNow();
+    }
+
+    private void publishIfChanged(ReportProgressDto.BatchProgress progress) {
+        ReportProgressDto.BatchProgress previous = latestProgress.put(progress.getBatchId(), progress);
+        if (previous == null
+                || !Objects.equals(previous.getStatus(), progress.getStatus())
+                || previous.getCompletedReports() != progress.getCompletedReports()
+                || previous.getFailedReports() != progress.getFailedReports()
+                || previous.getTotalReports() != progress.getTotalReports()) {
+            broadcast(new Event(PROGRESS_EVENT, progress));
+        }
+    }
+
+    private void broadcast(Event event) {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(event);
+        }
+    }
+
+    ReportProgressDto.BatchProgress toProgress(ReportGenerationBatch batch) {
+        int total = batch.getTotalReports() != null ? batch.getTotalReports() : 0;
+        int completed = batch.getCompletedReports() != null ? batch.getCompletedReports() : 0;
+        int failed = batch.getFailedReports() != null ? batch.getFailedReports() : 0;
+        int processed = completed + failed;
+
+        // Throughput since the batch started; ETA assumes the remaining items render at the same rate
+        double reportsPerMinute = 0.0;
+        Long etaSeconds = null;
+        if (batch.getStartedAt() != null && processed > 0) {
+            LocalDateTime end = batch.getCompletedAt() != null ? batch.getCompletedAt() : LocalDateTime.now();
+            double elapsedMinutes = Math.max(Duration.between(batch.getStartedAt(), end).toMillis(), 1) / 60_000.0;
+            reportsPerMinute = processed / elapsedMinutes;
+            if (batch.getCompletedAt() == null) {
+                etaSeconds = Math.round(Math.max(total - processed, 0) / reportsPerMinute * 60);
+            }
+        }
+
+        return ReportProgressDto.BatchProgress.builder()
+                .batchId(batch.getId())
+                .batchName(batch.getBatchName())
+                .status(batch.getStatus().name())
+                .totalReports(total)
+                .completedReports(completed)
+                .failedReports(failed)
+                .progressPercentage(total > 0 ? Math.min(100, processed * 100 / total) : 0)
+                .reportsPerMinute(Math.round(reportsPerMinute * 10) / 10.0)
+                .etaSeconds(etaSeconds)
+                .startedAt(batch.getStartedAt())
+                .completedAt(batch.getCompletedAt())
+                .build();
+    }
+
+    private record Event(String name, Object data) {
+        static final Event KEEPALIVE = new Event(null, null);
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final Map<UUID, Event> pendingProgress = new LinkedHashMap<>();
+        private final Deque<Event> pendingFailures = new ArrayDeque<>();
+        private boolean pendingKeepAlive;
+        private boolean draining;
+        private long dropped;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(Event event) {
+            synchronized (this) {
+                if (event == Event.KEEPALIVE) {
+                    pendingKeepAlive = true;
+                } else if (event.data() instanceof ReportProgressDto.BatchProgress progress) {
+                    pendingProgress.put(progress.getBatchId(), event);
+                } else {
+                    if (pendingFailures.size() >= bufferSize) {
+                        pendingFailures.pollFirst();
+                        if (++dropped % 100 == 1) {
+                            log.debug("Report progress subscriber is slow, dropped {} failure events", dropped);
+                        }
+                    }
+                    pendingFailures.addLast(event);
+                }
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+            sender.execute(this::drain);
+        }
+
+        private void drain() {
+            while (true) {
+                Event event;
+                synchronized (this) {
+                    event = nextPending();
+                    if (event == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+                try {
+                    if (event == Event.KEEPALIVE) {
+                        emitter.send(SseEmitter.event().comment("keepalive"));
+                    } else {
+                        emitter.send(SseEmitter.event().name(event.name()).data(event.data()));
+                    }
+                } catch (Exception e) {
+                    // Client went away; the emitter callbacks may not fire for a broken connection
+                    subscribers.remove(this);
+                    emitter.completeWithError(e);
+                    synchronized (this) {
+                        pendingProgress.clear();
+                        pendingFailures.clear();
+                        pendingKeepAlive = false;
+                        draining = false;
+                    }
+                    return;
+                }
+            }
+        }
+
+        // Progress first, it is what the dashboards show; caller holds the lock
+        private Event nextPending() {
+            Iterator<Event> progress = pendingProgress.values().iterator();
+            if (progress.hasNext()) {
+                Event event = progress.next();
+                progress.remove();
+                return event;
+            }
+            Event failure = pendingFailures.pollFirst();
+            if (failure != null) {
+                return failure;
+            }
+            if (pendingKeepAlive) {
+                pendingKeepAlive = false;
+                return Event.KEEPALIVE;
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.sahabatquran.webapp.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Outcome of one delivery attempt by a dispatcher (email outbox, parent notifications),
+ * written back with the other results of its chunk.
+ */
+record SendResult(Outcome outcome, LocalDateTime nextAttemptAt, String error) {
+
+    enum Outcome {
+        SENT,       // Delivered
+        RETRY,      // Failed, attempt again at nextAttemptAt
+        DEFERRED,   // Not attempted, try again at nextAttemptAt without using up an attempt
+        FAILED      // Permanently failed or out of attempts
+    }
+
+    static SendResult sent() {
+        return new SendResult(Outcome.SENT, null, null);
+    }
+
+    static SendResult retry(LocalDateTime nextAttemptAt, String error) {
+        return new SendResult(Outcome.RETRY, nextAttemptAt, error);
+    }
+
+    static SendResult deferred(LocalDateTime nextAttemptAt) {
+        return new SendResult(Outcome.DEFERRED, nextAttemptAt, null);
+    }
+
+    static SendResult failed(String error) {
+        return new SendResult(Outcome.FAILED, null, error);
+    }
+
+    /**
+     * Exponential backoff with jitter after the given number of attempts, so deliveries
+     * failed by the same outage do not all come back at the same moment
+     */
+    static Duration backoff(int attempts, long baseMillis, long maxMillis) {
+        long backoff = Math.min(maxMillis, baseMillis * (1L << Math.min(Math.max(attempts - 1, 0), 20)));
+        long jitter = (long) (backoff * 0.2 * ThreadLocalRandom.current().nextDouble());
+        return Duration.ofMillis(backoff + jitter);
+    }
+}
@@ -3,6 +3,7 @@ package com.sahabatquran.webapp.service;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -13,6 +14,7 @@ import java.util.stream.Collectors;
 
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -46,9 +48,27 @@ public class StudentFeedbackService {
     private final FeedbackAnswerRepository answerRepository;
     private final UserRepository userRepository;
     private final EnrollmentRepository enrollmentRepository;
+    private final JdbcTemplate jdbcTemplate;
     
     private static final String TOKEN_SALT = "YSQ_FEEDBACK_2024";
     
+    // Submission claims and counters are plain JDBC: native DML through JPA would evict
+    // the whole second-level cache on every submission
+    static final String CLAIM_SUBMISSION =
+        "INSERT INTO feedback_responses (id_campaign, anonymous_token, submission_date, is_complete, device_info) " +
+        "VALUES (?, ?, ?, true, ?) " +
+        "ON CONFLICT (id_campaign, anonymous_token) DO UPDATE " +
+        "SET is_complete = true, submission_date = EXCLUDED.submission_date " +
+        "WHERE feedback_responses.is_complete IS NOT TRUE";
+    
+    // Same rate as FeedbackCampaign.updateResponseRate, from the incremented count
+    static final String INCREMENT_CAMPAIGN_RESPONSES =
+        "UPDATE feedback_campaigns SET current_responses = COALESCE(current_responses, 0) + 1, " +
+        "response_rate = CASE WHEN min_responses_required > 0 " +
+        "THEN ROUND(CAST(COALESCE(current_responses, 0) + 1 AS NUMERIC) / min_responses_required, 2) * 100 " +
+        "ELSE response_rate END " +
+        "WHERE id = ?";
+    
     public List<StudentFeedbackDto.CampaignSummary> getActiveCampaignsForStudent(UUID studentId) {
         log.info("Getting active feedback campaigns for student: {}", studentId);
         
@@ -155,6 +175,17 @@ public class StudentFeedbackService {
         }
     }
     
+    /**
+     * Submit a student's answers for a campaign, at most once per (campaign, anonymous token).
+     *
+     * The submission is claimed with one INSERT .. ON CONFLICT on the unique
+     * (id_campaign, anonymous_token) constraint: it inserts the response, or completes a
+     * partial one, and affects no row if the response is already complete. Concurrent
+     * duplicates wait for the first claim to commit and then count as duplicates. The
+     * campaign counter is incremented atomically in SQL as the last statement, so whole
+     * classes submitting at once lose no updates and hold the campaign row lock only
+     * until the commit.
+     */
     public FeedbackSubmissionDto.SubmissionResult submitFeedback(
             UUID campaignId, 
             UUID studentId, 
@@ -162,73 +193,53 @@ public class StudentFeedbackService {
         
         log.info("Submitting feedback for campaign: {} by student: {}", campaignId, studentId);
         
-        // Check for duplicate submission
-        if (hasStudentSubmittedFeedback(campaignId, studentId)) {
-            return FeedbackSubmissionDto.SubmissionResult.builder()
-                .success(false)
-                .message("Anda sudah memberikan feedback untuk campaign ini")
-                .isDuplicate(true)
-                .build();
-        }
-        
         FeedbackCampaign campaign = campaignRepository.findById(campaignId)
             .orElseThrow(() -> new RuntimeException("Campaign not found"));
         
-        User student = userRepository.findById(studentId)
+        userRepository.findById(studentId)
             .orElseThrow(() -> new RuntimeException("Student not found"));
         
         String anonymousToken = generateAnonymousToken(studentId, campaignId);
         
-        // Check if partial response exists (with eager loading of answers)
-        Optional<FeedbackResponse> existingPartial = responseRepository
-            .findByCampaignAndAnonymousTokenWithAnswers(campaign, anonymousToken);
+        // Claim the submission; no row is affected if this student has already submitted
+        int claimed = jdbcTemplate.update(CLAIM_SUBMISSION,
+            campaignId, anonymousToken, LocalDateTime.now(), feedbackData.getDeviceInfo());
+        if (claimed == 0) {
+            return FeedbackSubmissionDto.SubmissionResult.builder()
+                .success(false)
+                .message("Anda sudah memberikan feedback untuk campaign ini")
+                .isDuplicate(true)
+                .build();
+        }
         
-        FeedbackResponse response;
-        if (existingPartial.isPresent()) {
-            response = existingPartial.get();
-            // Update existing answers or add new ones - don't clear to avoid orphaned entities
-            for (FeedbackSubmissionDto.AnswerData answerData : feedbackData.getAnswers()) {
-                FeedbackAnswer targetAnswer = response.getAnswers().stream()
-                    .filter(a -> a.getQuestion().getId().equals(answerData.getQuestionId()))
-                    .findFirst()
-                    .orElse(null);
-                
-                if (targetAnswer == null) {
-                    // Create new answer only if it doesn't exist
-                    targetAnswer = new FeedbackAnswer();
-                    targetAnswer.setQuestion(questionRepository.findById(answerData.getQuestionId())
-                        .orElseThrow(() -> new RuntimeException("Question not found")));
-                    response.addAnswer(targetAnswer);
-                }
-                
-                // Update the answer values
-                targetAnswer.setTextValue(answerData.getAnswerText());
-                targetAnswer.setRatingValue(answerData.getRating());
-            }
-        } else {
-            response = new FeedbackResponse();
-            response.setCampaign(campaign);
-            response.setAnonymousToken(anonymousToken);
-            response.setDeviceInfo(feedbackData.getDeviceInfo());
+        // New response, or a partial one with saved answers (eager loading of answers)
+        FeedbackResponse response = responseRepository
+            .findByCampaignAndAnonymousTokenWithAnswers(campaign, anonymousToken)
+            .orElseThrow(() -> new RuntimeException("Claimed response not found"));
+        
+        // Update existing answers or add new ones - don't clear to avoid orphaned entities
+        for (FeedbackSubmissionDto.AnswerData answerData : feedbackData.getAnswers()) {
+            FeedbackAnswer targetAnswer = response.getAnswers().stream()
+                .filter(a -> a.getQuestion().getId().equals(answerData.getQuestionId()))
+                .findFirst()
+                .orElse(null);
             
-            // Add new answers
-            for (FeedbackSubmissionDto.AnswerData answerData : feedbackData.getAnswers()) {
-                FeedbackAnswer answer = new FeedbackAnswer();
-                answer.setQuestion(questionRepository.findById(answerData.getQuestionId())
+            if (targetAnswer == null) {
+                // Create new answer only if it doesn't exist
+                targetAnswer = new FeedbackAnswer();
+                targetAnswer.setQuestion(questionRepository.findById(answerData.getQuestionId())
                     .orElseThrow(() -> new RuntimeException("Question not found")));
-                answer.setTextValue(answerData.getAnswerText());
-                answer.setRatingValue(answerData.getRating());
-                response.addAnswer(answer);
+                response.addAnswer(targetAnswer);
             }
+            
+            // Update the answer values
+            targetAnswer.setTextValue(answerData.getAnswerText());
+            targetAnswer.setRatingValue(answerData.getRating());
         }
+        responseRepository.saveAndFlush(response);
         
-        response.markComplete();
-        responseRepository.save(response);
-        
-        // Update campaign response count
-        campaign.setCurrentResponses(campaign.getCurrentResponses() + 1);
-        campaign.updateResponseRate();
-        campaignRepository.save(campaign);
+        // Update campaign response count and rate; the row stays locked until the commit
+        jdbcTemplate.update(INCREMENT_CAMPAIGN_RESPONSES, campaignId);
         
         log.info("Feedback submitted successfully with anonymous token: {}", anonymousToken);
         
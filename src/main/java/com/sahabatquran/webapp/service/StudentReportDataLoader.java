@@ -0,0 +1,69 @@
+package com.sahabatquran.webapp.service;
+
+import com.sahabatquran.webapp.dto.StudentReportData;
+import com.sahabatquran.webapp.entity.Enrollment;
+import com.sahabatquran.webapp.entity.StudentAssessment;
+import com.sahabatquran.webapp.repository.EnrollmentRepository;
+import com.sahabatquran.webapp.repository.StudentAssessmentRepository;
+import com.sahabatquran.webapp.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * Prefetch stage for student report cards.
+ *
+ * Loads student names, enrollments (with classes) and assessments for a whole chunk
+ * of students in three IN (...) queries, instead of a handful of queries per student.
+ * Students are read as a column projection: full User entities would load their eager
+ * roles, permissions and credentials with extra selects per student.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StudentReportDataLoader {
+
+    private final UserRepository userRepository;
+    private final EnrollmentRepository enrollmentRepository;
+    private final StudentAssessmentRepository studentAssessmentRepository;
+
+    /**
+     * Load report data for a chunk of students in a term.
+     * Students that do not exist are missing from the result.
+     */
+    @Transactional(readOnly = true)
+    public Map<UUID, StudentReportData> loadChunk(Collection<UUID> studentIds, UUID termId) {
+        Map<UUID, StudentReportData> chunk = new LinkedHashMap<>();
+        if (studentIds.isEmpty()) {
+            return chunk;
+        }
+
+        for (Object[] row : userRepository.findReportCardFieldsByIds(studentIds)) {
+            UUID studentId = (UUID) row[0];
+            chunk.put(studentId, StudentReportData.builder()
+                    .termId(termId)
+                    .student(new StudentReportData.Student(studentId, (String) row[1], (String) row[2], (String) row[3]))
+                    .build());
+        }
+
+        for (Enrollment enrollment : enrollmentRepository.findByStudentIdsAndTermIdWithClassGroup(studentIds, termId)) {
+            StudentReportData data = chunk.get(enrollment.getStudent().getId());
+            if (data != null) {
+                data.getEnrollments().add(enrollment);
+            }
+        }
+
+        for (StudentAssessment assessment : studentAssessmentRepository.findByStudentIdsAndTermId(studentIds, termId)) {
+            StudentReportData data = chunk.get(assessment.getStudent().getId());
+            if (data != null) {
+                data.getAssessments().add(assessment);
+            }
+        }
+
+        log.debug("Prefetched report data for {} students in term {}", chunk.size(), termId);
+        return chunk;
+    }
+}
@@ -0,0 +1,85 @@
+package com.sahabatquran.webapp.service;
+
+import com.sahabatquran.webapp.dto.TermMetricsDto;
+import com.sahabatquran.webapp.repository.ClassGroupRepository;
+import com.sahabatquran.webapp.repository.EnrollmentRepository;
+import com.sahabatquran.webapp.repository.FeedbackAnswerRepository;
+import com.sahabatquran.webapp.repository.TeacherLevelAssignmentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Computes per-term metrics for any number of terms with a fixed number of grouped queries.
+ * Cross-term analytics builders read from the resulting table instead of querying per term.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+@Slf4j
+public class TermMetricsAggregationService {
+
+    private final EnrollmentRepository enrollmentRepository;
+    private final TeacherLevelAssignmentRepository teacherLevelAssignmentRepository;
+    private final ClassGroupRepository classGroupRepository;
+    private final FeedbackAnswerRepository feedbackAnswerRepository;
+
+    /**
+     * Aggregate metrics for the given terms. Every requested term gets an entry,
+     * terms without any data are returned with zero counts.
+     */
+    public Map<UUID, TermMetricsDto> aggregateByTermIds(Collection<UUID> termIds) {
+        Map<UUID, TermMetricsDto> metrics = new LinkedHashMap<>();
+        if (termIds == null || termIds.isEmpty()) {
+            return metrics;
+        }
+        LocalDateTime computedAt = LocalDateTime.now();
+        termIds.forEach(termId -> {
+            TermMetricsDto termMetrics = TermMetricsDto.empty(termId);
+            termMetrics.setRefreshedAt(computedAt);
+            metrics.put(termId, termMetrics);
+        });
+
+        for (Object[] row : enrollmentRepository.aggregateEnrollmentMetricsByTermIds(termIds)) {
+            TermMetricsDto termMetrics = metrics.get((UUID) row[0]);
+            termMetrics.setStudentCount(toLong(row[1]));
+            termMetrics.setEnrollmentCount(toLong(row[2]));
+            termMetrics.setCompletedEnrollmentCount(toLong(row[3]));
+            termMetrics.setActiveAndCompletedEnrollmentCount(toLong(row[4]));
+        }
+
+        for (Object[] row : teacherLevelAssignmentRepository.aggregateTeacherMetricsByTermIds(termIds)) {
+            TermMetricsDto termMetrics = metrics.get((UUID) row[0]);
+            termMetrics.setTeacherCount(toLong(row[1]));
+            termMetrics.setTeacherAssignmentCount(toLong(row[2]));
+        }
+
+        for (Object[] row : classGroupRepository.countActiveClassesByTermIds(termIds)) {
+            metrics.get((UUID) row[0]).setActiveClassCount(toLong(row[1]));
+        }
+
+        for (Object[] row : feedbackAnswerRepository.aggregateRatingsByTermIds(termIds)) {
+            TermMetricsDto termMetrics = metrics.get((UUID) row[0]);
+            termMetrics.setAverageRating(toDouble(row[1]));
+            termMetrics.setAverageTeacherRating(toDouble(row[2]));
+        }
+
+        log.debug("Aggregated metrics for {} terms", metrics.size());
+        return metrics;
+    }
+
+    private static Long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+
+    private static Double toDouble(Object value) {
+        return value != null ? ((Number) value).doubleValue() : null;
+    }
+}
@@ -0,0 +1,142 @@
+package com.sahabatquran.webapp.service;
+
+import com.sahabatquran.webapp.dto.TermMetricsDto;
+import com.sahabatquran.webapp.entity.AcademicTerm;
+import com.sahabatquran.webapp.entity.TermMetricsSnapshot;
+import com.sahabatquran.webapp.repository.TermMetricsSnapshotRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Serves per-term metrics from the term_metrics_snapshot table.
+ *
+ * Snapshots are (re)computed on read, only when missing, marked stale by the source
+ * table triggers, or when a term has become COMPLETED and its snapshot is not frozen yet.
+ * Frozen snapshots of completed terms are served as-is and ignored by the triggers.
+ */
+@Service
+@Slf4j
+public class TermMetricsSnapshotService {
+
+    private final TermMetricsSnapshotRepository snapshotRepository;
+    private final TermMetricsAggregationService termMetricsAggregationService;
+    private final TransactionTemplate refreshTransaction;
+
+    public TermMetricsSnapshotService(TermMetricsSnapshotRepository snapshotRepository,
+                                      TermMetricsAggregationService termMetricsAggregationService,
+                                      PlatformTransactionManager transactionManager) {
+        this.snapshotRepository = snapshotRepository;
+        this.termMetricsAggregationService = termMetricsAggregationService;
+        this.refreshTransaction = new TransactionTemplate(transactionManager);
+        this.refreshTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Get metrics for the given terms, refreshing outdated snapshots first.
+     * Snapshots are read in the caller's (read-only) transaction; a write transaction,
+     * and with it a second connection, is only opened when some terms need a refresh.
+     */
+    @Transactional(readOnly = true)
+    public Map<UUID, TermMetricsDto> getMetrics(List<AcademicTerm> terms) {
+        Map<UUID, TermMetricsDto> metrics = new LinkedHashMap<>();
+        if (terms.isEmpty()) {
+            return metrics;
+        }
+
+        Set<UUID> termIds = terms.stream().map(AcademicTerm::getId).collect(Collectors.toCollection(LinkedHashSet::new));
+        Map<UUID, TermMetricsSnapshot> snapshots = snapshotRepository.findByTermIdIn(termIds).stream()
+            .collect(Collectors.toMap(TermMetricsSnapshot::getTermId, Function.identity()));
+
+        List<AcademicTerm> outdatedTerms = terms.stream()
+            .filter(term -> needsRefresh(term, snapshots.get(term.getId())))
+            .toList();
+
+        Map<UUID, TermMetricsDto> refreshed = outdatedTerms.isEmpty()
+            ? Map.of()
+            : refreshTransaction.execute(status -> refresh(outdatedTerms, snapshots));
+
+        for (AcademicTerm term : terms) {
+            TermMetricsDto termMetrics = refreshed.containsKey(term.getId())
+                ? refreshed.get(term.getId())
+                : toDto(snapshots.get(term.getId()));
+            metrics.put(term.getId(), termMetrics);
+        }
+        return metrics;
+    }
+
+    private boolean needsRefresh(AcademicTerm term, TermMetricsSnapshot snapshot) {
+        if (snapshot == null) {
+            return true;
+        }
+        if (Boolean.TRUE.equals(snapshot.getIsFrozen())) {
+            // Frozen until the term is reopened
+            return term.getStatus() != AcademicTerm.TermStatus.COMPLETED;
+        }
+        // A term that has just been closed gets one final refresh before being frozen
+        return Boolean.TRUE.equals(snapshot.getIsStale()) || term.getStatus() == AcademicTerm.TermStatus.COMPLETED;
+    }
+
+    /**
+     * @param snapshots current snapshot rows; their generation is read before aggregating so
+     *                  a change committed during the aggregation keeps the row stale
+     */
+    private Map<UUID, TermMetricsDto> refresh(List<AcademicTerm> terms, Map<UUID, TermMetricsSnapshot> snapshots) {
+        Map<UUID, AcademicTerm> termsById = terms.stream()
+            .collect(Collectors.toMap(AcademicTerm::getId, Function.identity(), (a, b) -> a));
+        Map<UUID, TermMetricsDto> metrics = termMetricsAggregationService.aggregateByTermIds(termsById.keySet());
+
+        // All snapshots in one statement, one array element per term
+        List<TermMetricsDto> rows = List.copyOf(metrics.values());
+        snapshotRepository.upsertAll(
+            column(rows, UUID[]::new, TermMetricsDto::getTermId),
+            column(rows, Long[]::new, TermMetricsDto::getStudentCount),
+            column(rows, Long[]::new, TermMetricsDto::getEnrollmentCount),
+            column(rows, Long[]::new, TermMetricsDto::getCompletedEnrollmentCount),
+            column(rows, Long[]::new, TermMetricsDto::getActiveAndCompletedEnrollmentCount),
+            column(rows, Long[]::new, TermMetricsDto::getTeacherCount),
+            column(rows, Long[]::new, TermMetricsDto::getTeacherAssignmentCount),
+            column(rows, Long[]::new, TermMetricsDto::getActiveClassCount),
+            column(rows, Double[]::new, TermMetricsDto::getAverageRating),
+            column(rows, Double[]::new, TermMetricsDto::getAverageTeacherRating),
+            column(rows, Boolean[]::new,
+                m -> termsById.get(m.getTermId()).getStatus() == AcademicTerm.TermStatus.COMPLETED),
+            column(rows, Long[]::new, m -> {
+                TermMetricsSnapshot current = snapshots.get(m.getTermId());
+                return current != null ? current.getGeneration() : 0L;
+            }),
+            column(rows, LocalDateTime[]::new, TermMetricsDto::getRefreshedAt));
+
+        log.info("Refreshed term metrics snapshots for {} terms", metrics.size());
+        return metrics;
+    }
+
+    private static <T> T[] column(List<TermMetricsDto> rows, IntFunction<T[]> array, Function<TermMetricsDto, T> value) {
+        return rows.stream().map(value).toArray(array);
+    }
+
+    private TermMetricsDto toDto(TermMetricsSnapshot snapshot) {
+        return TermMetricsDto.builder()
+            .termId(snapshot.getTermId())
+            .studentCount(snapshot.getStudentCount())
+            .enrollmentCount(snapshot.getEnrollmentCount())
+            .completedEnrollmentCount(snapshot.getCompletedEnrollmentCount())
+            .activeAndCompletedEnrollmentCount(snapshot.getActiveAndCompletedEnrollmentCount())
+            .teacherCount(snapshot.getTeacherCount())
+            .teacherAssignmentCount(snapshot.getTeacherAssignmentCount())
+            .activeClassCount(snapshot.getActiveClassCount())
+            .averageRating(snapshot.getAverageRating())
+            .averageTeacherRating(snapshot.getAverageTeacherRating())
+            .refreshedAt(snapshot.getRefreshedAt())
+            .build();
+    }
+}
@@ -0,0 +1,52 @@
+package com.sahabatquran.webapp.service.impl;
+
+import com.sahabatquran.webapp.entity.ParentNotification;
+import com.sahabatquran.webapp.service.EmailOutboxService;
+import com.sahabatquran.webapp.service.NotificationChannelSender;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Email channel for parent notifications: hands the message to the email outbox, which
+ * owns rate limiting and retries of the mail provider. The notification counts as sent
+ * once the outbox message is committed; the outbox holds at most one message per
+ * notification, so a notification sent again after its result was lost is not
+ * emailed twice.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EmailNotificationSender implements NotificationChannelSender {
+
+    private static final String DEFAULT_SUBJECT = "Pemberitahuan dari Yayasan Sahabat Quran";
+
+    private final EmailOutboxService emailOutboxService;
+
+    @Value("${app.notifications.channel.email.max-concurrent-sends:4}")
+    private int maxConcurrentSends;
+
+    @Override
+    public ParentNotification.DeliveryMethod getChannel() {
+        return ParentNotification.DeliveryMethod.EMAIL;
+    }
+
+    @Override
+    public int getMaxConcurrentSends() {
+        return maxConcurrentSends;
+    }
+
+    @Override
+    public void send(ParentNotification notification) {
+        String email = NotificationChannelSender.requireContact(notification);
+        String subject = notification.getSubject() != null && !notification.getSubject().isBlank()
+                ? notification.getSubject()
+                : DEFAULT_SUBJECT;
+        if (emailOutboxService.enqueueParentNotification(notification.getId(), email, subject, notification.getMessage())) {
+            log.debug("Queued email notification {} to {}", notification.getId(), email);
+        } else {
+            log.info("Email notification {} was already queued, not queued again", notification.getId());
+        }
+    }
+}
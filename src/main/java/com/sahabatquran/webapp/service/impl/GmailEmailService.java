@@ -1,16 +1,20 @@
 package com.sahabatquran.webapp.service.impl;
 
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
 import com.google.api.client.util.Base64;
 import com.google.api.services.gmail.Gmail;
 import com.google.api.services.gmail.model.Message;
 import com.sahabatquran.webapp.config.GmailConfig;
 import com.sahabatquran.webapp.dto.StudentReportEmailDto;
+import com.sahabatquran.webapp.service.EmailDeliveryException;
 import com.sahabatquran.webapp.service.EmailService;
 import com.sahabatquran.webapp.service.EmailTemplateService;
 import jakarta.mail.MessagingException;
 import jakarta.mail.Session;
 import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeBodyPart;
 import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.internet.MimeMultipart;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -52,16 +56,17 @@ public class GmailEmailService implements EmailService {
     @Override
     public void sendStudentReportEmail(StudentReportEmailDto emailData) {
         try {
-            // Generate email content and subject
-            String emailContent = generateEmailContent(emailData);
-            String subject = emailTemplateService.generateEmailSubject(emailData);
+            // Render subject, HTML and plain text parts in one pass
+            EmailTemplateService.RenderedEmail rendered = emailTemplateService.renderEmail(emailData);
+            String subject = rendered.subject();
 
             // Create and send the email
             MimeMessage email = createEmail(
                 emailData.getRecipientEmail(),
                 gmailConfig.getNotificationEmail(),
                 subject,
-                emailContent
+                rendered.html(),
+                rendered.text()
             );
 
             Message message = sendMessage(email);
@@ -145,9 +150,18 @@ public class GmailEmailService implements EmailService {
             log.debug("Email details - To: {}, Subject: {}, Download URL: {}",
                 recipientEmail, subject, downloadUrl);
 
+        } catch (GoogleJsonResponseException e) {
+            // 429 (quota) and 5xx are transient; other statuses mean the message itself was rejected
+            int status = e.getStatusCode();
+            log.error("❌ Gmail API returned {} for report notification to: {}", status, recipientEmail);
+            throw new EmailDeliveryException("Gmail API returned " + status + " for " + recipientEmail, e,
+                    status == 429 || status >= 500);
+        } catch (IOException e) {
+            log.error("❌ Network error sending report notification to: {}", recipientEmail, e);
+            throw new EmailDeliveryException("Failed to reach Gmail API for " + recipientEmail, e, true);
         } catch (Exception e) {
             log.error("❌ Failed to send report notification to: {}", recipientEmail, e);
-            throw new RuntimeException("Failed to send report notification via Gmail", e);
+            throw new EmailDeliveryException("Failed to send report notification via Gmail", e, false);
         }
     }
 
@@ -177,6 +191,36 @@ public class GmailEmailService implements EmailService {
         return email;
     }
 
+    /**
+     * Creates a multipart/alternative email with plain text and HTML parts, so clients
+     * that do not render HTML still show the report.
+     *
+     * @param to Recipient email address
+     * @param from Sender email address
+     * @param subject Email subject
+     * @param htmlContent HTML content of the email
+     * @param textContent Plain text content of the email
+     * @return MimeMessage object
+     * @throws MessagingException If there's an error creating the message
+     */
+    private MimeMessage createEmail(String to, String from, String subject, String htmlContent, String textContent)
+            throws MessagingException {
+        MimeMessage email = createEmail(to, from, subject, htmlContent);
+
+        // Least preferred part first, as required by multipart/alternative
+        MimeBodyPart textPart = new MimeBodyPart();
+        textPart.setText(textContent, "utf-8");
+        MimeBodyPart htmlPart = new MimeBodyPart();
+        htmlPart.setContent(htmlContent, "text/html; charset=utf-8");
+
+        MimeMultipart content = new MimeMultipart("alternative");
+        content.addBodyPart(textPart);
+        content.addBodyPart(htmlPart);
+        email.setContent(content);
+
+        return email;
+    }
+
     /**
      * Sends a message using Gmail API.
      *
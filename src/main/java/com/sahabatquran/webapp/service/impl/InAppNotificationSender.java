@@ -0,0 +1,35 @@
+package com.sahabatquran.webapp.service.impl;
+
+import com.sahabatquran.webapp.entity.ParentNotification;
+import com.sahabatquran.webapp.service.NotificationChannelSender;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-app channel stub: the notification row is what the app shows, so sending only logs
+ */
+@Slf4j
+@Service
+public class InAppNotificationSender implements NotificationChannelSender {
+
+    @Value("${app.notifications.channel.in-app.max-concurrent-sends:32}")
+    private int maxConcurrentSends;
+
+    @Override
+    public ParentNotification.DeliveryMethod getChannel() {
+        return ParentNotification.DeliveryMethod.IN_APP;
+    }
+
+    @Override
+    public int getMaxConcurrentSends() {
+        return maxConcurrentSends;
+    }
+
+    @Override
+    public void send(ParentNotification notification) {
+        // In-app notifications are read from parent_notifications itself; nothing to push yet
+        log.debug("Sending in-app notification to {}: {}",
+            notification.getStudent().getFullName(), notification.getSubject());
+    }
+}
@@ -1,16 +1,19 @@
 package com.sahabatquran.webapp.service.impl;
 
 import com.sahabatquran.webapp.dto.StudentReportEmailDto;
+import com.sahabatquran.webapp.service.EmailDeliveryException;
 import com.sahabatquran.webapp.service.EmailService;
 import com.sahabatquran.webapp.service.EmailTemplateService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Slf4j
 @Service
@@ -20,6 +23,12 @@ public class NoopEmailService implements EmailService {
 
     private final EmailTemplateService emailTemplateService;
 
+    @Value("${app.email.stub.latency-ms:0}")
+    private long simulatedLatencyMillis;
+
+    @Value("${app.email.stub.failure-rate:0.0}")
+    private double simulatedFailureRate;
+
     @Override
     public String generateEmailContent(StudentReportEmailDto emailData) {
         return emailTemplateService.generateEmailContent(emailData);
@@ -28,14 +37,14 @@ public class NoopEmailService implements EmailService {
     @Override
     public void sendStudentReportEmail(StudentReportEmailDto emailData) {
         try {
-            String emailContent = generateEmailContent(emailData);
-            String subject = emailTemplateService.generateEmailSubject(emailData);
+            EmailTemplateService.RenderedEmail rendered = emailTemplateService.renderEmail(emailData);
+            String emailContent = rendered.html();
 
             // NOOP implementation - just log the email details
             log.info("📧 [NOOP] SIMULATING EMAIL SEND:");
             log.info("To: {} <{}>", emailData.getRecipientName(), emailData.getRecipientEmail());
-            log.info("Subject: {}", subject);
-            log.info("Content Length: {} characters", emailContent.length());
+            log.info("Subject: {}", rendered.subject());
+            log.info("Content Length: {} characters HTML, {} characters text", emailContent.length(), rendered.text().length());
             log.info("Content Preview: {}", emailContent.substring(0, Math.min(200, emailContent.length())) + "...");
             log.info("📧 [NOOP] EMAIL SEND SIMULATION COMPLETED");
 
@@ -94,22 +103,39 @@ public class NoopEmailService implements EmailService {
 
     @Override
     public void sendReportNotification(String recipientEmail, String subject, String body, String downloadUrl) {
+        simulateProviderCall(recipientEmail);
+
         try {
             // Replace download URL placeholder in body
             String emailContent = body.replace("{{DOWNLOAD_URL}}", downloadUrl);
 
             // NOOP implementation - just log the email details
-            log.info("📧 [NOOP] SIMULATING REPORT NOTIFICATION:");
-            log.info("To: {}", recipientEmail);
-            log.info("Subject: {}", subject);
-            log.info("Download URL: {}", downloadUrl);
-            log.info("Content Length: {} characters", emailContent.length());
-            log.info("Content Preview: {}", emailContent.substring(0, Math.min(300, emailContent.length())) + "...");
-            log.info("📧 [NOOP] REPORT NOTIFICATION SIMULATION COMPLETED");
+            log.info("📧 [NOOP] SIMULATING REPORT NOTIFICATION to {}: {}", recipientEmail, subject);
+            log.debug("Download URL: {}", downloadUrl);
+            log.debug("Content Length: {} characters", emailContent.length());
+            log.debug("Content Preview: {}", emailContent.substring(0, Math.min(300, emailContent.length())) + "...");
 
         } catch (Exception e) {
             log.error("Failed to simulate sending report notification to: {}", recipientEmail, e);
             throw new RuntimeException("Failed to send report notification", e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Stand-in for the Gmail round trip in load tests: optional latency and a share of
+     * calls rejected like a Gmail 429
+     */
+    private void simulateProviderCall(String recipientEmail) {
+        if (simulatedLatencyMillis > 0) {
+            try {
+                Thread.sleep(simulatedLatencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new EmailDeliveryException("Interrupted while sending to " + recipientEmail, e, true);
+            }
+        }
+        if (simulatedFailureRate > 0 && ThreadLocalRandom.current().nextDouble() < simulatedFailureRate) {
+            throw new EmailDeliveryException("[NOOP] Simulated rate limit (429) for " + recipientEmail, null, true);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.sahabatquran.webapp.service.impl;
+
+import com.sahabatquran.webapp.entity.ParentNotification;
+import com.sahabatquran.webapp.service.NotificationChannelSender;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * SMS channel stub: logs the message until an SMS gateway is integrated
+ */
+@Slf4j
+@Service
+public class SmsNotificationSender implements NotificationChannelSender {
+
+    @Value("${app.notifications.channel.sms.max-concurrent-sends:8}")
+    private int maxConcurrentSends;
+
+    @Override
+    public ParentNotification.DeliveryMethod getChannel() {
+        return ParentNotification.DeliveryMethod.SMS;
+    }
+
+    @Override
+    public int getMaxConcurrentSends() {
+        return maxConcurrentSends;
+    }
+
+    @Override
+    public void send(ParentNotification notification) {
+        // Implement SMS gateway call here
+        String phoneNumber = NotificationChannelSender.requireContact(notification);
+        log.debug("Sending SMS to {}: {}", phoneNumber, notification.getMessage());
+    }
+}
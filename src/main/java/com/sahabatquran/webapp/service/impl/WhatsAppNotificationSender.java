@@ -0,0 +1,35 @@
+package com.sahabatquran.webapp.service.impl;
+
+import com.sahabatquran.webapp.entity.ParentNotification;
+import com.sahabatquran.webapp.service.NotificationChannelSender;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * WhatsApp channel stub: logs the message until the WhatsApp Business API is integrated
+ */
+@Slf4j
+@Service
+public class WhatsAppNotificationSender implements NotificationChannelSender {
+
+    @Value("${app.notifications.channel.whatsapp.max-concurrent-sends:8}")
+    private int maxConcurrentSends;
+
+    @Override
+    public ParentNotification.DeliveryMethod getChannel() {
+        return ParentNotification.DeliveryMethod.WHATSAPP;
+    }
+
+    @Override
+    public int getMaxConcurrentSends() {
+        return maxConcurrentSends;
+    }
+
+    @Override
+    public void send(ParentNotification notification) {
+        // Implement WhatsApp Business API call here
+        String phoneNumber = NotificationChannelSender.requireContact(notification);
+        log.debug("Sending WhatsApp to {}: {}", phoneNumber, notification.getMessage());
+    }
+}
@@ -0,0 +1,121 @@
+-- =====================================================
+-- TERM METRICS SNAPSHOT FOR CROSS-TERM ANALYTICS
+-- =====================================================
+
+-- One pre-computed metrics row per academic term.
+-- Snapshots of COMPLETED terms are frozen; other terms are refreshed when marked stale.
+CREATE TABLE term_metrics_snapshot (
+    id_term UUID PRIMARY KEY REFERENCES academic_terms(id) ON DELETE CASCADE,
+
+    -- Enrollment metrics
+    student_count BIGINT NOT NULL DEFAULT 0,
+    enrollment_count BIGINT NOT NULL DEFAULT 0,
+    completed_enrollment_count BIGINT NOT NULL DEFAULT 0,
+    active_and_completed_enrollment_count BIGINT NOT NULL DEFAULT 0,
+
+    -- Teacher and class metrics
+    teacher_count BIGINT NOT NULL DEFAULT 0,
+    teacher_assignment_count BIGINT NOT NULL DEFAULT 0,
+    active_class_count BIGINT NOT NULL DEFAULT 0,
+
+    -- Feedback metrics
+    average_rating DOUBLE PRECISION,
+    average_teacher_rating DOUBLE PRECISION,
+
+    -- Refresh state
+    is_frozen BOOLEAN NOT NULL DEFAULT FALSE,
+    is_stale BOOLEAN NOT NULL DEFAULT FALSE,
+    refreshed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_term_metrics_snapshot_stale ON term_metrics_snapshot(is_stale) WHERE is_stale = true;
+
+-- =====================================================
+-- STALENESS TRIGGERS
+-- Writes to the source tables mark the affected term snapshot as stale,
+-- including writes made directly through SQL.
+-- =====================================================
+
+CREATE OR REPLACE FUNCTION mark_term_metrics_stale(p_term_id UUID) RETURNS VOID AS $$
+BEGIN
+    UPDATE term_metrics_snapshot
+    SET is_stale = true
+    WHERE id_term = p_term_id AND is_stale = false;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION trg_term_metrics_enrollments() RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        PERFORM mark_term_metrics_stale(cg.id_term) FROM class_groups cg WHERE cg.id = OLD.id_class_group;
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        PERFORM mark_term_metrics_stale(cg.id_term) FROM class_groups cg WHERE cg.id = NEW.id_class_group;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION trg_term_metrics_term_column() RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        PERFORM mark_term_metrics_stale(OLD.id_term);
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        PERFORM mark_term_metrics_stale(NEW.id_term);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION trg_term_metrics_feedback_responses() RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        PERFORM mark_term_metrics_stale(fc.id_term) FROM feedback_campaigns fc WHERE fc.id = OLD.id_campaign;
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        PERFORM mark_term_metrics_stale(fc.id_term) FROM feedback_campaigns fc WHERE fc.id = NEW.id_campaign;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION trg_term_metrics_feedback_answers() RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        PERFORM mark_term_metrics_stale(fc.id_term)
+        FROM feedback_responses fr JOIN feedback_campaigns fc ON fc.id = fr.id_campaign
+        WHERE fr.id = OLD.id_response;
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        PERFORM mark_term_metrics_stale(fc.id_term)
+        FROM feedback_responses fr JOIN feedback_campaigns fc ON fc.id = fr.id_campaign
+        WHERE fr.id = NEW.id_response;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER term_metrics_enrollments
+    AFTER INSERT OR UPDATE OR DELETE ON enrollments
+    FOR EACH ROW EXECUTE FUNCTION trg_term_metrics_enrollments();
+
+CREATE TRIGGER term_metrics_class_groups
+    AFTER INSERT OR UPDATE OR DELETE ON class_groups
+    FOR EACH ROW EXECUTE FUNCTION trg_term_metrics_term_column();
+
+CREATE TRIGGER term_metrics_teacher_level_assignments
+    AFTER INSERT OR UPDATE OR DELETE ON teacher_level_assignments
+    FOR EACH ROW EXECUTE FUNCTION trg_term_metrics_term_column();
+
+CREATE TRIGGER term_metrics_feedback_responses
+    AFTER INSERT OR UPDATE OR DELETE ON feedback_responses
+    FOR EACH ROW EXECUTE FUNCTION trg_term_metrics_feedback_responses();
+
+CREATE TRIGGER term_metrics_feedback_answers
+    AFTER INSERT OR UPDATE OR DELETE ON feedback_answers
+    FOR EACH ROW EXECUTE FUNCTION trg_term_metrics_feedback_answers();
+
+COMMENT ON TABLE term_metrics_snapshot IS 'Pre-computed per-term metrics read by cross-term analytics';
+COMMENT ON COLUMN term_metrics_snapshot.is_frozen IS 'Snapshot of a COMPLETED term, not recomputed by scheduled refreshes';
+COMMENT ON COLUMN term_metrics_snapshot.is_stale IS 'Set by triggers when source rows of the term change';
@@ -0,0 +1,9 @@
+-- =====================================================
+-- PENDING REPORT ITEM CLAIM INDEX
+-- Report workers repeatedly claim the next PENDING items of a batch
+-- with FOR UPDATE SKIP LOCKED; keep that lookup on a small partial index
+-- =====================================================
+
+CREATE INDEX idx_report_items_pending_claim
+    ON report_generation_items(id_batch, priority, id)
+    WHERE status = 'PENDING';
@@ -0,0 +1,20 @@
+-- =====================================================
+-- DURABLE REPORT JOB QUEUE
+-- report_generation_items doubles as a job queue shared by all app nodes:
+-- a worker leases an item while rendering it and keeps the lease alive with
+-- heartbeats; leases of crashed nodes expire and are reaped back to PENDING.
+-- Failed items are retried with exponential backoff via next_attempt_at.
+-- =====================================================
+
+ALTER TABLE report_generation_items
+    ADD COLUMN lease_owner VARCHAR(100),
+    ADD COLUMN lease_expires_at TIMESTAMP,
+    ADD COLUMN next_attempt_at TIMESTAMP;
+
+COMMENT ON COLUMN report_generation_items.lease_owner IS 'Node currently rendering the item, NULL when not leased';
+COMMENT ON COLUMN report_generation_items.lease_expires_at IS 'Lease deadline extended by heartbeats; expired leases are reaped';
+COMMENT ON COLUMN report_generation_items.next_attempt_at IS 'Earliest time a retried item may be claimed again';
+
+CREATE INDEX idx_report_items_lease_expiry
+    ON report_generation_items(lease_expires_at)
+    WHERE status = 'GENERATING';
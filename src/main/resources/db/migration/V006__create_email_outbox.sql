@@ -0,0 +1,37 @@
+-- =====================================================
+-- OUTBOUND EMAIL OUTBOX
+-- Emails are written here in the same transaction as the work that produces
+-- them and sent later by a dispatcher on any app node. Dispatchers claim rows
+-- with FOR UPDATE SKIP LOCKED; SENDING rows whose dispatcher died are put back
+-- to PENDING once next_attempt_at (the send deadline) has passed.
+-- =====================================================
+
+CREATE TABLE email_outbox (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    message_type VARCHAR(50) NOT NULL,
+    id_report_item UUID REFERENCES report_generation_items(id) ON DELETE CASCADE,
+    recipient_email VARCHAR(255) NOT NULL,
+    subject VARCHAR(500) NOT NULL,
+    body TEXT NOT NULL,
+    download_url VARCHAR(1000),
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING'
+        CHECK (status IN ('PENDING', 'SENDING', 'SENT', 'FAILED')),
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP,
+    last_error TEXT,
+    sent_at TIMESTAMP,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+COMMENT ON COLUMN email_outbox.attempts IS 'Send attempts so far, incremented when a dispatcher claims the row';
+COMMENT ON COLUMN email_outbox.next_attempt_at IS 'PENDING: earliest retry time; SENDING: deadline after which the claim is released';
+
+CREATE INDEX idx_email_outbox_sendable
+    ON email_outbox(created_at)
+    WHERE status = 'PENDING';
+
+CREATE INDEX idx_email_outbox_sending
+    ON email_outbox(next_attempt_at)
+    WHERE status = 'SENDING';
+
+CREATE INDEX idx_email_outbox_report_item ON email_outbox(id_report_item);
@@ -0,0 +1,21 @@
+-- =====================================================
+-- PARENT NOTIFICATION DISPATCH
+-- parent_notifications is drained by a scheduled dispatcher on any app node.
+-- Dispatchers claim due rows with FOR UPDATE SKIP LOCKED and push next_attempt_at
+-- out to a claim deadline, so rows of a dispatcher that died become due again.
+-- Failed sends are retried with backoff; rows out of attempts are marked failed.
+-- =====================================================
+
+ALTER TABLE parent_notifications
+    ADD COLUMN attempts INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN next_attempt_at TIMESTAMP,
+    ADD COLUMN last_error TEXT,
+    ADD COLUMN is_failed BOOLEAN NOT NULL DEFAULT false;
+
+COMMENT ON COLUMN parent_notifications.attempts IS 'Send attempts so far, incremented when a dispatcher claims the row';
+COMMENT ON COLUMN parent_notifications.next_attempt_at IS 'Earliest retry time, or the claim deadline while a dispatcher is sending';
+COMMENT ON COLUMN parent_notifications.is_failed IS 'Gave up after a permanent error or max attempts';
+
+CREATE INDEX idx_parent_notifications_pending
+    ON parent_notifications(created_at)
+    WHERE is_sent = false AND is_failed = false;
@@ -0,0 +1,36 @@
+-- =====================================================
+-- HTTP SESSIONS (Spring Session JDBC)
+-- Sessions are stored in the database instead of the memory of one app node, so any
+-- node can serve any request without sticky sessions. The schema is the one Spring
+-- Session ships for PostgreSQL (spring.session.jdbc.initialize-schema=never).
+-- Expired sessions are deleted in batches by ExpiredSessionCleaner through the expiry
+-- index; the principal index serves the session registry (one session per user).
+-- =====================================================
+
+CREATE TABLE spring_session (
+    primary_id CHAR(36) NOT NULL,
+    session_id CHAR(36) NOT NULL,
+    creation_time BIGINT NOT NULL,
+    last_access_time BIGINT NOT NULL,
+    max_inactive_interval INT NOT NULL,
+    expiry_time BIGINT NOT NULL,
+    principal_name VARCHAR(100),
+    CONSTRAINT spring_session_pk PRIMARY KEY (primary_id)
+);
+
+CREATE UNIQUE INDEX spring_session_ix1 ON spring_session (session_id);
+CREATE INDEX spring_session_ix2 ON spring_session (expiry_time);
+CREATE INDEX spring_session_ix3 ON spring_session (principal_name);
+
+CREATE TABLE spring_session_attributes (
+    session_primary_id CHAR(36) NOT NULL,
+    attribute_name VARCHAR(200) NOT NULL,
+    attribute_bytes BYTEA NOT NULL,
+    CONSTRAINT spring_session_attributes_pk PRIMARY KEY (session_primary_id, attribute_name),
+    CONSTRAINT spring_session_attributes_fk FOREIGN KEY (session_primary_id)
+        REFERENCES spring_session(primary_id) ON DELETE CASCADE
+);
+
+COMMENT ON COLUMN spring_session.expiry_time IS 'Epoch milliseconds after which the session is expired and may be deleted';
+COMMENT ON COLUMN spring_session.principal_name IS 'Username of the logged-in user, for the concurrent session limit';
+COMMENT ON COLUMN spring_session_attributes.attribute_bytes IS 'Serialized attribute; the security context uses the compact SessionAttributeCodec format';
@@ -0,0 +1,35 @@
+-- =====================================================
+-- TERM METRICS SNAPSHOT GENERATION
+-- Every transaction that changes source rows of a term bumps the snapshot's
+-- generation once. A refresh remembers the generation it started from and only
+-- clears is_stale if no transaction re-marked the row while it was aggregating.
+-- Frozen snapshots of COMPLETED terms are no longer marked by the triggers.
+-- Snapshots are refreshed on read by TermMetricsSnapshotService, there is no
+-- scheduled refresh.
+-- =====================================================
+
+ALTER TABLE term_metrics_snapshot
+    ADD COLUMN generation BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN marked_by_xid BIGINT;
+
+-- Nothing reads snapshots by stale flag since there is no scheduled refresh
+DROP INDEX idx_term_metrics_snapshot_stale;
+
+-- One write per transaction and term: later writes of the same transaction are
+-- already covered by its bump, whether it commits before or after a refresh
+CREATE OR REPLACE FUNCTION mark_term_metrics_stale(p_term_id UUID) RETURNS VOID AS $$
+BEGIN
+    UPDATE term_metrics_snapshot
+    SET is_stale = true,
+        generation = generation + 1,
+        marked_by_xid = txid_current()
+    WHERE id_term = p_term_id
+      AND is_frozen = false
+      AND marked_by_xid IS DISTINCT FROM txid_current();
+END;
+$$ LANGUAGE plpgsql;
+
+COMMENT ON COLUMN term_metrics_snapshot.is_frozen IS 'Snapshot of a COMPLETED term, ignored by the staleness triggers and never recomputed';
+COMMENT ON COLUMN term_metrics_snapshot.is_stale IS 'Set by triggers when source rows of the term change; cleared by a refresh that saw no newer change';
+COMMENT ON COLUMN term_metrics_snapshot.generation IS 'Bumped by the staleness triggers; a refresh only clears is_stale if it is unchanged';
+COMMENT ON COLUMN term_metrics_snapshot.marked_by_xid IS 'Transaction that last bumped the generation, so it bumps only once';
@@ -0,0 +1,9 @@
+-- =====================================================
+-- PENDING PARENT NOTIFICATIONS BY CHANNEL
+-- Every delivery channel is dispatched by its own loop, which claims the oldest
+-- due notifications of that channel only.
+-- =====================================================
+
+CREATE INDEX idx_parent_notifications_pending_channel
+    ON parent_notifications(delivery_method, created_at)
+    WHERE is_sent = false AND is_failed = false;
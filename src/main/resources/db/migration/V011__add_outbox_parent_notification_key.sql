@@ -0,0 +1,16 @@
+-- =====================================================
+-- EMAIL OUTBOX KEY FOR PARENT NOTIFICATIONS
+-- The EMAIL channel of the parent notification dispatcher queues an outbox
+-- message before the notification is marked sent. If that result is lost (a
+-- crash, a failed commit) the notification is claimed and queued again; the
+-- unique key makes the second enqueue a no-op, so the parent gets one email.
+-- =====================================================
+
+ALTER TABLE email_outbox
+    ADD COLUMN id_parent_notification UUID REFERENCES parent_notifications(id) ON DELETE CASCADE;
+
+CREATE UNIQUE INDEX uk_email_outbox_parent_notification
+    ON email_outbox(id_parent_notification)
+    WHERE id_parent_notification IS NOT NULL;
+
+COMMENT ON COLUMN email_outbox.id_parent_notification IS 'Parent notification sent through this message; at most one message per notification';
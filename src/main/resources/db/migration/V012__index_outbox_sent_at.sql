@@ -0,0 +1,9 @@
+-- =====================================================
+-- EMAIL OUTBOX DAILY LIMIT
+-- The account's daily sending limit is shared by the dispatchers of all app
+-- nodes: before claiming, a dispatcher counts the emails sent since midnight.
+-- =====================================================
+
+CREATE INDEX idx_email_outbox_sent_at
+    ON email_outbox(sent_at)
+    WHERE status = 'SENT';
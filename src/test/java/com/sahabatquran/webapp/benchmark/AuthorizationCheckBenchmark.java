@@ -0,0 +1,113 @@
+package com.sahabatquran.webapp.benchmark;
+
+import com.sahabatquran.webapp.security.AuthenticatedUser;
+import com.sahabatquran.webapp.security.PermissionAuthorization;
+import com.sahabatquran.webapp.security.PermissionRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authorization.AuthorityAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.method.PreAuthorizeAuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.util.SimpleMethodInvocation;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Cost of one authorization check for a user holding 48 of 64 permissions, with
+ * string authority matching and with permission bitmaps.
+ *
+ * - stringRequestRule / bitmapRequestRule: a requestMatchers rule requiring any of
+ *   five permissions, as hasAnyAuthority and as PermissionAuthorization.anyOf
+ * - spelPreAuthorize / bitmapPreAuthorize: a "hasAuthority(..) or hasAnyAuthority(..)"
+ *   @PreAuthorize expression, evaluated with SpEL and compiled to masks
+ *
+ * The required permissions are ones the user does not hold, so every check has to
+ * look at all of them.
+ *
+ * Run with:
+ *
+ *   ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.sahabatquran.webapp.benchmark.AuthorizationCheckBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthorizationCheckBenchmark {
+
+    private static final List<String> PERMISSIONS = IntStream.range(0, 64)
+            .mapToObj(i -> String.format("PERMISSION_%02d", i))
+            .toList();
+    private static final String[] REQUIRED = {"PERMISSION_50", "PERMISSION_55", "PERMISSION_58", "PERMISSION_60", "PERMISSION_63"};
+
+    private Authentication authentication;
+    private AuthorizationManager<RequestAuthorizationContext> stringRule;
+    private AuthorizationManager<RequestAuthorizationContext> bitmapRule;
+    private PreAuthorizeAuthorizationManager spelManager;
+    private PermissionAuthorization permissionAuthorization;
+    private SimpleMethodInvocation invocation;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        PermissionRegistry registry = new PermissionRegistry(() -> PERMISSIONS);
+        permissionAuthorization = new PermissionAuthorization(registry);
+
+        List<GrantedAuthority> authorities = AuthorityUtils.createAuthorityList(PERMISSIONS.subList(0, 48));
+        AuthenticatedUser principal = new AuthenticatedUser(UUID.randomUUID(), "benchmark", "", true, "Benchmark",
+                List.of("STAFF"), authorities, registry.grantedMask(authorities));
+        authentication = UsernamePasswordAuthenticationToken.authenticated(principal, null, authorities);
+
+        stringRule = AuthorityAuthorizationManager.hasAnyAuthority(REQUIRED);
+        bitmapRule = permissionAuthorization.anyOf(REQUIRED);
+        spelManager = new PreAuthorizeAuthorizationManager();
+        invocation = new SimpleMethodInvocation(new Handler(), Handler.class.getMethod("export"));
+    }
+
+    @Benchmark
+    public boolean stringRequestRule() {
+        return stringRule.authorize(() -> authentication, null).isGranted();
+    }
+
+    @Benchmark
+    public boolean bitmapRequestRule() {
+        return bitmapRule.authorize(() -> authentication, null).isGranted();
+    }
+
+    @Benchmark
+    public boolean spelPreAuthorize() {
+        return spelManager.authorize(() -> authentication, invocation).isGranted();
+    }
+
+    @Benchmark
+    public boolean bitmapPreAuthorize() {
+        return permissionAuthorization.authorizeMethod(() -> authentication, invocation).isGranted();
+    }
+
+    public static class Handler {
+
+        @PreAuthorize("hasAuthority('PERMISSION_50') or hasAnyAuthority('PERMISSION_55', 'PERMISSION_58', 'PERMISSION_60', 'PERMISSION_63')")
+        public void export() {
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(AuthorizationCheckBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
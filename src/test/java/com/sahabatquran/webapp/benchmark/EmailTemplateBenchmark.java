@@ -0,0 +1,83 @@
+package com.sahabatquran.webapp.benchmark;
+
+import com.github.mustachejava.DefaultMustacheFactory;
+import com.github.mustachejava.Mustache;
+import com.github.mustachejava.MustacheFactory;
+import com.sahabatquran.webapp.dto.StudentReportEmailDto;
+import com.sahabatquran.webapp.service.EmailTemplateService;
+import com.sahabatquran.webapp.service.impl.NoopEmailService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Report emails rendered per second (HTML and plain text part), before and after the
+ * compiled template registry.
+ *
+ * - parsePerRender: the previous rendering path, which loaded and parsed each template
+ *   from the classpath for every email
+ * - compiledRegistry: EmailTemplateService.renderEmail with templates compiled at startup
+ *
+ * Run with:
+ *
+ *   ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.sahabatquran.webapp.benchmark.EmailTemplateBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmailTemplateBenchmark {
+
+    private EmailTemplateService service;
+    private MustacheFactory mustacheFactory;
+    private StudentReportEmailDto data;
+
+    @Setup
+    public void setUp() {
+        service = new EmailTemplateService();
+        service.compileTemplates();
+        mustacheFactory = new DefaultMustacheFactory();
+        data = new NoopEmailService(service).createSampleEmailData("benchmark");
+    }
+
+    @Benchmark
+    public int compiledRegistry() {
+        EmailTemplateService.RenderedEmail email = service.renderEmail(data);
+        return email.html().length() + email.text().length();
+    }
+
+    @Benchmark
+    public int parsePerRender() throws IOException {
+        String html = parseAndRender("templates/email/student-report-html.mustache");
+        String text = parseAndRender("templates/email/student-report.mustache");
+        return html.length() + text.length();
+    }
+
+    private String parseAndRender(String templatePath) throws IOException {
+        ClassPathResource templateResource = new ClassPathResource(templatePath);
+        try (InputStreamReader reader = new InputStreamReader(templateResource.getInputStream())) {
+            Mustache template = mustacheFactory.compile(reader, templatePath);
+            StringWriter writer = new StringWriter();
+            template.execute(writer, data);
+            return writer.toString();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(EmailTemplateBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
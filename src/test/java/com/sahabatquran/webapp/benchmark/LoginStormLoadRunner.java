@@ -0,0 +1,127 @@
+package com.sahabatquran.webapp.benchmark;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Login storm against a running instance, as at the start of a class when students and
+ * teachers log in within minutes.
+ *
+ * Every login is a fresh client: it loads the login page for a session and CSRF token,
+ * then posts the form. Concurrent clients log in as the given users in turn. Reports
+ * logins per second and login latency percentiles; compare runs with different values
+ * of app.security.bcrypt.strength and app.security.bcrypt.max-concurrent, and read the
+ * security.password.verify actuator metric for the time spent in BCrypt.
+ *
+ * Usage:
+ *   ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.sahabatquran.webapp.benchmark.LoginStormLoadRunner \
+ *       -Dexec.args="http://localhost:8080 Welcome@YSQ2024 siswa.ali,siswa.fatimah,ustadz.ahmad 32 500"
+ */
+public class LoginStormLoadRunner {
+
+    private static final Pattern CSRF_TOKEN = Pattern.compile("name=\"_csrf\"\\s+value=\"([^\"]+)\"");
+
+    private final String baseUrl;
+    private final String password;
+
+    public LoginStormLoadRunner(String baseUrl, String password) {
+        this.baseUrl = baseUrl;
+        this.password = password;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Arguments: baseUrl password user1,user2,... [concurrency] [logins]");
+            System.exit(1);
+        }
+        String[] usernames = args[2].split(",");
+        int concurrency = args.length > 3 ? Integer.parseInt(args[3]) : 32;
+        int logins = args.length > 4 ? Integer.parseInt(args[4]) : 500;
+
+        LoginStormLoadRunner runner = new LoginStormLoadRunner(args[0], args[1]);
+        // Warm up the server: class loading, JIT and the role authority cache
+        for (String username : usernames) {
+            runner.login(username);
+        }
+        runner.run(usernames, concurrency, logins);
+    }
+
+    private void run(String[] usernames, int concurrency, int logins) throws Exception {
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        AtomicLong failures = new AtomicLong();
+
+        long started = System.nanoTime();
+        try (ExecutorService executor = Executors.newFixedThreadPool(concurrency)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < logins; i++) {
+                String username = usernames[i % usernames.length];
+                futures.add(executor.submit(() -> {
+                    long loginStarted = System.nanoTime();
+                    if (!login(username)) {
+                        failures.incrementAndGet();
+                    }
+                    latencies.add(System.nanoTime() - loginStarted);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        System.out.printf("%6d logins  %8.1f logins/s  p50 %6.0f ms  p95 %6.0f ms  p99 %6.0f ms  failures %d%n",
+                logins, logins / elapsedSeconds, percentile(sorted, 0.50), percentile(sorted, 0.95),
+                percentile(sorted, 0.99), failures.get());
+    }
+
+    private boolean login(String username) throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newBuilder()
+                .cookieHandler(new CookieManager())
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+        HttpResponse<String> loginPage = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/login")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        Matcher csrf = CSRF_TOKEN.matcher(loginPage.body());
+        if (!csrf.find()) {
+            throw new IllegalStateException("CSRF token not found on login page");
+        }
+
+        String form = "username=" + URLEncoder.encode(username, StandardCharsets.UTF_8)
+                + "&password=" + URLEncoder.encode(password, StandardCharsets.UTF_8)
+                + "&_csrf=" + URLEncoder.encode(csrf.group(1), StandardCharsets.UTF_8);
+        HttpResponse<Void> login = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/login"))
+                        .header("Content-Type", "application/x-www-form-urlencoded")
+                        .POST(HttpRequest.BodyPublishers.ofString(form))
+                        .build(),
+                HttpResponse.BodyHandlers.discarding());
+        String location = login.headers().firstValue("Location").orElse("");
+        return login.statusCode() == 302 && !location.contains("error");
+    }
+
+    private static double percentile(List<Long> sortedNanos, double percentile) {
+        if (sortedNanos.isEmpty()) {
+            return 0;
+        }
+        int index = Math.min(sortedNanos.size() - 1, (int) Math.ceil(percentile * sortedNanos.size()) - 1);
+        return sortedNanos.get(Math.max(index, 0)) / 1e6;
+    }
+}
@@ -0,0 +1,186 @@
+package com.sahabatquran.webapp.benchmark;
+
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.Cell;
+import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.element.Table;
+import com.itextpdf.layout.properties.TextAlignment;
+import com.itextpdf.layout.properties.UnitValue;
+import com.sahabatquran.webapp.dto.StudentReportData;
+import com.sahabatquran.webapp.entity.*;
+import com.sahabatquran.webapp.service.PdfRenderingResources;
+import com.sahabatquran.webapp.service.PdfReportGenerationService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-report rendering time of a student report card, before and after the shared
+ * rendering resources cache.
+ *
+ * - perDocumentResources: the previous rendering path, which created fonts and table
+ *   layouts from scratch for every report
+ * - cachedResources: PdfReportGenerationService with PdfRenderingResources
+ *
+ * Both write to memory so only rendering is measured. Run single-threaded, the average
+ * time per operation is the CPU time per report. Run with:
+ *
+ *   ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.sahabatquran.webapp.benchmark.PdfRenderingBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PdfRenderingBenchmark {
+
+    private PdfReportGenerationService service;
+    private StudentReportData data;
+
+    @Setup
+    public void setUp() {
+        service = new PdfReportGenerationService(null, null, null, new PdfRenderingResources());
+        data = createReportData();
+    }
+
+    @Benchmark
+    public int cachedResources() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+        service.writeStudentReport(data, out);
+        return out.size();
+    }
+
+    @Benchmark
+    public int perDocumentResources() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+        Document document = new Document(new PdfDocument(new PdfWriter(out)));
+        try {
+            PdfFont boldFont = PdfFontFactory.createFont(StandardFonts.HELVETICA_BOLD);
+            PdfFont italicFont = PdfFontFactory.createFont(StandardFonts.HELVETICA_OBLIQUE);
+
+            document.add(new Paragraph("STUDENT ACADEMIC REPORT")
+                    .setTextAlignment(TextAlignment.CENTER)
+                    .setFontSize(18)
+                    .setFont(boldFont));
+            document.add(new Paragraph("\n"));
+
+            User student = data.getStudent();
+            document.add(new Paragraph("Student Information").setFontSize(14).setFont(boldFont));
+            Table studentTable = new Table(UnitValue.createPercentArray(new float[]{30, 70}))
+                    .setWidth(UnitValue.createPercentValue(100));
+            studentTable.addCell(new Cell().add(new Paragraph("Student ID:")));
+            studentTable.addCell(new Cell().add(new Paragraph(student.getUsername())));
+            studentTable.addCell(new Cell().add(new Paragraph("Full Name:")));
+            studentTable.addCell(new Cell().add(new Paragraph(student.getFullName())));
+            studentTable.addCell(new Cell().add(new Paragraph("Email:")));
+            studentTable.addCell(new Cell().add(new Paragraph(student.getEmail())));
+            document.add(studentTable);
+            document.add(new Paragraph("\n"));
+
+            document.add(new Paragraph("Enrollment Information").setFontSize(14).setFont(boldFont));
+            Table enrollmentTable = new Table(UnitValue.createPercentArray(new float[]{40, 30, 30}))
+                    .setWidth(UnitValue.createPercentValue(100));
+            enrollmentTable.addHeaderCell(new Cell().add(new Paragraph("Class").setFont(boldFont)));
+            enrollmentTable.addHeaderCell(new Cell().add(new Paragraph("Status").setFont(boldFont)));
+            enrollmentTable.addHeaderCell(new Cell().add(new Paragraph("Enrolled Date").setFont(boldFont)));
+            for (Enrollment enrollment : data.getEnrollments()) {
+                enrollmentTable.addCell(new Cell().add(new Paragraph(enrollment.getClassGroup().getName())));
+                enrollmentTable.addCell(new Cell().add(new Paragraph(enrollment.getStatus().toString())));
+                enrollmentTable.addCell(new Cell().add(new Paragraph(
+                        enrollment.getEnrollmentDate().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")))));
+            }
+            document.add(enrollmentTable);
+            document.add(new Paragraph("\n"));
+
+            document.add(new Paragraph("Assessment Results").setFontSize(14).setFont(boldFont));
+            Table assessmentTable = new Table(UnitValue.createPercentArray(new float[]{30, 25, 20, 25}))
+                    .setWidth(UnitValue.createPercentValue(100));
+            assessmentTable.addHeaderCell(new Cell().add(new Paragraph("Assessment Type").setFont(boldFont)));
+            assessmentTable.addHeaderCell(new Cell().add(new Paragraph("Score").setFont(boldFont)));
+            assessmentTable.addHeaderCell(new Cell().add(new Paragraph("Grade").setFont(boldFont)));
+            assessmentTable.addHeaderCell(new Cell().add(new Paragraph("Date").setFont(boldFont)));
+            for (StudentAssessment assessment : data.getAssessments()) {
+                assessmentTable.addCell(new Cell().add(new Paragraph(assessment.getAssessmentType().toString())));
+                assessmentTable.addCell(new Cell().add(new Paragraph(assessment.getAssessmentScore().toString())));
+                assessmentTable.addCell(new Cell().add(new Paragraph(assessment.getAssessmentGrade())));
+                assessmentTable.addCell(new Cell().add(new Paragraph(
+                        assessment.getAssessmentDate().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")))));
+            }
+            document.add(assessmentTable);
+            document.add(new Paragraph("\n"));
+
+            document.add(new Paragraph("Report generated on: " +
+                    java.time.LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss")))
+                    .setTextAlignment(TextAlignment.RIGHT)
+                    .setFontSize(10)
+                    .setFont(italicFont));
+        } finally {
+            document.close();
+        }
+        return out.size();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PdfRenderingBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+
+    private static StudentReportData createReportData() {
+        User student = new User();
+        student.setId(UUID.randomUUID());
+        student.setUsername("benchmark.student");
+        student.setFullName("Benchmark Student");
+        student.setEmail("benchmark.student@example.com");
+
+        List<Enrollment> enrollments = new ArrayList<>();
+        List<StudentAssessment> assessments = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ClassGroup classGroup = new ClassGroup();
+            classGroup.setId(UUID.randomUUID());
+            classGroup.setName("Tahsin Class " + (i + 1));
+
+            Enrollment enrollment = new Enrollment();
+            enrollment.setStudent(student);
+            enrollment.setClassGroup(classGroup);
+            enrollment.setStatus(Enrollment.EnrollmentStatus.ACTIVE);
+            enrollment.setEnrollmentDate(LocalDate.now().minusMonths(2));
+            enrollments.add(enrollment);
+
+            StudentAssessment assessment = new StudentAssessment();
+            assessment.setStudent(student);
+            assessment.setAssessmentType(StudentAssessment.AssessmentType.PLACEMENT);
+            assessment.setAssessmentScore(new BigDecimal("85.00"));
+            assessment.setAssessmentGrade("A");
+            assessment.setAssessmentDate(LocalDate.now().minusMonths(1));
+            assessments.add(assessment);
+        }
+
+        return StudentReportData.builder()
+                .termId(UUID.randomUUID())
+                .student(StudentReportData.Student.from(student))
+                .enrollments(enrollments)
+                .assessments(assessments)
+                .build();
+    }
+}
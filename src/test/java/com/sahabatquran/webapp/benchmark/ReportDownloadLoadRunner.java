@@ -0,0 +1,143 @@
+package com.sahabatquran.webapp.benchmark;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Load test for report card downloads against a running instance.
+ *
+ * Logs in, then downloads one report card repeatedly from concurrent clients in three
+ * modes: full downloads, conditional re-downloads (If-None-Match, answered with 304) and
+ * 64 KB range requests. Server CPU per download is the growth of the process.cpu.time
+ * actuator metric divided by the number of downloads, so the user needs both
+ * REPORT_CARD_VIEW and access to /actuator/metrics.
+ *
+ * Usage:
+ *   ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.sahabatquran.webapp.benchmark.ReportDownloadLoadRunner \
+ *       -Dexec.args="http://localhost:8080 admin Welcome@YSQ2024 {studentId} {termId} 16 2000"
+ */
+public class ReportDownloadLoadRunner {
+
+    private static final Pattern CSRF_TOKEN = Pattern.compile("name=\"_csrf\"\\s+value=\"([^\"]+)\"");
+    private static final Pattern METRIC_VALUE = Pattern.compile("\"statistic\"\\s*:\\s*\"TOTAL\"\\s*,\\s*\"value\"\\s*:\\s*([0-9.Ee+-]+)");
+
+    private final String baseUrl;
+    private final HttpClient client;
+
+    public ReportDownloadLoadRunner(String baseUrl) {
+        this.baseUrl = baseUrl;
+        this.client = HttpClient.newBuilder()
+                .cookieHandler(new CookieManager())
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 5) {
+            System.err.println("Arguments: baseUrl username password studentId termId [concurrency] [requests]");
+            System.exit(1);
+        }
+        int concurrency = args.length > 5 ? Integer.parseInt(args[5]) : 16;
+        int requests = args.length > 6 ? Integer.parseInt(args[6]) : 2000;
+
+        ReportDownloadLoadRunner runner = new ReportDownloadLoadRunner(args[0]);
+        runner.login(args[1], args[2]);
+
+        String downloadUrl = args[0] + "/report-cards/download-pdf?studentId=" + args[3] + "&termId=" + args[4];
+        HttpResponse<byte[]> first = runner.client.send(HttpRequest.newBuilder(URI.create(downloadUrl)).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        if (first.statusCode() != 200) {
+            throw new IllegalStateException("Report card download failed with status " + first.statusCode());
+        }
+        String etag = first.headers().firstValue("ETag").orElse(null);
+        System.out.printf("Report card: %d bytes, ETag %s%n", first.body().length, etag);
+
+        runner.run("full", concurrency, requests, HttpRequest.newBuilder(URI.create(downloadUrl)).build());
+        if (etag != null) {
+            runner.run("conditional", concurrency, requests, HttpRequest.newBuilder(URI.create(downloadUrl))
+                    .header("If-None-Match", etag)
+                    .build());
+        }
+        runner.run("range-64k", concurrency, requests, HttpRequest.newBuilder(URI.create(downloadUrl))
+                .header("Range", "bytes=0-65535")
+                .build());
+    }
+
+    private void login(String username, String password) throws IOException, InterruptedException {
+        HttpResponse<String> loginPage = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/login")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        Matcher csrf = CSRF_TOKEN.matcher(loginPage.body());
+        if (!csrf.find()) {
+            throw new IllegalStateException("CSRF token not found on login page");
+        }
+
+        String form = "username=" + URLEncoder.encode(username, StandardCharsets.UTF_8)
+                + "&password=" + URLEncoder.encode(password, StandardCharsets.UTF_8)
+                + "&_csrf=" + URLEncoder.encode(csrf.group(1), StandardCharsets.UTF_8);
+        HttpResponse<Void> login = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/login"))
+                        .header("Content-Type", "application/x-www-form-urlencoded")
+                        .POST(HttpRequest.BodyPublishers.ofString(form))
+                        .build(),
+                HttpResponse.BodyHandlers.discarding());
+        String location = login.headers().firstValue("Location").orElse("");
+        if (location.contains("error")) {
+            throw new IllegalStateException("Login failed for " + username);
+        }
+    }
+
+    private void run(String mode, int concurrency, int requests, HttpRequest request) throws Exception {
+        double cpuBefore = serverCpuSeconds();
+        AtomicLong bytes = new AtomicLong();
+        AtomicLong failures = new AtomicLong();
+
+        long started = System.nanoTime();
+        try (ExecutorService executor = Executors.newFixedThreadPool(concurrency)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                futures.add(executor.submit(() -> {
+                    HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                    if (response.statusCode() >= 400) {
+                        failures.incrementAndGet();
+                    }
+                    bytes.addAndGet(response.body().length);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+        double cpuSeconds = serverCpuSeconds() - cpuBefore;
+
+        System.out.printf("%-12s %6d requests  %8.1f req/s  %10.1f KB/s  server CPU %8.1f us/download  failures %d%n",
+                mode, requests, requests / elapsedSeconds, bytes.get() / 1024.0 / elapsedSeconds,
+                cpuSeconds * 1e6 / requests, failures.get());
+    }
+
+    private double serverCpuSeconds() throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(
+                HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/metrics/process.cpu.time")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        Matcher value = METRIC_VALUE.matcher(response.body());
+        if (response.statusCode() != 200 || !value.find()) {
+            throw new IllegalStateException("process.cpu.time metric not available (status " + response.statusCode() + ")");
+        }
+        return Double.parseDouble(value.group(1));
+    }
+}
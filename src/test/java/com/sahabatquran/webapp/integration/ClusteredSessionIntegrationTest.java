@@ -0,0 +1,178 @@
+package com.sahabatquran.webapp.integration;
+
+import com.sahabatquran.webapp.SahabatQuranApplication;
+import com.sahabatquran.webapp.security.AuthenticatedUser;
+import com.sahabatquran.webapp.security.PermissionRegistry;
+import com.sahabatquran.webapp.security.SessionAttributeCodec;
+import com.sahabatquran.webapp.service.ExpiredSessionCleaner;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.context.SecurityContext;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two app nodes on one database: the test context and a second application started
+ * on another port. A browser session created on one node is served by the other, a
+ * login on the other node expires it (one session per user), and the security
+ * context is stored in the compact session format.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@DisplayName("Clustered Session Integration Tests")
+class ClusteredSessionIntegrationTest extends BaseIntegrationTest {
+
+    private static final String PASSWORD = "Welcome@YSQ2024";
+    private static final Pattern CSRF_TOKEN = Pattern.compile("name=\"_csrf\"\\s+value=\"([^\"]+)\"");
+
+    private static ConfigurableApplicationContext secondNode;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SessionAttributeCodec sessionAttributeCodec;
+
+    @Autowired
+    private PermissionRegistry permissionRegistry;
+
+    @Autowired
+    private ExpiredSessionCleaner expiredSessionCleaner;
+
+    @BeforeAll
+    static void startSecondNode() {
+        secondNode = new SpringApplicationBuilder(SahabatQuranApplication.class)
+                .profiles("test")
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=" + postgres.getJdbcUrl(),
+                        "spring.datasource.username=" + postgres.getUsername(),
+                        "spring.datasource.password=" + postgres.getPassword())
+                .run();
+    }
+
+    @AfterAll
+    static void stopSecondNode() {
+        if (secondNode != null) {
+            secondNode.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should serve a session created on one node from the other node")
+    void shouldShareSessionsAcrossNodes() throws Exception {
+        // Both nodes run on localhost, so the browser sends the same session cookie to both
+        HttpClient browser = newBrowser();
+        assertThat(login(browser, firstNode(), "siswa.ali")).isTrue();
+
+        assertThat(get(browser, secondNode() + "/dashboard").statusCode()).isEqualTo(200);
+        assertThat(get(browser, firstNode() + "/dashboard").statusCode()).isEqualTo(200);
+
+        byte[] stored = jdbcTemplate.queryForObject(
+                "SELECT a.attribute_bytes FROM spring_session s " +
+                "JOIN spring_session_attributes a ON a.session_primary_id = s.primary_id " +
+                "WHERE s.principal_name = ? AND a.attribute_name = 'SPRING_SECURITY_CONTEXT' " +
+                "ORDER BY s.last_access_time DESC LIMIT 1",
+                byte[].class, "siswa.ali");
+        // Compact format marker (with permission mask), where Java serialization starts with 0xAC
+        assertThat(stored[0]).isEqualTo((byte) 2);
+
+        SecurityContext context = (SecurityContext) sessionAttributeCodec.deserialize(stored);
+        AuthenticatedUser user = (AuthenticatedUser) context.getAuthentication().getPrincipal();
+        assertThat(user.getUsername()).isEqualTo("siswa.ali");
+        assertThat(user.hasRole("STUDENT")).isTrue();
+        assertThat(permissionRegistry.isCurrent(user.getPermissions())).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should expire the session on one node when the user logs in on the other")
+    void shouldLimitSessionsAcrossNodes() throws Exception {
+        HttpClient firstBrowser = newBrowser();
+        assertThat(login(firstBrowser, firstNode(), "siswa.fatimah")).isTrue();
+        assertThat(get(firstBrowser, firstNode() + "/dashboard").statusCode()).isEqualTo(200);
+
+        HttpClient secondBrowser = newBrowser();
+        assertThat(login(secondBrowser, secondNode(), "siswa.fatimah")).isTrue();
+
+        HttpResponse<String> expired = get(firstBrowser, firstNode() + "/dashboard");
+        assertThat(expired.statusCode()).isEqualTo(302);
+        assertThat(expired.headers().firstValue("Location").orElse("")).contains("/login?expired=true");
+        assertThat(get(secondBrowser, firstNode() + "/dashboard").statusCode()).isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("Should delete expired sessions and their attributes")
+    void shouldDeleteExpiredSessions() {
+        String primaryId = UUID.randomUUID().toString();
+        long longAgo = System.currentTimeMillis() - 3_600_000;
+        jdbcTemplate.update("INSERT INTO spring_session (primary_id, session_id, creation_time, last_access_time, " +
+                        "max_inactive_interval, expiry_time) VALUES (?, ?, ?, ?, 1800, ?)",
+                primaryId, UUID.randomUUID().toString(), longAgo, longAgo, longAgo + 1_800_000);
+        jdbcTemplate.update("INSERT INTO spring_session_attributes (session_primary_id, attribute_name, attribute_bytes) " +
+                "VALUES (?, 'attribute', ?)", primaryId, new byte[] {1});
+
+        expiredSessionCleaner.deleteExpiredSessions();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM spring_session WHERE primary_id = ?",
+                Integer.class, primaryId)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM spring_session_attributes WHERE session_primary_id = ?",
+                Integer.class, primaryId)).isZero();
+    }
+
+    private String firstNode() {
+        return "http://localhost:" + port;
+    }
+
+    private static String secondNode() {
+        return "http://localhost:" + secondNode.getEnvironment().getProperty("local.server.port");
+    }
+
+    private static HttpClient newBrowser() {
+        return HttpClient.newBuilder()
+                .cookieHandler(new CookieManager())
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
+    private static boolean login(HttpClient browser, String node, String username) throws IOException, InterruptedException {
+        Matcher csrf = CSRF_TOKEN.matcher(get(browser, node + "/login").body());
+        assertThat(csrf.find()).isTrue();
+
+        String form = "username=" + URLEncoder.encode(username, StandardCharsets.UTF_8)
+                + "&password=" + URLEncoder.encode(PASSWORD, StandardCharsets.UTF_8)
+                + "&_csrf=" + URLEncoder.encode(csrf.group(1), StandardCharsets.UTF_8);
+        HttpResponse<Void> response = browser.send(HttpRequest.newBuilder(URI.create(node + "/login"))
+                        .header("Content-Type", "application/x-www-form-urlencoded")
+                        .POST(HttpRequest.BodyPublishers.ofString(form))
+                        .build(),
+                HttpResponse.BodyHandlers.discarding());
+        return response.statusCode() == 302
+                && response.headers().firstValue("Location").orElse("").endsWith("/dashboard");
+    }
+
+    private static HttpResponse<String> get(HttpClient browser, String url) throws IOException, InterruptedException {
+        return browser.send(HttpRequest.newBuilder(URI.create(url)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
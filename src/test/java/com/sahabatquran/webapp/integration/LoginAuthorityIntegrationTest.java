@@ -0,0 +1,124 @@
+package com.sahabatquran.webapp.integration;
+
+import com.sahabatquran.webapp.entity.Permission;
+import com.sahabatquran.webapp.entity.Role;
+import com.sahabatquran.webapp.entity.RolePermission;
+import com.sahabatquran.webapp.security.AppUserDetailsManager;
+import com.sahabatquran.webapp.security.RoleAuthorityCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Logins resolve permission authorities from the in-memory role mapping: it is loaded
+ * once for any number of logins, grants the same authorities as the former per-login
+ * join, and is cleared when role permissions change through JPA.
+ */
+@DisplayName("Login Authority Integration Tests")
+class LoginAuthorityIntegrationTest extends BaseIntegrationTest {
+
+    private static final List<String> USERNAMES = List.of("siswa.ali", "ustadz.ahmad", "academic.admin1");
+
+    private static final String AUTHORITIES_JOIN =
+            "SELECT p.code FROM users u " +
+            "JOIN user_roles ur ON u.id = ur.id_user " +
+            "JOIN role_permissions rp ON ur.id_role = rp.id_role " +
+            "JOIN permissions p ON rp.id_permission = p.id " +
+            "WHERE u.username = ? AND u.is_active = true";
+
+    @Autowired
+    private AppUserDetailsManager userDetailsManager;
+
+    @Autowired
+    private RoleAuthorityCache roleAuthorityCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        roleAuthorityCache.invalidate();
+    }
+
+    @Test
+    @DisplayName("Should load role permissions once for a burst of logins")
+    void shouldLoadRolePermissionsOnceForLoginBurst() {
+        double loadsBefore = loads();
+
+        for (int i = 0; i < 300; i++) {
+            userDetailsManager.loadUserByUsername(USERNAMES.get(i % USERNAMES.size()));
+        }
+
+        assertThat(loads() - loadsBefore).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should grant the same authorities as the per-login join")
+    void shouldGrantSameAuthoritiesAsJoin() {
+        for (String username : USERNAMES) {
+            UserDetails user = userDetailsManager.loadUserByUsername(username);
+
+            assertThat(AuthorityUtils.authorityListToSet(user.getAuthorities()))
+                    .isEqualTo(Set.copyOf(jdbcTemplate.queryForList(AUTHORITIES_JOIN, String.class, username)));
+        }
+    }
+
+    @Test
+    @DisplayName("Should pick up a permission granted through JPA on the next login")
+    void shouldRefreshAfterRolePermissionChange() {
+        String permissionCode = "REPORT_FINANCIAL";
+        assertThat(authorities("siswa.ali")).doesNotContain(permissionCode);
+
+        UUID rolePermissionId = transactionTemplate.execute(status -> {
+            RolePermission rolePermission = new RolePermission();
+            rolePermission.setRole(entityManager.createQuery("SELECT r FROM Role r WHERE r.code = 'STUDENT'", Role.class)
+                    .getSingleResult());
+            rolePermission.setPermission(entityManager.createQuery("SELECT p FROM Permission p WHERE p.code = :code", Permission.class)
+                    .setParameter("code", permissionCode)
+                    .getSingleResult());
+            entityManager.persist(rolePermission);
+            return rolePermission.getId();
+        });
+        try {
+            assertThat(authorities("siswa.ali")).contains(permissionCode);
+        } finally {
+            transactionTemplate.executeWithoutResult(status ->
+                    entityManager.remove(entityManager.find(RolePermission.class, rolePermissionId)));
+        }
+
+        assertThat(authorities("siswa.ali")).doesNotContain(permissionCode);
+    }
+
+    private Set<String> authorities(String username) {
+        List<? extends GrantedAuthority> authorities = List.copyOf(
+                userDetailsManager.loadUserByUsername(username).getAuthorities());
+        return AuthorityUtils.authorityListToSet(authorities);
+    }
+
+    private double loads() {
+        return meterRegistry.get("security.role_authorities.loads").counter().count();
+    }
+}
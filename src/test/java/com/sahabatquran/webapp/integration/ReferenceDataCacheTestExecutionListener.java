@@ -0,0 +1,31 @@
+package com.sahabatquran.webapp.integration;
+
+import com.sahabatquran.webapp.service.ReferenceDataCacheService;
+import org.springframework.core.Ordered;
+import org.springframework.test.context.TestContext;
+import org.springframework.test.context.TestExecutionListener;
+import org.springframework.test.context.jdbc.SqlScriptsTestExecutionListener;
+
+/**
+ * Evicts the reference data cache after the @Sql setup scripts of a test have run.
+ *
+ * Test scripts insert and update levels, sessions and academic terms with plain SQL,
+ * which the Hibernate second-level cache cannot see; without eviction a test could read
+ * reference data cached by a previous test. Registered in META-INF/spring.factories.
+ */
+public class ReferenceDataCacheTestExecutionListener implements TestExecutionListener, Ordered {
+
+    @Override
+    public int getOrder() {
+        // After SqlScriptsTestExecutionListener, so BEFORE_TEST_METHOD scripts have already run
+        return new SqlScriptsTestExecutionListener().getOrder() + 1;
+    }
+
+    @Override
+    public void beforeTestMethod(TestContext testContext) {
+        if (testContext.hasApplicationContext()) {
+            testContext.getApplicationContext().getBeanProvider(ReferenceDataCacheService.class)
+                    .ifAvailable(ReferenceDataCacheService::evictAll);
+        }
+    }
+}
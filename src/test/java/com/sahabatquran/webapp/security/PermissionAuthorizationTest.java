@@ -0,0 +1,143 @@
+package com.sahabatquran.webapp.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationResult;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.util.SimpleMethodInvocation;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PermissionAuthorization: @PreAuthorize expressions and request rules
+ * evaluated on permission bitmaps grant exactly what the string authority checks did.
+ */
+@DisplayName("Permission Authorization Tests")
+class PermissionAuthorizationTest {
+
+    private static final List<String> PERMISSIONS = List.of(
+            "CLASS_VIEW", "REPORT_CARD_VIEW", "REPORT_EXPORT", "REPORT_FINANCIAL", "USER_VIEW", "ANALYTICS_VIEW");
+
+    private PermissionRegistry registry;
+    private PermissionAuthorization authorization;
+
+    @BeforeEach
+    void setUp() {
+        registry = new PermissionRegistry(() -> PERMISSIONS);
+        authorization = new PermissionAuthorization(registry);
+    }
+
+    @Test
+    @DisplayName("Should compile hasAuthority and hasAnyAuthority joined with and/or")
+    void shouldParseSupportedExpressions() {
+        assertEquals(List.of(List.of(List.of("CLASS_VIEW"))),
+                PermissionAuthorization.parseExpression("hasAuthority('CLASS_VIEW')").orElseThrow());
+        assertEquals(List.of(List.of(List.of("USER_VIEW")), List.of(List.of("REPORT_EXPORT", "ANALYTICS_VIEW"))),
+                PermissionAuthorization.parseExpression(
+                        "hasAuthority('USER_VIEW') or hasAnyAuthority('REPORT_EXPORT', 'ANALYTICS_VIEW')").orElseThrow());
+        assertEquals(List.of(List.of(List.of("CLASS_VIEW"), List.of("USER_VIEW"))),
+                PermissionAuthorization.parseExpression("hasAuthority('CLASS_VIEW') and hasAuthority('USER_VIEW')").orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Should leave other expressions to SpEL")
+    void shouldRejectUnsupportedExpressions() {
+        assertTrue(PermissionAuthorization.parseExpression("isAuthenticated()").isEmpty());
+        assertTrue(PermissionAuthorization.parseExpression("hasRole('ADMIN')").isEmpty());
+        assertTrue(PermissionAuthorization.parseExpression("!hasAuthority('CLASS_VIEW')").isEmpty());
+        assertTrue(PermissionAuthorization.parseExpression("(hasAuthority('A') or hasAuthority('B')) and hasAuthority('C')").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should grant method access from the principal's permission mask")
+    void shouldAuthorizeMethodsFromMask() throws Exception {
+        Authentication user = login("REPORT_CARD_VIEW", "REPORT_EXPORT");
+
+        assertTrue(authorizeMethod(user, "viewReportCards").isGranted());
+        assertFalse(authorizeMethod(user, "viewClasses").isGranted());
+        assertTrue(authorizeMethod(user, "viewUsersOrExport").isGranted());
+        assertFalse(authorizeMethod(user, "viewClassesAndReportCards").isGranted());
+        assertTrue(authorizeMethod(login("CLASS_VIEW", "REPORT_CARD_VIEW"), "viewClassesAndReportCards").isGranted());
+    }
+
+    @Test
+    @DisplayName("Should grant request rules to holders of any of the permissions")
+    void shouldAuthorizeRequestRules() {
+        var rule = authorization.anyOf("REPORT_FINANCIAL", "ANALYTICS_VIEW");
+
+        assertTrue(rule.authorize(() -> login("ANALYTICS_VIEW"), null).isGranted());
+        assertFalse(rule.authorize(() -> login("CLASS_VIEW", "USER_VIEW"), null).isGranted());
+        assertFalse(rule.authorize(() -> new AnonymousAuthenticationToken("key", "anonymousUser",
+                AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")), null).isGranted());
+    }
+
+    @Test
+    @DisplayName("Should rebuild the mask from the authorities for other principals and stale masks")
+    void shouldFallBackToAuthorities() {
+        var rule = authorization.anyOf("USER_VIEW");
+        List<GrantedAuthority> authorities = AuthorityUtils.createAuthorityList("USER_VIEW");
+
+        // Principal without a mask, as built for @WithMockUser users
+        Authentication plain = UsernamePasswordAuthenticationToken.authenticated("test.user", null, authorities);
+        assertTrue(rule.authorize(() -> plain, null).isGranted());
+
+        // Mask numbered by a registry with other permissions (a session from before a permission change)
+        PermissionMask stale = new PermissionRegistry(() -> List.of("OTHER", "USER_VIEW")).grantedMask(authorities);
+        assertFalse(registry.isCurrent(stale));
+        assertTrue(rule.authorize(() -> login(authorities, stale), null).isGranted());
+    }
+
+    @Test
+    @DisplayName("Should let a permission unknown at startup satisfy checks that name it")
+    void shouldNumberUnknownPermissions() {
+        var rule = authorization.anyOf("EXAM_GRADE");
+
+        assertFalse(rule.authorize(() -> login("CLASS_VIEW"), null).isGranted());
+        assertTrue(rule.authorize(() -> login("EXAM_GRADE"), null).isGranted());
+    }
+
+    private AuthorizationResult authorizeMethod(Authentication authentication, String methodName) throws Exception {
+        Handlers target = new Handlers();
+        SimpleMethodInvocation invocation = new SimpleMethodInvocation(target, Handlers.class.getMethod(methodName));
+        return authorization.authorizeMethod(() -> authentication, invocation);
+    }
+
+    private Authentication login(String... permissions) {
+        List<GrantedAuthority> authorities = AuthorityUtils.createAuthorityList(permissions);
+        return login(authorities, registry.grantedMask(authorities));
+    }
+
+    private Authentication login(List<GrantedAuthority> authorities, PermissionMask mask) {
+        AuthenticatedUser principal = new AuthenticatedUser(UUID.randomUUID(), "test.user", "", true, "Test User",
+                List.of("STAFF"), authorities, mask);
+        return UsernamePasswordAuthenticationToken.authenticated(principal, null, authorities);
+    }
+
+    static class Handlers {
+
+        @PreAuthorize("hasAuthority('REPORT_CARD_VIEW')")
+        public void viewReportCards() {
+        }
+
+        @PreAuthorize("hasAuthority('CLASS_VIEW')")
+        public void viewClasses() {
+        }
+
+        @PreAuthorize("hasAuthority('USER_VIEW') or hasAnyAuthority('REPORT_EXPORT', 'ANALYTICS_VIEW')")
+        public void viewUsersOrExport() {
+        }
+
+        @PreAuthorize("hasAuthority('CLASS_VIEW') and hasAuthority('REPORT_CARD_VIEW')")
+        public void viewClassesAndReportCards() {
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.sahabatquran.webapp.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for SessionAttributeCodec: the permission mask is stored with the session
+ * and reused while the registry numbering is unchanged, and rebuilt from the permission
+ * codes when it is not.
+ */
+@DisplayName("Session Attribute Codec Tests")
+class SessionAttributeCodecTest {
+
+    private static final List<String> PERMISSIONS = List.of("CLASS_VIEW", "REPORT_CARD_VIEW", "USER_VIEW");
+
+    private static final List<GrantedAuthority> GRANTED = AuthorityUtils.createAuthorityList("CLASS_VIEW", "USER_VIEW");
+
+    @Test
+    @DisplayName("Should reuse the stored mask when the registry version matches")
+    void shouldReuseStoredMask() {
+        PermissionRegistry registry = spy(new PermissionRegistry(() -> PERMISSIONS));
+        SessionAttributeCodec codec = new SessionAttributeCodec(registry, new SimpleMeterRegistry());
+        PermissionMask mask = registry.grantedMask(GRANTED);
+        byte[] stored = codec.serialize(context(mask));
+        clearInvocations(registry);
+
+        AuthenticatedUser user = principal(codec.deserialize(stored));
+
+        assertEquals(SessionAttributeCodec.COMPACT_SECURITY_CONTEXT_WITH_MASK, stored[0]);
+        assertEquals(mask, user.getPermissions());
+        verify(registry, never()).grantedMask(any());
+    }
+
+    @Test
+    @DisplayName("Should rebuild the mask when the registry numbering differs")
+    void shouldRebuildMaskOfOtherVersion() {
+        PermissionRegistry writer = new PermissionRegistry(() -> PERMISSIONS);
+        PermissionRegistry reader = new PermissionRegistry(() -> List.of("ANALYTICS_VIEW", "CLASS_VIEW", "USER_VIEW"));
+        byte[] stored = new SessionAttributeCodec(writer, new SimpleMeterRegistry())
+                .serialize(context(writer.grantedMask(GRANTED)));
+
+        AuthenticatedUser user = principal(new SessionAttributeCodec(reader, new SimpleMeterRegistry()).deserialize(stored));
+
+        assertTrue(reader.isCurrent(user.getPermissions()));
+        assertEquals(reader.grantedMask(GRANTED), user.getPermissions());
+        assertEquals(GRANTED, List.copyOf(user.getAuthorities()));
+    }
+
+    private static SecurityContext context(PermissionMask mask) {
+        AuthenticatedUser user = new AuthenticatedUser(UUID.randomUUID(), "ustadz.ahmad", "", true, "Ustadz Ahmad",
+                List.of("INSTRUCTOR"), GRANTED, mask);
+        user.eraseCredentials();
+        return new SecurityContextImpl(UsernamePasswordAuthenticationToken.authenticated(user, null, GRANTED));
+    }
+
+    private static AuthenticatedUser principal(Object attribute) {
+        return (AuthenticatedUser) ((SecurityContext) attribute).getAuthentication().getPrincipal();
+    }
+}
@@ -0,0 +1,139 @@
+package com.sahabatquran.webapp.service;
+
+import com.sahabatquran.webapp.entity.AcademicTerm;
+import com.sahabatquran.webapp.integration.BaseIntegrationTest;
+import com.sahabatquran.webapp.repository.AcademicTermRepository;
+import com.sahabatquran.webapp.service.AnalyticsExportService.ExportFormat;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for streaming analytics exports: 200,000 class rows must be
+ * generated and written without the heap growing with the size of the export.
+ */
+@Sql(scripts = "/sql/analytics-export-setup.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "/sql/analytics-export-cleanup.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class AnalyticsExportServiceIntegrationTest extends BaseIntegrationTest {
+
+    private static final long HEAP_CEILING_BYTES = 48L * 1024 * 1024;
+
+    @Autowired
+    private AnalyticsExportService analyticsExportService;
+
+    @Autowired
+    private AcademicTermRepository academicTermRepository;
+
+    @Test
+    void csvExportShouldStayUnderHeapCeiling() throws Exception {
+        CountingOutputStream out = new CountingOutputStream();
+
+        try (HeapSampler heap = new HeapSampler(out)) {
+            analyticsExportService.exportCrossTermAnalytics(exportTermIds(), ExportFormat.CSV, out);
+            heap.close();
+
+            assertThat(out.bytesWritten).isGreaterThan(10L * 1024 * 1024);
+            assertThat(heap.maxHeapGrowth()).isLessThan(HEAP_CEILING_BYTES);
+        }
+    }
+
+    @Test
+    void xlsxExportShouldStayUnderHeapCeiling() throws Exception {
+        CountingOutputStream out = new CountingOutputStream();
+
+        try (HeapSampler heap = new HeapSampler(out)) {
+            analyticsExportService.exportCrossTermAnalytics(exportTermIds(), ExportFormat.XLSX, out);
+            heap.close();
+
+            assertThat(out.bytesWritten).isGreaterThan(1024L * 1024);
+            // The workbook reaches the output only once all rows exist, so these samples cover row generation
+            assertThat(heap.samplesBeforeOutput).isGreaterThan(3);
+            assertThat(heap.maxHeapGrowth()).isLessThan(HEAP_CEILING_BYTES);
+        }
+    }
+
+    private List<UUID> exportTermIds() {
+        List<UUID> termIds = academicTermRepository.findAll().stream()
+                .filter(term -> term.getTermName().startsWith("EXPORT_TEST_TERM_"))
+                .map(AcademicTerm::getId)
+                .toList();
+        assertThat(termIds).hasSize(10);
+        return termIds;
+    }
+
+    /**
+     * Discards output, counting the bytes written.
+     */
+    private static class CountingOutputStream extends OutputStream {
+
+        private volatile long bytesWritten;
+
+        @Override
+        public void write(int b) {
+            bytesWritten++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytesWritten += len;
+        }
+    }
+
+    /**
+     * Samples used heap after a GC on a background thread for as long as it is open, so
+     * the samples cover reading and generating rows as well as writing the output.
+     */
+    private static class HeapSampler implements AutoCloseable {
+
+        private static final long SAMPLE_INTERVAL_MILLIS = 50;
+
+        private final CountingOutputStream out;
+        private final long baselineHeap = usedHeapAfterGc();
+        private final Thread thread;
+        private volatile boolean running = true;
+        private volatile long maxHeap = baselineHeap;
+        private volatile int samplesBeforeOutput;
+
+        HeapSampler(CountingOutputStream out) {
+            this.out = out;
+            this.thread = Thread.ofPlatform().daemon().name("heap-sampler").start(this::sample);
+        }
+
+        long maxHeapGrowth() {
+            return maxHeap - baselineHeap;
+        }
+
+        private void sample() {
+            while (running) {
+                boolean beforeOutput = out.bytesWritten == 0;
+                maxHeap = Math.max(maxHeap, usedHeapAfterGc());
+                if (beforeOutput) {
+                    samplesBeforeOutput++;
+                }
+                try {
+                    Thread.sleep(SAMPLE_INTERVAL_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public void close() throws InterruptedException {
+            running = false;
+            thread.join();
+        }
+
+        private static long usedHeapAfterGc() {
+            System.gc();
+            Runtime runtime = Runtime.getRuntime();
+            return runtime.totalMemory() - runtime.freeMemory();
+        }
+    }
+}
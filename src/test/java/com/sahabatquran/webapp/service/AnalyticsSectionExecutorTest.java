@@ -0,0 +1,122 @@
+package com.sahabatquran.webapp.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for AnalyticsSectionExecutor: the section cap applies per request, so
+ * concurrent dashboard requests share the analytics pool instead of one global cap.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Analytics Section Executor Tests")
+class AnalyticsSectionExecutorTest {
+
+    private static final int POOL_SIZE = 8;
+    private static final int SECTIONS_PER_REQUEST = 2;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ThreadPoolTaskExecutor pool;
+    private AnalyticsSectionExecutor sectionExecutor;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+
+        pool = new ThreadPoolTaskExecutor();
+        pool.setCorePoolSize(POOL_SIZE);
+        pool.setMaxPoolSize(POOL_SIZE);
+        pool.setQueueCapacity(50);
+        pool.initialize();
+        sectionExecutor = new AnalyticsSectionExecutor(transactionManager, pool, SECTIONS_PER_REQUEST);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should run at most the configured number of sections of one request at once")
+    void shouldCapSectionsPerRequest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        AnalyticsSectionExecutor.Sections sections = sectionExecutor.newRequest();
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            int section = i;
+            results.add(sections.submit(() -> blockingSection(section, running, maxRunning, release)));
+        }
+
+        Thread.sleep(200);
+        assertEquals(SECTIONS_PER_REQUEST, running.get());
+        release.countDown();
+
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(SECTIONS_PER_REQUEST, maxRunning.get());
+        verify(transactionManager, times(7)).commit(any());
+    }
+
+    @Test
+    @DisplayName("Should run sections of concurrent requests side by side")
+    void shouldNotShareCapBetweenRequests() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int request = 0; request < 3; request++) {
+            AnalyticsSectionExecutor.Sections sections = sectionExecutor.newRequest();
+            for (int i = 0; i < 4; i++) {
+                int section = i;
+                results.add(sections.submit(() -> blockingSection(section, running, maxRunning, release)));
+            }
+        }
+
+        Thread.sleep(200);
+        assertEquals(3 * SECTIONS_PER_REQUEST, running.get());
+        release.countDown();
+
+        for (Future<Integer> result : results) {
+            assertNotNull(result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(3 * SECTIONS_PER_REQUEST, maxRunning.get());
+    }
+
+    private static int blockingSection(int section, AtomicInteger running, AtomicInteger maxRunning,
+                                       CountDownLatch release) {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            running.decrementAndGet();
+        }
+        return section;
+    }
+}
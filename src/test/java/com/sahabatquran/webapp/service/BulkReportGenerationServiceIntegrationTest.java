@@ -0,0 +1,336 @@
+package com.sahabatquran.webapp.service;
+
+import com.sahabatquran.webapp.dto.BulkReportGenerationDto;
+import com.sahabatquran.webapp.entity.AcademicTerm;
+import com.sahabatquran.webapp.entity.ReportGenerationBatch;
+import com.sahabatquran.webapp.entity.ReportGenerationItem;
+import com.sahabatquran.webapp.integration.BaseIntegrationTest;
+import com.sahabatquran.webapp.repository.AcademicTermRepository;
+import com.sahabatquran.webapp.repository.ReportGenerationBatchRepository;
+import com.sahabatquran.webapp.repository.ReportGenerationItemRepository;
+import com.sahabatquran.webapp.repository.UserRepository;
+import com.sahabatquran.webapp.util.TestDataUtil;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for the pooled bulk report pipeline: every item is claimed exactly once,
+ * the batch counters maintained in SQL match the item statuses, and items leased by a
+ * crashed node are picked up again.
+ */
+class BulkReportGenerationServiceIntegrationTest extends BaseIntegrationTest {
+
+    private static final int ITEM_COUNT = 40;
+
+    @Autowired
+    private BulkReportGenerationService bulkReportGenerationService;
+
+    @Autowired
+    private ReportGenerationBatchRepository batchRepository;
+
+    @Autowired
+    private ReportGenerationItemRepository itemRepository;
+
+    @Autowired
+    private ReportItemProcessor reportItemProcessor;
+
+    @Autowired
+    private AcademicTermRepository academicTermRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestDataUtil testDataUtil;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private AcademicTerm term;
+    private ReportGenerationBatch batch;
+
+    @BeforeEach
+    void setUp() {
+        term = academicTermRepository.save(testDataUtil.createTestAcademicTerm());
+
+        batch = new ReportGenerationBatch();
+        batch.setTerm(term);
+        batch.setInitiatedBy(userRepository.findByUsername("ustadz.ahmad").orElseThrow());
+        batch.setBatchName("Pooled Generation Test");
+        batch.setReportType(ReportGenerationBatch.ReportType.CUSTOM_REPORT_BATCH);
+        batch.setTotalReports(ITEM_COUNT);
+        batch = batchRepository.save(batch);
+
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            ReportGenerationItem item = new ReportGenerationItem();
+            item.setBatch(batch);
+            item.setReportType(ReportGenerationItem.ReportType.MANAGEMENT_SUMMARY);
+            item.setReportSubject("Management Summary " + i);
+            item.setPriority(i % 10 + 1);
+            itemRepository.save(item);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        itemRepository.deleteAll(itemRepository.findByBatchIdOrderByPriority(batch.getId()));
+        batchRepository.deleteById(batch.getId());
+        academicTermRepository.deleteById(term.getId());
+    }
+
+    @Test
+    void processBatch_ShouldCompleteEveryItemOnceWithAtomicCounters() {
+        bulkReportGenerationService.processBatch(batch.getId());
+
+        List<ReportGenerationItem> items = itemRepository.findByBatchIdOrderByPriority(batch.getId());
+        assertThat(items).hasSize(ITEM_COUNT)
+                .allMatch(ReportGenerationItem::isCompleted);
+        assertThat(items).allMatch(item -> item.getRetryCount() == 0);
+
+        ReportGenerationBatch processed = batchRepository.findById(batch.getId()).orElseThrow();
+        assertThat(processed.getStatus()).isEqualTo(ReportGenerationBatch.BatchStatus.COMPLETED);
+        assertThat(processed.getCompletedReports()).isEqualTo(ITEM_COUNT);
+        assertThat(processed.getFailedReports()).isZero();
+    }
+
+    @Test
+    void processBatch_ShouldNotStartCancelledBatch() {
+        // Cancelled after commit but before the report executor picked the batch up
+        assertThat(bulkReportGenerationService.cancelBatch(batch.getId(), UUID.randomUUID())).isTrue();
+
+        bulkReportGenerationService.processBatch(batch.getId());
+
+        ReportGenerationBatch cancelled = batchRepository.findById(batch.getId()).orElseThrow();
+        assertThat(cancelled.getStatus()).isEqualTo(ReportGenerationBatch.BatchStatus.CANCELLED);
+        assertThat(cancelled.getStartedAt()).isNull();
+        assertThat(itemRepository.findByBatchIdOrderByPriority(batch.getId()))
+                .hasSize(ITEM_COUNT)
+                .allMatch(item -> item.getStatus() == ReportGenerationItem.ItemStatus.CANCELLED);
+    }
+
+    @Test
+    void cancelBatch_ShouldKeepCounterIncrementsCommittedWhileCancelling() throws Exception {
+        CountDownLatch incremented = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // A worker's counter increments, committed only after the cancel has started
+        CompletableFuture<Void> worker = CompletableFuture.runAsync(() -> newTransaction(() -> {
+            for (int i = 0; i < 5; i++) {
+                batchRepository.incrementCompletedReports(batch.getId());
+            }
+            incremented.countDown();
+            awaitQuietly(release);
+        }));
+        assertThat(incremented.await(10, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<Boolean> cancel = CompletableFuture.supplyAsync(
+                () -> bulkReportGenerationService.cancelBatch(batch.getId(), UUID.randomUUID()));
+        Thread.sleep(200);
+        release.countDown();
+
+        worker.get(10, TimeUnit.SECONDS);
+        assertThat(cancel.get(10, TimeUnit.SECONDS)).isTrue();
+
+        ReportGenerationBatch cancelled = batchRepository.findById(batch.getId()).orElseThrow();
+        assertThat(cancelled.getStatus()).isEqualTo(ReportGenerationBatch.BatchStatus.CANCELLED);
+        assertThat(cancelled.getCompletedReports()).isEqualTo(5);
+    }
+
+    @Test
+    void getBatchStatus_ShouldReportItemCountsFromGroupedQuery() {
+        BulkReportGenerationDto.BatchProcessingInfo before = bulkReportGenerationService.getBatchStatus(batch.getId())
+                .getProcessingInfo();
+        assertThat(before.getPendingItems()).isEqualTo(ITEM_COUNT);
+        assertThat(before.getCompletedItems()).isZero();
+
+        bulkReportGenerationService.processBatch(batch.getId());
+
+        BulkReportGenerationDto after = bulkReportGenerationService.getBatchStatus(batch.getId());
+        assertThat(after.getProcessingInfo().getCompletedItems()).isEqualTo(ITEM_COUNT);
+        assertThat(after.getProcessingInfo().getPendingItems()).isZero();
+        assertThat(after.getProcessingInfo().getFailedItems()).isZero();
+        assertThat(after.getResultSummary().getGeneratedReports()).hasSize(ITEM_COUNT);
+    }
+
+    @Test
+    void reapExpiredLeases_ShouldRequeueItemsOfCrashedNode() {
+        batch.setStatus(ReportGenerationBatch.BatchStatus.IN_PROGRESS);
+        batch = batchRepository.save(batch);
+
+        // Simulate a node that leased items and died without heartbeating
+        List<UUID> abandoned = itemRepository.findByBatchIdOrderByPriority(batch.getId()).stream()
+                .limit(5)
+                .map(ReportGenerationItem::getId)
+                .toList();
+        // One of them already lost a lease before
+        ReportGenerationItem secondLoss = itemRepository.findById(abandoned.getLast()).orElseThrow();
+        secondLoss.setRetryCount(1);
+        itemRepository.save(secondLoss);
+        LocalDateTime leasedAt = LocalDateTime.now().minusMinutes(10);
+        newTransaction(() -> itemRepository.leaseItems(abandoned, "crashed-node", leasedAt, leasedAt.plusMinutes(1)));
+
+        assertThat(reportItemProcessor.finalizeBatchIfDone(batch.getId())).isFalse();
+        assertThat(reportItemProcessor.reapExpiredLeases()).isGreaterThanOrEqualTo(abandoned.size());
+
+        // The lost lease counts as an attempt and the item backs off before it is claimed again,
+        // twice as long after the second attempt (app.reports.queue.retry-backoff-ms=30000)
+        List<ReportGenerationItem> reaped = itemRepository.findAllById(abandoned);
+        assertThat(reaped).allMatch(item -> item.getStatus() == ReportGenerationItem.ItemStatus.PENDING)
+                .allMatch(item -> item.getNextAttemptAt() != null && item.getNextAttemptAt().isAfter(leasedAt));
+        ReportGenerationItem firstLossReaped = itemRepository.findById(abandoned.getFirst()).orElseThrow();
+        ReportGenerationItem secondLossReaped = itemRepository.findById(abandoned.getLast()).orElseThrow();
+        assertThat(firstLossReaped.getRetryCount()).isEqualTo(1);
+        assertThat(secondLossReaped.getRetryCount()).isEqualTo(2);
+        assertThat(Duration.between(firstLossReaped.getNextAttemptAt(), secondLossReaped.getNextAttemptAt()))
+                .isEqualTo(Duration.ofSeconds(30));
+        reaped.forEach(item -> item.setNextAttemptAt(null));
+        itemRepository.saveAll(reaped);
+
+        bulkReportGenerationService.processBatch(batch.getId());
+
+        assertThat(itemRepository.findByBatchIdOrderByPriority(batch.getId()))
+                .allMatch(ReportGenerationItem::isCompleted)
+                .allMatch(item -> item.getLeaseOwner() == null);
+        ReportGenerationBatch processed = batchRepository.findById(batch.getId()).orElseThrow();
+        assertThat(processed.getStatus()).isEqualTo(ReportGenerationBatch.BatchStatus.COMPLETED);
+        assertThat(processed.getCompletedReports()).isEqualTo(ITEM_COUNT);
+    }
+
+    @Test
+    void reapExpiredLeases_ShouldFailItemsThatRanOutOfAttempts() {
+        batch.setStatus(ReportGenerationBatch.BatchStatus.IN_PROGRESS);
+        batch = batchRepository.save(batch);
+
+        // An item that already crashed its node twice (app.reports.queue.max-attempts=3)
+        ReportGenerationItem poisoned = itemRepository.findByBatchIdOrderByPriority(batch.getId()).get(0);
+        poisoned.setRetryCount(2);
+        itemRepository.save(poisoned);
+        LocalDateTime leasedAt = LocalDateTime.now().minusMinutes(10);
+        newTransaction(() -> itemRepository.leaseItems(List.of(poisoned.getId()), "crashed-node", leasedAt, leasedAt.plusMinutes(1)));
+
+        assertThat(reportItemProcessor.reapExpiredLeases()).isGreaterThanOrEqualTo(1);
+
+        ReportGenerationItem failed = itemRepository.findById(poisoned.getId()).orElseThrow();
+        assertThat(failed.getStatus()).isEqualTo(ReportGenerationItem.ItemStatus.FAILED);
+        assertThat(failed.getRetryCount()).isEqualTo(3);
+        assertThat(failed.getLeaseOwner()).isNull();
+        assertThat(batchRepository.findById(batch.getId()).orElseThrow().getFailedReports()).isEqualTo(1);
+    }
+
+    @Test
+    void startStrandedBatches_ShouldStartBatchesThatWereNeverPickedUp() {
+        // Committed by a node that died before handing the batch to its report executor
+        batch.setInitiatedAt(LocalDateTime.now().minusMinutes(30));
+        batch = batchRepository.save(batch);
+
+        assertThat(reportItemProcessor.startStrandedBatches(Duration.ofMinutes(5))).isGreaterThanOrEqualTo(1);
+
+        ReportGenerationBatch started = batchRepository.findById(batch.getId()).orElseThrow();
+        assertThat(started.getStatus()).isEqualTo(ReportGenerationBatch.BatchStatus.IN_PROGRESS);
+        assertThat(started.getStartedAt()).isNotNull();
+        assertThat(reportItemProcessor.findInProgressBatchIds()).contains(batch.getId());
+    }
+
+    @Test
+    void initiateBulkReportGeneration_ShouldInsertItemsInJdbcBatches() {
+        int studentCount = 500;
+        int classCount = 2;
+        BulkReportGenerationDto.ReportConfiguration config = BulkReportGenerationDto.ReportConfiguration.builder()
+                .includeStudentReports(true)
+                .includeClassSummaries(true)
+                .includeManagementSummary(true)
+                .build();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        boolean statisticsEnabled = statistics.isStatisticsEnabled();
+
+        // Rolled back, so the batch is never started
+        transactionTemplate.executeWithoutResult(status -> {
+            AcademicTerm bulkTerm = academicTermRepository.save(testDataUtil.createTestAcademicTerm());
+            UUID initiatorId = userRepository.findByUsername("ustadz.ahmad").orElseThrow().getId();
+            seedEnrollments(bulkTerm.getId(), studentCount, classCount);
+            entityManager.clear();
+
+            statistics.setStatisticsEnabled(true);
+            statistics.clear();
+            try {
+                UUID batchId = bulkReportGenerationService.initiateBulkReportGeneration(
+                        bulkTerm.getId(), config, initiatorId);
+                entityManager.flush();
+
+                // One student report per enrollment, one summary per class and the management summary
+                int itemCount = studentCount + classCount + 1;
+                assertThat(statistics.getEntityInsertCount()).isEqualTo(itemCount + 1);
+                // hibernate.jdbc.batch_size=50: about one statement per 50 items plus the reads, not one per row
+                assertThat(statistics.getPrepareStatementCount()).isLessThan(itemCount / 10);
+                assertThat(itemRepository.findByBatchIdOrderByPriority(batchId)).hasSize(itemCount);
+            } finally {
+                statistics.setStatisticsEnabled(statisticsEnabled);
+                status.setRollbackOnly();
+            }
+        });
+    }
+
+    /**
+     * Students enrolled in one class each, spread over the term's classes
+     */
+    private void seedEnrollments(UUID termId, int studentCount, int classCount) {
+        jdbcTemplate.update(
+                "INSERT INTO class_groups (name, id_level, id_term, capacity, id_time_slot) " +
+                "SELECT 'Bulk Class ' || g, (SELECT id FROM levels LIMIT 1), ?, ?, (SELECT id FROM time_slot LIMIT 1) " +
+                "FROM generate_series(1, ?) g",
+                termId, studentCount, classCount);
+        jdbcTemplate.update(
+                "INSERT INTO users (username, email, full_name) " +
+                "SELECT 'bulk.item.student.' || g, 'bulk.item.student.' || g || '@test.local', 'Bulk Item Student ' || g " +
+                "FROM generate_series(1, ?) g",
+                studentCount);
+        int enrollments = jdbcTemplate.update(
+                "INSERT INTO enrollments (id_student, id_class_group, status) " +
+                "SELECT u.id, cg.id, 'ACTIVE' " +
+                "FROM (SELECT id, row_number() OVER (ORDER BY username) AS n FROM users " +
+                "      WHERE username LIKE 'bulk.item.student.%') u " +
+                "JOIN (SELECT id, row_number() OVER (ORDER BY name) - 1 AS n FROM class_groups " +
+                "      WHERE id_term = ?) cg ON u.n % ? = cg.n",
+                termId, classCount);
+        assertThat(enrollments).isEqualTo(studentCount);
+    }
+
+    private void newTransaction(Runnable action) {
+        transactionTemplate.executeWithoutResult(status -> action.run());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.sahabatquran.webapp.service;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import com.sahabatquran.webapp.entity.ClassGroup;
+import com.sahabatquran.webapp.entity.User;
+import com.sahabatquran.webapp.integration.BaseIntegrationTest;
+import com.sahabatquran.webapp.repository.ClassGroupRepository;
+import com.sahabatquran.webapp.repository.EnrollmentRepository;
+import com.sahabatquran.webapp.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for class packets: all report cards of a class are rendered into one
+ * document, and a single report card can be copied back out using the page index.
+ */
+@Transactional
+class ClassPacketServiceIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private ClassPacketService classPacketService;
+
+    @Autowired
+    private ClassGroupRepository classGroupRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Path packetDir;
+
+    @AfterEach
+    void tearDown() {
+        if (packetDir != null) {
+            FileSystemUtils.deleteRecursively(packetDir.toFile());
+        }
+    }
+
+    @Test
+    void generatePacketFile_ShouldIndexEveryReportCardAndServeItFromPacket() throws IOException {
+        // Pick the seeded class with the most enrolled students
+        Map<UUID, Set<UUID>> studentsByClass = enrollmentRepository.findAll().stream()
+                .collect(Collectors.groupingBy(e -> e.getClassGroup().getId(),
+                        Collectors.mapping(e -> e.getStudent().getId(), Collectors.toSet())));
+        Map.Entry<UUID, Set<UUID>> classEntry = studentsByClass.entrySet().stream()
+                .max(Comparator.comparingInt(entry -> entry.getValue().size()))
+                .orElseThrow();
+        ClassGroup classGroup = classGroupRepository.findById(classEntry.getKey()).orElseThrow();
+        UUID termId = classGroup.getTerm().getId();
+        assertThat(classEntry.getValue()).hasSizeGreaterThan(1);
+
+        Path packetPath = classPacketService.generatePacketFile(classGroup.getId());
+        packetDir = packetPath.getParent().getParent();
+
+        // The class summary comes first, then one contiguous page range per student
+        List<ClassPacketService.PacketEntry> entries = new ArrayList<>();
+        for (UUID studentId : classEntry.getValue()) {
+            entries.add(classPacketService.findPacketEntry(classGroup.getId(), termId, studentId).orElseThrow());
+        }
+        entries.sort(Comparator.comparingInt(ClassPacketService.PacketEntry::getFirstPage));
+        assertThat(entries.getFirst().getFirstPage()).isEqualTo(2);
+        for (int i = 1; i < entries.size(); i++) {
+            assertThat(entries.get(i).getFirstPage()).isEqualTo(entries.get(i - 1).getLastPage() + 1);
+        }
+        try (PdfDocument packet = new PdfDocument(new PdfReader(packetPath.toFile()))) {
+            assertThat(packet.getNumberOfPages()).isEqualTo(entries.getLast().getLastPage());
+        }
+
+        // A single report card copied out of the packet holds only that student's pages
+        ClassPacketService.PacketEntry entry = entries.get(entries.size() / 2);
+        User student = userRepository.findById(entry.getStudentId()).orElseThrow();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        classPacketService.writeStudentReportFromPacket(classGroup.getId(), termId, entry, out);
+
+        String text = extractText(out.toByteArray());
+        assertThat(text).contains("STUDENT ACADEMIC REPORT", student.getFullName());
+        assertThat(text).doesNotContain("CLASS SUMMARY REPORT");
+
+        // Regenerating swaps to a new version; the replaced one stays readable for
+        // downloads that already resolved it, and is removed by the generation after
+        Path secondPath = classPacketService.generatePacketFile(classGroup.getId());
+        assertThat(secondPath.getParent()).isNotEqualTo(packetPath.getParent());
+        assertThat(classPacketService.findPacketEntry(classGroup.getId(), termId, entry.getStudentId())
+                .orElseThrow().getVersion()).isEqualTo(secondPath.getParent().getFileName().toString());
+        ByteArrayOutputStream previous = new ByteArrayOutputStream();
+        classPacketService.writeStudentReportFromPacket(classGroup.getId(), termId, entry, previous);
+        assertThat(extractText(previous.toByteArray())).contains(student.getFullName());
+
+        classPacketService.generatePacketFile(classGroup.getId());
+        assertThat(Files.exists(packetPath.getParent())).isFalse();
+        assertThat(Files.exists(secondPath)).isTrue();
+    }
+
+    private String extractText(byte[] pdf) throws IOException {
+        StringBuilder text = new StringBuilder();
+        try (PdfDocument document = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf)))) {
+            for (int page = 1; page <= document.getNumberOfPages(); page++) {
+                text.append(PdfTextExtractor.getTextFromPage(document.getPage(page)));
+            }
+        }
+        return text.toString();
+    }
+}
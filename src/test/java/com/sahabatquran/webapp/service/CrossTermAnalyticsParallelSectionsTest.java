@@ -0,0 +1,183 @@
+package com.sahabatquran.webapp.service;
+
+import com.sahabatquran.webapp.dto.CrossTermAnalyticsDto;
+import com.sahabatquran.webapp.dto.TermMetricsDto;
+import com.sahabatquran.webapp.entity.AcademicTerm;
+import com.sahabatquran.webapp.repository.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for building cross-term analytics sections in parallel: a section that
+ * misses the deadline is shown empty with a warning, a failing section fails the
+ * request, and the parallel result equals the serial one.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Cross-Term Analytics Parallel Sections Tests")
+class CrossTermAnalyticsParallelSectionsTest {
+
+    private static final Duration SECTION_TIMEOUT = Duration.ofMillis(500);
+
+    @Mock
+    private AcademicTermRepository academicTermRepository;
+
+    @Mock
+    private StudentRegistrationRepository studentRegistrationRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private EnrollmentRepository enrollmentRepository;
+
+    @Mock
+    private ClassGroupRepository classGroupRepository;
+
+    @Mock
+    private TeacherLevelAssignmentRepository teacherLevelAssignmentRepository;
+
+    @Mock
+    private FeedbackAnswerRepository feedbackAnswerRepository;
+
+    @Mock
+    private TermMetricsSnapshotService termMetricsSnapshotService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ThreadPoolTaskExecutor pool;
+    private CrossTermAnalyticsService crossTermAnalyticsService;
+    private List<AcademicTerm> terms;
+    private List<UUID> termIds;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+
+        pool = new ThreadPoolTaskExecutor();
+        pool.setCorePoolSize(8);
+        pool.setMaxPoolSize(8);
+        pool.setQueueCapacity(50);
+        pool.initialize();
+
+        crossTermAnalyticsService = new CrossTermAnalyticsService(academicTermRepository,
+                studentRegistrationRepository, userRepository, enrollmentRepository, classGroupRepository,
+                teacherLevelAssignmentRepository, feedbackAnswerRepository, termMetricsSnapshotService,
+                new AnalyticsSectionExecutor(transactionManager, pool, 4));
+        ReflectionTestUtils.setField(crossTermAnalyticsService, "sectionTimeout", SECTION_TIMEOUT);
+
+        terms = List.of(
+                term("Semester 1 2024/2025", LocalDate.of(2024, 8, 1), AcademicTerm.TermStatus.COMPLETED),
+                term("Semester 1 2025/2026", LocalDate.of(2025, 8, 1), AcademicTerm.TermStatus.ACTIVE));
+        termIds = terms.stream().map(AcademicTerm::getId).toList();
+
+        when(academicTermRepository.findAllById(anyIterable())).thenReturn(terms);
+        when(academicTermRepository.findAll()).thenReturn(terms);
+        when(termMetricsSnapshotService.getMetrics(terms)).thenReturn(Map.of(
+                termIds.get(0), metrics(termIds.get(0), 40, 6, 4.2),
+                termIds.get(1), metrics(termIds.get(1), 55, 7, 4.5)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should return a slow section empty within the deadline and warn about it")
+    void shouldReturnSlowSectionEmptyWithinDeadline() {
+        ReflectionTestUtils.setField(crossTermAnalyticsService, "parallelSections", true);
+        when(teacherLevelAssignmentRepository.findByTermId(any())).thenAnswer(invocation -> {
+            Thread.sleep(5_000);
+            return List.of();
+        });
+
+        long start = System.nanoTime();
+        CrossTermAnalyticsDto analytics = crossTermAnalyticsService.getCrossTermAnalytics(termIds);
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertThat(elapsed).isLessThan(SECTION_TIMEOUT.plusSeconds(2));
+        assertThat(analytics.getTeacherAnalytics().getTrends()).isEmpty();
+        assertThat(analytics.getEnrollmentAnalytics().getTrends()).hasSize(2);
+        assertThat(analytics.getDataValidation().isPartialData()).isTrue();
+        assertThat(analytics.getDataValidation().getWarnings())
+                .contains("Teacher analytics timed out - section shown without data");
+    }
+
+    @Test
+    @DisplayName("Should fail the request when a section fails")
+    void shouldFailRequestWhenSectionFails() {
+        ReflectionTestUtils.setField(crossTermAnalyticsService, "parallelSections", true);
+        when(teacherLevelAssignmentRepository.findByTermId(any()))
+                .thenThrow(new IllegalStateException("connection reset"));
+
+        assertThatThrownBy(() -> crossTermAnalyticsService.getCrossTermAnalytics(termIds))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("Failed to build analytics section: Teacher")
+                .hasRootCauseMessage("connection reset");
+        verify(transactionManager, atLeastOnce()).rollback(any());
+    }
+
+    @Test
+    @DisplayName("Should build the same analytics in serial and parallel mode")
+    void shouldBuildSameAnalyticsInSerialAndParallelMode() {
+        ReflectionTestUtils.setField(crossTermAnalyticsService, "parallelSections", false);
+        CrossTermAnalyticsDto serial = crossTermAnalyticsService.getCrossTermAnalytics(termIds);
+
+        ReflectionTestUtils.setField(crossTermAnalyticsService, "parallelSections", true);
+        CrossTermAnalyticsDto parallel = crossTermAnalyticsService.getCrossTermAnalytics(termIds);
+
+        // The custom metrics carry the build time, which differs between the two runs
+        serial.getCustomMetrics().remove("lastUpdated");
+        parallel.getCustomMetrics().remove("lastUpdated");
+        assertThat(parallel).usingRecursiveComparison().isEqualTo(serial);
+    }
+
+    private static AcademicTerm term(String name, LocalDate startDate, AcademicTerm.TermStatus status) {
+        AcademicTerm term = new AcademicTerm();
+        term.setId(UUID.randomUUID());
+        term.setTermName(name);
+        term.setStartDate(startDate);
+        term.setEndDate(startDate.plusMonths(5));
+        term.setStatus(status);
+        return term;
+    }
+
+    private static TermMetricsDto metrics(UUID termId, long students, long teachers, double rating) {
+        return TermMetricsDto.builder()
+                .termId(termId)
+                .studentCount(students)
+                .enrollmentCount(students)
+                .completedEnrollmentCount(students / 2)
+                .activeAndCompletedEnrollmentCount(students)
+                .teacherCount(teachers)
+                .teacherAssignmentCount(teachers)
+                .activeClassCount(teachers * 2)
+                .averageRating(rating)
+                .averageTeacherRating(rating)
+                .refreshedAt(LocalDateTime.of(2025, 10, 1, 8, 0))
+                .build();
+    }
+}
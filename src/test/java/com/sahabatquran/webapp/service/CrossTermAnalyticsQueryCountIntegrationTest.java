@@ -0,0 +1,173 @@
+package com.sahabatquran.webapp.service;
+
+import com.sahabatquran.webapp.dto.CrossTermAnalyticsDto;
+import com.sahabatquran.webapp.entity.TermMetricsSnapshot;
+import com.sahabatquran.webapp.integration.BaseIntegrationTest;
+import com.sahabatquran.webapp.repository.AcademicTermRepository;
+import com.sahabatquran.webapp.repository.TermMetricsSnapshotRepository;
+import com.sahabatquran.webapp.util.TestDataUtil;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Regression test for the number of SQL statements issued by cross-term analytics.
+ * The statement count must not grow with the number of selected terms.
+ *
+ * Not transactional: term metrics snapshots are refreshed in their own transaction,
+ * so test terms must be committed. They are removed again after each test.
+ * Terms 0, 1 and 7 have a class with two enrolled students, a teacher level assignment
+ * and a teacher evaluation rating, the other terms have no data.
+ */
+class CrossTermAnalyticsQueryCountIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private CrossTermAnalyticsService crossTermAnalyticsService;
+
+    @Autowired
+    private AcademicTermRepository academicTermRepository;
+
+    @Autowired
+    private TermMetricsSnapshotRepository termMetricsSnapshotRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TestDataUtil testDataUtil;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static final List<Integer> SEEDED_TERMS = List.of(0, 1, 7);
+
+    private Statistics statistics;
+    private List<UUID> termIds;
+
+    @BeforeEach
+    void setUp() {
+        termIds = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            termIds.add(academicTermRepository.save(testDataUtil.createTestAcademicTerm()).getId());
+        }
+        SEEDED_TERMS.forEach(i -> seedTermData(termIds.get(i)));
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        statistics.setStatisticsEnabled(false);
+        for (UUID termId : termIds) {
+            jdbcTemplate.update("DELETE FROM feedback_responses WHERE id_campaign IN " +
+                    "(SELECT id FROM feedback_campaigns WHERE id_term = ?)", termId);
+            jdbcTemplate.update("DELETE FROM feedback_campaigns WHERE id_term = ?", termId);
+            jdbcTemplate.update("DELETE FROM teacher_level_assignments WHERE id_term = ?", termId);
+            jdbcTemplate.update("DELETE FROM enrollments WHERE id_class_group IN " +
+                    "(SELECT id FROM class_groups WHERE id_term = ?)", termId);
+            jdbcTemplate.update("DELETE FROM class_groups WHERE id_term = ?", termId);
+        }
+        termMetricsSnapshotRepository.deleteAllById(termIds);
+        academicTermRepository.deleteAllById(termIds);
+    }
+
+    @Test
+    void getCrossTermAnalytics_ShouldIssueSameStatementCount_RegardlessOfTermCount() {
+        // Warm up snapshots so both runs read from the snapshot table
+        crossTermAnalyticsService.getCrossTermAnalytics(termIds);
+
+        long twoTermStatements = countStatements(termIds.subList(0, 2));
+        long twelveTermStatements = countStatements(termIds);
+
+        assertThat(twelveTermStatements).isEqualTo(twoTermStatements);
+        assertThat(twelveTermStatements).isLessThanOrEqualTo(8);
+    }
+
+    @Test
+    void getCrossTermAnalytics_ShouldAggregateWithGroupedQueries_WhenSnapshotsAreMissing() {
+        long twoTermStatements = countStatements(termIds.subList(0, 2));
+        termMetricsSnapshotRepository.deleteAll(termMetricsSnapshotRepository.findByTermIdIn(termIds));
+        long twelveTermStatements = countStatements(termIds);
+
+        // The snapshots of all refreshed terms are written with one statement
+        assertThat(twelveTermStatements).isEqualTo(twoTermStatements);
+
+        for (int i = 0; i < termIds.size(); i++) {
+            TermMetricsSnapshot snapshot = termMetricsSnapshotRepository.findById(termIds.get(i)).orElseThrow();
+            if (SEEDED_TERMS.contains(i)) {
+                assertThat(snapshot.getStudentCount()).isEqualTo(2L);
+                assertThat(snapshot.getEnrollmentCount()).isEqualTo(2L);
+                assertThat(snapshot.getTeacherAssignmentCount()).isEqualTo(1L);
+                assertThat(snapshot.getActiveClassCount()).isEqualTo(1L);
+                assertThat(snapshot.getAverageTeacherRating()).isEqualTo(4.0);
+            } else {
+                assertThat(snapshot.getEnrollmentCount()).isZero();
+                assertThat(snapshot.getTeacherAssignmentCount()).isZero();
+                assertThat(snapshot.getAverageRating()).isNull();
+            }
+        }
+    }
+
+    @Test
+    void getExecutiveDashboard_ShouldIssueSameStatementCount_RegardlessOfTermCount() {
+        crossTermAnalyticsService.getExecutiveDashboard(termIds);
+
+        statistics.clear();
+        crossTermAnalyticsService.getExecutiveDashboard(termIds.subList(0, 2));
+        long twoTermStatements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        crossTermAnalyticsService.getExecutiveDashboard(termIds);
+        long twelveTermStatements = statistics.getPrepareStatementCount();
+
+        assertThat(twelveTermStatements).isEqualTo(twoTermStatements);
+    }
+
+    private void seedTermData(UUID termId) {
+        UUID classGroupId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO class_groups (id, name, id_level, id_instructor, id_term, capacity, id_time_slot) " +
+                "VALUES (?, 'Query Count Class', (SELECT id FROM levels ORDER BY order_number LIMIT 1), " +
+                "(SELECT id FROM users WHERE username = 'ustadz.ahmad'), ?, 10, (SELECT id FROM time_slot LIMIT 1))",
+                classGroupId, termId);
+        jdbcTemplate.update("INSERT INTO enrollments (id_student, id_class_group, status) " +
+                "SELECT id, ?, 'ACTIVE' FROM users WHERE username IN ('siswa.ali', 'siswa.sarah')", classGroupId);
+        jdbcTemplate.update("INSERT INTO teacher_level_assignments (id_term, id_teacher, id_level, competency_level) " +
+                "VALUES (?, (SELECT id FROM users WHERE username = 'ustadz.ahmad'), " +
+                "(SELECT id FROM levels ORDER BY order_number LIMIT 1), 'SENIOR')", termId);
+
+        UUID campaignId = UUID.randomUUID();
+        UUID questionId = UUID.randomUUID();
+        UUID responseId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO feedback_campaigns (id, campaign_name, campaign_type, target_audience, id_term, " +
+                "start_date, end_date) VALUES (?, 'Query Count Campaign', 'TEACHER_EVALUATION', 'STUDENTS', ?, " +
+                "CURRENT_DATE, CURRENT_DATE + 7)", campaignId, termId);
+        jdbcTemplate.update("INSERT INTO feedback_questions (id, id_campaign, question_number, question_text, question_type) " +
+                "VALUES (?, ?, 1, 'Bagaimana cara mengajar ustadz?', 'RATING')", questionId, campaignId);
+        jdbcTemplate.update("INSERT INTO feedback_responses (id, id_campaign, anonymous_token, is_complete) " +
+                "VALUES (?, ?, ?, true)", responseId, campaignId, UUID.randomUUID().toString());
+        jdbcTemplate.update("INSERT INTO feedback_answers (id_response, id_question, rating_value) VALUES (?, ?, 4)",
+                responseId, questionId);
+    }
+
+    private long countStatements(List<UUID> selectedTermIds) {
+        statistics.clear();
+
+        CrossTermAnalyticsDto analytics = crossTermAnalyticsService.getCrossTermAnalytics(selectedTermIds);
+
+        assertThat(analytics.getSelectedTerms()).hasSize(selectedTermIds.size());
+        assertThat(analytics.getMetricsRefreshedAt()).isNotNull();
+        return statistics.getPrepareStatementCount();
+    }
+}
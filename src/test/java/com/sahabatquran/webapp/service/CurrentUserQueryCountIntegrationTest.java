@@ -0,0 +1,145 @@
+package com.sahabatquran.webapp.service;
+
+import com.sahabatquran.webapp.entity.User;
+import com.sahabatquran.webapp.integration.BaseIntegrationTest;
+import com.sahabatquran.webapp.repository.UserRepository;
+import com.sahabatquran.webapp.security.AuthenticatedUser;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.provisioning.JdbcUserDetailsManager;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Regression test for the queries a request issues to identify the logged-in user,
+ * counted over requests through the full filter chain and handler: the principal from
+ * login answers ID, name and roles without SQL, the User entity is loaded at most once
+ * per user within the cache TTL, and saving the user drops the cached entity.
+ */
+class CurrentUserQueryCountIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private JdbcUserDetailsManager userDetailsManager;
+
+    @Autowired
+    private CurrentUserService currentUserService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private MockMvc mockMvc;
+    private Statistics statistics;
+    private boolean statisticsEnabled;
+    private AuthenticatedUser instructor;
+    private AuthenticatedUser student;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+
+        instructor = (AuthenticatedUser) userDetailsManager.loadUserByUsername("ustadz.ahmad");
+        student = (AuthenticatedUser) userDetailsManager.loadUserByUsername("siswa.ali");
+        currentUserService.evict(instructor.getId());
+        currentUserService.evict(student.getId());
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statisticsEnabled = statistics.isStatisticsEnabled();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        statistics.setStatisticsEnabled(statisticsEnabled);
+    }
+
+    @Test
+    void login_ShouldLoadIdNameAndRolesIntoPrincipal() {
+        assertThat(instructor.getId()).isNotNull();
+        assertThat(instructor.getFullName()).isNotBlank();
+        assertThat(instructor.getRoleCodes()).isNotEmpty();
+        assertThat(instructor.getAuthorities()).isNotEmpty();
+    }
+
+    @Test
+    void request_ShouldNotQuery_ForPrincipalParameter() throws Exception {
+        statistics.clear();
+
+        mockMvc.perform(post("/student/feedback/recover-session")
+                        .param("sessionToken", "token")
+                        .with(user(student))
+                        .with(csrf()))
+                .andExpect(status().isOk());
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void request_ShouldLoadUserOnce_AcrossRequests() throws Exception {
+        statistics.clear();
+        mockMvc.perform(get("/dashboard").with(user(instructor))).andExpect(status().isOk());
+        long firstRequestStatements = statistics.getPrepareStatementCount();
+        assertThat(userLoadCount()).isEqualTo(1);
+
+        for (int i = 0; i < 10; i++) {
+            statistics.clear();
+            mockMvc.perform(get("/dashboard").with(user(instructor))).andExpect(status().isOk());
+            assertThat(userLoadCount()).isZero();
+            assertThat(statistics.getPrepareStatementCount()).isZero();
+        }
+        assertThat(firstRequestStatements).isPositive();
+    }
+
+    @Test
+    void request_ShouldReloadUser_AfterUserIsSaved() throws Exception {
+        mockMvc.perform(get("/dashboard").with(user(instructor))).andExpect(status().isOk());
+        String originalPhone = userRepository.findById(instructor.getId()).orElseThrow().getPhoneNumber();
+
+        try {
+            setPhoneNumber("081299990000");
+
+            statistics.clear();
+            String page = mockMvc.perform(get("/dashboard").with(user(instructor)))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            assertThat(userLoadCount()).isEqualTo(1);
+            assertThat(page).contains("081299990000");
+        } finally {
+            setPhoneNumber(originalPhone);
+        }
+    }
+
+    private void setPhoneNumber(String phoneNumber) {
+        transactionTemplate.executeWithoutResult(status -> {
+            User user = userRepository.findById(instructor.getId()).orElseThrow();
+            user.setPhoneNumber(phoneNumber);
+        });
+    }
+
+    private long userLoadCount() {
+        return statistics.getEntityStatistics(User.class.getName()).getLoadCount();
+    }
+}
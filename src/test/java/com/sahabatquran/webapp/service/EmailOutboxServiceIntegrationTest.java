@@ -0,0 +1,193 @@
+package com.sahabatquran.webapp.service;
+
+import com.sahabatquran.webapp.entity.AcademicTerm;
+import com.sahabatquran.webapp.entity.EmailOutboxMessage;
+import com.sahabatquran.webapp.entity.ReportGenerationBatch;
+import com.sahabatquran.webapp.entity.ReportGenerationItem;
+import com.sahabatquran.webapp.integration.BaseIntegrationTest;
+import com.sahabatquran.webapp.repository.AcademicTermRepository;
+import com.sahabatquran.webapp.repository.EmailOutboxRepository;
+import com.sahabatquran.webapp.repository.ReportGenerationBatchRepository;
+import com.sahabatquran.webapp.repository.ReportGenerationItemRepository;
+import com.sahabatquran.webapp.repository.UserRepository;
+import com.sahabatquran.webapp.util.TestDataUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for the email outbox: queued report notifications are sent through
+ * the stub email service and their report items are marked as distributed in bulk.
+ */
+class EmailOutboxServiceIntegrationTest extends BaseIntegrationTest {
+
+    private static final int ITEM_COUNT = 120;
+
+    @Autowired
+    private EmailOutboxService emailOutboxService;
+
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+
+    @Autowired
+    private ReportGenerationBatchRepository batchRepository;
+
+    @Autowired
+    private ReportGenerationItemRepository itemRepository;
+
+    @Autowired
+    private AcademicTermRepository academicTermRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestDataUtil testDataUtil;
+
+    private AcademicTerm term;
+    private ReportGenerationBatch batch;
+    private List<ReportGenerationItem> items;
+
+    @BeforeEach
+    void setUp() {
+        term = academicTermRepository.save(testDataUtil.createTestAcademicTerm());
+
+        batch = new ReportGenerationBatch();
+        batch.setTerm(term);
+        batch.setInitiatedBy(userRepository.findByUsername("ustadz.ahmad").orElseThrow());
+        batch.setBatchName("Outbox Test");
+        batch.setReportType(ReportGenerationBatch.ReportType.CUSTOM_REPORT_BATCH);
+        batch.setStatus(ReportGenerationBatch.BatchStatus.COMPLETED);
+        batch.setTotalReports(ITEM_COUNT);
+        batch = batchRepository.save(batch);
+
+        items = new ArrayList<>();
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            ReportGenerationItem item = new ReportGenerationItem();
+            item.setBatch(batch);
+            item.setReportType(ReportGenerationItem.ReportType.MANAGEMENT_SUMMARY);
+            item.setReportSubject("Outbox Report " + i);
+            item.setStatus(ReportGenerationItem.ItemStatus.COMPLETED);
+            item.setCompletedAt(LocalDateTime.now());
+            items.add(item);
+        }
+        items = itemRepository.saveAll(items);
+    }
+
+    @AfterEach
+    void tearDown() {
+        // Outbox rows go with their report items (ON DELETE CASCADE)
+        itemRepository.deleteAll(itemRepository.findByBatchIdOrderByPriority(batch.getId()));
+        batchRepository.deleteById(batch.getId());
+        academicTermRepository.deleteById(term.getId());
+    }
+
+    @Test
+    void dispatchPending_ShouldSendQueuedEmailsAndMarkItemsDistributed() throws InterruptedException {
+        List<EmailOutboxMessage> messages = items.stream()
+                .map(item -> EmailOutboxService.message(EmailOutboxMessage.MessageType.REPORT_NOTIFICATION,
+                        item.getId(), "parent." + item.getId() + "@example.com", item.getReportSubject(),
+                        "Unduh laporan: {{DOWNLOAD_URL}}", "http://localhost:8080/reports/download/" + item.getId()))
+                .toList();
+        emailOutboxService.enqueue(messages);
+
+        // The scheduled dispatcher may be sending a chunk at the same time; SKIP LOCKED keeps them apart
+        LocalDateTime deadline = LocalDateTime.now().plusSeconds(30);
+        while (!allItemsDistributed() && LocalDateTime.now().isBefore(deadline)) {
+            emailOutboxService.dispatchPending();
+            Thread.sleep(100);
+        }
+
+        for (ReportGenerationItem item : items) {
+            List<EmailOutboxMessage> sent = outboxRepository.findByReportItemId(item.getId());
+            assertThat(sent).hasSize(1);
+            assertThat(sent.getFirst().getStatus()).isEqualTo(EmailOutboxMessage.OutboxStatus.SENT);
+            assertThat(sent.getFirst().getAttempts()).isEqualTo(1);
+        }
+        assertThat(itemRepository.findByBatchIdOrderByPriority(batch.getId()))
+                .allMatch(ReportGenerationItem::getDistributed)
+                .allMatch(item -> EmailOutboxService.EMAIL_DISTRIBUTION.equals(item.getDistributionMethod()))
+                .allMatch(item -> item.getDistributedAt() != null);
+    }
+
+    @Test
+    void dispatchPending_ShouldFailExpiredClaim_WhenLastAttemptWasLost() throws InterruptedException {
+        // Two messages claimed by a dispatcher that stopped: one on its last attempt, one with attempts left
+        EmailOutboxMessage lastAttempt = expiredClaim(items.get(0), 5);
+        EmailOutboxMessage attemptsLeft = expiredClaim(items.get(1), 1);
+
+        LocalDateTime deadline = LocalDateTime.now().plusSeconds(30);
+        while (LocalDateTime.now().isBefore(deadline)
+                && (status(lastAttempt) == EmailOutboxMessage.OutboxStatus.SENDING
+                    || status(attemptsLeft) != EmailOutboxMessage.OutboxStatus.SENT)) {
+            emailOutboxService.dispatchPending();
+            Thread.sleep(100);
+        }
+
+        EmailOutboxMessage failed = outboxRepository.findById(lastAttempt.getId()).orElseThrow();
+        assertThat(failed.getStatus()).isEqualTo(EmailOutboxMessage.OutboxStatus.FAILED);
+        assertThat(failed.getAttempts()).isEqualTo(5);
+        assertThat(failed.getLastError()).isNotBlank();
+
+        EmailOutboxMessage released = outboxRepository.findById(attemptsLeft.getId()).orElseThrow();
+        assertThat(released.getStatus()).isEqualTo(EmailOutboxMessage.OutboxStatus.SENT);
+        assertThat(released.getAttempts()).isEqualTo(2);
+    }
+
+    @Test
+    void dispatchPending_ShouldStopAtDailyLimit_CountingEmailsSentByAllNodes() throws InterruptedException {
+        // Emails already sent today by any node count against the shared limit; three more may go out
+        EmailOutboxService target = AopTestUtils.getTargetObject(emailOutboxService);
+        Object dailyLimit = ReflectionTestUtils.getField(target, "dailyLimit");
+        long sentToday = outboxRepository.countSentOrSendingSince(LocalDateTime.now().toLocalDate().atStartOfDay());
+        ReflectionTestUtils.setField(target, "dailyLimit", (int) sentToday + 3);
+        try {
+            emailOutboxService.enqueue(items.subList(0, 10).stream()
+                    .map(item -> EmailOutboxService.message(EmailOutboxMessage.MessageType.REPORT_NOTIFICATION,
+                            item.getId(), "parent." + item.getId() + "@example.com", item.getReportSubject(),
+                            "Unduh laporan: {{DOWNLOAD_URL}}", "http://localhost:8080/reports/download/" + item.getId()))
+                    .toList());
+
+            for (int i = 0; i < 10; i++) {
+                emailOutboxService.dispatchPending();
+                Thread.sleep(100);
+            }
+        } finally {
+            ReflectionTestUtils.setField(target, "dailyLimit", dailyLimit);
+        }
+
+        long sent = items.subList(0, 10).stream()
+                .flatMap(item -> outboxRepository.findByReportItemId(item.getId()).stream())
+                .filter(message -> message.getStatus() == EmailOutboxMessage.OutboxStatus.SENT)
+                .count();
+        assertThat(sent).isEqualTo(3);
+    }
+
+    private EmailOutboxMessage expiredClaim(ReportGenerationItem item, int attempts) {
+        EmailOutboxMessage message = EmailOutboxService.message(EmailOutboxMessage.MessageType.REPORT_NOTIFICATION,
+                item.getId(), "parent." + item.getId() + "@example.com", item.getReportSubject(),
+                "Unduh laporan: {{DOWNLOAD_URL}}", "http://localhost:8080/reports/download/" + item.getId());
+        message.setStatus(EmailOutboxMessage.OutboxStatus.SENDING);
+        message.setAttempts(attempts);
+        message.setNextAttemptAt(LocalDateTime.now().minusMinutes(1));
+        return outboxRepository.save(message);
+    }
+
+    private EmailOutboxMessage.OutboxStatus status(EmailOutboxMessage message) {
+        return outboxRepository.findById(message.getId()).orElseThrow().getStatus();
+    }
+
+    private boolean allItemsDistributed() {
+        return itemRepository.findByBatchIdOrderByPriority(batch.getId()).stream()
+                .allMatch(ReportGenerationItem::getDistributed);
+    }
+}
@@ -0,0 +1,44 @@
+package com.sahabatquran.webapp.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for EmailRateLimiter: burst and steady refill rate
+ */
+@DisplayName("Email Rate Limiter Tests")
+class EmailRateLimiterTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    @Test
+    @DisplayName("Should allow a burst, then refill at the configured rate")
+    void shouldRefillAtConfiguredRate() {
+        EmailRateLimiter limiter = new EmailRateLimiter(2, 3, nanos::get);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+
+        // 2 permits per second: one token every 500 ms
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(499));
+        assertFalse(limiter.tryAcquire());
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+
+        // The bucket never holds more than the burst
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(60));
+        int available = 0;
+        while (limiter.tryAcquire()) {
+            available++;
+        }
+        assertEquals(3, available);
+    }
+}
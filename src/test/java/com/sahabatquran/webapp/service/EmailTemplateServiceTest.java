@@ -0,0 +1,52 @@
+package com.sahabatquran.webapp.service;
+
+import com.sahabatquran.webapp.dto.StudentReportEmailDto;
+import com.sahabatquran.webapp.service.impl.NoopEmailService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for EmailTemplateService: templates are compiled once and both parts of a
+ * report email come out of a single render.
+ */
+@DisplayName("Email Template Service Tests")
+class EmailTemplateServiceTest {
+
+    private EmailTemplateService service;
+    private StudentReportEmailDto emailData;
+
+    @BeforeEach
+    void setUp() {
+        service = new EmailTemplateService();
+        service.compileTemplates();
+        emailData = new NoopEmailService(service).createSampleEmailData("test-student-id");
+    }
+
+    @Test
+    @DisplayName("Should render HTML and plain text parts identical to rendering each template")
+    void shouldRenderBothPartsInOnePass() {
+        EmailTemplateService.RenderedEmail email = service.renderEmail(emailData);
+
+        assertEquals(service.generateEmailSubject(emailData), email.subject());
+        assertEquals(service.generateEmailContent(emailData), email.html());
+        assertEquals(service.generatePlainTextEmailContent(emailData), email.text());
+        assertTrue(email.html().startsWith("<!DOCTYPE html>"));
+        assertTrue(email.text().contains("Ahmad Fauzan"));
+    }
+
+    @Test
+    @DisplayName("Should not leak content from a previous render through the reused buffer")
+    void shouldIsolateConsecutiveRenders() {
+        String first = service.renderEmail(emailData).text();
+
+        emailData.setStudentName("Fatimah");
+        String second = service.renderEmail(emailData).text();
+
+        assertTrue(first.contains("Ahmad Fauzan"));
+        assertTrue(second.contains("Fatimah"));
+        assertFalse(second.contains("Yth. Orang Tua/Wali Ahmad Fauzan"));
+    }
+}
@@ -0,0 +1,127 @@
+package com.sahabatquran.webapp.service;
+
+import com.sahabatquran.webapp.dto.FeedbackSubmissionDto;
+import com.sahabatquran.webapp.integration.BaseIntegrationTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A whole class submitting feedback at once: 500 parallel submissions from 250 students,
+ * each submitting twice. Every student is counted exactly once, the duplicates are
+ * reported as such, and the campaign counter loses no increments.
+ */
+@DisplayName("Feedback Submission Concurrency Integration Tests")
+class FeedbackSubmissionConcurrencyIntegrationTest extends BaseIntegrationTest {
+
+    private static final int STUDENTS = 250;
+    private static final int SUBMISSIONS_PER_STUDENT = 2;
+    private static final String USERNAME_PREFIX = "feedback.load.";
+
+    @Autowired
+    private StudentFeedbackService studentFeedbackService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UUID campaignId;
+    private UUID questionId;
+
+    @BeforeEach
+    void setUp() {
+        campaignId = UUID.randomUUID();
+        questionId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO feedback_campaigns (id, campaign_name, campaign_type, target_audience, " +
+                "start_date, end_date, min_responses_required) " +
+                "VALUES (?, 'Concurrency Test Campaign', 'TEACHER_EVALUATION', 'STUDENTS', CURRENT_DATE, CURRENT_DATE + 7, 100)",
+                campaignId);
+        jdbcTemplate.update("INSERT INTO feedback_questions (id, id_campaign, question_number, question_text, question_type) " +
+                "VALUES (?, ?, 1, 'Bagaimana cara mengajar ustadz?', 'RATING')", questionId, campaignId);
+        jdbcTemplate.update("INSERT INTO users (username, email, full_name) " +
+                "SELECT CAST(? AS TEXT) || g, CAST(? AS TEXT) || g || '@example.com', 'Feedback Student ' || g " +
+                "FROM generate_series(1, ?) g",
+                USERNAME_PREFIX, USERNAME_PREFIX, STUDENTS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM feedback_responses WHERE id_campaign = ?", campaignId);
+        jdbcTemplate.update("DELETE FROM feedback_campaigns WHERE id = ?", campaignId);
+        jdbcTemplate.update("DELETE FROM users WHERE username LIKE ?", USERNAME_PREFIX + "%");
+    }
+
+    @Test
+    @DisplayName("Should count each student once under 500 parallel submissions")
+    void shouldCountEachStudentOnceUnderParallelSubmissions() throws Exception {
+        List<UUID> studentIds = jdbcTemplate.queryForList(
+                "SELECT id FROM users WHERE username LIKE ?", UUID.class, USERNAME_PREFIX + "%");
+        assertThat(studentIds).hasSize(STUDENTS);
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<FeedbackSubmissionDto.SubmissionResult>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(50)) {
+            for (int i = 0; i < STUDENTS * SUBMISSIONS_PER_STUDENT; i++) {
+                UUID studentId = studentIds.get(i % STUDENTS);
+                int rating = i % 5 + 1;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return studentFeedbackService.submitFeedback(campaignId, studentId, feedback(rating));
+                }));
+            }
+            start.countDown();
+
+            int succeeded = 0;
+            int duplicates = 0;
+            for (Future<FeedbackSubmissionDto.SubmissionResult> result : results) {
+                FeedbackSubmissionDto.SubmissionResult submission = result.get();
+                if (Boolean.TRUE.equals(submission.getSuccess())) {
+                    succeeded++;
+                } else if (Boolean.TRUE.equals(submission.getIsDuplicate())) {
+                    duplicates++;
+                }
+            }
+            assertThat(succeeded).isEqualTo(STUDENTS);
+            assertThat(duplicates).isEqualTo(STUDENTS * (SUBMISSIONS_PER_STUDENT - 1));
+        }
+
+        Map<String, Object> campaign = jdbcTemplate.queryForMap(
+                "SELECT current_responses, response_rate FROM feedback_campaigns WHERE id = ?", campaignId);
+        assertThat(((Number) campaign.get("current_responses")).intValue()).isEqualTo(STUDENTS);
+        assertThat((BigDecimal) campaign.get("response_rate")).isEqualByComparingTo("250.00");
+
+        Map<String, Object> responses = jdbcTemplate.queryForMap(
+                "SELECT COUNT(*) AS responses, COUNT(*) FILTER (WHERE is_complete) AS complete, " +
+                "(SELECT COUNT(*) FROM feedback_answers a JOIN feedback_responses r ON a.id_response = r.id " +
+                "WHERE r.id_campaign = ?) AS answers " +
+                "FROM feedback_responses WHERE id_campaign = ?",
+                campaignId, campaignId);
+        assertThat(((Number) responses.get("responses")).intValue()).isEqualTo(STUDENTS);
+        assertThat(((Number) responses.get("complete")).intValue()).isEqualTo(STUDENTS);
+        assertThat(((Number) responses.get("answers")).intValue()).isEqualTo(STUDENTS);
+    }
+
+    private FeedbackSubmissionDto.FeedbackData feedback(int rating) {
+        return FeedbackSubmissionDto.FeedbackData.builder()
+                .answers(List.of(FeedbackSubmissionDto.AnswerData.builder()
+                        .questionId(questionId)
+                        .rating(rating)
+                        .build()))
+                .deviceInfo("load-test")
+                .build();
+    }
+}
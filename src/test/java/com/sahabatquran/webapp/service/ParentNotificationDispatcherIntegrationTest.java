@@ -0,0 +1,119 @@
+package com.sahabatquran.webapp.service;
+
+import com.sahabatquran.webapp.entity.ParentNotification;
+import com.sahabatquran.webapp.integration.BaseIntegrationTest;
+import com.sahabatquran.webapp.repository.ParentNotificationRepository;
+import com.sahabatquran.webapp.service.impl.EmailNotificationSender;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for the parent notification dispatcher: a backlog of 10,000
+ * notifications over all channels drains in committed chunks, and notifications that
+ * can never be delivered are marked failed instead of being retried. Email
+ * notifications are handed to the email outbox, once per notification.
+ */
+class ParentNotificationDispatcherIntegrationTest extends BaseIntegrationTest {
+
+    private static final int BACKLOG = 10_000;
+    private static final String SUBJECT_PREFIX = "Dispatch Test";
+
+    @Autowired
+    private ParentNotificationDispatcher dispatcher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EmailNotificationSender emailNotificationSender;
+
+    @Autowired
+    private ParentNotificationRepository notificationRepository;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM parent_notifications WHERE subject LIKE ?", SUBJECT_PREFIX + "%");
+        jdbcTemplate.update("DELETE FROM email_outbox WHERE subject LIKE ?", SUBJECT_PREFIX + "%");
+    }
+
+    @Test
+    void dispatchPending_ShouldDrainBacklogAcrossAllChannels() throws InterruptedException {
+        // Channels round-robin; every 100th notification (an SMS) has no contact and cannot be delivered
+        jdbcTemplate.update(
+                "INSERT INTO parent_notifications (id_student, notification_type, subject, message, " +
+                "delivery_method, recipient_contact, created_at) " +
+                "SELECT (SELECT id FROM users WHERE username = 'siswa.ali'), 'GENERAL', CAST(? AS TEXT) || ' ' || g, 'Pesan ' || g, " +
+                "(ARRAY['SMS', 'EMAIL', 'WHATSAPP', 'IN_APP'])[g % 4 + 1], " +
+                "CASE WHEN g % 100 = 0 THEN NULL ELSE 'parent' || g || '@example.com' END, " +
+                "now() - interval '1 hour' " +
+                "FROM generate_series(1, ?) g",
+                SUBJECT_PREFIX, BACKLOG);
+        double sentBefore = dispatchedCount("sent");
+
+        // The scheduled dispatcher may take some of the chunks; SKIP LOCKED keeps them apart
+        LocalDateTime deadline = LocalDateTime.now().plusSeconds(60);
+        while (countUnfinished() > 0 && LocalDateTime.now().isBefore(deadline)) {
+            dispatcher.dispatchPending();
+            Thread.sleep(50);
+        }
+
+        Map<String, Object> counts = jdbcTemplate.queryForMap(
+                "SELECT COUNT(*) FILTER (WHERE is_sent) AS sent, " +
+                "COUNT(*) FILTER (WHERE is_failed) AS failed, " +
+                "COUNT(*) FILTER (WHERE attempts <> 1) AS reattempted " +
+                "FROM parent_notifications WHERE subject LIKE ?",
+                SUBJECT_PREFIX + "%");
+        int undeliverable = BACKLOG / 100;
+        assertThat(((Number) counts.get("sent")).intValue()).isEqualTo(BACKLOG - undeliverable);
+        assertThat(((Number) counts.get("failed")).intValue()).isEqualTo(undeliverable);
+        assertThat(((Number) counts.get("reattempted")).intValue()).isZero();
+        assertThat(dispatchedCount("sent") - sentBefore).isGreaterThanOrEqualTo(BACKLOG - undeliverable);
+        // Every EMAIL notification has a contact and became exactly one outbox message
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM email_outbox WHERE subject LIKE ? AND message_type = 'PARENT_NOTIFICATION'",
+                Integer.class, SUBJECT_PREFIX + "%")).isEqualTo(BACKLOG / 4);
+    }
+
+    @Test
+    void emailChannel_ShouldQueueNotificationOnce_WhenSentAgainAfterLostResult() {
+        UUID notificationId = jdbcTemplate.queryForObject(
+                "INSERT INTO parent_notifications (id_student, notification_type, subject, message, " +
+                "delivery_method, recipient_contact) " +
+                "SELECT id, 'GENERAL', ?, 'Pesan', 'EMAIL', 'parent@example.com' FROM users WHERE username = 'siswa.ali' " +
+                "RETURNING id",
+                UUID.class, SUBJECT_PREFIX + " Once");
+        ParentNotification notification = notificationRepository.findById(notificationId).orElseThrow();
+
+        // The first result was never recorded, so the notification is claimed and sent a second time
+        emailNotificationSender.send(notification);
+        emailNotificationSender.send(notification);
+
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM email_outbox WHERE id_parent_notification = ?",
+                Integer.class, notificationId)).isEqualTo(1);
+    }
+
+    private int countUnfinished() {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM parent_notifications WHERE subject LIKE ? AND is_sent = false AND is_failed = false",
+                Integer.class, SUBJECT_PREFIX + "%");
+    }
+
+    private double dispatchedCount(String outcome) {
+        return meterRegistry.find("notifications.dispatched").tag("outcome", outcome).counters().stream()
+                .mapToDouble(counter -> counter.count())
+                .sum();
+    }
+}
@@ -0,0 +1,139 @@
+package com.sahabatquran.webapp.service;
+
+import com.sahabatquran.webapp.entity.ParentNotification;
+import com.sahabatquran.webapp.repository.ParentNotificationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ParentNotificationDispatcher: every channel claims and records its own
+ * chunks, so a stalled channel does not hold back the results of the others.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Parent Notification Dispatcher Tests")
+class ParentNotificationDispatcherTest {
+
+    @Mock
+    private ParentNotificationRepository notificationRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final CountDownLatch releaseSms = new CountDownLatch(1);
+    private ParentNotificationDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        List<Object[]> backlog = new ArrayList<>();
+        backlog.add(new Object[]{0L, null});
+        lenient().when(notificationRepository.getPendingBacklog()).thenReturn(backlog);
+
+        NotificationChannelSender sms = sender(ParentNotification.DeliveryMethod.SMS, () -> {
+            try {
+                releaseSms.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        NotificationChannelSender inApp = sender(ParentNotification.DeliveryMethod.IN_APP, () -> { });
+
+        dispatcher = new ParentNotificationDispatcher(notificationRepository, List.of(sms, inApp),
+                new SimpleMeterRegistry(), transactionManager);
+        ReflectionTestUtils.setField(dispatcher, "claimSize", 10);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 5);
+        ReflectionTestUtils.setField(dispatcher, "claimTimeoutMillis", 600_000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseSms.countDown();
+        dispatcher.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should record sent in-app notifications while the SMS channel is stalled")
+    void shouldNotWaitForSlowChannel() {
+        ParentNotification smsNotification = notification(ParentNotification.DeliveryMethod.SMS);
+        ParentNotification inAppNotification = notification(ParentNotification.DeliveryMethod.IN_APP);
+        claimOnce(smsNotification);
+        claimOnce(inAppNotification);
+
+        dispatcher.dispatchPending();
+
+        verify(notificationRepository, timeout(5_000)).markSent(eq(List.of(inAppNotification.getId())), any());
+        verify(notificationRepository, never()).markSent(eq(List.of(smsNotification.getId())), any());
+
+        releaseSms.countDown();
+        verify(notificationRepository, timeout(5_000)).markSent(eq(List.of(smsNotification.getId())), any());
+    }
+
+    @Test
+    @DisplayName("Should fail notifications of channels without a sender before claiming")
+    void shouldFailNotificationsWithoutSender() {
+        dispatcher.dispatchPending();
+
+        verify(notificationRepository).failWithoutChannel(
+                argThat(channels -> channels.size() == 2
+                        && channels.contains(ParentNotification.DeliveryMethod.SMS)
+                        && channels.contains(ParentNotification.DeliveryMethod.IN_APP)),
+                anyString());
+        verify(notificationRepository, never()).lockNextDueIds(
+                eq(ParentNotification.DeliveryMethod.EMAIL.name()), any(), anyInt());
+    }
+
+    private void claimOnce(ParentNotification notification) {
+        when(notificationRepository.lockNextDueIds(eq(notification.getDeliveryMethod().name()), any(), anyInt()))
+                .thenReturn(List.of(notification.getId()))
+                .thenReturn(List.of());
+        when(notificationRepository.findByIdInWithStudent(List.of(notification.getId())))
+                .thenReturn(List.of(notification));
+    }
+
+    private static ParentNotification notification(ParentNotification.DeliveryMethod channel) {
+        ParentNotification notification = new ParentNotification();
+        notification.setId(UUID.randomUUID());
+        notification.setDeliveryMethod(channel);
+        notification.setRecipientContact("081234567890");
+        notification.setMessage("Pesan");
+        notification.setAttempts(1);
+        return notification;
+    }
+
+    private static NotificationChannelSender sender(ParentNotification.DeliveryMethod channel, Runnable delivery) {
+        return new NotificationChannelSender() {
+            @Override
+            public ParentNotification.DeliveryMethod getChannel() {
+                return channel;
+            }
+
+            @Override
+            public int getMaxConcurrentSends() {
+                return 2;
+            }
+
+            @Override
+            public void send(ParentNotification notification) {
+                delivery.run();
+            }
+        };
+    }
+}
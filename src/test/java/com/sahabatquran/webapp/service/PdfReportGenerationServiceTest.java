@@ -3,6 +3,7 @@ package com.sahabatquran.webapp.service;
 import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfReader;
 import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import com.sahabatquran.webapp.dto.StudentReportData;
 import com.sahabatquran.webapp.entity.*;
 import com.sahabatquran.webapp.repository.*;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,6 +13,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
@@ -22,6 +24,7 @@ import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -39,20 +42,17 @@ import static org.mockito.Mockito.when;
 @DisplayName("PDF Content Generation Tests")
 class PdfReportGenerationServiceTest {
 
-    @Mock
-    private UserRepository userRepository;
-
     @Mock
     private EnrollmentRepository enrollmentRepository;
 
     @Mock
-    private StudentAssessmentRepository studentAssessmentRepository;
+    private ClassGroupRepository classGroupRepository;
 
     @Mock
-    private AttendanceRepository attendanceRepository;
+    private StudentReportDataLoader studentReportDataLoader;
 
-    @Mock
-    private ClassGroupRepository classGroupRepository;
+    @Spy
+    private PdfRenderingResources pdfRenderingResources = new PdfRenderingResources();
 
     @InjectMocks
     private PdfReportGenerationService pdfReportGenerationService;
@@ -90,9 +90,13 @@ class PdfReportGenerationServiceTest {
         UUID studentId = testStudent.getId();
         UUID termId = testTerm.getId();
 
-        when(userRepository.findById(studentId)).thenReturn(Optional.of(testStudent));
-        when(enrollmentRepository.findByStudentAndTerm(studentId, termId)).thenReturn(List.of(testEnrollment));
-        when(studentAssessmentRepository.findByStudentIdAndTermId(studentId, termId)).thenReturn(List.of(testAssessment));
+        when(studentReportDataLoader.loadChunk(List.of(studentId), termId)).thenReturn(Map.of(studentId,
+                StudentReportData.builder()
+                        .termId(termId)
+                        .student(StudentReportData.Student.from(testStudent))
+                        .enrollments(List.of(testEnrollment))
+                        .assessments(List.of(testAssessment))
+                        .build()));
 
         // Act
         String filePath = pdfReportGenerationService.generateStudentReport(studentId, termId, "STANDARD");
@@ -209,9 +213,12 @@ class PdfReportGenerationServiceTest {
         UUID studentId = testStudent.getId();
         UUID termId = testTerm.getId();
 
-        when(userRepository.findById(studentId)).thenReturn(Optional.of(testStudent));
-        when(enrollmentRepository.findByStudentAndTerm(studentId, termId)).thenReturn(List.of()); // No enrollments
-        when(studentAssessmentRepository.findByStudentIdAndTermId(studentId, termId)).thenReturn(List.of()); // No assessments
+        // No enrollments or assessments
+        when(studentReportDataLoader.loadChunk(List.of(studentId), termId)).thenReturn(Map.of(studentId,
+                StudentReportData.builder()
+                        .termId(termId)
+                        .student(StudentReportData.Student.from(testStudent))
+                        .build()));
 
         // Act
         String filePath = pdfReportGenerationService.generateStudentReport(studentId, termId, "STANDARD");
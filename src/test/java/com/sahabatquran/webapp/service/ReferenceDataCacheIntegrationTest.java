@@ -0,0 +1,127 @@
+package com.sahabatquran.webapp.service;
+
+import com.sahabatquran.webapp.entity.Level;
+import com.sahabatquran.webapp.entity.Session;
+import com.sahabatquran.webapp.integration.BaseIntegrationTest;
+import com.sahabatquran.webapp.repository.LevelRepository;
+import com.sahabatquran.webapp.repository.SessionRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for the reference data second-level cache: repeated lookups are
+ * answered from the cache, writes through Hibernate are visible immediately, and
+ * out-of-band SQL changes become visible after an explicit eviction.
+ */
+class ReferenceDataCacheIntegrationTest extends BaseIntegrationTest {
+
+    private static final String SESSION_CODE = "CACHE_TEST";
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private LevelRepository levelRepository;
+
+    @Autowired
+    private ReferenceDataCacheService referenceDataCacheService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        referenceDataCacheService.evictAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM sessions WHERE code = ?", SESSION_CODE);
+        referenceDataCacheService.evictAll();
+    }
+
+    @Test
+    void repeatedLookups_ShouldBeServedFromQueryCache() {
+        List<Session> first = sessionRepository.findByIsActiveTrueOrderByStartTime();
+        levelRepository.findAll();
+        long hits = statistics.getQueryCacheHitCount();
+        long misses = statistics.getQueryCacheMissCount();
+
+        List<Session> second = sessionRepository.findByIsActiveTrueOrderByStartTime();
+        List<Level> levels = levelRepository.findAll();
+
+        assertThat(second).extracting(Session::getId).containsExactlyElementsOf(first.stream().map(Session::getId).toList());
+        assertThat(levels).isNotEmpty();
+        assertThat(statistics.getQueryCacheHitCount() - hits).isEqualTo(2);
+        assertThat(statistics.getQueryCacheMissCount()).isEqualTo(misses);
+    }
+
+    @Test
+    void writesThroughHibernate_ShouldInvalidateCachedQueries() {
+        sessionRepository.findByIsActiveTrueOrderByStartTime();
+
+        Session session = new Session();
+        session.setCode(SESSION_CODE);
+        session.setName("Cache Test Session");
+        session.setStartTime(LocalTime.of(21, 0));
+        session.setEndTime(LocalTime.of(22, 0));
+        session = sessionRepository.save(session);
+        assertThat(sessionRepository.findByIsActiveTrueOrderByStartTime())
+                .extracting(Session::getCode).contains(SESSION_CODE);
+
+        session.setIsActive(false);
+        sessionRepository.save(session);
+        assertThat(sessionRepository.findByIsActiveTrueOrderByStartTime())
+                .extracting(Session::getCode).doesNotContain(SESSION_CODE);
+
+        Level level = levelRepository.findAll().getFirst();
+        String originalName = level.getName();
+        try {
+            level.setName(originalName + " (cache)");
+            levelRepository.save(level);
+            assertThat(levelRepository.findAll()).extracting(Level::getName).contains(originalName + " (cache)");
+            assertThat(levelRepository.findById(level.getId())).get()
+                    .extracting(Level::getName).isEqualTo(originalName + " (cache)");
+        } finally {
+            level.setName(originalName);
+            levelRepository.save(level);
+        }
+    }
+
+    @Test
+    void outOfBandUpdate_ShouldBeVisibleAfterEviction() {
+        Session session = new Session();
+        session.setCode(SESSION_CODE);
+        session.setName("Cache Test Session");
+        session.setStartTime(LocalTime.of(21, 0));
+        session.setEndTime(LocalTime.of(22, 0));
+        session = sessionRepository.save(session);
+        sessionRepository.findById(session.getId());
+
+        jdbcTemplate.update("UPDATE sessions SET name = 'Renamed By SQL' WHERE code = ?", SESSION_CODE);
+        // The cache cannot see plain SQL writes
+        assertThat(sessionRepository.findById(session.getId())).get()
+                .extracting(Session::getName).isEqualTo("Cache Test Session");
+
+        referenceDataCacheService.evict(Session.class);
+        assertThat(sessionRepository.findById(session.getId())).get()
+                .extracting(Session::getName).isEqualTo("Renamed By SQL");
+    }
+}
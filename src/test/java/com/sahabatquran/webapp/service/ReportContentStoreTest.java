@@ -0,0 +1,121 @@
+package com.sahabatquran.webapp.service;
+
+import com.sahabatquran.webapp.dto.StudentReportData;
+import com.sahabatquran.webapp.entity.StudentAssessment;
+import com.sahabatquran.webapp.entity.User;
+import com.sahabatquran.webapp.repository.ReportGenerationItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for ReportContentStore: report cards are keyed by their inputs, so storing
+ * unchanged inputs again reuses the stored file instead of rendering it, and superseded
+ * files stay until the sweep finds them unreferenced.
+ */
+@DisplayName("Report Content Store Tests")
+class ReportContentStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ReportGenerationItemRepository itemRepository;
+    private ReportContentStore reportContentStore;
+    private StudentReportData data;
+
+    @BeforeEach
+    void setUp() {
+        PdfReportGenerationService pdfService = new PdfReportGenerationService(null, null, null, new PdfRenderingResources());
+        itemRepository = mock(ReportGenerationItemRepository.class);
+        reportContentStore = new ReportContentStore(pdfService, itemRepository);
+        ReflectionTestUtils.setField(reportContentStore, "reportsOutputDirectory", tempDir.toString());
+        ReflectionTestUtils.setField(reportContentStore, "objectMinAgeMillis", 86_400_000L);
+
+        User student = new User();
+        student.setId(UUID.randomUUID());
+        student.setUsername("test.student");
+        student.setFullName("Test Student Name");
+        student.setEmail("test.student@example.com");
+
+        StudentAssessment assessment = new StudentAssessment();
+        assessment.setId(UUID.randomUUID());
+        assessment.setStudent(student);
+        assessment.setAssessmentType(StudentAssessment.AssessmentType.PLACEMENT);
+        assessment.setAssessmentScore(new BigDecimal("85.00"));
+        assessment.setAssessmentGrade("A");
+        assessment.setAssessmentDate(LocalDate.now().minusMonths(1));
+
+        data = StudentReportData.builder()
+                .termId(UUID.randomUUID())
+                .student(StudentReportData.Student.from(student))
+                .assessments(new ArrayList<>(List.of(assessment)))
+                .build();
+    }
+
+    @Test
+    @DisplayName("Should skip rendering when report inputs are unchanged")
+    void shouldSkipRenderingWhenInputsUnchanged() throws IOException {
+        ReportContentStore.StoredReport first = reportContentStore.storeStudentReport(data);
+        ReportContentStore.StoredReport second = reportContentStore.storeStudentReport(data);
+
+        assertFalse(first.isReused());
+        assertTrue(second.isReused());
+        assertEquals(first.getFilePath(), second.getFilePath());
+        assertEquals(Files.size(Path.of(first.getFilePath())), first.getFileSizeBytes());
+        assertEquals(Path.of(first.getFilePath()),
+                reportContentStore.findStudentReport(data.getStudent().getId(), data.getTermId()).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Should render a new report card and keep the old one when inputs change")
+    void shouldReplaceReportWhenInputsChange() throws IOException {
+        ReportContentStore.StoredReport first = reportContentStore.storeStudentReport(data);
+
+        data.getAssessments().getFirst().setAssessmentGrade("B");
+        ReportContentStore.StoredReport second = reportContentStore.storeStudentReport(data);
+
+        assertFalse(second.isReused());
+        assertNotEquals(first.getHash(), second.getHash());
+        // Completed items of earlier batches still point at the old object
+        assertTrue(Files.exists(Path.of(first.getFilePath())));
+        assertEquals(Path.of(second.getFilePath()),
+                reportContentStore.findStudentReport(data.getStudent().getId(), data.getTermId()).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Should sweep only old objects that no ref or report item refers to")
+    void shouldSweepUnreferencedObjects() throws IOException {
+        ReportContentStore.StoredReport first = reportContentStore.storeStudentReport(data);
+        data.getAssessments().getFirst().setAssessmentGrade("B");
+        ReportContentStore.StoredReport second = reportContentStore.storeStudentReport(data);
+        data.getAssessments().getFirst().setAssessmentGrade("C");
+        ReportContentStore.StoredReport third = reportContentStore.storeStudentReport(data);
+
+        // Too young to sweep
+        assertEquals(0, reportContentStore.deleteUnreferencedObjects());
+
+        ReflectionTestUtils.setField(reportContentStore, "objectMinAgeMillis", -1L);
+        when(itemRepository.findFilePathsLike(anyString())).thenReturn(List.of(first.getFilePath()));
+        assertEquals(1, reportContentStore.deleteUnreferencedObjects());
+
+        assertTrue(Files.exists(Path.of(first.getFilePath())));
+        assertFalse(Files.exists(Path.of(second.getFilePath())));
+        assertTrue(Files.exists(Path.of(third.getFilePath())));
+    }
+}
@@ -0,0 +1,107 @@
+package com.sahabatquran.webapp.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ReportDownloadService: ETags, conditional GET and byte ranges
+ */
+@DisplayName("Report Download Tests")
+class ReportDownloadServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ReportDownloadService reportDownloadService = new ReportDownloadService();
+
+    private Path file;
+    private byte[] content;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        content = new byte[10_000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        file = tempDir.resolve("0123abcd.pdf");
+        Files.write(file, content);
+    }
+
+    @Test
+    @DisplayName("Should serve the whole file with validators")
+    void shouldServeWholeFileWithValidators() throws IOException {
+        MockHttpServletResponse response = serve(new MockHttpServletRequest("GET", "/report-cards/download-pdf"));
+
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(content, response.getContentAsByteArray());
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertNotNull(response.getHeader(HttpHeaders.LAST_MODIFIED));
+        assertTrue(response.getHeader(HttpHeaders.ETAG).startsWith("\"0123abcd-"));
+    }
+
+    @Test
+    @DisplayName("Should answer 304 when the client's copy is current")
+    void shouldAnswerNotModifiedForMatchingEtag() throws IOException {
+        String etag = serve(new MockHttpServletRequest("GET", "/report-cards/download-pdf")).getHeader(HttpHeaders.ETAG);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/report-cards/download-pdf");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        MockHttpServletResponse response = serve(request);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    @DisplayName("Should serve a single byte range")
+    void shouldServeSingleRange() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/report-cards/download-pdf");
+        request.addHeader(HttpHeaders.RANGE, "bytes=1000-1999");
+        MockHttpServletResponse response = serve(request);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 1000-1999/10000", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertArrayEquals(Arrays.copyOfRange(content, 1000, 2000), response.getContentAsByteArray());
+    }
+
+    @Test
+    @DisplayName("Should serve the whole file when If-Range does not match")
+    void shouldIgnoreRangeForStaleIfRange() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/report-cards/download-pdf");
+        request.addHeader(HttpHeaders.RANGE, "bytes=1000-1999");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"stale\"");
+        MockHttpServletResponse response = serve(request);
+
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(content, response.getContentAsByteArray());
+    }
+
+    @Test
+    @DisplayName("Should reject a range beyond the end of the file")
+    void shouldRejectUnsatisfiableRange() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/report-cards/download-pdf");
+        request.addHeader(HttpHeaders.RANGE, "bytes=20000-");
+        MockHttpServletResponse response = serve(request);
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */10000", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    private MockHttpServletResponse serve(MockHttpServletRequest request) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        reportDownloadService.serveFile(file, () -> "report.pdf", request, response);
+        return response;
+    }
+}
@@ -0,0 +1,134 @@
+package com.sahabatquran.webapp.service;
+
+import com.sahabatquran.webapp.entity.AcademicTerm;
+import com.sahabatquran.webapp.entity.ReportGenerationBatch;
+import com.sahabatquran.webapp.entity.ReportGenerationItem;
+import com.sahabatquran.webapp.entity.User;
+import com.sahabatquran.webapp.integration.BaseIntegrationTest;
+import com.sahabatquran.webapp.repository.AcademicTermRepository;
+import com.sahabatquran.webapp.repository.ReportGenerationBatchRepository;
+import com.sahabatquran.webapp.repository.ReportGenerationItemRepository;
+import com.sahabatquran.webapp.repository.UserRepository;
+import com.sahabatquran.webapp.util.TestDataUtil;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for term-wide report generation: students are streamed from one
+ * projection query and the persistence context never holds more than one chunk of
+ * items, however many enrollments the term has.
+ */
+class ReportOrchestrationServiceIntegrationTest extends BaseIntegrationTest {
+
+    private static final int STUDENT_COUNT = 25_000;
+    private static final int CLASS_COUNT = 2;
+
+    @Autowired
+    private ReportOrchestrationService reportOrchestrationService;
+
+    @Autowired
+    private ReportGenerationBatchRepository batchRepository;
+
+    @Autowired
+    private ReportGenerationItemRepository itemRepository;
+
+    @Autowired
+    private AcademicTermRepository academicTermRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestDataUtil testDataUtil;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.reports.item-chunk-size:500}")
+    private int itemChunkSize;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size}")
+    private int jdbcBatchSize;
+
+    @Test
+    void generateAllStudentReports_ShouldStreamFiftyThousandEnrollmentsInBoundedMemory() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        boolean statisticsEnabled = statistics.isStatisticsEnabled();
+
+        // Everything runs in one transaction that is rolled back, so the batch is never processed
+        transactionTemplate.executeWithoutResult(status -> {
+            AcademicTerm term = academicTermRepository.save(testDataUtil.createTestAcademicTerm());
+            User initiator = userRepository.findByUsername("ustadz.ahmad").orElseThrow();
+            seedEnrollments(term.getId());
+            entityManager.clear();
+
+            statistics.setStatisticsEnabled(true);
+            statistics.clear();
+            try {
+                UUID batchId = reportOrchestrationService.generateAllStudentReports(
+                        term.getId(), initiator.getId(), term.getTermName());
+
+                // Students arrive as id/name rows; only the term, initiator and batch are hydrated
+                assertThat(statistics.getEntityLoadCount()).isLessThan(20);
+                assertThat(statistics.getEntityInsertCount()).isEqualTo(STUDENT_COUNT + 1);
+                // Items are inserted in JDBC batches: about one statement per batch, not one per row
+                assertThat(statistics.getPrepareStatementCount()).isLessThan(STUDENT_COUNT / jdbcBatchSize + 50);
+                // The persistence context is cleared after every chunk of items
+                assertThat(entityManager.unwrap(Session.class).getStatistics().getEntityCount())
+                        .isLessThan(itemChunkSize);
+
+                ReportGenerationBatch batch = batchRepository.findById(batchId).orElseThrow();
+                assertThat(batch.getTotalReports()).isEqualTo(STUDENT_COUNT);
+                assertThat(itemRepository.countByBatchAndStatus(batchId, ReportGenerationItem.ItemStatus.PENDING))
+                        .isEqualTo((long) STUDENT_COUNT);
+            } finally {
+                statistics.setStatisticsEnabled(statisticsEnabled);
+                status.setRollbackOnly();
+            }
+        });
+    }
+
+    /**
+     * Every student is enrolled in each of the term's classes, so the students have to be
+     * de-duplicated: STUDENT_COUNT * CLASS_COUNT = 50,000 enrollments
+     */
+    private void seedEnrollments(UUID termId) {
+        jdbcTemplate.update(
+                "INSERT INTO class_groups (name, id_level, id_term, capacity, id_time_slot) " +
+                "SELECT 'Bulk Class ' || g, (SELECT id FROM levels LIMIT 1), ?, ?, (SELECT id FROM time_slot LIMIT 1) " +
+                "FROM generate_series(1, ?) g",
+                termId, STUDENT_COUNT, CLASS_COUNT);
+        jdbcTemplate.update(
+                "INSERT INTO users (username, email, full_name) " +
+                "SELECT 'bulk.student.' || g, 'bulk.student.' || g || '@test.local', 'Bulk Student ' || g " +
+                "FROM generate_series(1, ?) g",
+                STUDENT_COUNT);
+        int enrollments = jdbcTemplate.update(
+                "INSERT INTO enrollments (id_student, id_class_group, status) " +
+                "SELECT u.id, cg.id, 'ACTIVE' FROM users u CROSS JOIN class_groups cg " +
+                "WHERE u.username LIKE 'bulk.student.%' AND cg.id_term = ?",
+                termId);
+        assertThat(enrollments).isEqualTo(STUDENT_COUNT * CLASS_COUNT);
+    }
+}
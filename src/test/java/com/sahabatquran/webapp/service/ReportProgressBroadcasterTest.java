@@ -0,0 +1,98 @@
+package com.sahabatquran.webapp.service;
+
+import com.sahabatquran.webapp.dto.ReportProgressDto;
+import com.sahabatquran.webapp.entity.ReportGenerationBatch;
+import com.sahabatquran.webapp.repository.ReportGenerationBatchRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ReportProgressBroadcaster: one counter query per tick no matter how
+ * many dashboards are open, and throughput/ETA derived from the batch counters.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Report Progress Broadcaster Tests")
+class ReportProgressBroadcasterTest {
+
+    @Mock
+    private ReportGenerationBatchRepository batchRepository;
+
+    private ReportProgressBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        broadcaster = new ReportProgressBroadcaster(batchRepository, 4, 60_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should not query batches while nobody is subscribed")
+    void shouldSkipQueryWithoutSubscribers() {
+        broadcaster.publishProgress();
+
+        verifyNoInteractions(batchRepository);
+    }
+
+    @Test
+    @DisplayName("Should share one query between all subscribers")
+    void shouldShareOneQueryBetweenSubscribers() {
+        when(batchRepository.findActiveBatches()).thenReturn(List.of(batch(100, 40, 10)));
+        for (int i = 0; i < 50; i++) {
+            broadcaster.subscribe();
+        }
+
+        broadcaster.publishProgress();
+
+        assertEquals(50, broadcaster.getSubscriberCount());
+        verify(batchRepository, times(1)).findActiveBatches();
+        verifyNoMoreInteractions(batchRepository);
+    }
+
+    @Test
+    @DisplayName("Should derive throughput and ETA from the batch counters")
+    void shouldComputeThroughputAndEta() {
+        ReportProgressDto.BatchProgress progress = broadcaster.toProgress(batch(100, 40, 10));
+
+        assertEquals(50, progress.getProgressPercentage());
+        // 50 reports in 10 minutes, 50 left
+        assertEquals(5.0, progress.getReportsPerMinute(), 0.1);
+        assertEquals(600, progress.getEtaSeconds(), 5);
+    }
+
+    @Test
+    @DisplayName("Should leave the ETA empty before the first report is done")
+    void shouldOmitEtaWithoutThroughput() {
+        ReportProgressDto.BatchProgress progress = broadcaster.toProgress(batch(100, 0, 0));
+
+        assertEquals(0.0, progress.getReportsPerMinute());
+        assertNull(progress.getEtaSeconds());
+    }
+
+    private ReportGenerationBatch batch(int total, int completed, int failed) {
+        ReportGenerationBatch batch = new ReportGenerationBatch();
+        batch.setId(UUID.randomUUID());
+        batch.setBatchName("Progress Test");
+        batch.setStatus(ReportGenerationBatch.BatchStatus.IN_PROGRESS);
+        batch.setTotalReports(total);
+        batch.setCompletedReports(completed);
+        batch.setFailedReports(failed);
+        batch.setStartedAt(LocalDateTime.now().minusMinutes(10));
+        return batch;
+    }
+}
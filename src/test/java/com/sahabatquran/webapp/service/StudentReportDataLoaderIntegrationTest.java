@@ -0,0 +1,74 @@
+package com.sahabatquran.webapp.service;
+
+import com.sahabatquran.webapp.dto.StudentReportData;
+import com.sahabatquran.webapp.entity.Enrollment;
+import com.sahabatquran.webapp.integration.BaseIntegrationTest;
+import com.sahabatquran.webapp.repository.EnrollmentRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for the student report prefetch stage: a whole chunk of students
+ * is loaded with a fixed number of statements.
+ */
+@Transactional
+class StudentReportDataLoaderIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private StudentReportDataLoader studentReportDataLoader;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void loadChunk_ShouldLoadWholeChunkWithThreeStatements() {
+        // Pick the seeded term with the most enrolled students
+        Map<UUID, Set<UUID>> studentsByTerm = enrollmentRepository.findAll().stream()
+                .collect(Collectors.groupingBy(e -> e.getClassGroup().getTerm().getId(),
+                        Collectors.mapping(e -> e.getStudent().getId(), Collectors.toSet())));
+        Map.Entry<UUID, Set<UUID>> term = studentsByTerm.entrySet().stream()
+                .max(Comparator.comparingInt(entry -> entry.getValue().size()))
+                .orElseThrow();
+        UUID termId = term.getKey();
+        Set<UUID> studentIds = term.getValue();
+        assertThat(studentIds).hasSizeGreaterThan(1);
+        entityManager.clear();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        Map<UUID, StudentReportData> chunk;
+        try {
+            chunk = studentReportDataLoader.loadChunk(studentIds, termId);
+            // Students, enrollments with classes and assessments; no role or credential selects
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+
+        assertThat(chunk).containsOnlyKeys(studentIds);
+        for (UUID studentId : studentIds) {
+            assertThat(chunk.get(studentId).getStudent().getFullName()).isNotBlank();
+            List<Enrollment> expected = enrollmentRepository.findByStudentAndTerm(studentId, termId);
+            assertThat(chunk.get(studentId).getEnrollments())
+                    .extracting(Enrollment::getId)
+                    .containsExactlyInAnyOrderElementsOf(expected.stream().map(Enrollment::getId).toList());
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.sahabatquran.webapp.service;
+
+import com.sahabatquran.webapp.dto.TermMetricsDto;
+import com.sahabatquran.webapp.entity.AcademicTerm;
+import com.sahabatquran.webapp.entity.Level;
+import com.sahabatquran.webapp.entity.TeacherLevelAssignment;
+import com.sahabatquran.webapp.entity.TermMetricsSnapshot;
+import com.sahabatquran.webapp.entity.User;
+import com.sahabatquran.webapp.integration.BaseIntegrationTest;
+import com.sahabatquran.webapp.repository.AcademicTermRepository;
+import com.sahabatquran.webapp.repository.LevelRepository;
+import com.sahabatquran.webapp.repository.TeacherLevelAssignmentRepository;
+import com.sahabatquran.webapp.repository.TermMetricsSnapshotRepository;
+import com.sahabatquran.webapp.repository.UserRepository;
+import com.sahabatquran.webapp.util.TestDataUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for term metrics snapshots: stale marking by triggers, stale marks made
+ * during a refresh, and freezing of completed terms.
+ */
+class TermMetricsSnapshotServiceIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private TermMetricsSnapshotService termMetricsSnapshotService;
+
+    @Autowired
+    private TermMetricsSnapshotRepository termMetricsSnapshotRepository;
+
+    @Autowired
+    private AcademicTermRepository academicTermRepository;
+
+    @Autowired
+    private TeacherLevelAssignmentRepository teacherLevelAssignmentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private LevelRepository levelRepository;
+
+    @Autowired
+    private TestDataUtil testDataUtil;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private AcademicTerm term;
+
+    @BeforeEach
+    void setUp() {
+        term = testDataUtil.createTestAcademicTerm();
+        term.setStatus(AcademicTerm.TermStatus.ACTIVE);
+        term = academicTermRepository.save(term);
+    }
+
+    @AfterEach
+    void tearDown() {
+        teacherLevelAssignmentRepository.deleteAll(teacherLevelAssignmentRepository.findByTermId(term.getId()));
+        termMetricsSnapshotRepository.deleteById(term.getId());
+        academicTermRepository.deleteById(term.getId());
+    }
+
+    @Test
+    void getMetrics_ShouldRefreshSnapshot_WhenTeacherAssignmentIsWritten() {
+        Map<UUID, TermMetricsDto> before = termMetricsSnapshotService.getMetrics(List.of(term));
+        assertThat(before.get(term.getId()).getTeacherAssignmentCount()).isZero();
+
+        teacherLevelAssignmentRepository.save(newTeacherAssignment());
+
+        TermMetricsSnapshot snapshot = termMetricsSnapshotRepository.findById(term.getId()).orElseThrow();
+        assertThat(snapshot.getIsStale()).isTrue();
+
+        Map<UUID, TermMetricsDto> after = termMetricsSnapshotService.getMetrics(List.of(term));
+        assertThat(after.get(term.getId()).getTeacherAssignmentCount()).isEqualTo(1L);
+        assertThat(after.get(term.getId()).getTeacherCount()).isEqualTo(1L);
+        assertThat(termMetricsSnapshotRepository.findById(term.getId()).orElseThrow().getIsStale()).isFalse();
+    }
+
+    @Test
+    void getMetrics_ShouldFreezeSnapshot_WhenTermIsCompleted() {
+        termMetricsSnapshotService.getMetrics(List.of(term));
+        assertThat(termMetricsSnapshotRepository.findById(term.getId()).orElseThrow().getIsFrozen()).isFalse();
+
+        term.setStatus(AcademicTerm.TermStatus.COMPLETED);
+        term = academicTermRepository.save(term);
+        termMetricsSnapshotService.getMetrics(List.of(term));
+
+        TermMetricsSnapshot frozen = termMetricsSnapshotRepository.findById(term.getId()).orElseThrow();
+        assertThat(frozen.getIsFrozen()).isTrue();
+
+        // Frozen snapshots are served without recomputation
+        Map<UUID, TermMetricsDto> served = termMetricsSnapshotService.getMetrics(List.of(term));
+        assertThat(served.get(term.getId()).getRefreshedAt()).isEqualTo(frozen.getRefreshedAt());
+
+        // ...and are not marked stale by later writes to the term
+        teacherLevelAssignmentRepository.save(newTeacherAssignment());
+        assertThat(termMetricsSnapshotRepository.findById(term.getId()).orElseThrow().getIsStale()).isFalse();
+        served = termMetricsSnapshotService.getMetrics(List.of(term));
+        assertThat(served.get(term.getId()).getTeacherAssignmentCount()).isZero();
+        assertThat(served.get(term.getId()).getRefreshedAt()).isEqualTo(frozen.getRefreshedAt());
+    }
+
+    @Test
+    void refresh_ShouldKeepSnapshotStale_WhenTermChangedDuringAggregation() {
+        termMetricsSnapshotService.getMetrics(List.of(term));
+        long generationBeforeAggregation = termMetricsSnapshotRepository.findById(term.getId()).orElseThrow().getGeneration();
+
+        // A write committed while the refresh is aggregating bumps the generation
+        teacherLevelAssignmentRepository.save(newTeacherAssignment());
+
+        // The refresh then writes the counts it aggregated before the write
+        transactionTemplate.executeWithoutResult(status -> termMetricsSnapshotRepository.upsertAll(
+                new UUID[]{term.getId()}, new Long[]{0L}, new Long[]{0L}, new Long[]{0L}, new Long[]{0L},
+                new Long[]{0L}, new Long[]{0L}, new Long[]{0L}, new Double[]{null}, new Double[]{null},
+                new Boolean[]{false}, new Long[]{generationBeforeAggregation}, new LocalDateTime[]{LocalDateTime.now()}));
+
+        assertThat(termMetricsSnapshotRepository.findById(term.getId()).orElseThrow().getIsStale()).isTrue();
+        Map<UUID, TermMetricsDto> after = termMetricsSnapshotService.getMetrics(List.of(term));
+        assertThat(after.get(term.getId()).getTeacherAssignmentCount()).isEqualTo(1L);
+        assertThat(termMetricsSnapshotRepository.findById(term.getId()).orElseThrow().getIsStale()).isFalse();
+    }
+
+    private TeacherLevelAssignment newTeacherAssignment() {
+        User teacher = userRepository.findByUsername("ustadz.ahmad").orElseThrow();
+        Level level = levelRepository.findAll().get(0);
+        return testDataUtil.createTestTeacherLevelAssignment(teacher, level, term);
+    }
+}
@@ -0,0 +1,6 @@
+-- =====================================================
+-- ANALYTICS EXPORT TEST CLEANUP
+-- =====================================================
+
+DELETE FROM class_groups WHERE name LIKE 'EXPORT_TEST_CLASS_%';
+DELETE FROM academic_terms WHERE term_name LIKE 'EXPORT_TEST_TERM_%';
@@ -0,0 +1,26 @@
+-- =====================================================
+-- ANALYTICS EXPORT TEST SETUP
+-- Large synthetic dataset for streaming export tests:
+-- 10 completed terms with 20,000 classes each
+-- =====================================================
+
+INSERT INTO academic_terms (id, term_name, start_date, end_date, status, preparation_deadline)
+SELECT gen_random_uuid(),
+       'EXPORT_TEST_TERM_' || g,
+       DATE '2015-01-01' + (g * 180),
+       DATE '2015-01-01' + (g * 180) + 150,
+       'COMPLETED',
+       DATE '2015-01-01' + (g * 180) - 7
+FROM generate_series(1, 10) g;
+
+INSERT INTO class_groups (id, name, id_level, id_instructor, id_term, capacity, location)
+SELECT gen_random_uuid(),
+       'EXPORT_TEST_CLASS_' || t.term_name || '_' || g,
+       (SELECT id FROM levels ORDER BY order_number LIMIT 1),
+       ('20000000-0000-0000-0000-00000000000' || (1 + g % 3))::uuid,
+       t.id,
+       10,
+       'Synthetic Room ' || (g % 50)
+FROM academic_terms t
+CROSS JOIN generate_series(1, 20000) g
+WHERE t.term_name LIKE 'EXPORT_TEST_TERM_%';